@@ -0,0 +1,96 @@
+package com.example.bookrecommender.benchmark;
+
+import com.example.bookrecommender.als.AlsModel;
+import com.example.bookrecommender.als.AlsTrainer;
+import com.example.bookrecommender.als.Favorites;
+import com.example.bookrecommender.catalog.CompressedBitmap;
+import com.example.bookrecommender.catalog.TopScores;
+import com.example.bookrecommender.ratings.RatingMatrix;
+import com.example.bookrecommender.ratings.RatingMatrixWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// AlsTrainer and AlsModel on their own, over a random rating matrix in a temporary directory:
+// a full training run (report it per million ratings) and one user's top 10 from a trained model.
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AlsBenchmark {
+    
+    private static final int BOOKS = 50_000;
+    private static final int RATINGS_PER_USER = 20;
+    
+    @Param({"1000000"})
+    public int ratings;
+    
+    @Param({"32"})
+    public int rank;
+    
+    private Path directory;
+    private RatingMatrix matrix;
+    private ForkJoinPool pool;
+    private AlsModel model;
+    private CompressedBitmap readBooks;
+    private int userCount;
+    private int user;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        userCount = ratings / RATINGS_PER_USER;
+        directory = Files.createTempDirectory("als-benchmark");
+        SplittableRandom random = new SplittableRandom(42);
+        RatingMatrixWriter writer = new RatingMatrixWriter(directory, userCount + 1, BOOKS + 1, ratings);
+        for (int userId = 1; userId <= userCount; userId++) {
+            // Distinct ascending books: one random pick inside each of RATINGS_PER_USER stripes
+            int stripe = BOOKS / RATINGS_PER_USER;
+            for (int i = 0; i < RATINGS_PER_USER; i++) {
+                writer.add(userId, 1 + i * stripe + random.nextInt(stripe), 1 + random.nextInt(5));
+            }
+        }
+        matrix = new RatingMatrix(writer.finish());
+        pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        model = new AlsTrainer(rank, 10, 0.05, 1.0, 42).train(matrix, Favorites.none(), pool);
+        readBooks = new CompressedBitmap();
+        matrix.forEachRatingOfUser(1, (bookId, rating) -> readBooks.add(bookId));
+        System.out.printf("%n%d users, %d books, %d ratings, training RMSE %.4f%n",
+                userCount, BOOKS, ratings, model.trainingRmse());
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+    
+    // Ten iterations over every rating, the service's default
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public AlsModel train() {
+        return new AlsTrainer(rank, 10, 0.05, 1.0, 42).train(matrix, Favorites.none(), pool);
+    }
+    
+    // Serving latency: score every book for one user and keep the best ten
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 5)
+    @Measurement(iterations = 5, time = 5)
+    public TopScores recommend() {
+        user = user % userCount + 1;
+        return model.recommend(user, 10, readBooks);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.bookrecommender.benchmark;
+
+import com.example.bookrecommender.entity.Book;
+import com.example.bookrecommender.synthetic.SyntheticDatasetModel;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Deterministic in-memory fixtures shared by the benchmarks that don't need a database
+final class BenchmarkData {
+    
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 1, 1, 0, 0);
+    
+    private BenchmarkData() {
+    }
+    
+    static List<Book> books(int count, int authors, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<Book> books = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = i + 1L;
+            books.add(Book.builder()
+                    .id(id)
+                    .title("Benchmark Book " + id)
+                    .author("Author " + random.nextInt(authors))
+                    .isbn(String.format("979%010d", id))
+                    .genre(SyntheticDatasetModel.GENRES.get(random.nextInt(SyntheticDatasetModel.GENRES.size())))
+                    .description("A generated description used to give the payload a realistic size.")
+                    .coverImageUrl("https://covers.openlibrary.org/b/id/" + id + "-L.jpg")
+                    .publishYear(1900 + random.nextInt(125))
+                    .averageRating(1 + random.nextDouble() * 4)
+                    .createdAt(CREATED_AT)
+                    .build());
+        }
+        return books;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.bookrecommender.benchmark;
+
+import com.example.bookrecommender.catalog.BookCatalog;
+import com.example.bookrecommender.catalog.TopScores;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// BookCatalog on its own, without Spring or a database: one genre scan, a full scan, and top-10
+// scoring over a liked genre and author, at sizes the JPA path can't load in one request.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+// 10M books take ~300 MB plus the builder's copy while loading
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BookCatalogBenchmark {
+    
+    private static final int GENRES = 50;
+    private static final int AUTHORS = 200_000;
+    
+    @Param({"1000000", "10000000"})
+    public int books;
+    
+    private BookCatalog catalog;
+    private int genreId;
+    private int authorId;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        BookCatalog.Builder builder = BookCatalog.builder(books);
+        for (int id = 1; id <= books; id++) {
+            builder.add(id,
+                    "Genre " + random.nextInt(GENRES),
+                    "Author " + random.nextInt(AUTHORS),
+                    1 + random.nextDouble() * 4,
+                    1900 + random.nextInt(125));
+        }
+        catalog = builder.build();
+        genreId = catalog.genres().idOf("Genre 7");
+        authorId = catalog.authors().idOf("Author 4242");
+        System.out.printf("%n%d books, ~%d MB%n", books, catalog.memoryBytes() / (1024 * 1024));
+    }
+    
+    @Benchmark
+    public double genreScan() {
+        double[] sum = new double[1];
+        catalog.forEachRowInGenre(genreId, row -> sum[0] += catalog.rating(row));
+        return sum[0];
+    }
+    
+    @Benchmark
+    public double fullScan() {
+        double[] sum = new double[1];
+        catalog.forEachRow(row -> sum[0] += catalog.rating(row));
+        return sum[0];
+    }
+    
+    // The shape of RecommendationService's catalog mode: score the liked genre, then the author's other books
+    @Benchmark
+    public TopScores topTen() {
+        TopScores top = new TopScores(10);
+        catalog.forEachRowInGenre(genreId, row -> top.offer(catalog.id(row),
+                2 + (catalog.authorId(row) == authorId ? 2 : 0) + catalog.rating(row)));
+        catalog.forEachRowByAuthor(authorId, row -> {
+            if (catalog.genreId(row) != genreId) {
+                top.offer(catalog.id(row), 2 + catalog.rating(row));
+            }
+        });
+        return top;
+    }
+}
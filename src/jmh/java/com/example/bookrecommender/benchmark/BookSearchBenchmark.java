@@ -0,0 +1,60 @@
+package com.example.bookrecommender.benchmark;
+
+import com.example.bookrecommender.BookrecommenderApplication;
+import com.example.bookrecommender.entity.Book;
+import com.example.bookrecommender.repository.BookRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.concurrent.TimeUnit;
+
+// BookRepository.searchBooks against an embedded H2 filled by the synthetic dataset generator
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class BookSearchBenchmark {
+    
+    @Param({"100000"})
+    public int books;
+    
+    // A common title word, a single author, and a query that matches nothing
+    @Param({"shadow", "author 000042", "no such book"})
+    public String query;
+    
+    private ConfigurableApplicationContext context;
+    private BookRepository bookRepository;
+    private Pageable pageable;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookrecommenderApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:jmh-search;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--server.port=0",
+                "--book.import.enabled=false",
+                "--startup.seeding.async=false",
+                "--dataset.synthetic.enabled=true",
+                "--dataset.synthetic.books=" + books,
+                "--dataset.synthetic.users=1000",
+                "--dataset.synthetic.ratings=10000");
+        bookRepository = context.getBean(BookRepository.class);
+        pageable = PageRequest.of(0, 20);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public Page<Book> search() {
+        return bookRepository.searchBooks(query, pageable);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.bookrecommender.benchmark;
+
+import com.example.bookrecommender.catalog.CompressedBitmap;
+import com.example.bookrecommender.catalog.TopScores;
+import com.example.bookrecommender.content.TfIdfIndex;
+import com.example.bookrecommender.synthetic.SyntheticDatasetModel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// TfIdfIndex on its own: a cold-start user's top 10 from two books' neighbor lists, and the
+// incremental update when a book is edited. Titles and descriptions draw words from a
+// Zipf-like vocabulary so a few terms are common and most are rare, as in real book text.
+// Setup prints how long the full build (every book's neighbor list) took.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ContentSimilarityBenchmark {
+    
+    private static final int VOCABULARY = 30_000;
+    private static final int WORDS_PER_DESCRIPTION = 8;
+    
+    @Param({"10000", "100000"})
+    public int books;
+    
+    private SplittableRandom random;
+    private TfIdfIndex index;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new SplittableRandom(42);
+        long start = System.nanoTime();
+        TfIdfIndex.Builder builder = TfIdfIndex.builder(20, 0.1);
+        for (int id = 1; id <= books; id++) {
+            builder.add(id, title(), description(), genre());
+        }
+        index = builder.build();
+        System.out.printf("%nIndexed %d books (%d terms) in %d ms%n", books, index.termCount(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    @Benchmark
+    public TopScores coldStartRecommend() {
+        return index.recommend(CompressedBitmap.of(book(), book()), 10);
+    }
+    
+    @Benchmark
+    public void editBook() {
+        index.put(book(), title(), description(), genre());
+    }
+    
+    private int book() {
+        return 1 + random.nextInt(books);
+    }
+    
+    private String title() {
+        return "The " + word() + " " + word();
+    }
+    
+    private String description() {
+        StringBuilder description = new StringBuilder("A book about");
+        for (int i = 0; i < WORDS_PER_DESCRIPTION; i++) {
+            description.append(' ').append(word()).append(',');
+        }
+        return description.toString();
+    }
+    
+    private String genre() {
+        return SyntheticDatasetModel.GENRES.get(random.nextInt(SyntheticDatasetModel.GENRES.size()));
+    }
+    
+    // Word w is drawn with probability ~1/w
+    private String word() {
+        return "w" + Integer.toString((int) Math.pow(VOCABULARY, random.nextDouble()), 36);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.bookrecommender.benchmark;
+
+import com.example.bookrecommender.ann.HnswIndex;
+import com.example.bookrecommender.catalog.TopScores;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// HnswIndex on its own: top-10 inner-product search at three ef settings against the exact
+// scan it replaces, over random 32-dimensional vectors (the ALS default rank). Setup prints
+// each setting's recall against the exact top 10, the other half of the trade-off.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+// 1M vectors take ~130 MB for the vectors and ~140 MB for the links
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class HnswIndexBenchmark {
+    
+    private static final int DIMENSION = 32;
+    private static final int QUERIES = 1024;
+    
+    @Param({"100000", "1000000"})
+    public int books;
+    
+    private float[] vectors;
+    private float[][] queries;
+    private HnswIndex index;
+    private int query;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        vectors = new float[books * DIMENSION];
+        for (int i = 0; i < vectors.length; i++) {
+            vectors[i] = (float) random.nextGaussian();
+        }
+        queries = new float[QUERIES][DIMENSION];
+        for (float[] vector : queries) {
+            for (int i = 0; i < DIMENSION; i++) {
+                vector[i] = (float) random.nextGaussian();
+            }
+        }
+        long start = System.nanoTime();
+        index = new HnswIndex(DIMENSION, 16, 100, 42);
+        float[] vector = new float[DIMENSION];
+        for (int id = 0; id < books; id++) {
+            System.arraycopy(vectors, id * DIMENSION, vector, 0, DIMENSION);
+            index.add(id, vector);
+        }
+        System.out.printf("%nIndexed %d vectors in %d s%n", books, (System.nanoTime() - start) / 1_000_000_000);
+        for (int ef : new int[] {32, 64, 128}) {
+            System.out.printf("ef %d: recall@10 %.3f%n", ef, recall(ef));
+        }
+    }
+    
+    @Benchmark
+    public TopScores search32() {
+        return index.search(nextQuery(), 10, 32, id -> true);
+    }
+    
+    @Benchmark
+    public TopScores search64() {
+        return index.search(nextQuery(), 10, 64, id -> true);
+    }
+    
+    @Benchmark
+    public TopScores search128() {
+        return index.search(nextQuery(), 10, 128, id -> true);
+    }
+    
+    @Benchmark
+    public TopScores exactScan() {
+        return exact(nextQuery());
+    }
+    
+    private float[] nextQuery() {
+        query = (query + 1) % QUERIES;
+        return queries[query];
+    }
+    
+    private TopScores exact(float[] query) {
+        TopScores top = new TopScores(10);
+        for (int id = 0; id < books; id++) {
+            double sum = 0;
+            for (int i = 0; i < DIMENSION; i++) {
+                sum += query[i] * vectors[id * DIMENSION + i];
+            }
+            top.offer(id, sum);
+        }
+        return top;
+    }
+    
+    private double recall(int ef) {
+        int found = 0;
+        int sampled = 100;
+        for (int q = 0; q < sampled; q++) {
+            TopScores expected = exact(queries[q]);
+            Set<Long> ids = new HashSet<>();
+            for (int rank = 0; rank < expected.size(); rank++) {
+                ids.add(expected.id(rank));
+            }
+            TopScores approximate = index.search(queries[q], 10, ef, id -> true);
+            for (int rank = 0; rank < approximate.size(); rank++) {
+                if (ids.contains(approximate.id(rank))) {
+                    found++;
+                }
+            }
+        }
+        return found / (sampled * 10.0);
+    }
+}
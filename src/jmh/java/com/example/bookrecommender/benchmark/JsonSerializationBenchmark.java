@@ -0,0 +1,58 @@
+package com.example.bookrecommender.benchmark;
+
+import com.example.bookrecommender.dto.BookResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Serializing a page of BookResponse the way the /api/books endpoints return it
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonSerializationBenchmark {
+    
+    @Param({"20", "100"})
+    public int pageSize;
+    
+    private ObjectMapper objectMapper;
+    private Page<BookResponse> page;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Same settings Spring Boot applies to its auto-configured mapper
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        
+        List<BookResponse> content = BenchmarkData.books(pageSize, 50, 11).stream()
+                .map(book -> BookResponse.builder()
+                        .id(book.getId())
+                        .title(book.getTitle())
+                        .author(book.getAuthor())
+                        .isbn(book.getIsbn())
+                        .genre(book.getGenre())
+                        .description(book.getDescription())
+                        .coverImageUrl(book.getCoverImageUrl())
+                        .publishYear(book.getPublishYear())
+                        .averageRating(book.getAverageRating())
+                        .createdAt(book.getCreatedAt())
+                        .build())
+                .toList();
+        page = new PageImpl<>(content, PageRequest.of(0, pageSize), 10_000);
+    }
+    
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return objectMapper.writeValueAsBytes(page);
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bookrecommender.benchmark;
+
+import com.example.bookrecommender.entity.User;
+import com.example.bookrecommender.security.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+// Token work done on every authenticated request (validate, extract) and on every login (generate)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+    
+    private JwtUtil jwtUtil;
+    private User user;
+    private String token;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", "404E635266556A586E3272357538782F413F4428472B4B6250645367566B5970");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86_400_000L);
+        user = User.builder().id(1L).email("bench@example.com").name("Bench").password("x").build();
+        token = jwtUtil.generateToken(user);
+    }
+    
+    @Benchmark
+    public String generateToken() {
+        return jwtUtil.generateToken(user);
+    }
+    
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtil.extractUsername(token);
+    }
+    
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtUtil.validateToken(token, user);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.bookrecommender.benchmark;
+
+import com.example.bookrecommender.BookrecommenderApplication;
+import com.example.bookrecommender.entity.Book;
+import com.example.bookrecommender.entity.User;
+import com.example.bookrecommender.entity.UserBook;
+import com.example.bookrecommender.repository.BookRepository;
+import com.example.bookrecommender.repository.UserBookRepository;
+import com.example.bookrecommender.repository.UserRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Rows per second through the JPA insert paths: saveAll of new books, as BookImportService saves
+// an import, and saveAll of library entries, as seeding a user's library does. batchSize=1 sends
+// every insert on its own, which is what the old identity ids forced; 50 matches the sequence
+// allocation. Set -Dbenchmark.datasource.url to measure against Postgres, where each avoided
+// round trip costs far more than in embedded H2.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PersistenceBatchBenchmark {
+    
+    private static final int ROWS = 500;
+    private static final String BENCHMARK_GENRE = "Benchmark";
+    private static final String LIBRARY_GENRE = "Benchmark Library";
+    private static final String USER_EMAILS = "batch-%@benchmark.example";
+    
+    @Param({"1", "50"})
+    public int batchSize;
+    
+    private ConfigurableApplicationContext context;
+    private BookRepository bookRepository;
+    private UserRepository userRepository;
+    private UserBookRepository userBookRepository;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transaction;
+    private List<Book> libraryBooks;
+    private final AtomicLong sequence = new AtomicLong();
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        String url = System.getProperty("benchmark.datasource.url", "jdbc:h2:mem:jmh-batch;DB_CLOSE_DELAY=-1");
+        context = new SpringApplicationBuilder(BookrecommenderApplication.class).run(
+                "--spring.datasource.url=" + url,
+                "--spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                "--spring.jpa.show-sql=false",
+                "--server.port=0",
+                "--book.import.enabled=false",
+                "--startup.seeding.enabled=false");
+        bookRepository = context.getBean(BookRepository.class);
+        userRepository = context.getBean(UserRepository.class);
+        userBookRepository = context.getBean(UserBookRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        libraryBooks = bookRepository.saveAll(newBooks(LIBRARY_GENRE));
+    }
+    
+    // Only rows the benchmark created, so it is safe to point at a real database
+    @TearDown(Level.Iteration)
+    public void deleteInsertedRows() {
+        jdbcTemplate.update("DELETE FROM user_books WHERE user_id IN (SELECT id FROM users WHERE email LIKE ?)",
+                USER_EMAILS);
+        jdbcTemplate.update("DELETE FROM users WHERE email LIKE ?", USER_EMAILS);
+        jdbcTemplate.update("DELETE FROM books WHERE genre = ?", BENCHMARK_GENRE);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        deleteInsertedRows();
+        jdbcTemplate.update("DELETE FROM books WHERE genre = ?", LIBRARY_GENRE);
+        context.close();
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void importBooks() {
+        List<Book> books = newBooks(BENCHMARK_GENRE);
+        transaction.executeWithoutResult(status -> bookRepository.saveAll(books));
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void seedLibrary() {
+        transaction.executeWithoutResult(status -> {
+            User user = userRepository.save(User.builder()
+                    .email("batch-" + sequence.incrementAndGet() + "@benchmark.example")
+                    .password("not-a-hash")
+                    .name("Batch Benchmark")
+                    .build());
+            List<UserBook> entries = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                entries.add(UserBook.builder()
+                        .user(user)
+                        .book(libraryBooks.get(i))
+                        .rating(1 + i % 5)
+                        .isFavorite(i % 10 == 0)
+                        .build());
+            }
+            userBookRepository.saveAll(entries);
+        });
+    }
+    
+    private List<Book> newBooks(String genre) {
+        List<Book> books = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            long id = sequence.incrementAndGet();
+            books.add(Book.builder()
+                    .title("Batch Book " + id)
+                    .author("Batch Author " + id % 50)
+                    .genre(genre)
+                    .build());
+        }
+        return books;
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.bookrecommender.benchmark;
+
+import com.example.bookrecommender.catalog.CompressedBitmap;
+import com.example.bookrecommender.dto.BookResponse;
+import com.example.bookrecommender.entity.Book;
+import com.example.bookrecommender.entity.User;
+import com.example.bookrecommender.repository.BookRepository;
+import com.example.bookrecommender.service.ContentSimilarityService;
+import com.example.bookrecommender.service.ReadSetService;
+import com.example.bookrecommender.service.RecommendationService;
+import com.example.bookrecommender.service.TasteProfileService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+// Scoring and ranking in RecommendationService over candidate sets of growing size.
+// Repositories are stub-only mocks, so the numbers cover the in-JVM work only.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RecommendationBenchmark {
+    
+    @Param({"1000", "10000", "100000"})
+    public int candidates;
+    
+    private RecommendationService recommendationService;
+    private User user;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Book> books = BenchmarkData.books(candidates, Math.max(1, candidates / 20), 42);
+        Map<Long, Book> booksById = books.stream().collect(Collectors.toMap(Book::getId, Function.identity()));
+        user = User.builder().id(1L).email("bench@example.com").name("Bench").password("x").build();
+        
+        // The user has read a handful of the candidates
+        CompressedBitmap readBooks = new CompressedBitmap();
+        books.stream().limit(25).forEach(book -> readBooks.add(ReadSetService.toIndex(book.getId())));
+        TasteProfileService.Profile profile = new TasteProfileService.Profile(
+                Map.of("Fiction", 1.0, "Fantasy", 0.5, "Mystery", 0.5),
+                Map.of("Author 1", 1.0, "Author 2", 0.5));
+        
+        TasteProfileService tasteProfileService = mock(TasteProfileService.class, withSettings().stubOnly());
+        ReadSetService readSetService = mock(ReadSetService.class, withSettings().stubOnly());
+        ContentSimilarityService contentSimilarityService = mock(ContentSimilarityService.class, withSettings().stubOnly());
+        BookRepository bookRepository = mock(BookRepository.class, withSettings().stubOnly());
+        when(tasteProfileService.getProfile(anyLong())).thenReturn(profile);
+        when(readSetService.getReadBooks(anyLong())).thenReturn(readBooks);
+        when(contentSimilarityService.isEnabled()).thenReturn(false);
+        when(bookRepository.findByGenreIn(anyList())).thenReturn(books);
+        when(bookRepository.findByAuthorIn(anyList())).thenReturn(books.subList(0, Math.min(books.size(), 200)));
+        when(bookRepository.findAllById(anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(booksById::get).toList();
+        });
+        
+        recommendationService = new RecommendationService();
+        ReflectionTestUtils.setField(recommendationService, "tasteProfileService", tasteProfileService);
+        ReflectionTestUtils.setField(recommendationService, "readSetService", readSetService);
+        ReflectionTestUtils.setField(recommendationService, "contentSimilarityService", contentSimilarityService);
+        ReflectionTestUtils.setField(recommendationService, "bookRepository", bookRepository);
+    }
+    
+    @Benchmark
+    public List<BookResponse> recommend() {
+        return recommendationService.getRecommendations(user);
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.bookrecommender.benchmark;
+
+import com.example.bookrecommender.BookrecommenderApplication;
+import com.example.bookrecommender.dto.BookResponse;
+import com.example.bookrecommender.entity.User;
+import com.example.bookrecommender.repository.UserRepository;
+import com.example.bookrecommender.service.RecommendationService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// RecommendationService end to end against an embedded H2 filled by the synthetic dataset
+// generator, scoring in the JVM versus in one SQL statement versus over the in-memory catalog.
+// The caches are off so the jvm and sql modes read the candidates from the database on every call.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class RecommendationScoringBenchmark {
+    
+    @Param({"10000", "100000"})
+    public int books;
+    
+    @Param({"jvm", "sql", "catalog"})
+    public String scoring;
+    
+    private ConfigurableApplicationContext context;
+    private RecommendationService recommendationService;
+    private User user;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookrecommenderApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:jmh-scoring;DB_CLOSE_DELAY=-1",
+                "--server.port=0",
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                "--recommendation.scoring=" + scoring,
+                "--book.import.enabled=false",
+                "--startup.seeding.async=false",
+                "--dataset.synthetic.enabled=true",
+                "--dataset.synthetic.books=" + books,
+                "--dataset.synthetic.users=1000",
+                "--dataset.synthetic.ratings=" + books * 10);
+        recommendationService = context.getBean(RecommendationService.class);
+        
+        // The user with the most 4+ ratings, so the candidate set covers several genres and authors
+        Long userId = context.getBean(JdbcTemplate.class).queryForObject(
+                "SELECT user_id FROM user_books WHERE rating >= 4 GROUP BY user_id ORDER BY COUNT(*) DESC LIMIT 1",
+                Long.class);
+        user = context.getBean(UserRepository.class).findById(userId).orElseThrow();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+    
+    @Benchmark
+    public List<BookResponse> recommend() {
+        return recommendationService.getRecommendations(user);
+    }
+}
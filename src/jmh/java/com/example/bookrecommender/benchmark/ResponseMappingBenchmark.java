@@ -0,0 +1,82 @@
+package com.example.bookrecommender.benchmark;
+
+import com.example.bookrecommender.dto.BookResponse;
+import com.example.bookrecommender.dto.UserBookResponse;
+import com.example.bookrecommender.entity.Book;
+import com.example.bookrecommender.entity.User;
+import com.example.bookrecommender.entity.UserBook;
+import com.example.bookrecommender.repository.BookRepository;
+import com.example.bookrecommender.repository.UserBookRepository;
+import com.example.bookrecommender.service.BookService;
+import com.example.bookrecommender.service.UserBookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+// Entity -> DTO mapping behind the book listing and the user library endpoints
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseMappingBenchmark {
+    
+    @Param({"20", "100"})
+    public int pageSize;
+    
+    private BookService bookService;
+    private UserBookService userBookService;
+    private Pageable pageable;
+    private User user;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        List<Book> books = BenchmarkData.books(pageSize, 50, 7);
+        pageable = PageRequest.of(0, pageSize);
+        user = User.builder().id(1L).email("bench@example.com").name("Bench").password("x").build();
+        List<UserBook> library = books.stream()
+                .map(book -> UserBook.builder()
+                        .id(book.getId())
+                        .user(user)
+                        .book(book)
+                        .rating(4)
+                        .isFavorite(book.getId() % 5 == 0)
+                        .readAt(LocalDateTime.of(2024, 1, 1, 0, 0))
+                        .build())
+                .toList();
+        
+        BookRepository bookRepository = mock(BookRepository.class, withSettings().stubOnly());
+        UserBookRepository userBookRepository = mock(UserBookRepository.class, withSettings().stubOnly());
+        when(bookRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(books, pageable, 10_000));
+        when(userBookRepository.findByUserId(anyLong())).thenReturn(library);
+        
+        bookService = new BookService();
+        ReflectionTestUtils.setField(bookService, "bookRepository", bookRepository);
+        ReflectionTestUtils.setField(bookService, "userBookRepository", userBookRepository);
+        userBookService = new UserBookService();
+        ReflectionTestUtils.setField(userBookService, "bookRepository", bookRepository);
+        ReflectionTestUtils.setField(userBookService, "userBookRepository", userBookRepository);
+    }
+    
+    @Benchmark
+    public Page<BookResponse> bookPage() {
+        return bookService.getAllBooks(pageable);
+    }
+    
+    @Benchmark
+    public List<UserBookResponse> userLibrary() {
+        return userBookService.getUserBooks(user);
+    }
+}
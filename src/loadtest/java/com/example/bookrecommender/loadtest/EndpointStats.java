@@ -0,0 +1,45 @@
+package com.example.bookrecommender.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Latency histogram and outcome counters for one endpoint, safe to record from any thread
+class EndpointStats {
+    
+    private static final long MAX_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(2);
+    
+    private final String name;
+    private final Histogram latencies = new ConcurrentHistogram(MAX_TRACKABLE_MICROS, 3);
+    private final LongAdder errors = new LongAdder();
+    
+    EndpointStats(String name) {
+        this.name = name;
+    }
+    
+    String getName() {
+        return name;
+    }
+    
+    void record(long latencyNanos, boolean success) {
+        latencies.recordValue(Math.min(MAX_TRACKABLE_MICROS, Math.max(0, latencyNanos / 1_000)));
+        if (!success) {
+            errors.increment();
+        }
+    }
+    
+    void reset() {
+        latencies.reset();
+        errors.reset();
+    }
+    
+    Histogram getLatencies() {
+        return latencies;
+    }
+    
+    long getErrors() {
+        return errors.sum();
+    }
+}
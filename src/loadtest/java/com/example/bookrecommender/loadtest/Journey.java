@@ -0,0 +1,92 @@
+package com.example.bookrecommender.loadtest;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+
+// Scripted user journeys and their share of arrivals. Each journey runs its steps one
+// after another, but journeys arrive independently of each other (open model).
+enum Journey {
+    
+    // Anonymous visitor paging through the catalog and opening a book
+    BROWSE(35) {
+        @Override
+        CompletableFuture<?> run(JourneyContext context, long scheduledNanos) {
+            int page = context.random().nextInt(Math.max(1, context.books() / 20));
+            return context.client().get("GET /api/books", "/api/books?page=" + page + "&size=20", null, scheduledNanos)
+                    .thenCompose(response -> context.client().get("GET /api/books/{id}",
+                            "/api/books/" + context.randomBookId(), null, System.nanoTime()));
+        }
+    },
+    
+    // Anonymous visitor searching and opening a result
+    SEARCH(25) {
+        @Override
+        CompletableFuture<?> run(JourneyContext context, long scheduledNanos) {
+            String query = SEARCH_TERMS.get(context.random().nextInt(SEARCH_TERMS.size()));
+            return context.client().get("GET /api/books/search", "/api/books/search?query=" + query + "&size=20",
+                            null, scheduledNanos)
+                    .thenCompose(response -> context.client().get("GET /api/books/{id}",
+                            "/api/books/" + context.randomBookId(), null, System.nanoTime()));
+        }
+    },
+    
+    // Signed-in reader checking their recommendations
+    RECOMMENDATIONS(20) {
+        @Override
+        CompletableFuture<?> run(JourneyContext context, long scheduledNanos) {
+            return context.client().get("GET /api/recommendations", "/api/recommendations",
+                    context.randomToken(), scheduledNanos);
+        }
+    },
+    
+    // Signed-in reader adding a book to their library and rating it
+    RATE(15) {
+        @Override
+        CompletableFuture<?> run(JourneyContext context, long scheduledNanos) {
+            String token = context.randomToken();
+            long bookId = context.randomBookId();
+            int rating = 1 + context.random().nextInt(5);
+            return context.client().post("POST /api/users/books/{id}", "/api/users/books/" + bookId,
+                            token, null, scheduledNanos)
+                    .thenCompose(response -> context.client().post("POST /api/users/books/{id}/rate",
+                            "/api/users/books/" + bookId + "/rate", token,
+                            "{\"rating\":" + rating + "}", System.nanoTime()));
+        }
+    },
+    
+    // Returning user signing in; BCrypt makes this the most CPU-heavy request
+    LOGIN(5) {
+        @Override
+        CompletableFuture<?> run(JourneyContext context, long scheduledNanos) {
+            String body = "{\"email\":\"" + context.randomEmail() + "\",\"password\":\"" + context.password() + "\"}";
+            return context.client().post("POST /api/auth/login", "/api/auth/login", null, body, scheduledNanos);
+        }
+    };
+    
+    private static final List<String> SEARCH_TERMS = List.of(
+            "shadow", "river", "winter", "garden", "fantasy", "mystery", "author%20000042", "light");
+    
+    private final int weight;
+    
+    Journey(int weight) {
+        this.weight = weight;
+    }
+    
+    abstract CompletableFuture<?> run(JourneyContext context, long scheduledNanos);
+    
+    static Journey pick(SplittableRandom random) {
+        int total = 0;
+        for (Journey journey : values()) {
+            total += journey.weight;
+        }
+        int roll = random.nextInt(total);
+        for (Journey journey : values()) {
+            roll -= journey.weight;
+            if (roll < 0) {
+                return journey;
+            }
+        }
+        return BROWSE;
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.bookrecommender.loadtest;
+
+import com.example.bookrecommender.synthetic.SyntheticDatasetModel;
+import com.example.bookrecommender.synthetic.ZipfDistribution;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Everything a single journey needs: the client, its own random stream and the dataset shape
+record JourneyContext(LoadClient client, SplittableRandom random, SyntheticDatasetModel model,
+                      ZipfDistribution popularity, int users, String password, List<String> tokens) {
+    
+    int books() {
+        return model.getBooks();
+    }
+    
+    // Popular books are requested more often, matching how the dataset was generated
+    long randomBookId() {
+        return model.bookId(popularity.sample(random));
+    }
+    
+    String randomEmail() {
+        return "user" + (1 + random.nextInt(users)) + "@synthetic.example";
+    }
+    
+    String randomToken() {
+        return tokens.get(random.nextInt(tokens.size()));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.bookrecommender.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+
+// Thin async HTTP client that records every call against its endpoint label
+class LoadClient {
+    
+    private final HttpClient httpClient;
+    private final String baseUrl;
+    private final Duration timeout;
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    
+    LoadClient(String baseUrl, Executor executor, Duration timeout) {
+        this.baseUrl = baseUrl;
+        this.timeout = timeout;
+        this.httpClient = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(timeout)
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+    }
+    
+    Map<String, EndpointStats> getStats() {
+        return stats;
+    }
+    
+    CompletableFuture<HttpResponse<String>> get(String endpoint, String path, String token, long startNanos) {
+        return send(endpoint, request(path, token).GET().build(), startNanos);
+    }
+    
+    CompletableFuture<HttpResponse<String>> post(String endpoint, String path, String token, String json, long startNanos) {
+        HttpRequest request = request(path, token)
+                .header("Content-Type", "application/json")
+                .POST(json == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return send(endpoint, request, startNanos);
+    }
+    
+    // startNanos is when the request should have gone out; measuring from there keeps
+    // queueing delay in the numbers instead of hiding it (coordinated omission)
+    private CompletableFuture<HttpResponse<String>> send(String endpoint, HttpRequest request, long startNanos) {
+        EndpointStats endpointStats = stats.computeIfAbsent(endpoint, EndpointStats::new);
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .whenComplete((response, error) -> endpointStats.record(
+                        System.nanoTime() - startNanos,
+                        error == null && isExpected(response.statusCode())));
+    }
+    
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(timeout);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+    
+    // Adding a book that is already in the library is a normal outcome of a random journey
+    private static boolean isExpected(int status) {
+        return (status >= 200 && status < 300) || status == 409;
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.bookrecommender.loadtest;
+
+import com.example.bookrecommender.BookrecommenderApplication;
+import com.example.bookrecommender.synthetic.SyntheticDatasetModel;
+import com.example.bookrecommender.synthetic.ZipfDistribution;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Boots the application against a generated H2 dataset (or targets -Dloadtest.base-url),
+// drives the journeys in Journey at a fixed Poisson arrival rate and reports latency
+// percentiles and throughput per endpoint.
+//
+//   ./mvnw -Ploadtest verify -DskipTests -Dloadtest.rate=200 -Dloadtest.duration=60s
+public class LoadTestRunner {
+    
+    private final String baseUrlOverride = System.getProperty("loadtest.base-url", "");
+    private final double arrivalsPerSecond = Double.parseDouble(System.getProperty("loadtest.rate", "100"));
+    private final Duration warmup = Duration.parse("PT" + System.getProperty("loadtest.warmup", "15s"));
+    private final Duration duration = Duration.parse("PT" + System.getProperty("loadtest.duration", "60s"));
+    private final int maxInFlight = Integer.getInteger("loadtest.max-in-flight", 2_000);
+    private final int tokenPoolSize = Integer.getInteger("loadtest.signed-in-users", 200);
+    private final long seed = Long.getLong("loadtest.seed", 42);
+    private final int books = Integer.getInteger("loadtest.books", 100_000);
+    private final int users = Integer.getInteger("loadtest.users", 10_000);
+    private final long ratings = Long.getLong("loadtest.ratings", 1_000_000);
+    private final String password = System.getProperty("loadtest.password", "password123");
+    private final Path resultFile = Path.of(System.getProperty("loadtest.result-file", "target/loadtest-results.json"));
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+    private final AtomicLong dropped = new AtomicLong();
+    
+    public static void main(String[] args) throws Exception {
+        new LoadTestRunner().run();
+    }
+    
+    private void run() throws Exception {
+        ConfigurableApplicationContext application = baseUrlOverride.isEmpty() ? startApplication() : null;
+        String baseUrl = application == null
+                ? baseUrlOverride
+                : "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+        
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        try {
+            LoadClient client = new LoadClient(baseUrl, executor, Duration.ofSeconds(30));
+            List<String> tokens = signIn(client);
+            SyntheticDatasetModel model = new SyntheticDatasetModel(seed, books, users, ratings, 1.1, 0.8, 0.1, 0.8);
+            ZipfDistribution popularity = new ZipfDistribution(books, 1.1);
+            
+            System.out.printf("Warming up for %ds at %.0f journeys/s against %s%n",
+                    warmup.toSeconds(), arrivalsPerSecond, baseUrl);
+            drive(client, model, popularity, tokens, warmup, new SplittableRandom(seed));
+            client.getStats().values().forEach(EndpointStats::reset);
+            dropped.set(0);
+            
+            System.out.printf("Measuring for %ds%n", duration.toSeconds());
+            long start = System.nanoTime();
+            drive(client, model, popularity, tokens, duration, new SplittableRandom(seed + 1));
+            double elapsedSeconds = (System.nanoTime() - start) / 1e9;
+            
+            report(client.getStats(), elapsedSeconds);
+        } finally {
+            executor.shutdownNow();
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+    
+    private ConfigurableApplicationContext startApplication() {
+        System.out.printf("Starting application with %d books, %d users, ~%d ratings%n", books, users, ratings);
+        return new SpringApplicationBuilder(BookrecommenderApplication.class).run(
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.show-sql=false",
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--book.import.enabled=false",
+                "--startup.seeding.async=false",
+                "--dataset.synthetic.enabled=true",
+                "--dataset.synthetic.seed=" + seed,
+                "--dataset.synthetic.books=" + books,
+                "--dataset.synthetic.users=" + users,
+                "--dataset.synthetic.ratings=" + ratings,
+                "--dataset.synthetic.password=" + password);
+    }
+    
+    // Logs in a pool of users up front so authenticated journeys don't all pay for BCrypt
+    private List<String> signIn(LoadClient client) {
+        SplittableRandom random = new SplittableRandom(seed);
+        List<CompletableFuture<HttpResponse<String>>> logins = new ArrayList<>();
+        for (int i = 0; i < tokenPoolSize; i++) {
+            String email = "user" + (1 + random.nextInt(users)) + "@synthetic.example";
+            String body = "{\"email\":\"" + email + "\",\"password\":\"" + password + "\"}";
+            logins.add(client.post("setup: login", "/api/auth/login", null, body, System.nanoTime()));
+        }
+        
+        List<String> tokens = new ArrayList<>();
+        for (CompletableFuture<HttpResponse<String>> login : logins) {
+            HttpResponse<String> response = login.join();
+            if (response.statusCode() == 200) {
+                try {
+                    JsonNode json = objectMapper.readTree(response.body());
+                    tokens.add(json.get("token").asText());
+                } catch (Exception e) {
+                    throw new IllegalStateException("Unexpected login response: " + response.body(), e);
+                }
+            }
+        }
+        if (tokens.isEmpty()) {
+            throw new IllegalStateException("Could not sign in any synthetic user");
+        }
+        client.getStats().remove("setup: login");
+        return tokens;
+    }
+    
+    // Open model: arrivals follow the schedule whatever the response times are. If the
+    // server falls behind, in-flight journeys pile up until max-in-flight, then arrivals are dropped.
+    private void drive(LoadClient client, SyntheticDatasetModel model, ZipfDistribution popularity,
+                       List<String> tokens, Duration length, SplittableRandom random) {
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        long meanGapNanos = (long) (1e9 / arrivalsPerSecond);
+        long end = System.nanoTime() + length.toNanos();
+        long next = System.nanoTime();
+        
+        while (next < end) {
+            long wait = next - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            
+            if (inFlight.tryAcquire()) {
+                JourneyContext context = new JourneyContext(
+                        client, random.split(), model, popularity, users, password, tokens);
+                Journey journey = Journey.pick(context.random());
+                journey.run(context, next).whenComplete((result, error) -> inFlight.release());
+            } else {
+                dropped.incrementAndGet();
+            }
+            
+            // Exponential gaps give Poisson arrivals at the configured mean rate
+            next += (long) (-Math.log(1 - random.nextDouble()) * meanGapNanos);
+        }
+        
+        // Let the stragglers finish so they are counted in this phase
+        inFlight.acquireUninterruptibly(maxInFlight);
+        inFlight.release(maxInFlight);
+    }
+    
+    private void report(Map<String, EndpointStats> stats, double elapsedSeconds) throws Exception {
+        List<EndpointStats> endpoints = new ArrayList<>(stats.values());
+        endpoints.sort(Comparator.comparing(EndpointStats::getName));
+        
+        System.out.printf("%n%-34s %9s %9s %8s %8s %8s %8s %9s %9s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (EndpointStats endpoint : endpoints) {
+            Histogram latencies = endpoint.getLatencies();
+            long count = latencies.getTotalCount();
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("endpoint", endpoint.getName());
+            row.put("requests", count);
+            row.put("throughput", count / elapsedSeconds);
+            row.put("errors", endpoint.getErrors());
+            row.put("p50Ms", millis(latencies, 50));
+            row.put("p90Ms", millis(latencies, 90));
+            row.put("p99Ms", millis(latencies, 99));
+            row.put("p999Ms", millis(latencies, 99.9));
+            row.put("maxMs", latencies.getMaxValue() / 1000.0);
+            results.add(row);
+            
+            System.out.printf("%-34s %9d %9.1f %8d %8.2f %8.2f %8.2f %9.2f %9.2f%n",
+                    endpoint.getName(), count, count / elapsedSeconds, endpoint.getErrors(),
+                    row.get("p50Ms"), row.get("p90Ms"), row.get("p99Ms"), row.get("p999Ms"), row.get("maxMs"));
+        }
+        System.out.printf("%nDropped arrivals (max in flight reached): %d%n", dropped.get());
+        
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("arrivalsPerSecond", arrivalsPerSecond);
+        summary.put("durationSeconds", elapsedSeconds);
+        summary.put("droppedArrivals", dropped.get());
+        summary.put("endpoints", results);
+        Files.createDirectories(resultFile.toAbsolutePath().getParent());
+        objectMapper.writeValue(resultFile.toFile(), summary);
+        System.out.println("Results written to " + resultFile);
+    }
+    
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+}
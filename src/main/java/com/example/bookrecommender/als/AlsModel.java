@@ -0,0 +1,216 @@
+package com.example.bookrecommender.als;
+
+import com.example.bookrecommender.catalog.CompressedBitmap;
+import com.example.bookrecommender.catalog.TopScores;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * A trained latent-factor model: {@code rank} floats per user and per book, stored row after
+ * row in two flat arrays indexed by id, so a user's predicted rating of a book is the dot
+ * product of two contiguous slices. Immutable once built; retraining produces a new model.
+ */
+public final class AlsModel {
+    
+    private static final int MAGIC = 0x414C534D;
+    private static final int FORMAT_VERSION = 1;
+    
+    private final int rank;
+    private final int userCount;
+    private final int bookCount;
+    private final float[] userFactors;
+    private final float[] bookFactors;
+    // Users and books that had ratings to learn from; the others have all-zero factors
+    private final CompressedBitmap trainedUsers;
+    private final CompressedBitmap trainedBooks;
+    private final double trainingRmse;
+    private final Instant trainedAt;
+    
+    AlsModel(int rank, int userCount, int bookCount, float[] userFactors, float[] bookFactors,
+             CompressedBitmap trainedUsers, CompressedBitmap trainedBooks, double trainingRmse, Instant trainedAt) {
+        this.rank = rank;
+        this.userCount = userCount;
+        this.bookCount = bookCount;
+        this.userFactors = userFactors;
+        this.bookFactors = bookFactors;
+        this.trainedUsers = trainedUsers;
+        this.trainedBooks = trainedBooks;
+        this.trainingRmse = trainingRmse;
+        this.trainedAt = trainedAt;
+    }
+    
+    public int rank() {
+        return rank;
+    }
+    
+    public int userCount() {
+        return userCount;
+    }
+    
+    public int bookCount() {
+        return bookCount;
+    }
+    
+    public double trainingRmse() {
+        return trainingRmse;
+    }
+    
+    public Instant trainedAt() {
+        return trainedAt;
+    }
+    
+    /**
+     * Whether the model knows the user; users who joined or first rated after training don't.
+     */
+    public boolean hasUser(int userId) {
+        return userId >= 0 && userId < userCount && trainedUsers.contains(userId);
+    }
+    
+    public boolean hasBook(int bookId) {
+        return bookId >= 0 && bookId < bookCount && trainedBooks.contains(bookId);
+    }
+    
+    /**
+     * A copy of the user's factors, all zeros for a user the model doesn't know.
+     */
+    public float[] userVector(int userId) {
+        if (!hasUser(userId)) {
+            return new float[rank];
+        }
+        return Arrays.copyOfRange(userFactors, userId * rank, (userId + 1) * rank);
+    }
+    
+    /**
+     * A copy of the book's factors, all zeros for a book the model doesn't know.
+     */
+    public float[] bookVector(int bookId) {
+        if (!hasBook(bookId)) {
+            return new float[rank];
+        }
+        return Arrays.copyOfRange(bookFactors, bookId * rank, (bookId + 1) * rank);
+    }
+    
+    /**
+     * Calls the action with each book the model learned, in id order.
+     */
+    public void forEachBook(IntConsumer action) {
+        trainedBooks.forEach(action);
+    }
+    
+    public double predict(int userId, int bookId) {
+        if (!hasUser(userId) || bookId < 0 || bookId >= bookCount) {
+            return 0.0;
+        }
+        return dot(userFactors, userId * rank, bookFactors, bookId * rank, rank);
+    }
+    
+    /**
+     * Scores every trained book for the user and keeps the best {@code limit} not in
+     * {@code exclude}.
+     */
+    public TopScores recommend(int userId, int limit, CompressedBitmap exclude) {
+        TopScores top = new TopScores(limit);
+        if (!hasUser(userId)) {
+            return top;
+        }
+        int userOffset = userId * rank;
+        trainedBooks.forEach(bookId -> {
+            if (!exclude.contains(bookId)) {
+                top.offer(bookId, dot(userFactors, userOffset, bookFactors, bookId * rank, rank));
+            }
+        });
+        return top;
+    }
+    
+    /**
+     * Writes the model to the file, replacing it atomically, so a restart can serve from it
+     * before the next training finishes.
+     */
+    public void writeTo(Path file) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeInt(rank);
+            out.writeInt(userCount);
+            out.writeInt(bookCount);
+            out.writeDouble(trainingRmse);
+            out.writeLong(trainedAt.toEpochMilli());
+            writeIds(out, trainedUsers);
+            writeIds(out, trainedBooks);
+            for (float factor : userFactors) {
+                out.writeFloat(factor);
+            }
+            for (float factor : bookFactors) {
+                out.writeFloat(factor);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    public static AlsModel readFrom(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                throw new IOException("Not a model file of this version: " + file);
+            }
+            int rank = in.readInt();
+            int userCount = in.readInt();
+            int bookCount = in.readInt();
+            double trainingRmse = in.readDouble();
+            Instant trainedAt = Instant.ofEpochMilli(in.readLong());
+            CompressedBitmap trainedUsers = readIds(in);
+            CompressedBitmap trainedBooks = readIds(in);
+            float[] userFactors = new float[Math.multiplyExact(userCount, rank)];
+            for (int i = 0; i < userFactors.length; i++) {
+                userFactors[i] = in.readFloat();
+            }
+            float[] bookFactors = new float[Math.multiplyExact(bookCount, rank)];
+            for (int i = 0; i < bookFactors.length; i++) {
+                bookFactors[i] = in.readFloat();
+            }
+            return new AlsModel(rank, userCount, bookCount, userFactors, bookFactors,
+                    trainedUsers, trainedBooks, trainingRmse, trainedAt);
+        }
+    }
+    
+    private static void writeIds(DataOutputStream out, CompressedBitmap ids) throws IOException {
+        out.writeInt(ids.cardinality());
+        IOException[] failure = new IOException[1];
+        ids.forEach(id -> {
+            try {
+                out.writeInt(id);
+            } catch (IOException e) {
+                failure[0] = e;
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+    }
+    
+    private static CompressedBitmap readIds(DataInputStream in) throws IOException {
+        CompressedBitmap ids = new CompressedBitmap();
+        for (int count = in.readInt(); count > 0; count--) {
+            ids.add(in.readInt());
+        }
+        return ids;
+    }
+    
+    static double dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        double sum = 0.0;
+        for (int i = 0; i < length; i++) {
+            sum += a[aOffset + i] * b[bOffset + i];
+        }
+        return sum;
+    }
+}
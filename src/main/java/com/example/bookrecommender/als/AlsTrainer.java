@@ -0,0 +1,238 @@
+package com.example.bookrecommender.als;
+
+import com.example.bookrecommender.catalog.CompressedBitmap;
+import com.example.bookrecommender.ratings.RatingMatrix;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Explicit-feedback alternating least squares with weighted regularization (ALS-WR). Book
+ * factors start random; each iteration then solves every user's factors with the books' held
+ * fixed, and every book's with the users' held fixed. Each solve is a small {@code rank x rank}
+ * least-squares system over that user's (or book's) ratings, read from the rating matrix's rows
+ * (or columns), and the solves are independent, so they are split across a ForkJoinPool.
+ *
+ * <p>Favorites count {@code 1 + favoriteWeight} times as much as other ratings. Favorites
+ * without a rating carry no value to fit, so explicit ALS doesn't use them.
+ */
+public final class AlsTrainer {
+    
+    // Rows per fork/join leaf: enough work to amortize the task and the per-leaf scratch arrays
+    private static final int ROWS_PER_TASK = 256;
+    
+    private final int rank;
+    private final int iterations;
+    private final double lambda;
+    private final double favoriteWeight;
+    private final long seed;
+    
+    public AlsTrainer(int rank, int iterations, double lambda, double favoriteWeight, long seed) {
+        if (rank < 1 || iterations < 1 || lambda <= 0) {
+            throw new IllegalArgumentException("rank and iterations must be positive and lambda above 0");
+        }
+        this.rank = rank;
+        this.iterations = iterations;
+        this.lambda = lambda;
+        this.favoriteWeight = favoriteWeight;
+        this.seed = seed;
+    }
+    
+    public AlsModel train(RatingMatrix matrix, Favorites favorites, ForkJoinPool pool) {
+        // Fixed at the start; ratings for users or books added meanwhile are skipped
+        int userCount = matrix.userCount();
+        int bookCount = matrix.bookCount();
+        float[] userFactors = new float[Math.multiplyExact(userCount, rank)];
+        float[] bookFactors = new float[Math.multiplyExact(bookCount, rank)];
+        boolean[] trainedUsers = new boolean[userCount];
+        boolean[] trainedBooks = new boolean[bookCount];
+        
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < bookFactors.length; i++) {
+            bookFactors[i] = (float) (random.nextDouble() * 0.1);
+        }
+        
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            pool.invoke(new RangeTask(0, userCount, (from, to) -> {
+                Solver solver = new Solver(bookFactors, bookCount);
+                for (int user = from; user < to; user++) {
+                    int userId = user;
+                    solver.reset();
+                    matrix.forEachRatingOfUser(user, (bookId, rating) ->
+                            solver.add(bookId, rating, favorites.contains(userId, bookId)));
+                    trainedUsers[user] = solver.solveInto(userFactors, user * rank);
+                }
+            }));
+            pool.invoke(new RangeTask(0, bookCount, (from, to) -> {
+                Solver solver = new Solver(userFactors, userCount);
+                for (int book = from; book < to; book++) {
+                    int bookId = book;
+                    solver.reset();
+                    matrix.forEachRatingOfBook(book, (userId, rating) ->
+                            solver.add(userId, rating, favorites.contains(userId, bookId)));
+                    trainedBooks[book] = solver.solveInto(bookFactors, book * rank);
+                }
+            }));
+        }
+        
+        double rmse = rmse(matrix, userFactors, bookFactors, userCount, bookCount, pool);
+        return new AlsModel(rank, userCount, bookCount, userFactors, bookFactors,
+                toBitmap(trainedUsers), toBitmap(trainedBooks), rmse, Instant.now());
+    }
+    
+    private double rmse(RatingMatrix matrix, float[] userFactors, float[] bookFactors, int userCount,
+                        int bookCount, ForkJoinPool pool) {
+        DoubleAdder squaredError = new DoubleAdder();
+        LongAdder ratings = new LongAdder();
+        pool.invoke(new RangeTask(0, userCount, (from, to) -> {
+            double[] sum = new double[1];
+            long[] count = new long[1];
+            for (int user = from; user < to; user++) {
+                int userOffset = user * rank;
+                matrix.forEachRatingOfUser(user, (bookId, rating) -> {
+                    if (bookId < bookCount) {
+                        double error = rating - AlsModel.dot(userFactors, userOffset, bookFactors, bookId * rank, rank);
+                        sum[0] += error * error;
+                        count[0]++;
+                    }
+                });
+            }
+            squaredError.add(sum[0]);
+            ratings.add(count[0]);
+        }));
+        return ratings.sum() == 0 ? 0.0 : Math.sqrt(squaredError.sum() / ratings.sum());
+    }
+    
+    private static CompressedBitmap toBitmap(boolean[] flags) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int i = 0; i < flags.length; i++) {
+            if (flags[i]) {
+                bitmap.add(i);
+            }
+        }
+        return bitmap;
+    }
+    
+    /**
+     * Accumulates one row's normal equations, (sum of w*y*y' + lambda*n*I) x = sum of w*r*y, and
+     * solves them by Cholesky decomposition. One per leaf task, reused for each of its rows.
+     */
+    private final class Solver {
+        
+        private final float[] fixed;
+        private final int fixedCount;
+        // Lower triangle of the symmetric matrix, row-major
+        private final double[] a = new double[rank * rank];
+        private final double[] b = new double[rank];
+        private int count;
+        
+        Solver(float[] fixed, int fixedCount) {
+            this.fixed = fixed;
+            this.fixedCount = fixedCount;
+        }
+        
+        void reset() {
+            Arrays.fill(a, 0.0);
+            Arrays.fill(b, 0.0);
+            count = 0;
+        }
+        
+        void add(int otherId, int rating, boolean favorite) {
+            if (otherId >= fixedCount) {
+                return;
+            }
+            double weight = favorite ? 1.0 + favoriteWeight : 1.0;
+            int offset = otherId * rank;
+            for (int i = 0; i < rank; i++) {
+                double wy = weight * fixed[offset + i];
+                b[i] += wy * rating;
+                int row = i * rank;
+                for (int j = 0; j <= i; j++) {
+                    a[row + j] += wy * fixed[offset + j];
+                }
+            }
+            count++;
+        }
+        
+        // Writes the solution at target[offset..]; false (and zeros) for a row without ratings
+        boolean solveInto(float[] target, int offset) {
+            if (count == 0) {
+                Arrays.fill(target, offset, offset + rank, 0f);
+                return false;
+            }
+            double regularization = lambda * count;
+            for (int i = 0; i < rank; i++) {
+                a[i * rank + i] += regularization;
+            }
+            // a = L*L', with L overwriting the lower triangle
+            for (int j = 0; j < rank; j++) {
+                double diagonal = a[j * rank + j];
+                for (int k = 0; k < j; k++) {
+                    diagonal -= a[j * rank + k] * a[j * rank + k];
+                }
+                diagonal = Math.sqrt(diagonal);
+                a[j * rank + j] = diagonal;
+                for (int i = j + 1; i < rank; i++) {
+                    double sum = a[i * rank + j];
+                    for (int k = 0; k < j; k++) {
+                        sum -= a[i * rank + k] * a[j * rank + k];
+                    }
+                    a[i * rank + j] = sum / diagonal;
+                }
+            }
+            // L*y = b, then L'*x = y, both in b
+            for (int i = 0; i < rank; i++) {
+                double sum = b[i];
+                for (int k = 0; k < i; k++) {
+                    sum -= a[i * rank + k] * b[k];
+                }
+                b[i] = sum / a[i * rank + i];
+            }
+            for (int i = rank - 1; i >= 0; i--) {
+                double sum = b[i];
+                for (int k = i + 1; k < rank; k++) {
+                    sum -= a[k * rank + i] * b[k];
+                }
+                b[i] = sum / a[i * rank + i];
+            }
+            for (int i = 0; i < rank; i++) {
+                target[offset + i] = (float) b[i];
+            }
+            return true;
+        }
+    }
+    
+    @FunctionalInterface
+    private interface RangeBody {
+        void run(int from, int to);
+    }
+    
+    // Splits [from, to) in halves until a piece is small enough to run directly
+    private static final class RangeTask extends RecursiveAction {
+        
+        private final int from;
+        private final int to;
+        private final RangeBody body;
+        
+        RangeTask(int from, int to, RangeBody body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from <= ROWS_PER_TASK) {
+                body.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeTask(from, middle, body), new RangeTask(middle, to, body));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.bookrecommender.als;
+
+import java.util.Arrays;
+
+/**
+ * The (user, book) pairs a user marked as favorite, as a sorted array of
+ * {@code user << 32 | book} keys. Favorites weigh more in training than other ratings.
+ */
+public final class Favorites {
+    
+    private static final Favorites NONE = new Favorites(new long[0]);
+    
+    private final long[] keys;
+    
+    private Favorites(long[] keys) {
+        this.keys = keys;
+    }
+    
+    public static Favorites none() {
+        return NONE;
+    }
+    
+    /**
+     * @param keys {@link #key} of each favorite, in ascending order
+     */
+    public static Favorites of(long[] keys) {
+        for (int i = 1; i < keys.length; i++) {
+            if (keys[i] <= keys[i - 1]) {
+                throw new IllegalArgumentException("Favorite keys must be sorted and distinct");
+            }
+        }
+        return new Favorites(keys);
+    }
+    
+    public static long key(int userId, int bookId) {
+        return (long) userId << 32 | (bookId & 0xFFFFFFFFL);
+    }
+    
+    public boolean contains(int userId, int bookId) {
+        return keys.length > 0 && Arrays.binarySearch(keys, key(userId, bookId)) >= 0;
+    }
+    
+    public int size() {
+        return keys.length;
+    }
+}
@@ -0,0 +1,639 @@
+package com.example.bookrecommender.ann;
+
+import com.example.bookrecommender.catalog.TopScores;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+
+/**
+ * Approximate maximum-inner-product search over vectors keyed by int id, as a hierarchical
+ * navigable small world graph (HNSW). Every vector is a node on layer 0 and, with exponentially
+ * falling probability, on the layers above; a search walks greedily down the sparse upper layers
+ * to a good starting point, then does a best-first search of {@code ef} candidates on layer 0.
+ * A larger {@code ef} visits more nodes: better recall, slower queries.
+ *
+ * <p>Nodes are numbered in insertion order. Vectors and layer-0 links sit in flat arrays indexed
+ * by node ({@code m * 2} links per node there, {@code m} on the upper layers, each list prefixed
+ * by its length). Removing an id only tombstones its node: it keeps routing searches but is
+ * never returned, and adding the id again revives it with the new vector.
+ *
+ * <p>Searches run in parallel with each other; adds and removes take an exclusive lock.
+ */
+public final class HnswIndex {
+    
+    private static final int MAGIC = 0x484E5357;
+    private static final int FORMAT_VERSION = 1;
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    private final int dimension;
+    private final int m;
+    private final int maxLinks0;
+    private final int efConstruction;
+    private final long seed;
+    private final double levelMultiplier;
+    private final SplittableRandom random;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private int size;
+    private int deletedCount;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private int[] ids;
+    private int[] levels;
+    private boolean[] deleted;
+    private float[] vectors;
+    private int[] links0;
+    private int[][] upperLinks;
+    // External id -> node + 1; 0 when the id isn't indexed
+    private int[] nodeById = new int[0];
+    
+    /**
+     * @param m              links per node on the upper layers (twice that on layer 0); 16 is typical
+     * @param efConstruction candidates considered when linking a new node; higher builds a better graph, slower
+     */
+    public HnswIndex(int dimension, int m, int efConstruction, long seed) {
+        if (dimension < 1 || m < 2 || efConstruction < 1) {
+            throw new IllegalArgumentException("dimension must be positive, m at least 2 and efConstruction positive");
+        }
+        this.dimension = dimension;
+        this.m = m;
+        this.maxLinks0 = 2 * m;
+        this.efConstruction = efConstruction;
+        this.seed = seed;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.random = new SplittableRandom(seed);
+        this.ids = new int[INITIAL_CAPACITY];
+        this.levels = new int[INITIAL_CAPACITY];
+        this.deleted = new boolean[INITIAL_CAPACITY];
+        this.vectors = new float[INITIAL_CAPACITY * dimension];
+        this.links0 = new int[INITIAL_CAPACITY * (maxLinks0 + 1)];
+        this.upperLinks = new int[INITIAL_CAPACITY][];
+    }
+    
+    public int dimension() {
+        return dimension;
+    }
+    
+    /**
+     * Number of ids that searches can return.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public boolean contains(int id) {
+        lock.readLock().lock();
+        try {
+            int node = nodeOf(id);
+            return node >= 0 && !deleted[node];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Indexes the vector under the id. An id that is already indexed, or was removed, gets the
+     * new vector in place; its links stay those of the old vector, so re-adding a very different
+     * vector costs some recall until the index is rebuilt.
+     */
+    public void add(int id, float[] vector) {
+        if (id < 0 || vector.length != dimension) {
+            throw new IllegalArgumentException("Expected a non-negative id and a vector of dimension " + dimension);
+        }
+        lock.writeLock().lock();
+        try {
+            int existing = nodeOf(id);
+            if (existing >= 0) {
+                System.arraycopy(vector, 0, vectors, existing * dimension, dimension);
+                if (deleted[existing]) {
+                    deleted[existing] = false;
+                    deletedCount--;
+                }
+                return;
+            }
+            insert(id, vector);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Tombstones the id; returns false if it wasn't indexed.
+     */
+    public boolean remove(int id) {
+        lock.writeLock().lock();
+        try {
+            int node = nodeOf(id);
+            if (node < 0 || deleted[node]) {
+                return false;
+            }
+            deleted[node] = true;
+            deletedCount++;
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * The (approximately) {@code k} ids with the largest inner product with the query, best
+     * first, among those {@code accept} allows. Rejected ids still route the search, so a
+     * selective filter costs recall rather than correctness; raise {@code ef} to compensate.
+     */
+    public TopScores search(float[] query, int k, int ef, IntPredicate accept) {
+        if (query.length != dimension) {
+            throw new IllegalArgumentException("Expected a query of dimension " + dimension);
+        }
+        TopScores top = new TopScores(k);
+        lock.readLock().lock();
+        try {
+            if (entryPoint < 0) {
+                return top;
+            }
+            int current = entryPoint;
+            for (int level = maxLevel; level > 0; level--) {
+                current = greedyClosest(query, current, level);
+            }
+            NodeQueue results = searchLayer(query, current, Math.max(ef, k), 0,
+                    node -> !deleted[node] && accept.test(ids[node]));
+            while (results.size() > 0) {
+                double score = results.peekScore();
+                top.offer(ids[results.poll()], score);
+            }
+            return top;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Writes the whole index to the file, replacing it atomically.
+     */
+    public void writeTo(Path file) throws IOException {
+        lock.readLock().lock();
+        try {
+            Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                Output out = new Output(channel);
+                out.putInt(MAGIC);
+                out.putInt(FORMAT_VERSION);
+                out.putInt(dimension);
+                out.putInt(m);
+                out.putInt(efConstruction);
+                out.putLong(seed);
+                out.putInt(size);
+                out.putInt(entryPoint);
+                out.putInt(maxLevel);
+                for (int node = 0; node < size; node++) {
+                    out.putInt(ids[node]);
+                    out.putInt(levels[node]);
+                    out.putByte(deleted[node] ? (byte) 1 : 0);
+                }
+                for (int i = 0; i < size * dimension; i++) {
+                    out.putFloat(vectors[i]);
+                }
+                for (int i = 0; i < size * (maxLinks0 + 1); i++) {
+                    out.putInt(links0[i]);
+                }
+                for (int node = 0; node < size; node++) {
+                    for (int i = 0; i < levels[node] * (m + 1); i++) {
+                        out.putInt(upperLinks[node][i]);
+                    }
+                }
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public static HnswIndex readFrom(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Input in = new Input(channel);
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+                throw new IOException("Not an index file of this version: " + file);
+            }
+            int dimension = in.getInt();
+            int m = in.getInt();
+            int efConstruction = in.getInt();
+            long seed = in.getLong();
+            int size = in.getInt();
+            // Continue the level sequence where the saved index left it, as far as the seed allows
+            HnswIndex index = new HnswIndex(dimension, m, efConstruction, seed ^ size);
+            index.ensureCapacity(size);
+            index.size = size;
+            index.entryPoint = in.getInt();
+            index.maxLevel = in.getInt();
+            for (int node = 0; node < size; node++) {
+                index.ids[node] = in.getInt();
+                index.levels[node] = in.getInt();
+                index.deleted[node] = in.getByte() != 0;
+                if (index.deleted[node]) {
+                    index.deletedCount++;
+                }
+                index.mapId(index.ids[node], node);
+            }
+            for (int i = 0; i < size * dimension; i++) {
+                index.vectors[i] = in.getFloat();
+            }
+            for (int i = 0; i < size * (index.maxLinks0 + 1); i++) {
+                index.links0[i] = in.getInt();
+            }
+            for (int node = 0; node < size; node++) {
+                int level = index.levels[node];
+                if (level > 0) {
+                    int[] links = new int[level * (m + 1)];
+                    for (int i = 0; i < links.length; i++) {
+                        links[i] = in.getInt();
+                    }
+                    index.upperLinks[node] = links;
+                }
+            }
+            return index;
+        }
+    }
+    
+    private void insert(int id, float[] vector) {
+        ensureCapacity(size + 1);
+        int node = size++;
+        int level = (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+        ids[node] = id;
+        levels[node] = level;
+        System.arraycopy(vector, 0, vectors, node * dimension, dimension);
+        links0[node * (maxLinks0 + 1)] = 0;
+        upperLinks[node] = level > 0 ? new int[level * (m + 1)] : null;
+        mapId(id, node);
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+        
+        int current = entryPoint;
+        for (int layer = maxLevel; layer > level; layer--) {
+            current = greedyClosest(vector, current, layer);
+        }
+        for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+            NodeQueue found = searchLayer(vector, current, efConstruction, layer, null);
+            // Drain worst first into best-first arrays
+            int count = found.size();
+            int[] candidates = new int[count];
+            double[] scores = new double[count];
+            for (int i = count - 1; i >= 0; i--) {
+                scores[i] = found.peekScore();
+                candidates[i] = found.poll();
+            }
+            current = candidates[0];
+            int maxLinks = layer == 0 ? maxLinks0 : m;
+            int[] selected = selectNeighbors(candidates, scores, count, maxLinks);
+            setLinks(node, layer, selected, selected.length);
+            for (int neighbor : selected) {
+                link(neighbor, node, layer);
+            }
+        }
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+    
+    // Adds a link from -> to, re-selecting from's links when the list is full
+    private void link(int from, int to, int layer) {
+        int[] links = links(from, layer);
+        int offset = linksOffset(from, layer);
+        int count = links[offset];
+        int maxLinks = layer == 0 ? maxLinks0 : m;
+        if (count < maxLinks) {
+            links[offset + 1 + count] = to;
+            links[offset] = count + 1;
+            return;
+        }
+        int[] candidates = new int[count + 1];
+        double[] scores = new double[count + 1];
+        for (int i = 0; i <= count; i++) {
+            candidates[i] = i < count ? links[offset + 1 + i] : to;
+            scores[i] = similarity(from, candidates[i]);
+        }
+        sortBestFirst(candidates, scores);
+        int[] selected = selectNeighbors(candidates, scores, candidates.length, maxLinks);
+        setLinks(from, layer, selected, selected.length);
+    }
+    
+    // The HNSW heuristic: take a candidate only if it is more similar to the new node than to
+    // any neighbor already taken, which keeps links spread out; fill up with the rest after
+    private int[] selectNeighbors(int[] candidates, double[] scores, int count, int maxLinks) {
+        int[] selected = new int[Math.min(count, maxLinks)];
+        int[] skipped = new int[count];
+        int selectedCount = 0;
+        int skippedCount = 0;
+        for (int i = 0; i < count && selectedCount < maxLinks; i++) {
+            boolean diverse = true;
+            for (int j = 0; j < selectedCount; j++) {
+                if (similarity(candidates[i], selected[j]) > scores[i]) {
+                    diverse = false;
+                    break;
+                }
+            }
+            if (diverse) {
+                selected[selectedCount++] = candidates[i];
+            } else {
+                skipped[skippedCount++] = candidates[i];
+            }
+        }
+        for (int i = 0; i < skippedCount && selectedCount < selected.length; i++) {
+            selected[selectedCount++] = skipped[i];
+        }
+        return selected;
+    }
+    
+    private int greedyClosest(float[] query, int start, int layer) {
+        int current = start;
+        double best = similarity(query, current);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] links = links(current, layer);
+            int offset = linksOffset(current, layer);
+            for (int i = 1; i <= links[offset]; i++) {
+                int neighbor = links[offset + i];
+                double score = similarity(query, neighbor);
+                if (score > best) {
+                    best = score;
+                    current = neighbor;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+    
+    // Best-first search returning up to ef results that pass the filter (all nodes when null),
+    // as a min-queue: worst result on top
+    private NodeQueue searchLayer(float[] query, int start, int ef, int layer, IntPredicate filter) {
+        Visited marks = new Visited(ef * maxLinks0);
+        NodeQueue candidates = new NodeQueue(ef * 2, true);
+        NodeQueue results = new NodeQueue(ef + 1, false);
+        double startScore = similarity(query, start);
+        marks.mark(start);
+        candidates.push(start, startScore);
+        if (filter == null || filter.test(start)) {
+            results.push(start, startScore);
+        }
+        while (candidates.size() > 0) {
+            double candidateScore = candidates.peekScore();
+            if (results.size() >= ef && candidateScore < results.peekScore()) {
+                break;
+            }
+            int candidate = candidates.poll();
+            int[] links = links(candidate, layer);
+            int offset = linksOffset(candidate, layer);
+            for (int i = 1; i <= links[offset]; i++) {
+                int neighbor = links[offset + i];
+                if (!marks.mark(neighbor)) {
+                    continue;
+                }
+                double score = similarity(query, neighbor);
+                if (results.size() < ef || score > results.peekScore()) {
+                    candidates.push(neighbor, score);
+                    if (filter == null || filter.test(neighbor)) {
+                        results.push(neighbor, score);
+                        if (results.size() > ef) {
+                            results.poll();
+                        }
+                    }
+                }
+            }
+        }
+        return results;
+    }
+    
+    private double similarity(float[] query, int node) {
+        return dot(query, 0, vectors, node * dimension, dimension);
+    }
+    
+    private double similarity(int a, int b) {
+        return dot(vectors, a * dimension, vectors, b * dimension, dimension);
+    }
+    
+    // Four independent sums, so consecutive additions don't wait on each other; this is most of
+    // the time spent building and searching
+    private static float dot(float[] a, int aOffset, float[] b, int bOffset, int length) {
+        float sum0 = 0f;
+        float sum1 = 0f;
+        float sum2 = 0f;
+        float sum3 = 0f;
+        int i = 0;
+        for (; i + 3 < length; i += 4) {
+            sum0 += a[aOffset + i] * b[bOffset + i];
+            sum1 += a[aOffset + i + 1] * b[bOffset + i + 1];
+            sum2 += a[aOffset + i + 2] * b[bOffset + i + 2];
+            sum3 += a[aOffset + i + 3] * b[bOffset + i + 3];
+        }
+        for (; i < length; i++) {
+            sum0 += a[aOffset + i] * b[bOffset + i];
+        }
+        return (sum0 + sum1) + (sum2 + sum3);
+    }
+    
+    private int[] links(int node, int layer) {
+        return layer == 0 ? links0 : upperLinks[node];
+    }
+    
+    private int linksOffset(int node, int layer) {
+        return layer == 0 ? node * (maxLinks0 + 1) : (layer - 1) * (m + 1);
+    }
+    
+    private void setLinks(int node, int layer, int[] neighbors, int count) {
+        int[] links = links(node, layer);
+        int offset = linksOffset(node, layer);
+        links[offset] = count;
+        System.arraycopy(neighbors, 0, links, offset + 1, count);
+    }
+    
+    private int nodeOf(int id) {
+        return id >= 0 && id < nodeById.length ? nodeById[id] - 1 : -1;
+    }
+    
+    private void mapId(int id, int node) {
+        if (id >= nodeById.length) {
+            nodeById = Arrays.copyOf(nodeById, Math.max(id + 1, nodeById.length * 2));
+        }
+        nodeById[id] = node + 1;
+    }
+    
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int grown = Math.max(capacity, ids.length * 2);
+        ids = Arrays.copyOf(ids, grown);
+        levels = Arrays.copyOf(levels, grown);
+        deleted = Arrays.copyOf(deleted, grown);
+        vectors = Arrays.copyOf(vectors, Math.multiplyExact(grown, dimension));
+        links0 = Arrays.copyOf(links0, Math.multiplyExact(grown, maxLinks0 + 1));
+        upperLinks = Arrays.copyOf(upperLinks, grown);
+    }
+    
+    private static void sortBestFirst(int[] nodes, double[] scores) {
+        // Insertion sort: at most 2 * m + 1 entries
+        for (int i = 1; i < nodes.length; i++) {
+            int node = nodes[i];
+            double score = scores[i];
+            int j = i - 1;
+            while (j >= 0 && scores[j] < score) {
+                nodes[j + 1] = nodes[j];
+                scores[j + 1] = scores[j];
+                j--;
+            }
+            nodes[j + 1] = node;
+            scores[j + 1] = score;
+        }
+    }
+    
+    // Open-addressing set of visited nodes: a search touches a few thousand nodes, so this
+    // stays small where a mark per node in the index would not
+    private static final class Visited {
+        
+        private int[] slots;
+        private int count;
+        
+        Visited(int expected) {
+            slots = new int[Integer.highestOneBit(Math.max(expected, 16)) * 4];
+        }
+        
+        // True if the node wasn't visited yet in this search
+        boolean mark(int node) {
+            int mask = slots.length - 1;
+            int slot = (node * 0x9E3779B9) >>> 1 & mask;
+            while (slots[slot] != 0) {
+                if (slots[slot] == node + 1) {
+                    return false;
+                }
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = node + 1;
+            if (++count * 2 > slots.length) {
+                grow();
+            }
+            return true;
+        }
+        
+        private void grow() {
+            int[] old = slots;
+            slots = new int[old.length * 2];
+            count = 0;
+            for (int entry : old) {
+                if (entry != 0) {
+                    mark(entry - 1);
+                }
+            }
+        }
+    }
+    
+    // Little-endian primitive writes through a 1 MB buffer
+    private static final class Output {
+        
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+        
+        void putByte(byte value) throws IOException {
+            ensureRoom(1);
+            buffer.put(value);
+        }
+        
+        void putInt(int value) throws IOException {
+            ensureRoom(4);
+            buffer.putInt(value);
+        }
+        
+        void putLong(long value) throws IOException {
+            ensureRoom(8);
+            buffer.putLong(value);
+        }
+        
+        void putFloat(float value) throws IOException {
+            ensureRoom(4);
+            buffer.putFloat(value);
+        }
+        
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+        
+        private void ensureRoom(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+    
+    private static final class Input {
+        
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+        
+        Input(FileChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+        
+        byte getByte() throws IOException {
+            ensureAvailable(1);
+            return buffer.get();
+        }
+        
+        int getInt() throws IOException {
+            ensureAvailable(4);
+            return buffer.getInt();
+        }
+        
+        long getLong() throws IOException {
+            ensureAvailable(8);
+            return buffer.getLong();
+        }
+        
+        float getFloat() throws IOException {
+            ensureAvailable(4);
+            return buffer.getFloat();
+        }
+        
+        private void ensureAvailable(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < bytes) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("Index file ends early");
+                }
+            }
+            buffer.flip();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.bookrecommender.ann;
+
+import java.util.Arrays;
+
+/**
+ * A binary heap of (node, score) pairs in two primitive arrays: best score on top when
+ * {@code bestFirst}, worst on top otherwise. Grows as needed.
+ */
+final class NodeQueue {
+    
+    private final boolean bestFirst;
+    private int[] nodes;
+    private double[] scores;
+    private int size;
+    
+    NodeQueue(int capacity, boolean bestFirst) {
+        this.bestFirst = bestFirst;
+        this.nodes = new int[Math.max(capacity, 4)];
+        this.scores = new double[nodes.length];
+    }
+    
+    int size() {
+        return size;
+    }
+    
+    double peekScore() {
+        return scores[0];
+    }
+    
+    void push(int node, double score) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            scores = Arrays.copyOf(scores, size * 2);
+        }
+        int position = size++;
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!above(score, scores[parent])) {
+                break;
+            }
+            nodes[position] = nodes[parent];
+            scores[position] = scores[parent];
+            position = parent;
+        }
+        nodes[position] = node;
+        scores[position] = score;
+    }
+    
+    /**
+     * Removes the top pair and returns its node.
+     */
+    int poll() {
+        int top = nodes[0];
+        size--;
+        int node = nodes[size];
+        double score = scores[size];
+        int position = 0;
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && above(scores[child + 1], scores[child])) {
+                child++;
+            }
+            if (!above(scores[child], score)) {
+                break;
+            }
+            nodes[position] = nodes[child];
+            scores[position] = scores[child];
+            position = child;
+        }
+        nodes[position] = node;
+        scores[position] = score;
+        return top;
+    }
+    
+    // Whether a belongs closer to the top than b
+    private boolean above(double a, double b) {
+        return bestFirst ? a > b : a < b;
+    }
+}
@@ -0,0 +1,362 @@
+package com.example.bookrecommender.catalog;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of ints in the style of Roaring bitmaps. Values are grouped into chunks of
+ * 65536 by their high 16 bits, and each chunk stores only the low 16 bits: as a sorted array
+ * of 2-byte values while it holds at most {@value #ARRAY_MAX_SIZE} of them, or as a fixed 8 KB
+ * bitmap once it holds more. A set of 10,000 book ids therefore costs under 40 KB when the ids
+ * are scattered over a 10M-book catalog and about 8 KB when they are contiguous, against well
+ * over half a megabyte for a {@code HashSet<Long>}.
+ *
+ * <p>Not thread-safe. Shared bitmaps are copied, changed and republished rather than mutated
+ * in place (see {@link #copy()}).
+ */
+public final class CompressedBitmap {
+    
+    static final int ARRAY_MAX_SIZE = 4096;
+    
+    private char[] keys;
+    private Container[] containers;
+    private int size;
+    
+    public CompressedBitmap() {
+        this(new char[4], new Container[4], 0);
+    }
+    
+    private CompressedBitmap(char[] keys, Container[] containers, int size) {
+        this.keys = keys;
+        this.containers = containers;
+        this.size = size;
+    }
+    
+    public static CompressedBitmap of(int... values) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value : values) {
+            bitmap.add(value);
+        }
+        return bitmap;
+    }
+    
+    /**
+     * Adds a value; returns false if it was already present.
+     */
+    public boolean add(int value) {
+        char key = (char) (value >>> 16);
+        int index = indexOf(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key, new ArrayContainer());
+        }
+        Container container = containers[index];
+        int before = container.cardinality;
+        containers[index] = container.add((char) value);
+        return containers[index].cardinality > before;
+    }
+    
+    /**
+     * Removes a value; returns false if it was not present.
+     */
+    public boolean remove(int value) {
+        int index = indexOf((char) (value >>> 16));
+        if (index < 0) {
+            return false;
+        }
+        Container container = containers[index];
+        int before = container.cardinality;
+        Container changed = container.remove((char) value);
+        if (changed.cardinality == 0) {
+            removeContainer(index);
+        } else {
+            containers[index] = changed;
+        }
+        return changed.cardinality < before;
+    }
+    
+    public boolean contains(int value) {
+        int index = indexOf((char) (value >>> 16));
+        return index >= 0 && containers[index].contains((char) value);
+    }
+    
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < size; i++) {
+            cardinality += containers[i].cardinality;
+        }
+        return cardinality;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * The values of this bitmap that are not in {@code other}, as a new bitmap. Chunks missing
+     * from {@code other} are copied whole rather than checked value by value.
+     */
+    public CompressedBitmap andNot(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap(new char[Math.max(4, size)], new Container[Math.max(4, size)], 0);
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            char key = keys[i];
+            while (j < other.size && other.keys[j] < key) {
+                j++;
+            }
+            Container container = j < other.size && other.keys[j] == key
+                    ? containers[i].andNot(other.containers[j])
+                    : containers[i].copy();
+            if (container.cardinality > 0) {
+                result.keys[result.size] = key;
+                result.containers[result.size++] = container;
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Visits the values in ascending unsigned order.
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            containers[i].forEach(keys[i] << 16, action);
+        }
+    }
+    
+    public CompressedBitmap copy() {
+        Container[] copies = new Container[containers.length];
+        for (int i = 0; i < size; i++) {
+            copies[i] = containers[i].copy();
+        }
+        return new CompressedBitmap(keys.clone(), copies, size);
+    }
+    
+    /**
+     * Approximate heap footprint in bytes.
+     */
+    public long memoryBytes() {
+        long bytes = 16 + 16 + 2L * keys.length + 16 + 4L * containers.length;
+        for (int i = 0; i < size; i++) {
+            bytes += containers[i].memoryBytes();
+        }
+        return bytes;
+    }
+    
+    private int indexOf(char key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+    
+    private void insertContainer(int index, char key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+    
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        containers[--size] = null;
+    }
+    
+    /**
+     * The low 16 bits of the values in one chunk. Changes may return a different container when
+     * the chunk switches between the array and bitmap representations.
+     */
+    private abstract static class Container {
+        
+        int cardinality;
+        
+        abstract boolean contains(char value);
+        
+        abstract Container add(char value);
+        
+        abstract Container remove(char value);
+        
+        abstract Container andNot(Container other);
+        
+        abstract void forEach(int high, IntConsumer action);
+        
+        abstract Container copy();
+        
+        abstract long memoryBytes();
+    }
+    
+    private static final class ArrayContainer extends Container {
+        
+        private char[] values;
+        
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+        
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+        
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+        
+        @Override
+        Container add(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                return this;
+            }
+            if (cardinality == ARRAY_MAX_SIZE) {
+                return toBitmap().add(value);
+            }
+            index = -index - 1;
+            if (cardinality == values.length) {
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX_SIZE, Math.max(4, cardinality * 2)));
+            }
+            System.arraycopy(values, index, values, index + 1, cardinality - index);
+            values[index] = value;
+            cardinality++;
+            return this;
+        }
+        
+        @Override
+        Container remove(char value) {
+            int index = Arrays.binarySearch(values, 0, cardinality, value);
+            if (index >= 0) {
+                System.arraycopy(values, index + 1, values, index, cardinality - index - 1);
+                cardinality--;
+            }
+            return this;
+        }
+        
+        @Override
+        Container andNot(Container other) {
+            char[] kept = new char[cardinality];
+            int count = 0;
+            for (int i = 0; i < cardinality; i++) {
+                if (!other.contains(values[i])) {
+                    kept[count++] = values[i];
+                }
+            }
+            return new ArrayContainer(kept, count);
+        }
+        
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < cardinality; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+        
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 1)), cardinality);
+        }
+        
+        @Override
+        long memoryBytes() {
+            return 16 + 16 + 2L * values.length;
+        }
+        
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++) {
+                bitmap.add(values[i]);
+            }
+            return bitmap;
+        }
+    }
+    
+    private static final class BitmapContainer extends Container {
+        
+        private final long[] words;
+        
+        BitmapContainer() {
+            this(new long[1024], 0);
+        }
+        
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+        
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+        
+        @Override
+        Container add(char value) {
+            long word = words[value >>> 6];
+            long bit = 1L << value;
+            if ((word & bit) == 0) {
+                words[value >>> 6] = word | bit;
+                cardinality++;
+            }
+            return this;
+        }
+        
+        @Override
+        Container remove(char value) {
+            long word = words[value >>> 6];
+            long bit = 1L << value;
+            if ((word & bit) != 0) {
+                words[value >>> 6] = word & ~bit;
+                cardinality--;
+            }
+            return cardinality <= ARRAY_MAX_SIZE ? toArray() : this;
+        }
+        
+        @Override
+        Container andNot(Container other) {
+            long[] kept = words.clone();
+            if (other instanceof BitmapContainer bitmap) {
+                for (int i = 0; i < kept.length; i++) {
+                    kept[i] &= ~bitmap.words[i];
+                }
+            } else {
+                other.forEach(0, value -> kept[value >>> 6] &= ~(1L << value));
+            }
+            int count = 0;
+            for (long word : kept) {
+                count += Long.bitCount(word);
+            }
+            BitmapContainer result = new BitmapContainer(kept, count);
+            return count <= ARRAY_MAX_SIZE ? result.toArray() : result;
+        }
+        
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < words.length; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    action.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+        
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+        
+        @Override
+        long memoryBytes() {
+            return 16 + 16 + 8L * words.length;
+        }
+        
+        private ArrayContainer toArray() {
+            char[] values = new char[Math.max(cardinality, 1)];
+            int[] count = new int[1];
+            forEach(0, value -> values[count[0]++] = (char) value);
+            return new ArrayContainer(values, cardinality);
+        }
+    }
+}
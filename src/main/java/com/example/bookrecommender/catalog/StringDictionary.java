@@ -0,0 +1,53 @@
+package com.example.bookrecommender.catalog;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Assigns dense int ids to strings (genres, authors) so catalog columns can store
+ * ints instead of references. Ids are never reused or removed. Lookups are safe from
+ * any thread; {@link #intern} must only be called by the single catalog writer.
+ */
+public class StringDictionary {
+    
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] names;
+    private int size;
+    
+    public StringDictionary() {
+        this.names = new String[16];
+    }
+    
+    /**
+     * The id of {@code name}, or -1 if it has never been interned.
+     */
+    public int idOf(String name) {
+        Integer id = name != null ? ids.get(name) : null;
+        return id != null ? id : -1;
+    }
+    
+    public String name(int id) {
+        return names[id];
+    }
+    
+    public int size() {
+        return ids.size();
+    }
+    
+    int intern(String name) {
+        Integer existing = ids.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        String[] current = names;
+        if (size == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[size] = name;
+        // Publish the array before the id, so a reader that finds the id can resolve it
+        names = current;
+        ids.put(name, size);
+        return size++;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.bookrecommender.catalog;
+
+/**
+ * Keeps the {@code k} best (score, book id) pairs seen, highest score first and lower id
+ * first on ties, in primitive arrays. Meant for small k: each offer is an insertion into a
+ * sorted array, which beats a heap for the 10-20 results recommendations return.
+ */
+public class TopScores {
+    
+    private final double[] scores;
+    private final long[] ids;
+    private int size;
+    
+    public TopScores(int k) {
+        this.scores = new double[k];
+        this.ids = new long[k];
+    }
+    
+    public void offer(long id, double score) {
+        int k = scores.length;
+        if (size == k && !isBetter(score, id, scores[k - 1], ids[k - 1])) {
+            return;
+        }
+        int position = size < k ? size++ : k - 1;
+        while (position > 0 && isBetter(score, id, scores[position - 1], ids[position - 1])) {
+            scores[position] = scores[position - 1];
+            ids[position] = ids[position - 1];
+            position--;
+        }
+        scores[position] = score;
+        ids[position] = id;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public long id(int rank) {
+        return ids[rank];
+    }
+    
+    public double score(int rank) {
+        return scores[rank];
+    }
+    
+    private static boolean isBetter(double score, long id, double otherScore, long otherId) {
+        return score > otherScore || (score == otherScore && id < otherId);
+    }
+}
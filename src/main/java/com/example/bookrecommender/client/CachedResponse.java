@@ -0,0 +1,15 @@
+package com.example.bookrecommender.client;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class CachedResponse {
+    private int status;
+    private long fetchedAt;
+    private String etag;
+    private String lastModified;
+    private String contentType;
+    private byte[] body;
+}
@@ -0,0 +1,158 @@
+package com.example.bookrecommender.client;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Serves GET requests from a {@link DiskResponseCache}. Entries younger than the TTL
+ * are returned without touching the network; older entries are revalidated with
+ * If-None-Match / If-Modified-Since. Only requests that reach the network are
+ * rate limited. In offline mode every cached entry is served regardless of age.
+ */
+public class CachingClientHttpRequestInterceptor implements ClientHttpRequestInterceptor {
+    
+    public static final String CACHE_STATUS_HEADER = "X-Cache";
+    
+    private final DiskResponseCache cache;
+    private final Duration ttl;
+    private final boolean offline;
+    private final HostRateLimiter rateLimiter;
+    
+    public CachingClientHttpRequestInterceptor(DiskResponseCache cache, Duration ttl, boolean offline,
+                                               HostRateLimiter rateLimiter) {
+        this.cache = cache;
+        this.ttl = ttl;
+        this.offline = offline;
+        this.rateLimiter = rateLimiter;
+    }
+    
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String url = request.getURI().toString();
+        if (request.getMethod() != HttpMethod.GET) {
+            acquirePermit(url);
+            return execution.execute(request, body);
+        }
+        
+        Optional<CachedResponse> cached = cache.get(url);
+        if (cached.isPresent() && (offline || isFresh(cached.get()))) {
+            return new CachedClientHttpResponse(cached.get(), "HIT");
+        }
+        if (offline) {
+            throw new OfflineCacheMissException(url);
+        }
+        
+        if (cached.isPresent()) {
+            if (cached.get().getEtag() != null) {
+                request.getHeaders().setIfNoneMatch(cached.get().getEtag());
+            }
+            if (cached.get().getLastModified() != null) {
+                request.getHeaders().set(HttpHeaders.IF_MODIFIED_SINCE, cached.get().getLastModified());
+            }
+        }
+        
+        acquirePermit(url);
+        try (ClientHttpResponse response = execution.execute(request, body)) {
+            int status = response.getStatusCode().value();
+            long now = System.currentTimeMillis();
+            
+            if (status == HttpStatus.NOT_MODIFIED.value() && cached.isPresent()) {
+                CachedResponse revalidated = cached.get();
+                revalidated.setFetchedAt(now);
+                cache.put(url, revalidated);
+                return new CachedClientHttpResponse(revalidated, "REVALIDATED");
+            }
+            
+            HttpHeaders headers = response.getHeaders();
+            MediaType contentType = headers.getContentType();
+            CachedResponse fetched = new CachedResponse(
+                    status,
+                    now,
+                    headers.getETag(),
+                    headers.getFirst(HttpHeaders.LAST_MODIFIED),
+                    contentType == null ? null : contentType.toString(),
+                    StreamUtils.copyToByteArray(response.getBody()));
+            
+            // Not-found answers are stable too, and caching them keeps re-runs off the network
+            if (status == HttpStatus.OK.value() || status == HttpStatus.NOT_FOUND.value()) {
+                cache.put(url, fetched);
+            }
+            return new CachedClientHttpResponse(fetched, "MISS");
+        }
+    }
+    
+    private boolean isFresh(CachedResponse response) {
+        return System.currentTimeMillis() - response.getFetchedAt() < ttl.toMillis();
+    }
+    
+    private void acquirePermit(String url) throws IOException {
+        try {
+            rateLimiter.acquire(url);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting to call " + url);
+        }
+    }
+    
+    private static class CachedClientHttpResponse implements ClientHttpResponse {
+        
+        private final CachedResponse response;
+        private final HttpHeaders headers = new HttpHeaders();
+        
+        CachedClientHttpResponse(CachedResponse response, String cacheStatus) {
+            this.response = response;
+            if (response.getContentType() != null) {
+                headers.set(HttpHeaders.CONTENT_TYPE, response.getContentType());
+            }
+            if (response.getEtag() != null) {
+                headers.setETag(response.getEtag());
+            }
+            if (response.getLastModified() != null) {
+                headers.set(HttpHeaders.LAST_MODIFIED, response.getLastModified());
+            }
+            headers.setContentLength(response.getBody().length);
+            headers.set(CACHE_STATUS_HEADER, cacheStatus);
+        }
+        
+        @Override
+        public HttpStatusCode getStatusCode() {
+            return HttpStatusCode.valueOf(response.getStatus());
+        }
+        
+        @Override
+        public String getStatusText() {
+            HttpStatus status = HttpStatus.resolve(response.getStatus());
+            return status == null ? "" : status.getReasonPhrase();
+        }
+        
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+        
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(response.getBody());
+        }
+        
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.bookrecommender.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Stores HTTP responses on local disk, one gzip file per URL holding the status,
+ * validators (ETag, Last-Modified), fetch time and body.
+ */
+public class DiskResponseCache {
+    
+    private static final Logger logger = LoggerFactory.getLogger(DiskResponseCache.class);
+    private static final int FORMAT_VERSION = 1;
+    
+    private final Path directory;
+    
+    public DiskResponseCache(Path directory) {
+        this.directory = directory;
+    }
+    
+    public Optional<CachedResponse> get(String url) {
+        Path file = pathFor(url);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION) {
+                return Optional.empty();
+            }
+            int status = in.readInt();
+            long fetchedAt = in.readLong();
+            String etag = emptyToNull(in.readUTF());
+            String lastModified = emptyToNull(in.readUTF());
+            String contentType = emptyToNull(in.readUTF());
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return Optional.of(new CachedResponse(status, fetchedAt, etag, lastModified, contentType, body));
+        } catch (IOException e) {
+            logger.warn("Ignoring unreadable cache entry for {}", url, e);
+            return Optional.empty();
+        }
+    }
+    
+    public void put(String url, CachedResponse response) {
+        Path file = pathFor(url);
+        try {
+            Files.createDirectories(file.getParent());
+            // Write to a temp file first so readers never see a partially written entry
+            Path temp = Files.createTempFile(file.getParent(), "entry", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeInt(response.getStatus());
+                out.writeLong(response.getFetchedAt());
+                out.writeUTF(nullToEmpty(response.getEtag()));
+                out.writeUTF(nullToEmpty(response.getLastModified()));
+                out.writeUTF(nullToEmpty(response.getContentType()));
+                out.writeInt(response.getBody().length);
+                out.write(response.getBody());
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Could not cache response for {}", url, e);
+        }
+    }
+    
+    private Path pathFor(String url) {
+        String hash = sha256(url);
+        return directory.resolve(hash.substring(0, 2)).resolve(hash + ".gz");
+    }
+    
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+    
+    private static String nullToEmpty(String value) {
+        return value == null ? "" : value;
+    }
+    
+    private static String emptyToNull(String value) {
+        return value.isEmpty() ? null : value;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.bookrecommender.client;
+
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Spaces requests to the same host at least {@code 1 / requestsPerSecond} apart,
+ * independently of how many threads are issuing them.
+ */
+public class HostRateLimiter {
+    
+    private final long intervalNanos;
+    private final ConcurrentMap<String, Long> nextPermit = new ConcurrentHashMap<>();
+    
+    public HostRateLimiter(double requestsPerSecond) {
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond);
+    }
+    
+    public void acquire(String url) throws InterruptedException {
+        String host = URI.create(url).getHost();
+        long now = System.nanoTime();
+        long[] wait = new long[1];
+        nextPermit.compute(host == null ? "" : host, (key, next) -> {
+            long slot = next == null ? now : Math.max(next, now);
+            wait[0] = slot - now;
+            return slot + intervalNanos;
+        });
+        if (wait[0] > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait[0]);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.bookrecommender.client;
+
+import java.io.IOException;
+
+/**
+ * Thrown in offline mode for a request that has no cached response. Retrying cannot
+ * help, so callers should give up on the request straight away.
+ */
+public class OfflineCacheMissException extends IOException {
+    
+    public OfflineCacheMissException(String url) {
+        super("Offline mode and no cached response for " + url);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.bookrecommender.config;
+
+import com.example.bookrecommender.client.CachingClientHttpRequestInterceptor;
+import com.example.bookrecommender.client.DiskResponseCache;
+import com.example.bookrecommender.client.HostRateLimiter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.client.RestTemplate;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Configuration
+public class OpenLibraryClientConfig {
+    
+    @Value("${openlibrary.cache.dir:${user.home}/.cache/bookrecommender/openlibrary}")
+    private String cacheDirectory;
+    
+    @Value("${openlibrary.cache.ttl:7d}")
+    private Duration cacheTtl;
+    
+    @Value("${openlibrary.cache.offline:false}")
+    private boolean offline;
+    
+    @Value("${openlibrary.requests-per-second:2}")
+    private double requestsPerSecond;
+    
+    @Bean
+    public RestTemplate openLibraryRestTemplate(RestTemplateBuilder builder) {
+        CachingClientHttpRequestInterceptor cachingInterceptor = new CachingClientHttpRequestInterceptor(
+                new DiskResponseCache(Path.of(cacheDirectory)),
+                cacheTtl,
+                offline,
+                new HostRateLimiter(requestsPerSecond));
+        
+        return builder
+                .setConnectTimeout(Duration.ofSeconds(10))
+                .setReadTimeout(Duration.ofSeconds(30))
+                .additionalInterceptors(cachingInterceptor)
+                .build();
+    }
+}
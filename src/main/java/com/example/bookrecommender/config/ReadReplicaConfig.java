@@ -0,0 +1,123 @@
+package com.example.bookrecommender.config;
+
+import com.example.bookrecommender.replica.ReadYourWritesFilter;
+import com.example.bookrecommender.replica.ReadYourWritesTracker;
+import com.example.bookrecommender.replica.ReplicaPool;
+import com.example.bookrecommender.replica.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Only active when read replicas are configured; otherwise Spring Boot's single pool is used.
+// The primary and replica pools are deliberately not beans of their own: the routing
+// DataSource is the one every component (JPA, JdbcTemplate, Flyway, SQL tracing) sees.
+@Configuration
+@ConditionalOnProperty("datasource.replica.urls")
+public class ReadReplicaConfig implements DisposableBean {
+    
+    // Created here rather than as beans, so they are closed here too
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    
+    @Value("${datasource.replica.urls}")
+    private List<String> replicaUrls;
+    
+    @Value("${datasource.replica.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+    
+    @Value("${datasource.replica.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+    
+    @Value("${datasource.replica.health-check-interval:5s}")
+    private Duration healthCheckInterval = Duration.ofSeconds(5);
+    
+    // How long a user's reads stay on the primary after they wrote; should exceed typical replica lag
+    @Value("${datasource.replica.read-your-writes-window:5s}")
+    private Duration readYourWritesWindow = Duration.ofSeconds(5);
+    
+    @Bean
+    public ReadYourWritesTracker readYourWritesTracker() {
+        return new ReadYourWritesTracker(readYourWritesWindow);
+    }
+    
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReadYourWritesTracker tracker) {
+        return new ReadYourWritesFilter(tracker);
+    }
+    
+    @Bean
+    public ReplicaPool replicaPool(DataSourceProperties properties, Environment environment) {
+        List<ReplicaPool.Replica> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            HikariDataSource pool = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(replicaUrls.get(i).trim())
+                    .username(replicaUsername)
+                    .password(replicaPassword)
+                    .build();
+            bindHikariSettings(pool, environment);
+            pool.setPoolName("replica-" + i);
+            // A replica that is down at startup must not stop the application; it stays out of rotation
+            pool.setInitializationFailTimeout(-1);
+            pool.setReadOnly(true);
+            pools.add(pool);
+            replicas.add(new ReplicaPool.Replica("replica-" + i, pool));
+        }
+        return new ReplicaPool(replicas);
+    }
+    
+    @Bean(destroyMethod = "shutdownNow")
+    public ScheduledExecutorService replicaHealthChecker(ReplicaPool replicaPool, ReadYourWritesTracker tracker) {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-health-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = healthCheckInterval.toMillis();
+        executor.scheduleWithFixedDelay(() -> {
+            replicaPool.checkHealth();
+            tracker.purgeExpired();
+        }, 0, intervalMs, TimeUnit.MILLISECONDS);
+        return executor;
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+                                 ReplicaPool replicaPool, ReadYourWritesTracker tracker) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        bindHikariSettings(primary, environment);
+        primary.setPoolName("primary");
+        pools.add(primary);
+        
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replicaPool, tracker));
+    }
+    
+    @Override
+    public void destroy() {
+        pools.forEach(HikariDataSource::close);
+    }
+    
+    // Same pool tuning (spring.datasource.hikari.*) as the auto-configured pool would get
+    private static void bindHikariSettings(HikariDataSource pool, Environment environment) {
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+    }
+}
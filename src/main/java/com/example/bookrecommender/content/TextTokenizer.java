@@ -0,0 +1,54 @@
+package com.example.bookrecommender.content;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits book text into index terms: accents stripped, lower-cased, split on anything that
+ * isn't a letter or digit, with stop words, single characters and bare numbers dropped.
+ * Imported descriptions are short template sentences ("A fantasy book about dragons, magic"),
+ * so the template words are stop words too.
+ */
+final class TextTokenizer {
+    
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "but", "by", "for", "from", "has", "have", "he",
+            "her", "his", "in", "into", "is", "it", "its", "not", "of", "on", "or", "she", "that", "the",
+            "their", "they", "this", "to", "was", "were", "which", "who", "will", "with",
+            "about", "book", "books");
+    
+    private TextTokenizer() {
+    }
+    
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return tokens;
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= decomposed.length(); i++) {
+            char c = i < decomposed.length() ? decomposed.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (token.length() > 0) {
+                add(tokens, token.toString().toLowerCase(Locale.ROOT));
+                token.setLength(0);
+            }
+        }
+        return tokens;
+    }
+    
+    private static void add(List<String> tokens, String token) {
+        if (token.length() < 2 || STOP_WORDS.contains(token) || token.chars().allMatch(Character::isDigit)) {
+            return;
+        }
+        tokens.add(token);
+    }
+}
@@ -0,0 +1,465 @@
+package com.example.bookrecommender.content;
+
+import com.example.bookrecommender.catalog.CompressedBitmap;
+import com.example.bookrecommender.catalog.TopScores;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.IntStream;
+
+/**
+ * Content similarity between books: each book's title, description and genre become a sparse
+ * TF-IDF vector (log-scaled term counts times inverse document frequency, L2-normalized), and
+ * every book keeps its {@code neighbors} most cosine-similar books, computed ahead of time.
+ *
+ * <p>Similarities come from an inverted index rather than comparing all pairs: for one book,
+ * walk the posting list of each of its terms and add up the products of weights per book met.
+ * Only books sharing a term are ever touched. Terms in more than {@code maxDocumentFrequency}
+ * of the books (and at least a thousand) are skipped there, since their long posting lists add
+ * cost but little signal.
+ *
+ * <p>Books are rows in flat arrays, in insertion order. Editing a book tombstones its row and
+ * appends a new one, whose neighbors are computed on the spot and offered to the neighbor lists
+ * of every book it is similar to. Lists that held the book before an edit keep their old score
+ * for it until the next {@link Builder#build()}. Document frequencies follow edits; weights
+ * already computed keep the frequencies of their time, which drift as the catalog grows, so
+ * callers rebuild once {@link #needsRebuild()}.
+ *
+ * <p>Reads run in parallel with each other; changes take an exclusive lock.
+ */
+public final class TfIdfIndex {
+    
+    private static final int MIN_SKIPPED_DOCUMENT_FREQUENCY = 1000;
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    private final int neighbors;
+    private final double maxDocumentFrequency;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private final Map<String, Integer> termIds = new HashMap<>();
+    private int termCount;
+    private int[] documentFrequencies = new int[INITIAL_CAPACITY];
+    private int[][] postingRows = new int[INITIAL_CAPACITY][];
+    private float[][] postingWeights = new float[INITIAL_CAPACITY][];
+    private int[] postingCounts = new int[INITIAL_CAPACITY];
+    
+    private int rowCount;
+    private int liveCount;
+    private int builtCount;
+    private int[] bookIds = new int[INITIAL_CAPACITY];
+    private boolean[] dead = new boolean[INITIAL_CAPACITY];
+    // Row r's terms and weights are entries vectorStarts[r] .. vectorStarts[r + 1] - 1
+    private int[] vectorStarts = new int[INITIAL_CAPACITY + 1];
+    private int[] vectorTerms = new int[INITIAL_CAPACITY * 8];
+    private float[] vectorWeights = new float[INITIAL_CAPACITY * 8];
+    // Book id -> row + 1; 0 when the book isn't indexed
+    private int[] rowByBook = new int[0];
+    // Row r's neighbors, best first, at r * neighbors
+    private int[] neighborBooks;
+    private float[] neighborScores;
+    private int[] neighborCounts = new int[INITIAL_CAPACITY];
+    // Accumulators for changes, which run one at a time
+    private float[] scratchScores = new float[0];
+    private int[] scratchTouched = new int[0];
+    
+    private TfIdfIndex(int neighbors, double maxDocumentFrequency) {
+        this.neighbors = neighbors;
+        this.maxDocumentFrequency = maxDocumentFrequency;
+        this.neighborBooks = new int[INITIAL_CAPACITY * neighbors];
+        this.neighborScores = new float[INITIAL_CAPACITY * neighbors];
+    }
+    
+    /**
+     * @param neighbors            similar books kept per book
+     * @param maxDocumentFrequency share of books above which a term is too common to compare on
+     */
+    public static Builder builder(int neighbors, double maxDocumentFrequency) {
+        if (neighbors < 1 || maxDocumentFrequency <= 0 || maxDocumentFrequency > 1) {
+            throw new IllegalArgumentException("neighbors must be positive and maxDocumentFrequency in (0, 1]");
+        }
+        return new Builder(new TfIdfIndex(neighbors, maxDocumentFrequency));
+    }
+    
+    /**
+     * Collects every book first, so the document frequencies are known before any weight is.
+     */
+    public static final class Builder {
+        
+        private final TfIdfIndex index;
+        private final List<long[]> books = new ArrayList<>();
+        
+        private Builder(TfIdfIndex index) {
+            this.index = index;
+        }
+        
+        public Builder add(long bookId, String title, String description, String genre) {
+            long[] terms = index.countTerms(title, description, genre);
+            for (long term : terms) {
+                index.documentFrequencies[termOf(term)]++;
+            }
+            long[] book = Arrays.copyOf(terms, terms.length + 1);
+            book[terms.length] = bookId;
+            books.add(book);
+            return this;
+        }
+        
+        /**
+         * Weighs every book and computes all neighbor lists, in parallel on the common pool.
+         */
+        public TfIdfIndex build() {
+            for (long[] book : books) {
+                index.appendRow(Math.toIntExact(book[book.length - 1]), Arrays.copyOf(book, book.length - 1),
+                        books.size());
+            }
+            books.clear();
+            index.builtCount = index.liveCount;
+            index.computeAllNeighbors();
+            return index;
+        }
+    }
+    
+    /**
+     * Books that are indexed, not counting tombstoned rows.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return termCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Whether enough rows were tombstoned, or books added, since the build that rebuilding pays:
+     * a quarter of the rows dead, or the catalog doubled (so the weights' document frequencies
+     * are well off).
+     */
+    public boolean needsRebuild() {
+        lock.readLock().lock();
+        try {
+            return rowCount - liveCount > rowCount / 4 || liveCount > 2 * Math.max(builtCount, INITIAL_CAPACITY);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Indexes the book, or re-indexes it after an edit.
+     */
+    public void put(long bookId, String title, String description, String genre) {
+        int book = Math.toIntExact(bookId);
+        lock.writeLock().lock();
+        try {
+            int existing = rowOf(book);
+            if (existing >= 0) {
+                removeRow(existing);
+            }
+            long[] terms = countTerms(title, description, genre);
+            for (long term : terms) {
+                documentFrequencies[termOf(term)]++;
+            }
+            int row = appendRow(book, terms, liveCount + 1);
+            if (scratchScores.length < rowCount) {
+                scratchScores = new float[Math.max(rowCount, scratchScores.length * 2)];
+                scratchTouched = new int[scratchScores.length];
+            }
+            int touched = accumulate(row, scratchScores, scratchTouched);
+            TopScores top = new TopScores(neighbors);
+            for (int i = 0; i < touched; i++) {
+                int other = scratchTouched[i];
+                top.offer(bookIds[other], scratchScores[other]);
+                offerNeighbor(other, book, scratchScores[other]);
+                scratchScores[other] = 0f;
+            }
+            setNeighbors(row, top);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    public boolean remove(long bookId) {
+        lock.writeLock().lock();
+        try {
+            int row = rowOf(Math.toIntExact(bookId));
+            if (row < 0) {
+                return false;
+            }
+            removeRow(row);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Up to {@code limit} of the book's most similar books, best first, scored by cosine similarity.
+     */
+    public TopScores similar(long bookId, int limit) {
+        TopScores top = new TopScores(limit);
+        lock.readLock().lock();
+        try {
+            int row = rowOf(Math.toIntExact(bookId));
+            if (row < 0) {
+                return top;
+            }
+            int base = row * neighbors;
+            for (int i = 0; i < neighborCounts[row]; i++) {
+                if (rowOf(neighborBooks[base + i]) >= 0) {
+                    top.offer(neighborBooks[base + i], neighborScores[base + i]);
+                }
+            }
+            return top;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Books similar to the given ones, each scored by its summed similarity to them, leaving out
+     * the given books themselves. Meant for a handful of books: it reads their neighbor lists.
+     */
+    public TopScores recommend(CompressedBitmap books, int limit) {
+        Map<Integer, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            books.forEach(book -> {
+                int row = rowOf(book);
+                if (row < 0) {
+                    return;
+                }
+                int base = row * neighbors;
+                for (int i = 0; i < neighborCounts[row]; i++) {
+                    int neighbor = neighborBooks[base + i];
+                    if (!books.contains(neighbor) && rowOf(neighbor) >= 0) {
+                        scores.merge(neighbor, (double) neighborScores[base + i], Double::sum);
+                    }
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        TopScores top = new TopScores(limit);
+        scores.forEach((book, score) -> top.offer(book, score));
+        return top;
+    }
+    
+    // Term ids and counts of the book's text as sorted (term << 32 | count) pairs. The title
+    // counts twice: it says more about a book than a sentence of its description
+    private long[] countTerms(String title, String description, String genre) {
+        List<String> tokens = new ArrayList<>(TextTokenizer.tokens(title));
+        tokens.addAll(TextTokenizer.tokens(title));
+        tokens.addAll(TextTokenizer.tokens(description));
+        tokens.addAll(TextTokenizer.tokens(genre));
+        int[] terms = new int[tokens.size()];
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = intern(tokens.get(i));
+        }
+        Arrays.sort(terms);
+        long[] counts = new long[terms.length];
+        int distinct = 0;
+        for (int i = 0; i < terms.length; ) {
+            int j = i;
+            while (j < terms.length && terms[j] == terms[i]) {
+                j++;
+            }
+            counts[distinct++] = (long) terms[i] << 32 | (j - i);
+            i = j;
+        }
+        return Arrays.copyOf(counts, distinct);
+    }
+    
+    private static int termOf(long termCount) {
+        return (int) (termCount >>> 32);
+    }
+    
+    private int intern(String token) {
+        Integer existing = termIds.get(token);
+        if (existing != null) {
+            return existing;
+        }
+        if (termCount == documentFrequencies.length) {
+            int grown = termCount * 2;
+            documentFrequencies = Arrays.copyOf(documentFrequencies, grown);
+            postingRows = Arrays.copyOf(postingRows, grown);
+            postingWeights = Arrays.copyOf(postingWeights, grown);
+            postingCounts = Arrays.copyOf(postingCounts, grown);
+        }
+        termIds.put(token, termCount);
+        return termCount++;
+    }
+    
+    // Weighs the counted terms with the current document frequencies, out of that many books,
+    // and appends the row
+    private int appendRow(int bookId, long[] terms, int documents) {
+        int row = rowCount;
+        if (row == bookIds.length) {
+            int grown = row * 2;
+            bookIds = Arrays.copyOf(bookIds, grown);
+            dead = Arrays.copyOf(dead, grown);
+            vectorStarts = Arrays.copyOf(vectorStarts, grown + 1);
+            neighborCounts = Arrays.copyOf(neighborCounts, grown);
+            neighborBooks = Arrays.copyOf(neighborBooks, Math.multiplyExact(grown, neighbors));
+            neighborScores = Arrays.copyOf(neighborScores, Math.multiplyExact(grown, neighbors));
+        }
+        int start = vectorStarts[row];
+        if (start + terms.length > vectorTerms.length) {
+            int grown = Math.max(start + terms.length, vectorTerms.length * 2);
+            vectorTerms = Arrays.copyOf(vectorTerms, grown);
+            vectorWeights = Arrays.copyOf(vectorWeights, grown);
+        }
+        
+        double norm = 0.0;
+        for (int i = 0; i < terms.length; i++) {
+            int term = termOf(terms[i]);
+            int count = (int) terms[i];
+            double idf = Math.log((1.0 + documents) / (1.0 + documentFrequencies[term])) + 1.0;
+            double weight = (1.0 + Math.log(count)) * idf;
+            vectorTerms[start + i] = term;
+            vectorWeights[start + i] = (float) weight;
+            norm += weight * weight;
+        }
+        norm = Math.sqrt(norm);
+        for (int i = 0; i < terms.length; i++) {
+            float weight = (float) (vectorWeights[start + i] / norm);
+            vectorWeights[start + i] = weight;
+            addPosting(vectorTerms[start + i], row, weight);
+        }
+        
+        rowCount++;
+        liveCount++;
+        vectorStarts[row + 1] = start + terms.length;
+        bookIds[row] = bookId;
+        dead[row] = false;
+        neighborCounts[row] = 0;
+        if (bookId >= rowByBook.length) {
+            rowByBook = Arrays.copyOf(rowByBook, Math.max(bookId + 1, rowByBook.length * 2));
+        }
+        rowByBook[bookId] = row + 1;
+        return row;
+    }
+    
+    private void addPosting(int term, int row, float weight) {
+        int count = postingCounts[term];
+        if (postingRows[term] == null) {
+            postingRows[term] = new int[4];
+            postingWeights[term] = new float[4];
+        } else if (count == postingRows[term].length) {
+            postingRows[term] = Arrays.copyOf(postingRows[term], count * 2);
+            postingWeights[term] = Arrays.copyOf(postingWeights[term], count * 2);
+        }
+        postingRows[term][count] = row;
+        postingWeights[term][count] = weight;
+        postingCounts[term] = count + 1;
+    }
+    
+    // The row stays in the posting lists, skipped as dead, until the next build
+    private void removeRow(int row) {
+        dead[row] = true;
+        liveCount--;
+        rowByBook[bookIds[row]] = 0;
+        for (int entry = vectorStarts[row]; entry < vectorStarts[row + 1]; entry++) {
+            documentFrequencies[vectorTerms[entry]]--;
+        }
+    }
+    
+    private int rowOf(int bookId) {
+        return bookId >= 0 && bookId < rowByBook.length ? rowByBook[bookId] - 1 : -1;
+    }
+    
+    private void computeAllNeighbors() {
+        int chunk = Math.max(INITIAL_CAPACITY, rowCount / (4 * ForkJoinPool.getCommonPoolParallelism()));
+        int chunks = (rowCount + chunk - 1) / chunk;
+        // Each chunk gets its own accumulators, sized to the whole index
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            float[] scores = new float[rowCount];
+            int[] touched = new int[rowCount];
+            for (int row = c * chunk; row < Math.min(rowCount, (c + 1) * chunk); row++) {
+                int count = accumulate(row, scores, touched);
+                TopScores top = new TopScores(neighbors);
+                for (int i = 0; i < count; i++) {
+                    top.offer(bookIds[touched[i]], scores[touched[i]]);
+                    scores[touched[i]] = 0f;
+                }
+                setNeighbors(row, top);
+            }
+        });
+    }
+    
+    // Adds up the row's dot product with every live row sharing a term; returns how many rows
+    // were touched, listed in touched, with their scores at scores[row]
+    private int accumulate(int row, float[] scores, int[] touched) {
+        int touchedCount = 0;
+        double skipAbove = Math.max(MIN_SKIPPED_DOCUMENT_FREQUENCY, maxDocumentFrequency * liveCount);
+        for (int entry = vectorStarts[row]; entry < vectorStarts[row + 1]; entry++) {
+            int term = vectorTerms[entry];
+            if (documentFrequencies[term] > skipAbove) {
+                continue;
+            }
+            float weight = vectorWeights[entry];
+            int[] rows = postingRows[term];
+            float[] weights = postingWeights[term];
+            for (int posting = 0; posting < postingCounts[term]; posting++) {
+                int other = rows[posting];
+                if (other == row || dead[other]) {
+                    continue;
+                }
+                if (scores[other] == 0f) {
+                    touched[touchedCount++] = other;
+                }
+                scores[other] += weight * weights[posting];
+            }
+        }
+        return touchedCount;
+    }
+    
+    private void setNeighbors(int row, TopScores top) {
+        int base = row * neighbors;
+        for (int rank = 0; rank < top.size(); rank++) {
+            neighborBooks[base + rank] = (int) top.id(rank);
+            neighborScores[base + rank] = (float) top.score(rank);
+        }
+        neighborCounts[row] = top.size();
+    }
+    
+    // Puts the book in the row's neighbor list if it scores high enough, replacing its old entry
+    private void offerNeighbor(int row, int book, float score) {
+        int base = row * neighbors;
+        int count = neighborCounts[row];
+        for (int i = 0; i < count; i++) {
+            if (neighborBooks[base + i] == book) {
+                System.arraycopy(neighborBooks, base + i + 1, neighborBooks, base + i, count - i - 1);
+                System.arraycopy(neighborScores, base + i + 1, neighborScores, base + i, count - i - 1);
+                count--;
+                break;
+            }
+        }
+        if (count == neighbors && score <= neighborScores[base + count - 1]) {
+            neighborCounts[row] = count;
+            return;
+        }
+        int position = count < neighbors ? count++ : count - 1;
+        while (position > 0 && score > neighborScores[base + position - 1]) {
+            neighborBooks[base + position] = neighborBooks[base + position - 1];
+            neighborScores[base + position] = neighborScores[base + position - 1];
+            position--;
+        }
+        neighborBooks[base + position] = book;
+        neighborScores[base + position] = score;
+        neighborCounts[row] = count;
+    }
+}
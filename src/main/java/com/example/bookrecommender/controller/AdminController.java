@@ -0,0 +1,140 @@
+package com.example.bookrecommender.controller;
+
+import com.example.bookrecommender.dto.SqlTrace;
+import com.example.bookrecommender.monitoring.SqlTraceRecorder;
+import com.example.bookrecommender.monitoring.jfr.FlightRecordingService;
+import com.example.bookrecommender.service.NearDuplicateDetectionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Diagnostics for operators; restricted to ROLE_ADMIN in SecurityConfig
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+    private static final Set<String> JFR_SETTINGS = Set.of("default", "profile");
+    
+    @Autowired
+    private SqlTraceRecorder sqlTraceRecorder;
+    
+    @Autowired
+    private FlightRecordingService flightRecordingService;
+    
+    @Autowired
+    private NearDuplicateDetectionService nearDuplicateDetectionService;
+    
+    @GetMapping("/sql-traces")
+    public ResponseEntity<List<SqlTrace>> getSqlTraces(@RequestParam(required = false) String requestId) {
+        List<SqlTrace> traces = sqlTraceRecorder.getSlowTraces();
+        if (requestId != null) {
+            traces = traces.stream()
+                    .filter(trace -> requestId.equals(trace.getRequestId()))
+                    .toList();
+        }
+        return ResponseEntity.ok(traces);
+    }
+    
+    @DeleteMapping("/sql-traces")
+    public ResponseEntity<Void> clearSqlTraces() {
+        sqlTraceRecorder.clear();
+        return ResponseEntity.noContent().build();
+    }
+    
+    // Scans the whole catalog; each group lists the ids of books that are editions of one work
+    @GetMapping("/near-duplicates")
+    public ResponseEntity<List<List<Long>>> getNearDuplicates() {
+        return ResponseEntity.ok(nearDuplicateDetectionService.findNearDuplicateGroups());
+    }
+    
+    @GetMapping("/jfr")
+    public ResponseEntity<Map<String, Object>> getRecordingStatus() {
+        return ResponseEntity.ok(flightRecordingService.status());
+    }
+    
+    @PostMapping("/jfr/start")
+    public ResponseEntity<Map<String, Object>> startRecording(
+            @RequestParam(defaultValue = "default") String settings) {
+        if (!JFR_SETTINGS.contains(settings)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "settings must be one of " + JFR_SETTINGS));
+        }
+        try {
+            return ResponseEntity.ok(flightRecordingService.start(settings));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(flightRecordingService.status());
+        }
+    }
+    
+    // Snapshot of the running recording; it keeps recording afterwards. The service checks the
+    // recording is running under its lock, so a concurrent stop surfaces as a 409.
+    @PostMapping("/jfr/dump")
+    public ResponseEntity<StreamingResponseBody> dumpRecording() {
+        try {
+            return recordingFile(flightRecordingService.dump());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+    
+    @PostMapping("/jfr/stop")
+    public ResponseEntity<StreamingResponseBody> stopRecording() {
+        try {
+            return recordingFile(flightRecordingService.stop());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+    
+    // The file is deleted once sent, so repeated dumps don't fill jfr.dump-dir
+    private ResponseEntity<StreamingResponseBody> recordingFile(Path file) {
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new UncheckedIOException("Could not read JFR recording", e);
+        }
+        StreamingResponseBody body = out -> {
+            try {
+                Files.copy(file, out);
+            } finally {
+                deleteQuietly(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(size)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .body(body);
+    }
+    
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete JFR recording {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.bookrecommender.dedup;
+
+import java.text.Normalizer;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * In-memory duplicate check for book imports, keyed by normalized ISBN and a
+ * (title, author) fingerprint. Small catalogs are preloaded into exact hash sets;
+ * large catalogs are summarized by a Bloom filter. Its positives are confirmed by
+ * feeding the catalog through {@link #confirm} once more, which compares the same
+ * normalized keys; the database can't look those up, as it stores the raw values.
+ */
+public class BookDeduplicationIndex {
+    
+    private final Set<String> isbns = new HashSet<>();
+    private final Set<String> fingerprints = new HashSet<>();
+    private final BloomFilter catalogFilter;
+    // Keys of candidates the Bloom filter matched, and those a catalog row turned out to have
+    private final Set<String> unconfirmed = new HashSet<>();
+    private final Set<String> confirmed = new HashSet<>();
+    
+    private BookDeduplicationIndex(BloomFilter catalogFilter) {
+        this.catalogFilter = catalogFilter;
+    }
+    
+    public static BookDeduplicationIndex exact() {
+        return new BookDeduplicationIndex(null);
+    }
+    
+    public static BookDeduplicationIndex bloomBacked(long expectedBooks, double falsePositiveRate) {
+        // Each book contributes up to two keys (ISBN and fingerprint)
+        return new BookDeduplicationIndex(new BloomFilter(expectedBooks * 2, falsePositiveRate));
+    }
+    
+    /**
+     * Adds an existing catalog row to the index.
+     */
+    public void preload(String isbn, String title, String author) {
+        String isbnKey = isbnKey(isbn);
+        String fingerprintKey = fingerprintKey(title, author);
+        if (catalogFilter != null) {
+            if (isbnKey != null) {
+                catalogFilter.put(isbnKey);
+            }
+            if (fingerprintKey != null) {
+                catalogFilter.put(fingerprintKey);
+            }
+            return;
+        }
+        if (isbnKey != null) {
+            isbns.add(isbnKey);
+        }
+        if (fingerprintKey != null) {
+            fingerprints.add(fingerprintKey);
+        }
+    }
+    
+    /**
+     * Registers a candidate for import. Returns false if it duplicates a catalog
+     * row or a candidate registered earlier in the same run. In a Bloom-backed index
+     * a probable catalog duplicate is accepted for now; check it with
+     * {@link #isCatalogDuplicate} once {@link #confirm} has seen the catalog.
+     */
+    public boolean register(String isbn, String title, String author) {
+        String isbnKey = isbnKey(isbn);
+        String fingerprintKey = fingerprintKey(title, author);
+        
+        if (isbnKey != null && isbns.contains(isbnKey)) {
+            return false;
+        }
+        if (fingerprintKey != null && fingerprints.contains(fingerprintKey)) {
+            return false;
+        }
+        
+        if (catalogFilter != null) {
+            if (isbnKey != null && catalogFilter.mightContain(isbnKey)) {
+                unconfirmed.add(isbnKey);
+            }
+            if (fingerprintKey != null && catalogFilter.mightContain(fingerprintKey)) {
+                unconfirmed.add(fingerprintKey);
+            }
+        }
+        
+        if (isbnKey != null) {
+            isbns.add(isbnKey);
+        }
+        if (fingerprintKey != null) {
+            fingerprints.add(fingerprintKey);
+        }
+        return true;
+    }
+    
+    /**
+     * True if registered candidates matched the Bloom filter and the catalog has to be
+     * fed through {@link #confirm} before {@link #isCatalogDuplicate} can answer.
+     */
+    public boolean needsConfirmation() {
+        return !unconfirmed.isEmpty();
+    }
+    
+    /**
+     * Checks an existing catalog row against the probable duplicates.
+     */
+    public void confirm(String isbn, String title, String author) {
+        String isbnKey = isbnKey(isbn);
+        if (isbnKey != null && unconfirmed.contains(isbnKey)) {
+            confirmed.add(isbnKey);
+        }
+        String fingerprintKey = fingerprintKey(title, author);
+        if (fingerprintKey != null && unconfirmed.contains(fingerprintKey)) {
+            confirmed.add(fingerprintKey);
+        }
+    }
+    
+    /**
+     * True if a registered candidate turned out to duplicate a catalog row.
+     */
+    public boolean isCatalogDuplicate(String isbn, String title, String author) {
+        String isbnKey = isbnKey(isbn);
+        String fingerprintKey = fingerprintKey(title, author);
+        return (isbnKey != null && confirmed.contains(isbnKey))
+                || (fingerprintKey != null && confirmed.contains(fingerprintKey));
+    }
+    
+    public static String normalizeIsbn(String isbn) {
+        if (isbn == null) {
+            return null;
+        }
+        StringBuilder normalized = new StringBuilder(isbn.length());
+        for (int i = 0; i < isbn.length(); i++) {
+            char c = isbn.charAt(i);
+            if (Character.isDigit(c)) {
+                normalized.append(c);
+            } else if (c == 'x' || c == 'X') {
+                normalized.append('X');
+            }
+        }
+        return normalized.length() == 0 ? null : normalized.toString();
+    }
+    
+    public static String fingerprint(String title, String author) {
+        if (title == null || author == null) {
+            return null;
+        }
+        String normalizedTitle = normalizeText(title);
+        String normalizedAuthor = normalizeText(author);
+        if (normalizedTitle.isEmpty() || normalizedAuthor.isEmpty()) {
+            return null;
+        }
+        return normalizedTitle + '|' + normalizedAuthor;
+    }
+    
+    // Lowercases, strips accents and punctuation, and collapses whitespace
+    static String normalizeText(String text) {
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        StringBuilder normalized = new StringBuilder(decomposed.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && normalized.length() > 0) {
+                    normalized.append(' ');
+                }
+                pendingSpace = false;
+                normalized.append(c);
+            } else if (Character.isWhitespace(c) || c == '-' || c == '_') {
+                pendingSpace = true;
+            }
+        }
+        return normalized.toString().toLowerCase(Locale.ROOT);
+    }
+    
+    private static String isbnKey(String isbn) {
+        String normalized = normalizeIsbn(isbn);
+        return normalized == null ? null : "isbn:" + normalized;
+    }
+    
+    private static String fingerprintKey(String title, String author) {
+        String fingerprint = fingerprint(title, author);
+        return fingerprint == null ? null : "ta:" + fingerprint;
+    }
+}
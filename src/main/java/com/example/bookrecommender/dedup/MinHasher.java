@@ -0,0 +1,130 @@
+package com.example.bookrecommender.dedup;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Computes MinHash signatures over character shingles of a normalized book title.
+ * Titles are reduced to the work title first: subtitles are cut, articles dropped,
+ * so "The Hobbit", "Hobbit, The" and "The Hobbit: or There and Back Again" agree.
+ * The subtitle is kept separately because it can name a volume of a series
+ * ("The Lord of the Rings: The Two Towers"); parenthesised and bracketed notes and
+ * anything after a slash are edition or responsibility notes and are dropped.
+ */
+public class MinHasher {
+    
+    private static final int SHINGLE_SIZE = 3;
+    private static final long SEED = 0x5DEECE66DL;
+    private static final Set<String> STOP_TOKENS = Set.of("the", "a", "an", "and");
+    
+    private final int numHashes;
+    private final long[] multipliers;
+    private final long[] increments;
+    
+    public MinHasher(int numHashes) {
+        this.numHashes = numHashes;
+        this.multipliers = new long[numHashes];
+        this.increments = new long[numHashes];
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int i = 0; i < numHashes; i++) {
+            multipliers[i] = random.nextLong() | 1L;
+            increments[i] = random.nextLong();
+        }
+    }
+    
+    public int getNumHashes() {
+        return numHashes;
+    }
+    
+    public int[] signature(String normalizedTitle) {
+        int[] signature = new int[numHashes];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        
+        String padded = " " + normalizedTitle + " ";
+        int shingleCount = Math.max(1, padded.length() - SHINGLE_SIZE + 1);
+        for (int s = 0; s < shingleCount; s++) {
+            int end = Math.min(padded.length(), s + SHINGLE_SIZE);
+            long shingle = mix(padded.substring(s, end).hashCode());
+            for (int i = 0; i < numHashes; i++) {
+                int value = (int) (mix(shingle * multipliers[i] + increments[i]) >>> 33);
+                if (value < signature[i]) {
+                    signature[i] = value;
+                }
+            }
+        }
+        return signature;
+    }
+    
+    public static String normalizeTitle(String title) {
+        if (title == null) {
+            return "";
+        }
+        String workTitle = title;
+        int cut = indexOfAny(workTitle, ':', ';', '(', '[', '/');
+        if (cut > 0) {
+            workTitle = workTitle.substring(0, cut);
+        }
+        return normalizeTokens(workTitle);
+    }
+    
+    // The part after ':' or ';' up to the first edition note, normalized like the title; empty if there is none
+    public static String normalizeSubtitle(String title) {
+        if (title == null) {
+            return "";
+        }
+        int start = indexOfAny(title, ':', ';', '(', '[', '/');
+        if (start <= 0 || (title.charAt(start) != ':' && title.charAt(start) != ';')) {
+            return "";
+        }
+        String subtitle = title.substring(start + 1);
+        int end = indexOfAny(subtitle, '(', '[', '/');
+        if (end >= 0) {
+            subtitle = subtitle.substring(0, end);
+        }
+        return normalizeTokens(subtitle);
+    }
+    
+    public static String normalizeAuthor(String author) {
+        if (author == null) {
+            return "";
+        }
+        // "J.R.R. Tolkien" and "J. R. R. Tolkien" collapse to the same key
+        return BookDeduplicationIndex.normalizeText(author).replace(" ", "").toLowerCase(Locale.ROOT);
+    }
+    
+    private static String normalizeTokens(String text) {
+        StringBuilder normalized = new StringBuilder();
+        for (String token : BookDeduplicationIndex.normalizeText(text).split(" ")) {
+            if (token.isEmpty() || STOP_TOKENS.contains(token)) {
+                continue;
+            }
+            if (normalized.length() > 0) {
+                normalized.append(' ');
+            }
+            normalized.append(token);
+        }
+        return normalized.toString();
+    }
+    
+    static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+    
+    private static int indexOfAny(String text, char... chars) {
+        int first = -1;
+        for (char c : chars) {
+            int index = text.indexOf(c);
+            if (index >= 0 && (first < 0 || index < first)) {
+                first = index;
+            }
+        }
+        return first;
+    }
+}
@@ -0,0 +1,303 @@
+package com.example.bookrecommender.dedup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Locality-sensitive hashing index over MinHash signatures of (title, author).
+ * Entries are stored column-wise: per-band bucket keys and an 8-bit sketch of
+ * every MinHash value for verification. After {@link #build()} each band is a
+ * sorted array, so lookups are binary searches and the batch scan only compares
+ * entries that share a bucket, never all pairs.
+ * <p>
+ * Titles are compared without their subtitles, but two entries whose subtitles are
+ * both present and differ are different works: volumes of one series share a work
+ * title. An entry without a subtitle is compatible with any subtitle.
+ */
+public class NearDuplicateIndex {
+    
+    private static final int MAX_BUCKET_PAIRWISE = 64;
+    private static final int BUCKET_ANCHORS = 8;
+    private static final int NO_SUBTITLE = 0;
+    
+    private final MinHasher hasher;
+    private final int bands;
+    private final int rows;
+    private final double threshold;
+    
+    private long[] ids = new long[1024];
+    private int[] authorKeys = new int[1024];
+    private int[] subtitleKeys = new int[1024];
+    private byte[] sketches;
+    private int[][] bandKeys;
+    private int size;
+    
+    private long[][] sortedBands;
+    private int builtSize;
+    private final List<Map<Integer, List<Integer>>> overlay = new ArrayList<>();
+    
+    public NearDuplicateIndex(int bands, int rows, double threshold) {
+        this.hasher = new MinHasher(bands * rows);
+        this.bands = bands;
+        this.rows = rows;
+        this.threshold = threshold;
+        this.sketches = new byte[ids.length * bands * rows];
+        this.bandKeys = new int[bands][ids.length];
+        for (int b = 0; b < bands; b++) {
+            overlay.add(new HashMap<>());
+        }
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public void add(long id, String title, String author) {
+        ensureCapacity(size + 1);
+        int[] signature = hasher.signature(MinHasher.normalizeTitle(title));
+        int authorKey = MinHasher.normalizeAuthor(author).hashCode();
+        int index = size++;
+        
+        ids[index] = id;
+        authorKeys[index] = authorKey;
+        subtitleKeys[index] = subtitleKey(title);
+        int numHashes = hasher.getNumHashes();
+        for (int i = 0; i < numHashes; i++) {
+            sketches[index * numHashes + i] = (byte) signature[i];
+        }
+        for (int b = 0; b < bands; b++) {
+            int key = bandKey(b, authorKey, signature);
+            bandKeys[b][index] = key;
+            if (sortedBands != null) {
+                overlay.get(b).computeIfAbsent(key, k -> new ArrayList<>()).add(index);
+            }
+        }
+    }
+    
+    /**
+     * Sorts every band's bucket keys. Entries added afterwards go to a small hash overlay.
+     */
+    public void build() {
+        sortedBands = new long[bands][];
+        for (int b = 0; b < bands; b++) {
+            long[] packed = new long[size];
+            for (int i = 0; i < size; i++) {
+                packed[i] = ((long) bandKeys[b][i] << 32) | (i & 0xffffffffL);
+            }
+            Arrays.sort(packed);
+            sortedBands[b] = packed;
+            overlay.get(b).clear();
+        }
+        builtSize = size;
+    }
+    
+    /**
+     * Returns the id of an indexed entry that is a near duplicate of the given book, or null.
+     */
+    public Long findMatch(String title, String author) {
+        int[] signature = hasher.signature(MinHasher.normalizeTitle(title));
+        int authorKey = MinHasher.normalizeAuthor(author).hashCode();
+        int subtitleKey = subtitleKey(title);
+        byte[] sketch = new byte[signature.length];
+        for (int i = 0; i < signature.length; i++) {
+            sketch[i] = (byte) signature[i];
+        }
+        
+        for (int b = 0; b < bands; b++) {
+            int key = bandKey(b, authorKey, signature);
+            if (sortedBands != null) {
+                long[] sorted = sortedBands[b];
+                int position = lowerBound(sorted, (long) key << 32);
+                while (position < sorted.length && (int) (sorted[position] >> 32) == key) {
+                    int candidate = (int) sorted[position];
+                    if (isSimilar(candidate, authorKey, subtitleKey, sketch)) {
+                        return ids[candidate];
+                    }
+                    position++;
+                }
+                for (int candidate : overlay.get(b).getOrDefault(key, List.of())) {
+                    if (isSimilar(candidate, authorKey, subtitleKey, sketch)) {
+                        return ids[candidate];
+                    }
+                }
+            } else {
+                for (int candidate = 0; candidate < size; candidate++) {
+                    if (bandKeys[b][candidate] == key && isSimilar(candidate, authorKey, subtitleKey, sketch)) {
+                        return ids[candidate];
+                    }
+                }
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Groups all entries into near-duplicate clusters. Only entries sharing an LSH
+     * bucket are compared; oversized buckets are compared against a few anchors.
+     * An entry without a subtitle can link volumes with different subtitles into one
+     * cluster; such clusters are split per subtitle.
+     */
+    public List<List<Long>> findGroups() {
+        if (sortedBands == null || builtSize != size) {
+            build();
+        }
+        int[] parent = new int[size];
+        for (int i = 0; i < size; i++) {
+            parent[i] = i;
+        }
+        
+        for (int b = 0; b < bands; b++) {
+            long[] sorted = sortedBands[b];
+            int start = 0;
+            while (start < sorted.length) {
+                int key = (int) (sorted[start] >> 32);
+                int end = start + 1;
+                while (end < sorted.length && (int) (sorted[end] >> 32) == key) {
+                    end++;
+                }
+                int bucketSize = end - start;
+                if (bucketSize > 1) {
+                    int anchors = bucketSize <= MAX_BUCKET_PAIRWISE ? bucketSize : BUCKET_ANCHORS;
+                    for (int i = start; i < start + anchors; i++) {
+                        int left = (int) sorted[i];
+                        for (int j = i + 1; j < end; j++) {
+                            int right = (int) sorted[j];
+                            if (find(parent, left) != find(parent, right) && isSimilar(left, right)) {
+                                union(parent, left, right);
+                            }
+                        }
+                    }
+                }
+                start = end;
+            }
+        }
+        
+        Map<Integer, List<Integer>> clusters = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            int root = find(parent, i);
+            if (root != i) {
+                clusters.computeIfAbsent(root, r -> new ArrayList<>(List.of(r))).add(i);
+            }
+        }
+        
+        List<List<Long>> groups = new ArrayList<>();
+        for (List<Integer> cluster : clusters.values()) {
+            long subtitles = cluster.stream().filter(i -> subtitleKeys[i] != NO_SUBTITLE)
+                    .map(i -> subtitleKeys[i]).distinct().count();
+            Map<Integer, List<Long>> parts = new LinkedHashMap<>();
+            for (int i : cluster) {
+                int part = subtitles > 1 ? subtitleKeys[i] : NO_SUBTITLE;
+                parts.computeIfAbsent(part, p -> new ArrayList<>()).add(ids[i]);
+            }
+            for (List<Long> part : parts.values()) {
+                if (part.size() > 1) {
+                    groups.add(part);
+                }
+            }
+        }
+        return groups;
+    }
+    
+    private boolean isSimilar(int left, int right) {
+        if (authorKeys[left] != authorKeys[right] || !compatibleSubtitles(subtitleKeys[left], subtitleKeys[right])) {
+            return false;
+        }
+        int numHashes = hasher.getNumHashes();
+        int matches = 0;
+        for (int i = 0; i < numHashes; i++) {
+            if (sketches[left * numHashes + i] == sketches[right * numHashes + i]) {
+                matches++;
+            }
+        }
+        return estimateJaccard(matches, numHashes) >= threshold;
+    }
+    
+    private boolean isSimilar(int candidate, int authorKey, int subtitleKey, byte[] sketch) {
+        if (authorKeys[candidate] != authorKey || !compatibleSubtitles(subtitleKeys[candidate], subtitleKey)) {
+            return false;
+        }
+        int numHashes = hasher.getNumHashes();
+        int matches = 0;
+        for (int i = 0; i < numHashes; i++) {
+            if (sketches[candidate * numHashes + i] == sketch[i]) {
+                matches++;
+            }
+        }
+        return estimateJaccard(matches, numHashes) >= threshold;
+    }
+    
+    private static boolean compatibleSubtitles(int left, int right) {
+        return left == right || left == NO_SUBTITLE || right == NO_SUBTITLE;
+    }
+    
+    private static int subtitleKey(String title) {
+        String subtitle = MinHasher.normalizeSubtitle(title);
+        if (subtitle.isEmpty()) {
+            return NO_SUBTITLE;
+        }
+        int key = subtitle.hashCode();
+        return key == NO_SUBTITLE ? 1 : key;
+    }
+    
+    // b-bit MinHash estimate: 8-bit sketches also agree by chance with probability 1/256
+    private static double estimateJaccard(int matches, int numHashes) {
+        double collision = 1.0 / 256;
+        return ((double) matches / numHashes - collision) / (1 - collision);
+    }
+    
+    private int bandKey(int band, int authorKey, int[] signature) {
+        long hash = MinHasher.mix(band * 0x9E3779B97F4A7C15L + authorKey);
+        for (int r = 0; r < rows; r++) {
+            hash = MinHasher.mix(hash ^ signature[band * rows + r]);
+        }
+        return (int) hash;
+    }
+    
+    private void ensureCapacity(int required) {
+        if (required <= ids.length) {
+            return;
+        }
+        int capacity = Math.max(required, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        authorKeys = Arrays.copyOf(authorKeys, capacity);
+        subtitleKeys = Arrays.copyOf(subtitleKeys, capacity);
+        sketches = Arrays.copyOf(sketches, capacity * hasher.getNumHashes());
+        for (int b = 0; b < bands; b++) {
+            bandKeys[b] = Arrays.copyOf(bandKeys[b], capacity);
+        }
+    }
+    
+    private static int lowerBound(long[] sorted, long value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+    
+    private static int find(int[] parent, int node) {
+        while (parent[node] != node) {
+            parent[node] = parent[parent[node]];
+            node = parent[node];
+        }
+        return node;
+    }
+    
+    private static void union(int[] parent, int left, int right) {
+        int leftRoot = find(parent, left);
+        int rightRoot = find(parent, right);
+        if (leftRoot != rightRoot) {
+            parent[Math.max(leftRoot, rightRoot)] = Math.min(leftRoot, rightRoot);
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.bookrecommender.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SqlStatementTrace {
+    private String sql;
+    private int bindCount;
+    // Rows read for queries, rows affected for updates
+    private long rows;
+    private double durationMs;
+    // Offset from the start of the request, to spot gaps spent outside the database
+    private double startedAtMs;
+}
@@ -0,0 +1,29 @@
+package com.example.bookrecommender.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SqlTrace {
+    private String requestId;
+    private String method;
+    private String uri;
+    // Route template such as /api/books/{id}, when a handler matched
+    private String route;
+    private int status;
+    private Instant startedAt;
+    private double durationMs;
+    private double sqlDurationMs;
+    private int statementCount;
+    // Statements past sql.trace.max-statements are counted but not kept
+    private int droppedStatements;
+    private List<SqlStatementTrace> statements;
+}
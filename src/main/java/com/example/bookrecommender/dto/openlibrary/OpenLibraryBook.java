@@ -10,6 +10,9 @@ import java.util.List;
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class OpenLibraryBook {
     
+    @JsonProperty("key")
+    private String key;
+    
     @JsonProperty("title")
     private String title;
     
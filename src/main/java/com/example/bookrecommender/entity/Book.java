@@ -5,20 +5,32 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
 @Table(name = "books")
+// Catalog rows are read far more often than written; READ_WRITE keeps the cache consistent with
+// updates made through Hibernate. Plain JDBC writers evict through BookCacheService.
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Book.CACHE_REGION)
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
 public class Book {
     
+    public static final String CACHE_REGION = "books";
+    // Genre and author lookups used by recommendations
+    public static final String CATALOG_QUERY_REGION = "book-catalog-queries";
+    
+    // Pooled-lo sequence: ids come in blocks of 50, so inserts can be sent as JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -42,9 +54,14 @@ public class Book {
     @Column
     private Integer publishYear;
     
-    @Column
+    // Maintained by UserBookService through JDBC. Not updatable, so a rating doesn't count as a
+    // write to books for Hibernate and leave every cached genre and author lookup stale.
+    @Column(updatable = false)
     private Double averageRating;
     
+    @Column
+    private String openLibraryKey;
+    
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
     
@@ -0,0 +1,29 @@
+package com.example.bookrecommender.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "leader_locks")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeaderLock {
+    
+    @Id
+    @Column(length = 64)
+    private String name;
+    
+    @Column(nullable = false)
+    private String owner;
+    
+    // UTC; the lock is free once this passes without a heartbeat from the owner
+    @Column(nullable = false)
+    private LocalDateTime lockedUntil;
+}
@@ -0,0 +1,51 @@
+package com.example.bookrecommender.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+// How much a user likes one genre or author, maintained by TasteProfileService
+@Entity
+@Table(name = "taste_affinities", uniqueConstraints = {
+    @UniqueConstraint(columnNames = {"user_id", "kind", "name"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TasteAffinity {
+    
+    public static final String GENRE = "GENRE";
+    public static final String AUTHOR = "AUTHOR";
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "taste_affinities_seq")
+    @SequenceGenerator(name = "taste_affinities_seq", sequenceName = "taste_affinities_seq", allocationSize = 50)
+    private Long id;
+    
+    // Only ever looked up by user, so a plain column rather than an association
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    // GENRE or AUTHOR
+    @Column(nullable = false, length = 16)
+    private String kind;
+    
+    // The genre or author name, as stored on the book
+    @Column(nullable = false)
+    private String name;
+    
+    // Sum of (rating - 3) / 2 over the user's ratings of books in this genre or by this author
+    @Column(nullable = false)
+    private Double weight;
+    
+    @Column(nullable = false)
+    private Integer ratingCount;
+    
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
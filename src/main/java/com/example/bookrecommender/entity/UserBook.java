@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
 public class UserBook {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_books_seq")
+    @SequenceGenerator(name = "user_books_seq", sequenceName = "user_books_seq", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,101 @@
+package com.example.bookrecommender.monitoring;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Replaces spring.jpa.show-sql: statements slower than sql.log.slow-query-ms, plus a sample of
+// the rest, are handed to a background thread for logging. Request threads never wait on the
+// log; when the queue is full the entry is dropped and counted instead.
+@Component
+public class SlowQueryLogger {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SlowQueryLogger.class);
+    
+    @Value("${sql.log.slow-query-ms:200}")
+    private long slowQueryMs = 200;
+    
+    // Fraction of statements under the threshold that are logged anyway, 0.0 to 1.0
+    @Value("${sql.log.sample-rate:0.0}")
+    private double sampleRate = 0.0;
+    
+    @Value("${sql.log.queue-capacity:1000}")
+    private int queueCapacity = 1000;
+    
+    private BlockingQueue<Entry> queue;
+    
+    private final AtomicLong dropped = new AtomicLong();
+    
+    private Thread writer;
+    
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        writer = new Thread(this::drain, "slow-query-logger");
+        writer.setDaemon(true);
+        writer.start();
+    }
+    
+    public void onStatement(String sql, int bindCount, long durationNanos, String requestId) {
+        boolean slow = durationNanos >= slowQueryMs * 1_000_000L;
+        if (!slow && (sampleRate <= 0.0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return;
+        }
+        if (!queue.offer(new Entry(sql, bindCount, durationNanos, requestId, slow))) {
+            dropped.incrementAndGet();
+        }
+    }
+    
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+    
+    private void drain() {
+        long reportedDrops = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Entry entry = queue.poll(1, TimeUnit.SECONDS);
+                if (entry != null) {
+                    write(entry);
+                }
+                long totalDrops = dropped.get();
+                if (totalDrops > reportedDrops) {
+                    logger.warn("Slow query log queue was full; dropped {} entries", totalDrops - reportedDrops);
+                    reportedDrops = totalDrops;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    private void write(Entry entry) {
+        double durationMs = entry.durationNanos / 1_000_000.0;
+        if (entry.slow) {
+            logger.warn("Slow query ({} ms, {} binds, request {}): {}",
+                    String.format("%.1f", durationMs), entry.bindCount, entry.requestId, entry.sql);
+        } else {
+            logger.info("Sampled query ({} ms, {} binds, request {}): {}",
+                    String.format("%.1f", durationMs), entry.bindCount, entry.requestId, entry.sql);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (writer != null) {
+            writer.interrupt();
+        }
+    }
+    
+    private record Entry(String sql, int bindCount, long durationNanos, String requestId, boolean slow) {
+    }
+}
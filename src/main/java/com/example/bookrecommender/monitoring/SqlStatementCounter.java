@@ -0,0 +1,24 @@
+package com.example.bookrecommender.monitoring;
+
+// Counts the SQL statements executed on the current thread. SqlTracingDataSourcePostProcessor
+// counts them at the datasource proxy, so statements sent through JdbcTemplate count as well as
+// Hibernate's; a JDBC batch is one statement.
+public final class SqlStatementCounter {
+    
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+    
+    private SqlStatementCounter() {
+    }
+    
+    public static void increment() {
+        COUNT.get()[0]++;
+    }
+    
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+    
+    public static long get() {
+        return COUNT.get()[0];
+    }
+}
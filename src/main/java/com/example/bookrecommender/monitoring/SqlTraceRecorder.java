@@ -0,0 +1,152 @@
+package com.example.bookrecommender.monitoring;
+
+import com.example.bookrecommender.dto.SqlStatementTrace;
+import com.example.bookrecommender.dto.SqlTrace;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+
+// Collects the SQL statements of the request running on the current thread and keeps the
+// last N requests that were slower than sql.trace.slow-request-ms. Statements outside a
+// request (startup seeding, background jobs) are not traced.
+@Component
+public class SqlTraceRecorder {
+    
+    private static final double NANOS_PER_MS = 1_000_000.0;
+    
+    private final ThreadLocal<ActiveTrace> active = new ThreadLocal<>();
+    
+    private final Deque<SqlTrace> slowTraces = new ArrayDeque<>();
+    
+    @Value("${sql.trace.enabled:true}")
+    private boolean enabled = true;
+    
+    @Value("${sql.trace.slow-request-ms:500}")
+    private long slowRequestMs = 500;
+    
+    @Value("${sql.trace.buffer-size:50}")
+    private int bufferSize = 50;
+    
+    @Value("${sql.trace.max-statements:200}")
+    private int maxStatements = 200;
+    
+    public void begin(String requestId, String method, String uri) {
+        if (enabled) {
+            active.set(new ActiveTrace(requestId, method, uri, System.nanoTime()));
+        }
+    }
+    
+    public boolean isTracing() {
+        return active.get() != null;
+    }
+    
+    public String currentRequestId() {
+        ActiveTrace trace = active.get();
+        return trace != null ? trace.requestId : null;
+    }
+    
+    // Called from the JDBC proxy once a statement has executed
+    public void recordStatement(String sql, int bindCount, long rows, long startNanos, long durationNanos) {
+        ActiveTrace trace = active.get();
+        if (trace == null) {
+            return;
+        }
+        trace.statementCount++;
+        trace.sqlNanos += durationNanos;
+        if (trace.statements.size() >= maxStatements) {
+            trace.droppedStatements++;
+            trace.last = null;
+            return;
+        }
+        SqlStatementTrace statement = SqlStatementTrace.builder()
+                .sql(sql)
+                .bindCount(bindCount)
+                .rows(rows)
+                .durationMs(durationNanos / NANOS_PER_MS)
+                .startedAtMs((startNanos - trace.startNanos) / NANOS_PER_MS)
+                .build();
+        trace.statements.add(statement);
+        trace.last = statement;
+    }
+    
+    // Rows of a query are only known as the result set is read, after the statement was recorded
+    public void addRowsToLastStatement(long rows) {
+        ActiveTrace trace = active.get();
+        if (trace != null && trace.last != null) {
+            trace.last.setRows(trace.last.getRows() + rows);
+        }
+    }
+    
+    public void end(int status, String route) {
+        ActiveTrace trace = active.get();
+        if (trace == null) {
+            return;
+        }
+        active.remove();
+        
+        long durationNanos = System.nanoTime() - trace.startNanos;
+        if (durationNanos < slowRequestMs * 1_000_000L) {
+            return;
+        }
+        SqlTrace snapshot = SqlTrace.builder()
+                .requestId(trace.requestId)
+                .method(trace.method)
+                .uri(trace.uri)
+                .route(route)
+                .status(status)
+                .startedAt(trace.startedAt)
+                .durationMs(durationNanos / NANOS_PER_MS)
+                .sqlDurationMs(trace.sqlNanos / NANOS_PER_MS)
+                .statementCount(trace.statementCount)
+                .droppedStatements(trace.droppedStatements)
+                .statements(List.copyOf(trace.statements))
+                .build();
+        synchronized (slowTraces) {
+            if (slowTraces.size() >= bufferSize) {
+                slowTraces.removeFirst();
+            }
+            slowTraces.addLast(snapshot);
+        }
+    }
+    
+    // Newest first
+    public List<SqlTrace> getSlowTraces() {
+        synchronized (slowTraces) {
+            List<SqlTrace> traces = new ArrayList<>(slowTraces);
+            Collections.reverse(traces);
+            return traces;
+        }
+    }
+    
+    public void clear() {
+        synchronized (slowTraces) {
+            slowTraces.clear();
+        }
+    }
+    
+    private static class ActiveTrace {
+        private final String requestId;
+        private final String method;
+        private final String uri;
+        private final long startNanos;
+        private final Instant startedAt = Instant.now();
+        private final List<SqlStatementTrace> statements = new ArrayList<>();
+        private SqlStatementTrace last;
+        private int statementCount;
+        private int droppedStatements;
+        private long sqlNanos;
+        
+        ActiveTrace(String requestId, String method, String uri, long startNanos) {
+            this.requestId = requestId;
+            this.method = method;
+            this.uri = uri;
+            this.startNanos = startNanos;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.bookrecommender.monitoring;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.util.List;
+
+// Wraps the DataSource in a datasource-proxy that counts and times every statement. Results go
+// to SqlStatementCounter, the per-request SqlTraceRecorder and the asynchronous SlowQueryLogger. Both are looked up
+// lazily: post-processors are created before the beans they would otherwise depend on.
+@Component
+public class SqlTracingDataSourcePostProcessor implements BeanPostProcessor {
+    
+    private static final String START_NANOS = "sqlTrace.startNanos";
+    
+    private final ObjectProvider<SqlTraceRecorder> traceRecorder;
+    private final ObjectProvider<SlowQueryLogger> slowQueryLogger;
+    
+    // Resolved on first use and then cached, so statements do not pay for a bean lookup
+    private volatile SqlTraceRecorder recorder;
+    private volatile SlowQueryLogger logger;
+    
+    public SqlTracingDataSourcePostProcessor(ObjectProvider<SqlTraceRecorder> traceRecorder,
+                                             ObjectProvider<SlowQueryLogger> slowQueryLogger) {
+        this.traceRecorder = traceRecorder;
+        this.slowQueryLogger = slowQueryLogger;
+    }
+    
+    @Override
+    public Object postProcessAfterInitialization(@NonNull Object bean, @NonNull String beanName) {
+        if (!(bean instanceof DataSource dataSource) || bean instanceof ProxyDataSource) {
+            return bean;
+        }
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(beanName)
+                .listener(new TimingListener())
+                // Rows of a query are counted as Hibernate reads them from the proxied result set
+                .methodListener(new RowCountingListener())
+                .proxyResultSet()
+                .build();
+    }
+    
+    private SqlTraceRecorder recorder() {
+        if (recorder == null) {
+            recorder = traceRecorder.getIfAvailable();
+        }
+        return recorder;
+    }
+    
+    private SlowQueryLogger logger() {
+        if (logger == null) {
+            logger = slowQueryLogger.getIfAvailable();
+        }
+        return logger;
+    }
+    
+    private class TimingListener implements QueryExecutionListener {
+        
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            execInfo.addCustomValue(START_NANOS, System.nanoTime());
+        }
+        
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            SqlStatementCounter.increment();
+            Long startNanos = execInfo.getCustomValue(START_NANOS, Long.class);
+            if (startNanos == null) {
+                return;
+            }
+            long durationNanos = System.nanoTime() - startNanos;
+            SqlTraceRecorder recorder = recorder();
+            SlowQueryLogger logger = logger();
+            String requestId = recorder != null ? recorder.currentRequestId() : null;
+            
+            for (QueryInfo queryInfo : queryInfoList) {
+                String sql = queryInfo.getQuery();
+                int bindCount = bindCount(queryInfo);
+                if (recorder != null) {
+                    // A batch is recorded once per statement text; its time is split evenly
+                    recorder.recordStatement(sql, bindCount, updateCount(execInfo.getResult()),
+                            startNanos, durationNanos / queryInfoList.size());
+                }
+                if (logger != null) {
+                    logger.onStatement(sql, bindCount, durationNanos, requestId);
+                }
+            }
+        }
+        
+        private int bindCount(QueryInfo queryInfo) {
+            return queryInfo.getParametersList().stream().mapToInt(List::size).sum();
+        }
+        
+        private long updateCount(Object result) {
+            if (result instanceof Integer count) {
+                return count;
+            }
+            if (result instanceof Long count) {
+                return count;
+            }
+            if (result instanceof int[] counts) {
+                long total = 0;
+                for (int count : counts) {
+                    // Drivers may report SUCCESS_NO_INFO (-2) for batched rows
+                    total += Math.max(count, 0);
+                }
+                return total;
+            }
+            return 0;
+        }
+    }
+    
+    private class RowCountingListener implements MethodExecutionListener {
+        
+        @Override
+        public void beforeMethod(MethodExecutionContext executionContext) {
+        }
+        
+        @Override
+        public void afterMethod(MethodExecutionContext executionContext) {
+            if (executionContext.getTarget() instanceof ResultSet
+                    && "next".equals(executionContext.getMethod().getName())
+                    && Boolean.TRUE.equals(executionContext.getResult())) {
+                SqlTraceRecorder recorder = recorder();
+                if (recorder != null) {
+                    recorder.addRowsToLastStatement(1);
+                }
+            }
+        }
+    }
+}
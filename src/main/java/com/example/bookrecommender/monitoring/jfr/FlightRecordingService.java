@@ -0,0 +1,118 @@
+package com.example.bookrecommender.monitoring.jfr;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Starts, stops and dumps a single JDK Flight Recorder recording on demand, so a production
+// instance can be profiled without a restart or shell access. The domain events in this
+// package are always registered; when no recording is running they cost a disabled check.
+@Service
+public class FlightRecordingService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(FlightRecordingService.class);
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    
+    @Value("${jfr.dump-dir:${java.io.tmpdir}/bookrecommender-jfr}")
+    private String dumpDir = System.getProperty("java.io.tmpdir") + "/bookrecommender-jfr";
+    
+    // Safety net for recordings nobody stops: older data is discarded
+    @Value("${jfr.max-age:30m}")
+    private Duration maxAge = Duration.ofMinutes(30);
+    
+    private Recording recording;
+    
+    // settings is the name of a JDK configuration: "default" (about 1% overhead) or "profile"
+    public synchronized Map<String, Object> start(String settings) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new IllegalStateException("A recording is already running");
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settings);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown JFR settings: " + settings, e);
+        }
+        
+        recording = new Recording(configuration);
+        recording.setName("bookrecommender");
+        recording.setMaxAge(maxAge);
+        recording.setToDisk(true);
+        recording.start();
+        logger.info("Started JFR recording with '{}' settings", settings);
+        return status();
+    }
+    
+    // Writes everything recorded so far to a file; the recording keeps running
+    public synchronized Path dump() {
+        requireRunning();
+        return writeTo(recording);
+    }
+    
+    public synchronized Path stop() {
+        requireRunning();
+        try {
+            recording.stop();
+            return writeTo(recording);
+        } finally {
+            recording.close();
+            recording = null;
+        }
+    }
+    
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        boolean running = recording != null && recording.getState() == RecordingState.RUNNING;
+        status.put("running", running);
+        if (running) {
+            status.put("startedAt", recording.getStartTime());
+            status.put("maxAge", recording.getMaxAge());
+        }
+        status.put("dumpDir", dumpDir);
+        return status;
+    }
+    
+    private void requireRunning() {
+        if (recording == null || recording.getState() != RecordingState.RUNNING) {
+            throw new IllegalStateException("No recording is running");
+        }
+    }
+    
+    private Path writeTo(Recording source) {
+        try {
+            Path directory = Paths.get(dumpDir);
+            Files.createDirectories(directory);
+            Path file = directory.resolve("bookrecommender-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr");
+            source.dump(file);
+            logger.info("Wrote JFR recording to {}", file);
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write JFR recording", e);
+        }
+    }
+    
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
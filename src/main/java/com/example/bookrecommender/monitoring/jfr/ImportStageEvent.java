@@ -0,0 +1,28 @@
+package com.example.bookrecommender.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("bookrecommender.ImportStage")
+@Label("Book Import Stage")
+@Category({"Book Recommender", "Import"})
+@Description("One stage of the Open Library import, matching the book.import.stage timer")
+public class ImportStageEvent extends Event {
+    
+    @Label("Stage")
+    public String stage;
+    
+    @Label("Genre")
+    @Description("Genre being fetched; empty for stages that cover the whole import")
+    public String genre;
+    
+    @Label("Items")
+    @Description("Books fetched, saved or enriched by the stage")
+    public int itemCount;
+    
+    @Label("Failed")
+    public boolean failed;
+}
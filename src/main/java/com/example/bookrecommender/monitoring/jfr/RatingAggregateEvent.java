@@ -0,0 +1,27 @@
+package com.example.bookrecommender.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("bookrecommender.RatingAggregate")
+@Label("Rating Aggregate Update")
+@Category({"Book Recommender", "Library"})
+@Description("Recalculation of a book's average rating after a library change")
+public class RatingAggregateEvent extends Event {
+    
+    @Label("Book Id")
+    public long bookId;
+    
+    @Label("Library Entries")
+    @Description("Library entries for the book, rated or not")
+    public int entryCount;
+    
+    @Label("Ratings")
+    public int ratingCount;
+    
+    @Label("Average Rating")
+    public double averageRating;
+}
@@ -0,0 +1,32 @@
+package com.example.bookrecommender.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("bookrecommender.Recommendation")
+@Label("Recommendation")
+@Category({"Book Recommender", "Recommendations"})
+@Description("One call to RecommendationService.getRecommendations")
+public class RecommendationEvent extends Event {
+    
+    @Label("User Id")
+    public long userId;
+    
+    @Label("Scoring")
+    @Description("recommendation.scoring, or content for cold-start users")
+    public String scoring;
+    
+    @Label("Candidates")
+    @Description("Books loaded by genre and author before filtering; -1 when scored in the database")
+    public int candidateCount;
+    
+    @Label("Scored")
+    @Description("Unread candidates that received a score; -1 when scored in the database")
+    public int scoredCount;
+    
+    @Label("Returned")
+    public int returnedCount;
+}
@@ -0,0 +1,29 @@
+package com.example.bookrecommender.monitoring.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("bookrecommender.Search")
+@Label("Book Search")
+@Category({"Book Recommender", "Search"})
+@Description("One catalog search query")
+public class SearchEvent extends Event {
+    
+    // Truncated so a hostile query cannot bloat the recording
+    public static final int MAX_QUERY_LENGTH = 128;
+    
+    @Label("Query")
+    public String query;
+    
+    @Label("Page")
+    public int page;
+    
+    @Label("Page Size")
+    public int pageSize;
+    
+    @Label("Total Matches")
+    public long totalMatches;
+}
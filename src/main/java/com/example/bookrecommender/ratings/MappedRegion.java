@@ -0,0 +1,88 @@
+package com.example.bookrecommender.ratings;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file mapped into memory in 1 GB chunks, since one MappedByteBuffer can't exceed 2 GB.
+ * Offsets are in bytes. Each file holds a single array of one primitive type starting at
+ * offset 0, so values are aligned to their size and never straddle two chunks.
+ *
+ * <p>The mapping outlives the channel that created it and is released by the garbage
+ * collector once no region refers to it; the JDK offers no supported way to unmap earlier.
+ */
+final class MappedRegion {
+    
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+    
+    private final MappedByteBuffer[] chunks;
+    
+    private MappedRegion(MappedByteBuffer[] chunks) {
+        this.chunks = chunks;
+    }
+    
+    static MappedRegion readOnly(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return map(channel, FileChannel.MapMode.READ_ONLY, size);
+        }
+    }
+    
+    /**
+     * Maps {@code size} bytes of the file for writing, creating or extending it with zeros.
+     */
+    static MappedRegion readWrite(Path file, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return map(channel, FileChannel.MapMode.READ_WRITE, size);
+        }
+    }
+    
+    private static MappedRegion map(FileChannel channel, FileChannel.MapMode mode, long size) throws IOException {
+        int count = (int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT);
+        MappedByteBuffer[] chunks = new MappedByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            long position = (long) i << CHUNK_SHIFT;
+            chunks[i] = channel.map(mode, position, Math.min(CHUNK_MASK + 1, size - position));
+            chunks[i].order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return new MappedRegion(chunks);
+    }
+    
+    byte getByte(long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)].get((int) (offset & CHUNK_MASK));
+    }
+    
+    int getInt(long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)].getInt((int) (offset & CHUNK_MASK));
+    }
+    
+    long getLong(long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)].getLong((int) (offset & CHUNK_MASK));
+    }
+    
+    void putByte(long offset, byte value) {
+        chunks[(int) (offset >>> CHUNK_SHIFT)].put((int) (offset & CHUNK_MASK), value);
+    }
+    
+    void putInt(long offset, int value) {
+        chunks[(int) (offset >>> CHUNK_SHIFT)].putInt((int) (offset & CHUNK_MASK), value);
+    }
+    
+    void putLong(long offset, long value) {
+        chunks[(int) (offset >>> CHUNK_SHIFT)].putLong((int) (offset & CHUNK_MASK), value);
+    }
+    
+    /**
+     * Writes changes through to the file, so a snapshot survives a crash once published.
+     */
+    void force() {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+    }
+}
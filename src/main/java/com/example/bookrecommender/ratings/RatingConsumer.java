@@ -0,0 +1,11 @@
+package com.example.bookrecommender.ratings;
+
+/**
+ * Receives the entries of one matrix row or column: the id on the other axis (a book id for a
+ * user's ratings, a user id for a book's) and the rating, 1 to 5.
+ */
+@FunctionalInterface
+public interface RatingConsumer {
+    
+    void accept(int id, int rating);
+}
@@ -0,0 +1,176 @@
+package com.example.bookrecommender.ratings;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.LongToIntFunction;
+
+/**
+ * The current rating matrix: a mapped {@link RatingMatrixSnapshot} plus the ratings that
+ * changed since it was written. Changes live in two small sorted maps, keyed by
+ * {@code user << 32 | book} and {@code book << 32 | user}, and are merged into the snapshot's
+ * rows and columns as they are read; a rating of 0 marks one that was removed. Compacting
+ * writes both into a new snapshot.
+ *
+ * <p>Reads are safe alongside {@link #set}, which {@link RatingMatrixStore} calls from one
+ * writer at a time.
+ */
+public final class RatingMatrix {
+    
+    private final RatingMatrixSnapshot snapshot;
+    private final NavigableMap<Long, Byte> changesByUser;
+    private final NavigableMap<Long, Byte> changesByBook;
+    private volatile int userCount;
+    private volatile int bookCount;
+    
+    public RatingMatrix(RatingMatrixSnapshot snapshot) {
+        this(snapshot, new ConcurrentSkipListMap<>(), new ConcurrentSkipListMap<>());
+    }
+    
+    private RatingMatrix(RatingMatrixSnapshot snapshot, NavigableMap<Long, Byte> changesByUser,
+                         NavigableMap<Long, Byte> changesByBook) {
+        this.snapshot = snapshot;
+        this.changesByUser = changesByUser;
+        this.changesByBook = changesByBook;
+        this.userCount = snapshot.userCount();
+        this.bookCount = snapshot.bookCount();
+        for (long key : changesByUser.keySet()) {
+            userCount = Math.max(userCount, (int) (key >>> 32) + 1);
+            bookCount = Math.max(bookCount, (int) key + 1);
+        }
+    }
+    
+    public RatingMatrixSnapshot snapshot() {
+        return snapshot;
+    }
+    
+    /**
+     * Number of rows, including users rated since the snapshot; user ids are {@code 0 .. userCount() - 1}.
+     */
+    public int userCount() {
+        return userCount;
+    }
+    
+    /**
+     * Number of columns, including books rated since the snapshot; book ids are {@code 0 .. bookCount() - 1}.
+     */
+    public int bookCount() {
+        return bookCount;
+    }
+    
+    /**
+     * Number of ratings changed or removed since the snapshot.
+     */
+    public int changeCount() {
+        return changesByUser.size();
+    }
+    
+    /**
+     * Records a rating; 0 removes it.
+     */
+    public void set(int userId, int bookId, int rating) {
+        if (userId < 0 || bookId < 0 || rating < 0 || rating > 5) {
+            throw new IllegalArgumentException("Invalid rating " + userId + "/" + bookId + ": " + rating);
+        }
+        changesByUser.put(key(userId, bookId), (byte) rating);
+        changesByBook.put(key(bookId, userId), (byte) rating);
+        if (userId >= userCount) {
+            userCount = userId + 1;
+        }
+        if (bookId >= bookCount) {
+            bookCount = bookId + 1;
+        }
+    }
+    
+    /**
+     * The user's rating of the book, or 0 if there is none.
+     */
+    public int rating(int userId, int bookId) {
+        Byte changed = changesByUser.get(key(userId, bookId));
+        return changed != null ? changed : snapshot.rating(userId, bookId);
+    }
+    
+    /**
+     * Visits the user's ratings in ascending book id order.
+     */
+    public void forEachRatingOfUser(int userId, RatingConsumer action) {
+        long start = 0;
+        long end = 0;
+        if (userId >= 0 && userId < snapshot.userCount()) {
+            start = snapshot.userStart(userId);
+            end = snapshot.userStart(userId + 1);
+        }
+        merge(start, end, snapshot::userBookAt, snapshot::userRatingAt, changesOf(changesByUser, userId), action);
+    }
+    
+    /**
+     * Visits the book's ratings in ascending user id order.
+     */
+    public void forEachRatingOfBook(int bookId, RatingConsumer action) {
+        long start = 0;
+        long end = 0;
+        if (bookId >= 0 && bookId < snapshot.bookCount()) {
+            start = snapshot.bookStart(bookId);
+            end = snapshot.bookStart(bookId + 1);
+        }
+        merge(start, end, snapshot::bookUserAt, snapshot::bookRatingAt, changesOf(changesByBook, bookId), action);
+    }
+    
+    /**
+     * A copy whose changes no longer follow this matrix, for compacting while writes continue.
+     */
+    RatingMatrix copy() {
+        return new RatingMatrix(snapshot, new ConcurrentSkipListMap<>(changesByUser),
+                new ConcurrentSkipListMap<>(changesByBook));
+    }
+    
+    /**
+     * Writes the snapshot with the changes applied into a new snapshot directory.
+     */
+    RatingMatrixSnapshot compactTo(Path directory) throws IOException {
+        int users = userCount;
+        int books = bookCount;
+        RatingMatrixWriter writer = new RatingMatrixWriter(directory, users, books,
+                snapshot.ratingCount() + changesByUser.size());
+        for (int user = 0; user < users; user++) {
+            int userId = user;
+            forEachRatingOfUser(user, (bookId, rating) -> writer.add(userId, bookId, rating));
+        }
+        return writer.finish();
+    }
+    
+    // Merges one snapshot row or column (ordered by id) with its changes (ordered by the same id)
+    private static void merge(long start, long end, LongToIntFunction idAt, LongToIntFunction ratingAt,
+                              Map<Long, Byte> changes, RatingConsumer action) {
+        Iterator<Map.Entry<Long, Byte>> pending = changes.entrySet().iterator();
+        Map.Entry<Long, Byte> change = pending.hasNext() ? pending.next() : null;
+        long entry = start;
+        while (entry < end || change != null) {
+            int id = entry < end ? idAt.applyAsInt(entry) : Integer.MAX_VALUE;
+            int changedId = change != null ? (int) change.getKey().longValue() : Integer.MAX_VALUE;
+            if (change == null || id < changedId) {
+                action.accept(id, ratingAt.applyAsInt(entry++));
+                continue;
+            }
+            if (id == changedId) {
+                // The change replaces the snapshot's rating
+                entry++;
+            }
+            if (change.getValue() != 0) {
+                action.accept(changedId, change.getValue());
+            }
+            change = pending.hasNext() ? pending.next() : null;
+        }
+    }
+    
+    private static Map<Long, Byte> changesOf(NavigableMap<Long, Byte> changes, int id) {
+        return changes.subMap(key(id, 0), true, key(id + 1, 0), false);
+    }
+    
+    private static long key(int high, int low) {
+        return (long) high << 32 | (low & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.bookrecommender.ratings;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * An immutable user-by-book rating matrix in memory-mapped files, stored twice: compressed sparse
+ * rows (each user's ratings, ordered by book id) and compressed sparse columns (each book's
+ * ratings, ordered by user id). Each copy is an offsets array of {@code long}s indexed by id,
+ * plus parallel arrays of the other id ({@code int}) and the rating ({@code byte}), so a rating
+ * costs 10 bytes on disk and nothing on the heap. User and book ids are used as row and column
+ * numbers directly; they come from sequences starting at 1, so row 0 is always empty.
+ *
+ * <p>Written by {@link RatingMatrixWriter}; the metadata file is written last, so a directory
+ * without one is an interrupted build.
+ */
+public final class RatingMatrixSnapshot {
+    
+    static final int FORMAT_VERSION = 1;
+    static final String METADATA_FILE = "matrix.properties";
+    static final String USER_OFFSETS_FILE = "user-offsets.bin";
+    static final String USER_BOOKS_FILE = "user-books.bin";
+    static final String USER_RATINGS_FILE = "user-ratings.bin";
+    static final String BOOK_OFFSETS_FILE = "book-offsets.bin";
+    static final String BOOK_USERS_FILE = "book-users.bin";
+    static final String BOOK_RATINGS_FILE = "book-ratings.bin";
+    
+    private final Path directory;
+    private final int userCount;
+    private final int bookCount;
+    private final long ratingCount;
+    private final MappedRegion userOffsets;
+    private final MappedRegion userBooks;
+    private final MappedRegion userRatings;
+    private final MappedRegion bookOffsets;
+    private final MappedRegion bookUsers;
+    private final MappedRegion bookRatings;
+    
+    RatingMatrixSnapshot(Path directory, int userCount, int bookCount, long ratingCount,
+                         MappedRegion userOffsets, MappedRegion userBooks, MappedRegion userRatings,
+                         MappedRegion bookOffsets, MappedRegion bookUsers, MappedRegion bookRatings) {
+        this.directory = directory;
+        this.userCount = userCount;
+        this.bookCount = bookCount;
+        this.ratingCount = ratingCount;
+        this.userOffsets = userOffsets;
+        this.userBooks = userBooks;
+        this.userRatings = userRatings;
+        this.bookOffsets = bookOffsets;
+        this.bookUsers = bookUsers;
+        this.bookRatings = bookRatings;
+    }
+    
+    public static boolean isComplete(Path directory) {
+        return Files.isRegularFile(directory.resolve(METADATA_FILE));
+    }
+    
+    public static RatingMatrixSnapshot open(Path directory) throws IOException {
+        Properties metadata = new Properties();
+        try (InputStream in = Files.newInputStream(directory.resolve(METADATA_FILE))) {
+            metadata.load(in);
+        }
+        int version = Integer.parseInt(metadata.getProperty("version", "0"));
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported rating matrix format " + version + " in " + directory);
+        }
+        int userCount = Integer.parseInt(metadata.getProperty("users"));
+        int bookCount = Integer.parseInt(metadata.getProperty("books"));
+        long ratingCount = Long.parseLong(metadata.getProperty("ratings"));
+        return new RatingMatrixSnapshot(directory, userCount, bookCount, ratingCount,
+                MappedRegion.readOnly(directory.resolve(USER_OFFSETS_FILE), 8L * (userCount + 1)),
+                MappedRegion.readOnly(directory.resolve(USER_BOOKS_FILE), 4 * ratingCount),
+                MappedRegion.readOnly(directory.resolve(USER_RATINGS_FILE), ratingCount),
+                MappedRegion.readOnly(directory.resolve(BOOK_OFFSETS_FILE), 8L * (bookCount + 1)),
+                MappedRegion.readOnly(directory.resolve(BOOK_USERS_FILE), 4 * ratingCount),
+                MappedRegion.readOnly(directory.resolve(BOOK_RATINGS_FILE), ratingCount));
+    }
+    
+    public Path directory() {
+        return directory;
+    }
+    
+    /**
+     * Number of rows: user ids are {@code 0 .. userCount() - 1}.
+     */
+    public int userCount() {
+        return userCount;
+    }
+    
+    /**
+     * Number of columns: book ids are {@code 0 .. bookCount() - 1}.
+     */
+    public int bookCount() {
+        return bookCount;
+    }
+    
+    public long ratingCount() {
+        return ratingCount;
+    }
+    
+    /**
+     * The user's rating of the book, or 0 if there is none. Binary search within the user's row.
+     */
+    public int rating(int userId, int bookId) {
+        if (userId < 0 || userId >= userCount) {
+            return 0;
+        }
+        long low = userStart(userId);
+        long high = userStart(userId + 1) - 1;
+        while (low <= high) {
+            long middle = (low + high) >>> 1;
+            int middleBook = userBookAt(middle);
+            if (middleBook < bookId) {
+                low = middle + 1;
+            } else if (middleBook > bookId) {
+                high = middle - 1;
+            } else {
+                return userRatingAt(middle);
+            }
+        }
+        return 0;
+    }
+    
+    public void forEachRatingOfUser(int userId, RatingConsumer action) {
+        if (userId < 0 || userId >= userCount) {
+            return;
+        }
+        for (long entry = userStart(userId), end = userStart(userId + 1); entry < end; entry++) {
+            action.accept(userBookAt(entry), userRatingAt(entry));
+        }
+    }
+    
+    public void forEachRatingOfBook(int bookId, RatingConsumer action) {
+        if (bookId < 0 || bookId >= bookCount) {
+            return;
+        }
+        for (long entry = bookStart(bookId), end = bookStart(bookId + 1); entry < end; entry++) {
+            action.accept(bookUserAt(entry), bookRatingAt(entry));
+        }
+    }
+    
+    // Raw entry access for merging with pending changes (RatingMatrix)
+    
+    long userStart(int userId) {
+        return userOffsets.getLong(8L * userId);
+    }
+    
+    int userBookAt(long entry) {
+        return userBooks.getInt(4 * entry);
+    }
+    
+    int userRatingAt(long entry) {
+        return userRatings.getByte(entry);
+    }
+    
+    long bookStart(int bookId) {
+        return bookOffsets.getLong(8L * bookId);
+    }
+    
+    int bookUserAt(long entry) {
+        return bookUsers.getInt(4 * entry);
+    }
+    
+    int bookRatingAt(long entry) {
+        return bookRatings.getByte(entry);
+    }
+}
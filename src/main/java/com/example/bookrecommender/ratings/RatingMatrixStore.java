@@ -0,0 +1,248 @@
+package com.example.bookrecommender.ratings;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the rating matrix in a directory across restarts. Each snapshot has its own
+ * {@code snapshot-<millis>} subdirectory, and {@code CURRENT} names the one in use, so opening
+ * the store maps that snapshot instead of rebuilding it. Ratings changed since the snapshot are
+ * appended to its {@code delta.log} (9-byte records: user, book, rating) and replayed on open;
+ * {@link #compact()} folds them into a new snapshot.
+ *
+ * <p>Changes are written to the log but not synced, so a crash can lose the last few; the
+ * matrix is derived data and {@link #clear()} plus a rebuild restores it from the database.
+ */
+public final class RatingMatrixStore implements Closeable {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RatingMatrixStore.class);
+    private static final String CURRENT_FILE = "CURRENT";
+    private static final String DELTA_LOG_FILE = "delta.log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final int DELTA_RECORD_BYTES = 9;
+    
+    private final Path directory;
+    // Serializes compactions; writes only wait for the store's own lock, briefly, at the swap
+    private final Object compactionLock = new Object();
+    private volatile RatingMatrix matrix;
+    private FileChannel deltaLog;
+    
+    public RatingMatrixStore(Path directory) {
+        this.directory = directory;
+    }
+    
+    /**
+     * Opens the current snapshot and replays its changes; returns false if there is none.
+     */
+    public synchronized boolean open() throws IOException {
+        Path current = currentSnapshot();
+        if (current == null) {
+            return false;
+        }
+        RatingMatrix opened = new RatingMatrix(RatingMatrixSnapshot.open(current));
+        FileChannel log = FileChannel.open(current.resolve(DELTA_LOG_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long replayed = replay(log, 0, opened, null);
+        // Drop a record torn by a crash, so new records line up again
+        log.truncate(replayed);
+        log.position(replayed);
+        install(opened, log);
+        logger.info("Opened rating matrix {}: {} users, {} books, {} ratings, {} changes since",
+                current.getFileName(), opened.userCount(), opened.bookCount(),
+                opened.snapshot().ratingCount(), opened.changeCount());
+        return true;
+    }
+    
+    /**
+     * A new, empty snapshot directory for a {@link RatingMatrixWriter}.
+     */
+    public Path newSnapshotDirectory() throws IOException {
+        Files.createDirectories(directory);
+        Path snapshot = directory.resolve(SNAPSHOT_PREFIX + System.currentTimeMillis());
+        while (Files.exists(snapshot)) {
+            snapshot = directory.resolve(SNAPSHOT_PREFIX + (Long.parseLong(
+                    snapshot.getFileName().toString().substring(SNAPSHOT_PREFIX.length())) + 1));
+        }
+        return Files.createDirectories(snapshot);
+    }
+    
+    /**
+     * Makes a freshly written snapshot current, with no changes on top of it.
+     */
+    public synchronized void publish(RatingMatrixSnapshot snapshot) throws IOException {
+        FileChannel log = FileChannel.open(snapshot.directory().resolve(DELTA_LOG_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        writeCurrent(snapshot.directory());
+        install(new RatingMatrix(snapshot), log);
+    }
+    
+    public RatingMatrix matrix() {
+        return matrix;
+    }
+    
+    /**
+     * Records a changed rating, 0 for a removed one.
+     */
+    public synchronized void record(int userId, int bookId, int rating) throws IOException {
+        if (matrix == null) {
+            throw new IllegalStateException("Rating matrix store is not open");
+        }
+        ByteBuffer record = ByteBuffer.allocate(DELTA_RECORD_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        record.putInt(userId).putInt(bookId).put((byte) rating).flip();
+        while (record.hasRemaining()) {
+            deltaLog.write(record);
+        }
+        matrix.set(userId, bookId, rating);
+    }
+    
+    /**
+     * Writes the current snapshot and its changes into a new snapshot and switches to it.
+     * Changes recorded while it runs are carried over to the new snapshot's log.
+     */
+    public void compact() throws IOException {
+        synchronized (compactionLock) {
+            RatingMatrix base;
+            long logPosition;
+            synchronized (this) {
+                if (matrix == null) {
+                    return;
+                }
+                base = matrix.copy();
+                logPosition = deltaLog.position();
+            }
+            long start = System.nanoTime();
+            RatingMatrixSnapshot compacted = base.compactTo(newSnapshotDirectory());
+            
+            synchronized (this) {
+                if (matrix == null) {
+                    // Cleared or closed meanwhile; the result is already out of date
+                    deleteRecursively(compacted.directory());
+                    return;
+                }
+                RatingMatrix next = new RatingMatrix(compacted);
+                FileChannel nextLog = FileChannel.open(compacted.directory().resolve(DELTA_LOG_FILE),
+                        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                replay(deltaLog, logPosition, next, nextLog);
+                writeCurrent(compacted.directory());
+                install(next, nextLog);
+            }
+            logger.info("Compacted rating matrix into {}: {} ratings in {} ms", compacted.directory().getFileName(),
+                    compacted.ratingCount(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+    
+    /**
+     * Closes the store and deletes all snapshots, so the next build starts from scratch.
+     */
+    public synchronized void clear() throws IOException {
+        close();
+        Files.deleteIfExists(directory.resolve(CURRENT_FILE));
+        deleteSnapshotsExcept(null);
+    }
+    
+    @Override
+    public synchronized void close() throws IOException {
+        matrix = null;
+        if (deltaLog != null) {
+            deltaLog.close();
+            deltaLog = null;
+        }
+    }
+    
+    private void install(RatingMatrix next, FileChannel log) throws IOException {
+        if (deltaLog != null) {
+            deltaLog.close();
+        }
+        deltaLog = log;
+        matrix = next;
+        deleteSnapshotsExcept(next.snapshot().directory());
+    }
+    
+    // Applies the log's records from the given position to the matrix, copying them to another
+    // log if one is given; returns the position after the last complete record
+    private static long replay(FileChannel log, long from, RatingMatrix matrix, FileChannel copyTo) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(DELTA_RECORD_BYTES * 4096).order(ByteOrder.LITTLE_ENDIAN);
+        long position = from;
+        while (log.read(buffer, position + buffer.position()) > 0 || buffer.position() > 0) {
+            buffer.flip();
+            int records = buffer.remaining() / DELTA_RECORD_BYTES;
+            if (records == 0) {
+                break;
+            }
+            for (int i = 0; i < records; i++) {
+                matrix.set(buffer.getInt(), buffer.getInt(), buffer.get());
+            }
+            if (copyTo != null) {
+                ByteBuffer copy = buffer.duplicate().position(0).limit(records * DELTA_RECORD_BYTES);
+                while (copy.hasRemaining()) {
+                    copyTo.write(copy);
+                }
+            }
+            position += (long) records * DELTA_RECORD_BYTES;
+            buffer.compact();
+        }
+        return position;
+    }
+    
+    private Path currentSnapshot() throws IOException {
+        Path current = directory.resolve(CURRENT_FILE);
+        if (!Files.isRegularFile(current)) {
+            return null;
+        }
+        Path snapshot = directory.resolve(Files.readString(current, StandardCharsets.UTF_8).trim());
+        if (!RatingMatrixSnapshot.isComplete(snapshot)) {
+            logger.warn("Ignoring incomplete rating matrix snapshot {}", snapshot);
+            return null;
+        }
+        return snapshot;
+    }
+    
+    private void writeCurrent(Path snapshot) throws IOException {
+        Path temp = Files.createTempFile(directory, "current", ".tmp");
+        Files.writeString(temp, snapshot.getFileName().toString(), StandardCharsets.UTF_8);
+        Files.move(temp, directory.resolve(CURRENT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    // Old snapshots may still be mapped by readers; on Linux and macOS the mapping outlives the file
+    private void deleteSnapshotsExcept(Path keep) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> snapshots = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*")) {
+            for (Path snapshot : snapshots) {
+                if (!snapshot.equals(keep)) {
+                    deleteRecursively(snapshot);
+                }
+            }
+        }
+    }
+    
+    private static void deleteRecursively(Path path) {
+        try (Stream<Path> files = Files.walk(path)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    logger.warn("Could not delete {}: {}", file, e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            logger.warn("Could not delete old rating matrix snapshot {}: {}", path, e.getMessage());
+        }
+    }
+}
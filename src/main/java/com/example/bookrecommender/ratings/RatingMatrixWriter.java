@@ -0,0 +1,126 @@
+package com.example.bookrecommender.ratings;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Properties;
+
+/**
+ * Writes a {@link RatingMatrixSnapshot} from ratings added in ascending (user id, book id)
+ * order, as a forward-only cursor over {@code user_books} or a merge of a snapshot with its
+ * changes produces them. The rows are written straight into the mapped files; the columns are
+ * derived from them in {@link #finish()} by a counting sort, so neither copy is ever held on
+ * the heap.
+ */
+public final class RatingMatrixWriter {
+    
+    private final Path directory;
+    private final int userCount;
+    private final int bookCount;
+    private final long capacity;
+    private final MappedRegion userOffsets;
+    private final MappedRegion userBooks;
+    private final MappedRegion userRatings;
+    private long count;
+    // The next user whose row start has not been written; rows of users without ratings are empty
+    private int nextUser;
+    private int lastUser = -1;
+    private int lastBook = -1;
+    
+    /**
+     * @param capacity upper bound on the number of ratings that will be added
+     */
+    public RatingMatrixWriter(Path directory, int userCount, int bookCount, long capacity) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.userCount = userCount;
+        this.bookCount = bookCount;
+        this.capacity = capacity;
+        this.userOffsets = MappedRegion.readWrite(directory.resolve(RatingMatrixSnapshot.USER_OFFSETS_FILE),
+                8L * (userCount + 1));
+        this.userBooks = MappedRegion.readWrite(directory.resolve(RatingMatrixSnapshot.USER_BOOKS_FILE), 4 * capacity);
+        this.userRatings = MappedRegion.readWrite(directory.resolve(RatingMatrixSnapshot.USER_RATINGS_FILE), capacity);
+    }
+    
+    public void add(int userId, int bookId, int rating) {
+        if (userId < lastUser || (userId == lastUser && bookId <= lastBook)) {
+            throw new IllegalArgumentException("Ratings must be added in (user, book) order, got " + userId + "/"
+                    + bookId + " after " + lastUser + "/" + lastBook);
+        }
+        if (userId < 0 || userId >= userCount || bookId < 0 || bookId >= bookCount) {
+            throw new IllegalArgumentException("Rating " + userId + "/" + bookId + " is outside the "
+                    + userCount + "x" + bookCount + " matrix");
+        }
+        if (rating < 1 || rating > 5) {
+            throw new IllegalArgumentException("Rating must be between 1 and 5, got " + rating);
+        }
+        if (count == capacity) {
+            throw new IllegalStateException("More than the expected " + capacity + " ratings");
+        }
+        while (nextUser <= userId) {
+            userOffsets.putLong(8L * nextUser++, count);
+        }
+        userBooks.putInt(4 * count, bookId);
+        userRatings.putByte(count, (byte) rating);
+        count++;
+        lastUser = userId;
+        lastBook = bookId;
+    }
+    
+    public long count() {
+        return count;
+    }
+    
+    public RatingMatrixSnapshot finish() throws IOException {
+        while (nextUser <= userCount) {
+            userOffsets.putLong(8L * nextUser++, count);
+        }
+        
+        // Columns by counting sort: count each book's ratings into bookOffsets[book + 1], turn the
+        // counts into start positions, then scatter the rows using bookOffsets[book + 1] as the
+        // book's write position. When done, bookOffsets[book + 1] has moved on to the book's end,
+        // which is the next book's start, and bookOffsets[0] is still 0.
+        MappedRegion bookOffsets = MappedRegion.readWrite(directory.resolve(RatingMatrixSnapshot.BOOK_OFFSETS_FILE),
+                8L * (bookCount + 1));
+        MappedRegion bookUsers = MappedRegion.readWrite(directory.resolve(RatingMatrixSnapshot.BOOK_USERS_FILE), 4 * count);
+        MappedRegion bookRatings = MappedRegion.readWrite(directory.resolve(RatingMatrixSnapshot.BOOK_RATINGS_FILE), count);
+        for (long entry = 0; entry < count; entry++) {
+            long slot = 8L * (userBooks.getInt(4 * entry) + 1);
+            bookOffsets.putLong(slot, bookOffsets.getLong(slot) + 1);
+        }
+        long start = 0;
+        for (int book = 0; book < bookCount; book++) {
+            long slot = 8L * (book + 1);
+            long ratings = bookOffsets.getLong(slot);
+            bookOffsets.putLong(slot, start);
+            start += ratings;
+        }
+        for (int user = 0; user < userCount; user++) {
+            for (long entry = userOffsets.getLong(8L * user), end = userOffsets.getLong(8L * (user + 1)); entry < end; entry++) {
+                long slot = 8L * (userBooks.getInt(4 * entry) + 1);
+                long position = bookOffsets.getLong(slot);
+                bookOffsets.putLong(slot, position + 1);
+                bookUsers.putInt(4 * position, user);
+                bookRatings.putByte(position, userRatings.getByte(entry));
+            }
+        }
+        
+        for (MappedRegion region : new MappedRegion[] {userOffsets, userBooks, userRatings, bookOffsets, bookUsers, bookRatings}) {
+            region.force();
+        }
+        Properties metadata = new Properties();
+        metadata.setProperty("version", String.valueOf(RatingMatrixSnapshot.FORMAT_VERSION));
+        metadata.setProperty("users", String.valueOf(userCount));
+        metadata.setProperty("books", String.valueOf(bookCount));
+        metadata.setProperty("ratings", String.valueOf(count));
+        Path temp = Files.createTempFile(directory, "matrix", ".tmp");
+        try (OutputStream out = Files.newOutputStream(temp)) {
+            metadata.store(out, "Rating matrix snapshot");
+        }
+        Files.move(temp, directory.resolve(RatingMatrixSnapshot.METADATA_FILE), StandardCopyOption.ATOMIC_MOVE);
+        return new RatingMatrixSnapshot(directory, userCount, bookCount, count,
+                userOffsets, userBooks, userRatings, bookOffsets, bookUsers, bookRatings);
+    }
+}
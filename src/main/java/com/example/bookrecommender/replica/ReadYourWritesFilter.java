@@ -0,0 +1,34 @@
+package com.example.bookrecommender.replica;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Forgets the request's writes on the thread when it ends. Request threads are pooled, so the
+// next request on this thread, whoever sent it, would otherwise read from the primary too.
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+    
+    private final ReadYourWritesTracker tracker;
+    
+    public ReadYourWritesFilter(ReadYourWritesTracker tracker) {
+        this.tracker = tracker;
+    }
+    
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            tracker.clearThread();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.bookrecommender.replica;
+
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Remembers who wrote recently, so their reads go to the primary until the replicas have had
+// time to catch up. Writes are tracked per authenticated user, because a user's next request
+// usually runs on another thread, and per thread, for startup and background work and for the
+// rest of the request. ReadYourWritesFilter clears the thread's entry when a request ends.
+// Anonymous requests are not tracked per user: they would all share one entry, and one sign-up
+// would send every public read to the primary.
+public class ReadYourWritesTracker {
+    
+    private final long windowNanos;
+    private final Map<String, Long> lastWriteByUser = new ConcurrentHashMap<>();
+    private final ThreadLocal<Long> lastWriteOnThread = new ThreadLocal<>();
+    
+    public ReadYourWritesTracker(Duration window) {
+        this.windowNanos = window.toNanos();
+    }
+    
+    public void recordWrite() {
+        long now = System.nanoTime();
+        lastWriteOnThread.set(now);
+        String user = currentUser();
+        if (user != null) {
+            lastWriteByUser.put(user, now);
+        }
+    }
+    
+    public boolean isWithinWindow() {
+        if (windowNanos <= 0) {
+            return false;
+        }
+        long now = System.nanoTime();
+        Long threadWrite = lastWriteOnThread.get();
+        if (threadWrite != null && now - threadWrite < windowNanos) {
+            return true;
+        }
+        String user = currentUser();
+        Long userWrite = user != null ? lastWriteByUser.get(user) : null;
+        return userWrite != null && now - userWrite < windowNanos;
+    }
+    
+    public void clearThread() {
+        lastWriteOnThread.remove();
+    }
+    
+    // Called periodically so users who stopped writing don't stay in the map forever
+    public void purgeExpired() {
+        long now = System.nanoTime();
+        lastWriteByUser.values().removeIf(lastWrite -> now - lastWrite >= windowNanos);
+    }
+    
+    private static String currentUser() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return authentication.getName();
+    }
+}
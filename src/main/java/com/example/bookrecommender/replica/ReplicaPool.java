@@ -0,0 +1,94 @@
+package com.example.bookrecommender.replica;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Round robin over the replicas that passed their last health check. A replica is taken out as
+// soon as a connection attempt fails and put back by the next successful check.
+public class ReplicaPool {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaPool.class);
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+    
+    private final List<Replica> replicas;
+    private final AtomicInteger next = new AtomicInteger();
+    
+    public ReplicaPool(List<Replica> replicas) {
+        this.replicas = List.copyOf(replicas);
+    }
+    
+    public int size() {
+        return replicas.size();
+    }
+    
+    // The next healthy replica, or null when none is available
+    public Replica next() {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+    
+    public void markDown(Replica replica, Exception cause) {
+        if (replica.healthy) {
+            replica.healthy = false;
+            logger.warn("Replica {} is unavailable, reads fall back to other replicas or the primary: {}",
+                    replica.name, cause.getMessage());
+        }
+    }
+    
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            boolean healthy;
+            try (Connection connection = replica.dataSource.getConnection()) {
+                healthy = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+            } catch (SQLException e) {
+                healthy = false;
+            }
+            if (healthy && !replica.healthy) {
+                logger.info("Replica {} is available again", replica.name);
+            } else if (!healthy && replica.healthy) {
+                logger.warn("Replica {} failed its health check", replica.name);
+            }
+            replica.healthy = healthy;
+        }
+    }
+    
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+    
+    public static class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy = true;
+        
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public DataSource getDataSource() {
+            return dataSource;
+        }
+        
+        public boolean isHealthy() {
+            return healthy;
+        }
+    }
+}
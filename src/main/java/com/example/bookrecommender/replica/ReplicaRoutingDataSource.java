@@ -0,0 +1,66 @@
+package com.example.bookrecommender.replica;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// Sends read-only transactions to a replica and everything else to the primary. Must sit behind
+// a LazyConnectionDataSourceProxy: the transaction manager asks for a connection before it marks
+// the transaction read-only, and the proxy delays that request until the first statement.
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+    
+    private final DataSource primary;
+    private final ReplicaPool replicas;
+    private final ReadYourWritesTracker readYourWrites;
+    
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaPool replicas, ReadYourWritesTracker readYourWrites) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.readYourWrites = readYourWrites;
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(DataSource::getConnection);
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(dataSource -> dataSource.getConnection(username, password));
+    }
+    
+    private Connection route(ConnectionFactory factory) throws SQLException {
+        // Outside a transaction (migrations, schema validation, plain JDBC) nothing says the work is read-only
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return factory.connect(primary);
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            readYourWrites.recordWrite();
+            return factory.connect(primary);
+        }
+        if (readYourWrites.isWithinWindow()) {
+            return factory.connect(primary);
+        }
+        
+        for (int attempt = 0; attempt < replicas.size(); attempt++) {
+            ReplicaPool.Replica replica = replicas.next();
+            if (replica == null) {
+                break;
+            }
+            try {
+                return factory.connect(replica.getDataSource());
+            } catch (SQLException e) {
+                replicas.markDown(replica, e);
+            }
+        }
+        return factory.connect(primary);
+    }
+    
+    @FunctionalInterface
+    private interface ConnectionFactory {
+        Connection connect(DataSource dataSource) throws SQLException;
+    }
+}
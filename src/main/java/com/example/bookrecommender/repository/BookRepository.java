@@ -1,17 +1,20 @@
 package com.example.bookrecommender.repository;
 
 import com.example.bookrecommender.entity.Book;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 
 @Repository
-public interface BookRepository extends JpaRepository<Book, Long> {
+public interface BookRepository extends JpaRepository<Book, Long>, BookRepositoryCustom {
     
     @Query("SELECT b FROM Book b WHERE " +
            "LOWER(b.title) LIKE LOWER(CONCAT('%', :query, '%')) OR " +
@@ -19,11 +22,70 @@ public interface BookRepository extends JpaRepository<Book, Long> {
            "LOWER(b.genre) LIKE LOWER(CONCAT('%', :query, '%'))")
     Page<Book> searchBooks(@Param("query") String query, Pageable pageable);
     
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Book.CATALOG_QUERY_REGION)
+    })
     List<Book> findByGenreIn(List<String> genres);
     
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = Book.CATALOG_QUERY_REGION)
+    })
     List<Book> findByAuthorIn(List<String> authors);
     
     boolean existsByIsbn(String isbn);
     
     boolean existsByTitleAndAuthor(String title, String author);
+    
+    @Query("SELECT b.id AS id, b.isbn AS isbn, b.title AS title, b.author AS author " +
+           "FROM Book b WHERE b.id > :afterId ORDER BY b.id")
+    List<DedupKey> findDedupKeysAfter(@Param("afterId") Long afterId, Pageable pageable);
+    
+    interface DedupKey {
+        Long getId();
+        String getIsbn();
+        String getTitle();
+        String getAuthor();
+    }
+    
+    // The whole of RecommendationService's scoring in one statement: candidates are unread books in
+    // the genres or by the authors the user's taste profile likes, or every unread book when it
+    // likes none; score = 2 * genre affinity + 2 * author affinity + average rating, affinities
+    // capped at 1 as in TasteProfileService.Profile. The candidate filter comes before scoring so
+    // genre and author lookups can use their indexes. Subqueries rather than a CTE: H2 returns no
+    // rows from a CTE read by correlated subqueries, which scored every book as if unliked.
+    @Query(value = """
+            SELECT b.id AS id,
+                   2.0 * COALESCE((SELECT LEAST(a.weight, 1.0) FROM taste_affinities a
+                                   WHERE a.user_id = :userId AND a.kind = 'GENRE' AND a.name = b.genre
+                                     AND a.weight > 0), 0.0)
+                 + 2.0 * COALESCE((SELECT LEAST(a.weight, 1.0) FROM taste_affinities a
+                                   WHERE a.user_id = :userId AND a.kind = 'AUTHOR' AND a.name = b.author
+                                     AND a.weight > 0), 0.0)
+                 + COALESCE(b.average_rating, 0.0) AS score
+            FROM books b
+            WHERE (b.genre IN (SELECT a.name FROM taste_affinities a
+                               WHERE a.user_id = :userId AND a.kind = 'GENRE' AND a.weight > 0)
+                   OR b.author IN (SELECT a.name FROM taste_affinities a
+                                   WHERE a.user_id = :userId AND a.kind = 'AUTHOR' AND a.weight > 0)
+                   OR NOT EXISTS (SELECT 1 FROM taste_affinities a WHERE a.user_id = :userId AND a.weight > 0))
+              AND NOT EXISTS (SELECT 1 FROM user_books r WHERE r.user_id = :userId AND r.book_id = b.id)
+            ORDER BY score DESC, b.id
+            LIMIT :limit
+            """, nativeQuery = true)
+    List<ScoredBook> findTopScoredForUser(@Param("userId") Long userId, @Param("limit") int limit);
+    
+    interface ScoredBook {
+        Long getId();
+        Double getScore();
+    }
+    
+    @Query("SELECT b.id AS id, b.genre AS genre FROM Book b ORDER BY b.id")
+    List<SeedCandidate> findSeedCandidates();
+    
+    interface SeedCandidate {
+        Long getId();
+        String getGenre();
+    }
 }
@@ -0,0 +1,11 @@
+package com.example.bookrecommender.repository;
+
+import com.example.bookrecommender.entity.Book;
+
+import java.util.List;
+
+public interface BookRepositoryCustom {
+    
+    // Replaces JpaRepository.findAllById: an IN query would bypass the second-level cache
+    List<Book> findAllById(Iterable<Long> ids);
+}
@@ -0,0 +1,39 @@
+package com.example.bookrecommender.repository;
+
+import com.example.bookrecommender.entity.Book;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+public class BookRepositoryCustomImpl implements BookRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<Book> findAllById(Iterable<Long> ids) {
+        Set<Long> uniqueIds = new LinkedHashSet<>();
+        ids.forEach(uniqueIds::add);
+        if (uniqueIds.isEmpty()) {
+            return List.of();
+        }
+        
+        // multiLoad serves cached books from the second-level cache and fetches only the
+        // misses, in one IN query; missing ids come back as nulls. It only checks the cache
+        // when given a cache mode explicitly.
+        List<Book> books = entityManager.unwrap(Session.class)
+                .byMultipleIds(Book.class)
+                .with(CacheMode.NORMAL)
+                .multiLoad(new ArrayList<>(uniqueIds));
+        return books.stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bookrecommender.repository;
+
+import com.example.bookrecommender.entity.LeaderLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface LeaderLockRepository extends JpaRepository<LeaderLock, String> {
+    
+    // Takes over an expired lock, or extends the lease if we already own it
+    @Modifying
+    @Query("UPDATE LeaderLock l SET l.owner = :owner, l.lockedUntil = :lockedUntil " +
+           "WHERE l.name = :name AND (l.owner = :owner OR l.lockedUntil < :now)")
+    int claim(@Param("name") String name, @Param("owner") String owner,
+              @Param("lockedUntil") LocalDateTime lockedUntil, @Param("now") LocalDateTime now);
+    
+    // Fails with a constraint violation if another instance created the row first
+    @Modifying
+    @Query(value = "INSERT INTO leader_locks (name, owner, locked_until) VALUES (:name, :owner, :lockedUntil)",
+           nativeQuery = true)
+    int insert(@Param("name") String name, @Param("owner") String owner,
+               @Param("lockedUntil") LocalDateTime lockedUntil);
+    
+    @Modifying
+    @Query("DELETE FROM LeaderLock l WHERE l.name = :name AND l.owner = :owner")
+    int release(@Param("name") String name, @Param("owner") String owner);
+}
@@ -0,0 +1,50 @@
+package com.example.bookrecommender.repository;
+
+import com.example.bookrecommender.entity.TasteAffinity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TasteAffinityRepository extends JpaRepository<TasteAffinity, Long>, TasteAffinityRepositoryCustom {
+    
+    List<TasteAffinity> findByUserId(Long userId);
+    
+    @Modifying
+    @Query("DELETE FROM TasteAffinity a " +
+           "WHERE a.userId = :userId AND a.kind = :kind AND a.name = :name AND a.ratingCount <= 0")
+    int deleteIfEmpty(@Param("userId") Long userId, @Param("kind") String kind, @Param("name") String name);
+    
+    @Modifying
+    @Query("DELETE FROM TasteAffinity a WHERE a.userId = :userId")
+    int deleteByUserId(@Param("userId") Long userId);
+    
+    @Modifying
+    @Query("DELETE FROM TasteAffinity a")
+    int deleteAllAffinities();
+    
+    // Rebuilds profiles from user_books in one statement, for ratings written outside UserBookService.
+    // A null userId rebuilds every user. The weights match TasteProfileService.weightOf.
+    @Modifying
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "taste_affinities"))
+    @Query(value = """
+            INSERT INTO taste_affinities (user_id, kind, name, weight, rating_count, updated_at)
+            SELECT ub.user_id, 'GENRE', b.genre, SUM((ub.rating - 3) / 2.0), COUNT(*), CURRENT_TIMESTAMP
+            FROM user_books ub JOIN books b ON b.id = ub.book_id
+            WHERE ub.rating IS NOT NULL AND (CAST(:userId AS BIGINT) IS NULL OR ub.user_id = :userId)
+            GROUP BY ub.user_id, b.genre
+            UNION ALL
+            SELECT ub.user_id, 'AUTHOR', b.author, SUM((ub.rating - 3) / 2.0), COUNT(*), CURRENT_TIMESTAMP
+            FROM user_books ub JOIN books b ON b.id = ub.book_id
+            WHERE ub.rating IS NOT NULL AND (CAST(:userId AS BIGINT) IS NULL OR ub.user_id = :userId)
+            GROUP BY ub.user_id, b.author
+            """, nativeQuery = true)
+    int insertFromRatings(@Param("userId") Long userId);
+}
@@ -0,0 +1,10 @@
+package com.example.bookrecommender.repository;
+
+import java.time.LocalDateTime;
+
+public interface TasteAffinityRepositoryCustom {
+    
+    // Adds to the user's affinity for a genre or author, creating it if missing, in one statement;
+    // concurrent ratings by the same user can neither lose an update nor insert it twice
+    void addRatings(Long userId, String kind, String name, double weight, int ratings, LocalDateTime now);
+}
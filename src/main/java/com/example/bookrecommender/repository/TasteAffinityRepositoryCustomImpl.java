@@ -0,0 +1,73 @@
+package com.example.bookrecommender.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
+
+import java.time.LocalDateTime;
+
+public class TasteAffinityRepositoryCustomImpl implements TasteAffinityRepositoryCustom {
+    
+    private static final String POSTGRESQL_UPSERT = """
+            INSERT INTO taste_affinities (user_id, kind, name, weight, rating_count, updated_at)
+            VALUES (?1, ?2, ?3, ?4, ?5, ?6)
+            ON CONFLICT (user_id, kind, name) DO UPDATE
+            SET weight = taste_affinities.weight + EXCLUDED.weight,
+                rating_count = taste_affinities.rating_count + EXCLUDED.rating_count,
+                updated_at = EXCLUDED.updated_at
+            """;
+    
+    // H2 has no ON CONFLICT ... DO UPDATE, and its MERGE fails rather than update when a concurrent
+    // MERGE inserts the same row first; H2_LOCK_USER serializes a user's upserts before it runs
+    private static final String H2_LOCK_USER = "SELECT id FROM users WHERE id = ?1 FOR UPDATE";
+    private static final String H2_UPSERT = """
+            MERGE INTO taste_affinities a
+            USING (VALUES (CAST(?1 AS BIGINT), CAST(?2 AS VARCHAR(16)), CAST(?3 AS VARCHAR(255)),
+                           CAST(?4 AS DOUBLE PRECISION), CAST(?5 AS INTEGER), CAST(?6 AS TIMESTAMP(6))))
+                AS v (user_id, kind, name, weight, rating_count, updated_at)
+            ON a.user_id = v.user_id AND a.kind = v.kind AND a.name = v.name
+            WHEN MATCHED THEN UPDATE
+                SET weight = a.weight + v.weight, rating_count = a.rating_count + v.rating_count,
+                    updated_at = v.updated_at
+            WHEN NOT MATCHED THEN INSERT (user_id, kind, name, weight, rating_count, updated_at)
+                VALUES (v.user_id, v.kind, v.name, v.weight, v.rating_count, v.updated_at)
+            """;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    private volatile Boolean h2;
+    
+    @Override
+    public void addRatings(Long userId, String kind, String name, double weight, int ratings, LocalDateTime now) {
+        if (isH2()) {
+            entityManager.createNativeQuery(H2_LOCK_USER)
+                    .setParameter(1, userId)
+                    .getResultList();
+        }
+        entityManager.createNativeQuery(isH2() ? H2_UPSERT : POSTGRESQL_UPSERT)
+                .setParameter(1, userId)
+                .setParameter(2, kind)
+                .setParameter(3, name)
+                .setParameter(4, weight)
+                .setParameter(5, ratings)
+                .setParameter(6, now)
+                // Otherwise Hibernate assumes the statement may have written any table and
+                // invalidates every cached query, the book lookups included
+                .setHint(HibernateHints.HINT_NATIVE_SPACES, "taste_affinities")
+                .executeUpdate();
+    }
+    
+    private boolean isH2() {
+        if (h2 == null) {
+            String product = entityManager.unwrap(Session.class)
+                    .doReturningWork(connection -> connection.getMetaData().getDatabaseProductName());
+            if (!"PostgreSQL".equals(product) && !"H2".equals(product)) {
+                throw new IllegalStateException("No taste affinity upsert for " + product);
+            }
+            h2 = "H2".equals(product);
+        }
+        return h2;
+    }
+}
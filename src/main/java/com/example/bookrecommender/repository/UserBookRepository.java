@@ -1,34 +1,47 @@
 package com.example.bookrecommender.repository;
 
 import com.example.bookrecommender.entity.UserBook;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserBookRepository extends JpaRepository<UserBook, Long> {
     
+    // The library view maps every entry's book; load them in the same query
+    @EntityGraph(attributePaths = "book")
     List<UserBook> findByUserId(Long userId);
     
     Optional<UserBook> findByUserIdAndBookId(Long userId, Long bookId);
     
-    @Query("SELECT DISTINCT ub.book.genre FROM UserBook ub WHERE ub.user.id = :userId AND ub.rating >= 4")
-    List<String> findFavoriteGenresByUserId(@Param("userId") Long userId);
+    @Query("SELECT ub.book.id FROM UserBook ub WHERE ub.user.id = :userId")
+    List<Long> findBookIdsByUserId(@Param("userId") Long userId);
     
-    @Query("SELECT DISTINCT ub.book.author FROM UserBook ub WHERE ub.user.id = :userId AND ub.rating >= 4")
-    List<String> findFavoriteAuthorsByUserId(@Param("userId") Long userId);
+    // A book's library entries, ratings and average rating, counted in the database
+    @Query("SELECT COUNT(ub) AS entryCount, COUNT(ub.rating) AS ratingCount, AVG(ub.rating) AS averageRating " +
+           "FROM UserBook ub WHERE ub.book.id = :bookId")
+    RatingAggregate findRatingAggregate(@Param("bookId") Long bookId);
     
-    List<UserBook> findByBookId(Long bookId);
+    interface RatingAggregate {
+        long getEntryCount();
+        long getRatingCount();
+        Double getAverageRating();
+    }
     
     boolean existsByUserIdAndBookId(Long userId, Long bookId);
     
+    @Query("SELECT DISTINCT ub.user.id FROM UserBook ub WHERE ub.user.id IN :userIds")
+    List<Long> findUserIdsWithBooks(@Param("userIds") Collection<Long> userIds);
+    
     @Query("SELECT COUNT(ub) FROM UserBook ub WHERE ub.book.id = :bookId AND ub.isFavorite = true")
     Integer countFavoritesByBookId(@Param("bookId") Long bookId);
     
-    @Query("SELECT ub FROM UserBook ub WHERE ub.book.id = :bookId AND ub.rating IS NOT NULL")
+    @Query("SELECT ub FROM UserBook ub JOIN FETCH ub.user WHERE ub.book.id = :bookId AND ub.rating IS NOT NULL")
     List<UserBook> findReviewsByBookId(@Param("bookId") Long bookId);
 }
@@ -2,12 +2,25 @@ package com.example.bookrecommender.repository;
 
 import com.example.bookrecommender.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+    
+    List<User> findByEmailIn(Collection<String> emails);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE User u SET u.role = 'ADMIN' WHERE u.email IN :emails AND u.role <> 'ADMIN'")
+    int promoteToAdmin(@Param("emails") Collection<String> emails);
 }
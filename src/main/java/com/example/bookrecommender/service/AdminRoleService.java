@@ -0,0 +1,57 @@
+package com.example.bookrecommender.service;
+
+import com.example.bookrecommender.entity.User;
+import com.example.bookrecommender.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+// Grants the admin role to the accounts listed in security.admin-emails. Admins register like
+// any other user and get the role at registration; accounts listed later are promoted on their
+// next login, and every listed account at startup. The startup step runs on every instance,
+// with or without startup seeding, as the promotion is a single idempotent update.
+@Service
+public class AdminRoleService implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AdminRoleService.class);
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Value("${security.admin-emails:}")
+    private List<String> adminEmails = List.of();
+    
+    public boolean isAdminEmail(String email) {
+        return email != null && adminEmails.contains(email);
+    }
+    
+    public String roleFor(String email) {
+        return isAdminEmail(email) ? User.ROLE_ADMIN : User.ROLE_USER;
+    }
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        if (adminEmails.isEmpty()) {
+            return;
+        }
+        int promoted = userRepository.promoteToAdmin(adminEmails);
+        if (promoted > 0) {
+            logger.info("Granted the admin role to {} users.", promoted);
+        }
+    }
+    
+    // For an account registered before it was listed
+    public void promoteIfListed(User user) {
+        if (isAdminEmail(user.getEmail()) && !User.ROLE_ADMIN.equals(user.getRole())) {
+            user.setRole(User.ROLE_ADMIN);
+            userRepository.save(user);
+            logger.info("Granted the admin role to {}.", user.getEmail());
+        }
+    }
+}
@@ -0,0 +1,389 @@
+package com.example.bookrecommender.service;
+
+import com.example.bookrecommender.als.AlsModel;
+import com.example.bookrecommender.als.AlsTrainer;
+import com.example.bookrecommender.als.Favorites;
+import com.example.bookrecommender.ann.HnswIndex;
+import com.example.bookrecommender.catalog.CompressedBitmap;
+import com.example.bookrecommender.catalog.TopScores;
+import com.example.bookrecommender.ratings.RatingMatrix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Trains the ALS collaborative-filtering model (AlsTrainer) from the rating matrix and keeps the
+// latest one for the als scoring mode. Training runs in the background, first when the model is
+// asked for and then every retrain-interval; each finished model replaces the previous one in a
+// single volatile write, so requests never see one half-trained. Until the first model is ready
+// there is none to serve from. Needs ratings.matrix.enabled; off unless recommendation.als.enabled.
+//
+// With recommendation.als.index.enabled, each model's book factors also go into an HNSW index
+// (HnswIndex), so a user's top books come from an approximate search instead of a dot product
+// with every book. Books the model has no factors for, including ones created after training,
+// are indexed at the mean vector of their genre. Model and index are saved to
+// recommendation.als.dir, and a restart serves from them until the next training finishes.
+@Service
+public class AlsModelService implements DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AlsModelService.class);
+    private static final int FETCH_SIZE = 10_000;
+    // Fixed, so retraining on unchanged ratings gives the same model
+    private static final long SEED = 42L;
+    private static final String MODEL_FILE = "als-model.bin";
+    private static final String INDEX_FILE_PREFIX = "book-index-";
+    
+    @Autowired
+    private RatingMatrixService ratingMatrixService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Value("${recommendation.als.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${recommendation.als.rank:32}")
+    private int rank = 32;
+    
+    @Value("${recommendation.als.iterations:10}")
+    private int iterations = 10;
+    
+    @Value("${recommendation.als.lambda:0.05}")
+    private double lambda = 0.05;
+    
+    // A favorite counts 1 + favorite-weight times as much as another rating
+    @Value("${recommendation.als.favorite-weight:1.0}")
+    private double favoriteWeight = 1.0;
+    
+    @Value("${recommendation.als.retrain-interval:1h}")
+    private Duration retrainInterval = Duration.ofHours(1);
+    
+    // Training threads; 0 uses one per core
+    @Value("${recommendation.als.parallelism:0}")
+    private int parallelism;
+    
+    @Value("${recommendation.als.dir:${java.io.tmpdir}/bookrecommender-als}")
+    private String directory;
+    
+    @Value("${recommendation.als.index.enabled:true}")
+    private boolean indexEnabled = true;
+    
+    // Links per node; more links raise recall and memory use
+    @Value("${recommendation.als.index.m:16}")
+    private int indexM = 16;
+    
+    @Value("${recommendation.als.index.ef-construction:100}")
+    private int efConstruction = 100;
+    
+    // Candidates per search: the recall/latency trade-off, tunable without a rebuild
+    @Value("${recommendation.als.index.ef-search:64}")
+    private int efSearch = 64;
+    
+    private volatile Trained trained;
+    private final Object lock = new Object();
+    private ScheduledExecutorService scheduler;
+    private ForkJoinPool pool;
+    
+    // A model with the index over its book factors (null when indexing is off) and each genre's
+    // mean factor vector, for books the model doesn't know
+    private record Trained(AlsModel model, HnswIndex index, Map<String, float[]> genreVectors) {
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * The user's best {@code limit} books not in {@code exclude}, or null if there is no model
+     * yet or it doesn't know the user.
+     */
+    public TopScores recommend(Long userId, int limit, CompressedBitmap exclude) {
+        Trained current = current();
+        int user = Math.toIntExact(userId);
+        if (current == null || !current.model().hasUser(user)) {
+            return null;
+        }
+        if (current.index() == null) {
+            return current.model().recommend(user, limit, exclude);
+        }
+        return current.index().search(current.model().userVector(user), limit, efSearch,
+                book -> !exclude.contains(book));
+    }
+    
+    public void bookAdded(Long bookId, String genre) {
+        if (!enabled || !indexEnabled) {
+            return;
+        }
+        int book = Math.toIntExact(bookId);
+        // On the training thread, so a model in training gets the book after it is swapped in
+        afterCommit(() -> onTrainingThread(() -> {
+            Trained current = trained;
+            float[] vector = current != null && genre != null ? current.genreVectors().get(genre) : null;
+            if (vector != null && !current.model().hasBook(book)) {
+                current.index().add(book, vector);
+            }
+        }));
+    }
+    
+    public void bookRemoved(Long bookId) {
+        if (!enabled || !indexEnabled) {
+            return;
+        }
+        int book = Math.toIntExact(bookId);
+        Runnable tombstone = () -> {
+            Trained current = trained;
+            if (current != null) {
+                current.index().remove(book);
+            }
+        };
+        // Now for the current index, and again after a training that may have read the book first
+        afterCommit(() -> {
+            tombstone.run();
+            onTrainingThread(tombstone);
+        });
+    }
+    
+    void retrain() {
+        try {
+            long start = System.nanoTime();
+            RatingMatrix matrix = ratingMatrixService.getMatrix();
+            Favorites favorites = loadFavorites();
+            AlsModel model = new AlsTrainer(rank, iterations, lambda, favoriteWeight, SEED)
+                    .train(matrix, favorites, pool);
+            logger.info("Trained ALS model: rank {}, {} users, {} books, training RMSE {} in {} ms",
+                    model.rank(), model.userCount(), model.bookCount(),
+                    String.format("%.4f", model.trainingRmse()), (System.nanoTime() - start) / 1_000_000);
+            Trained next = indexEnabled ? index(model, null) : new Trained(model, null, Map.of());
+            trained = next;
+            save(next);
+        } catch (RuntimeException e) {
+            logger.warn("ALS training failed; keeping the previous model", e);
+        }
+    }
+    
+    @Override
+    public void destroy() {
+        synchronized (lock) {
+            if (scheduler != null) {
+                scheduler.shutdownNow();
+                pool.shutdownNow();
+            }
+        }
+        // Keeps books indexed since the last training across the restart
+        Trained current = trained;
+        if (current != null && current.index() != null) {
+            try {
+                current.index().writeTo(indexFile(current.model()));
+            } catch (IOException e) {
+                logger.warn("Could not save the book index", e);
+            }
+        }
+    }
+    
+    private Trained current() {
+        if (!enabled) {
+            return null;
+        }
+        Trained current = trained;
+        if (current == null) {
+            startTraining();
+        }
+        return current;
+    }
+    
+    private void startTraining() {
+        synchronized (lock) {
+            if (scheduler != null) {
+                return;
+            }
+            pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "als-training");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long intervalMs = retrainInterval.toMillis();
+            scheduler.execute(() -> {
+                if (!loadSaved()) {
+                    retrain();
+                }
+            });
+            scheduler.scheduleWithFixedDelay(this::retrain, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    private void onTrainingThread(Runnable task) {
+        synchronized (lock) {
+            if (scheduler != null) {
+                scheduler.execute(task);
+            }
+        }
+    }
+    
+    private boolean loadSaved() {
+        Path modelFile = Path.of(directory, MODEL_FILE);
+        if (!Files.isRegularFile(modelFile)) {
+            return false;
+        }
+        try {
+            AlsModel model = AlsModel.readFrom(modelFile);
+            Path indexFile = indexFile(model);
+            if (!indexEnabled) {
+                trained = new Trained(model, null, Map.of());
+            } else {
+                trained = index(model, Files.isRegularFile(indexFile) ? HnswIndex.readFrom(indexFile) : null);
+            }
+            logger.info("Loaded the ALS model trained at {} from {}", model.trainedAt(), directory);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not load the saved ALS model, training a new one", e);
+            return false;
+        }
+    }
+    
+    private void save(Trained saved) {
+        try {
+            Path dir = Files.createDirectories(Path.of(directory));
+            Path indexFile = null;
+            if (saved.index() != null) {
+                indexFile = indexFile(saved.model());
+                saved.index().writeTo(indexFile);
+            }
+            // The model last: its training time names the index file that goes with it
+            saved.model().writeTo(dir.resolve(MODEL_FILE));
+            try (DirectoryStream<Path> indexes = Files.newDirectoryStream(dir, INDEX_FILE_PREFIX + "*")) {
+                for (Path old : indexes) {
+                    if (!old.equals(indexFile)) {
+                        Files.deleteIfExists(old);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not save the ALS model to {}", directory, e);
+        }
+    }
+    
+    private Path indexFile(AlsModel model) {
+        return Path.of(directory, INDEX_FILE_PREFIX + model.trainedAt().toEpochMilli() + ".bin");
+    }
+    
+    // Builds the index over the model's books, unless a saved one is given. Books without factors
+    // go in at their genre's mean vector, as bookAdded does for new ones
+    private Trained index(AlsModel model, HnswIndex saved) {
+        long start = System.nanoTime();
+        Map<String, double[]> genreSums = new HashMap<>();
+        Map<String, Integer> genreCounts = new HashMap<>();
+        Map<Integer, String> unknownBooks = new HashMap<>();
+        CompressedBitmap books = new CompressedBitmap();
+        streamBooks((book, genre) -> {
+            books.add(book);
+            if (genre == null) {
+                return;
+            }
+            if (!model.hasBook(book)) {
+                unknownBooks.put(book, genre);
+                return;
+            }
+            double[] sum = genreSums.computeIfAbsent(genre, g -> new double[model.rank()]);
+            float[] vector = model.bookVector(book);
+            for (int i = 0; i < vector.length; i++) {
+                sum[i] += vector[i];
+            }
+            genreCounts.merge(genre, 1, Integer::sum);
+        });
+        Map<String, float[]> genreVectors = new HashMap<>();
+        genreSums.forEach((genre, sum) -> {
+            float[] mean = new float[sum.length];
+            int count = genreCounts.get(genre);
+            for (int i = 0; i < sum.length; i++) {
+                mean[i] = (float) (sum[i] / count);
+            }
+            genreVectors.put(genre, mean);
+        });
+        if (saved != null) {
+            return new Trained(model, saved, genreVectors);
+        }
+        
+        HnswIndex index = new HnswIndex(model.rank(), indexM, efConstruction, SEED);
+        // Books deleted since training keep their factors in the model but must not be recommended
+        model.forEachBook(book -> {
+            if (books.contains(book)) {
+                index.add(book, model.bookVector(book));
+            }
+        });
+        unknownBooks.forEach((book, genre) -> {
+            float[] vector = genreVectors.get(genre);
+            if (vector != null) {
+                index.add(book, vector);
+            }
+        });
+        logger.info("Indexed {} book vectors in {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+        return new Trained(model, index, genreVectors);
+    }
+    
+    private interface BookGenreConsumer {
+        void accept(int bookId, String genre);
+    }
+    
+    private void streamBooks(BookGenreConsumer action) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement("SELECT id, genre FROM books",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, resultSet -> {
+            action.accept(resultSet.getInt(1), resultSet.getString(2));
+        });
+    }
+    
+    private Favorites loadFavorites() {
+        long[][] keys = {new long[1024]};
+        int[] size = new int[1];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT user_id, book_id FROM user_books WHERE is_favorite = TRUE ORDER BY user_id, book_id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, resultSet -> {
+            if (size[0] == keys[0].length) {
+                keys[0] = Arrays.copyOf(keys[0], size[0] * 2);
+            }
+            keys[0][size[0]++] = Favorites.key(resultSet.getInt(1), resultSet.getInt(2));
+        });
+        return Favorites.of(Arrays.copyOf(keys[0], size[0]));
+    }
+    
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
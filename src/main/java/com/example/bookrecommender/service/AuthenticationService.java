@@ -31,6 +31,9 @@ public class AuthenticationService {
     @Autowired
     private AuthenticationManager authenticationManager;
     
+    @Autowired
+    private AdminRoleService adminRoleService;
+    
     @Transactional
     public AuthResponse register(RegisterRequest request) {
         if (userRepository.existsByEmail(request.getEmail())) {
@@ -41,6 +44,7 @@ public class AuthenticationService {
                 .name(request.getName())
                 .email(request.getEmail())
                 .password(passwordEncoder.encode(request.getPassword()))
+                .role(adminRoleService.roleFor(request.getEmail()))
                 .build();
         
         userRepository.save(user);
@@ -67,6 +71,7 @@ public class AuthenticationService {
         
         User user = userRepository.findByEmail(request.getEmail())
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + request.getEmail()));
+        adminRoleService.promoteIfListed(user);
         
         String token = jwtUtil.generateToken(user);
         String refreshToken = jwtUtil.generateRefreshToken(user);
@@ -0,0 +1,53 @@
+package com.example.bookrecommender.service;
+
+import com.example.bookrecommender.entity.Book;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+
+// Evicts books from the second-level cache after writes that bypass Hibernate (JDBC batch
+// updates of ratings and descriptions, bulk generated data). Hibernate cannot see those, so
+// without this the cache would keep serving the old rows. Inside a transaction the eviction
+// waits for the commit; evicting earlier would let a concurrent read cache the old row again.
+@Service
+public class BookCacheService {
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    public void evictBooks(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(bookIds);
+        afterCommit(() -> ids.forEach(id -> entityManagerFactory.getCache().evict(Book.class, id)));
+    }
+    
+    // For writes that add or remove books, which also changes cached genre and author lookups
+    public void evictAllBooks() {
+        afterCommit(() -> {
+            entityManagerFactory.getCache().evict(Book.class);
+            entityManagerFactory.unwrap(SessionFactory.class).getCache()
+                    .evictQueryRegion(Book.CATALOG_QUERY_REGION);
+        });
+    }
+    
+    private void afterCommit(Runnable eviction) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.bookrecommender.service;
+
+import com.example.bookrecommender.catalog.BookCatalog;
+import com.example.bookrecommender.entity.Book;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.function.UnaryOperator;
+
+// Owns the in-memory BookCatalog. It is loaded on first use, patched as books change and
+// dropped after bulk writes (rebuilt on next use). Like BookCacheService, changes are applied
+// after the writing transaction commits, so a rollback never reaches the catalog.
+@Service
+public class BookCatalogService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BookCatalogService.class);
+    private static final int FETCH_SIZE = 10_000;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    private final Object writeLock = new Object();
+    private volatile BookCatalog catalog;
+    
+    public BookCatalog getCatalog() {
+        BookCatalog current = catalog;
+        if (current != null) {
+            return current;
+        }
+        synchronized (writeLock) {
+            if (catalog == null) {
+                catalog = load();
+            }
+            return catalog;
+        }
+    }
+    
+    public void bookSaved(Book book) {
+        Long id = book.getId();
+        String genre = book.getGenre();
+        String author = book.getAuthor();
+        Double rating = book.getAverageRating();
+        Integer publishYear = book.getPublishYear();
+        afterCommit(() -> patch(current -> current.upsert(id, genre, author, rating, publishYear)));
+    }
+    
+    public void ratingChanged(Long bookId, Double averageRating) {
+        afterCommit(() -> patch(current -> {
+            current.updateRating(bookId, averageRating);
+            return current;
+        }));
+    }
+    
+    public void bookRemoved(Long bookId) {
+        afterCommit(() -> patch(current -> {
+            current.remove(bookId);
+            return current;
+        }));
+    }
+    
+    // For writes that bypass Hibernate (seeding, imports, generated data)
+    public void invalidate() {
+        afterCommit(() -> {
+            synchronized (writeLock) {
+                catalog = null;
+            }
+        });
+    }
+    
+    private void patch(UnaryOperator<BookCatalog> change) {
+        synchronized (writeLock) {
+            // Not loaded yet: the load will read the change from the database
+            if (catalog != null) {
+                catalog = change.apply(catalog);
+            }
+        }
+    }
+    
+    private BookCatalog load() {
+        long start = System.nanoTime();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        // Read-only, so it may run on a replica; inside a transaction so PostgreSQL honours the fetch size
+        transaction.setReadOnly(true);
+        BookCatalog loaded = transaction.execute(status -> {
+            Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM books", Integer.class);
+            BookCatalog.Builder builder = BookCatalog.builder(count != null ? count : 0);
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                        "SELECT id, genre, author, average_rating, publish_year FROM books ORDER BY id");
+                statement.setFetchSize(FETCH_SIZE);
+                return statement;
+            }, resultSet -> {
+                double rating = resultSet.getDouble("average_rating");
+                Double averageRating = resultSet.wasNull() ? null : rating;
+                int year = resultSet.getInt("publish_year");
+                Integer publishYear = resultSet.wasNull() ? null : year;
+                builder.add(resultSet.getLong("id"), resultSet.getString("genre"), resultSet.getString("author"),
+                        averageRating, publishYear);
+            });
+            return builder.build();
+        });
+        logger.info("Loaded book catalog: {} books, {} genres, {} authors, ~{} MB in {} ms",
+                loaded.liveCount(), loaded.genres().size(), loaded.authors().size(),
+                loaded.memoryBytes() / (1024 * 1024), (System.nanoTime() - start) / 1_000_000);
+        return loaded;
+    }
+    
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
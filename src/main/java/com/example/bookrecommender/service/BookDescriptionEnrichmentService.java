@@ -0,0 +1,195 @@
+package com.example.bookrecommender.service;
+
+import com.example.bookrecommender.client.OfflineCacheMissException;
+import com.example.bookrecommender.entity.Book;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Service
+public class BookDescriptionEnrichmentService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BookDescriptionEnrichmentService.class);
+    private static final int MAX_DESCRIPTION_LENGTH = 2000;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private BookCacheService bookCacheService;
+    
+    @Autowired
+    private ContentSimilarityService contentSimilarityService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    // Caches responses on disk and rate limits per host, so re-runs never re-fetch
+    @Autowired
+    private RestTemplate openLibraryRestTemplate;
+    
+    @Value("${openlibrary.base-url:https://openlibrary.org}")
+    private String baseUrl;
+    
+    @Value("${book.enrichment.enabled:true}")
+    private boolean enabled;
+    
+    @Value("${book.enrichment.concurrency:4}")
+    private int concurrency;
+    
+    @Value("${book.enrichment.max-attempts:4}")
+    private int maxAttempts;
+    
+    @Value("${book.enrichment.initial-backoff-ms:500}")
+    private long initialBackoffMs;
+    
+    @Value("${book.enrichment.batch-size:50}")
+    private int batchSize;
+    
+    /**
+     * Replaces synthetic descriptions with the work description from Open Library.
+     * Returns the number of books whose description was updated.
+     */
+    public int enrichDescriptions(List<Book> books) {
+        if (!enabled || books.isEmpty()) {
+            return 0;
+        }
+        
+        long start = System.currentTimeMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        
+        try {
+            List<CompletableFuture<Object[]>> futures = new ArrayList<>();
+            for (Book book : books) {
+                if (book.getId() == null || book.getOpenLibraryKey() == null) {
+                    continue;
+                }
+                // A failed lookup only loses that book's description, not the ones already fetched
+                futures.add(CompletableFuture.supplyAsync(() -> {
+                    String description = fetchDescription(book.getOpenLibraryKey());
+                    return description == null ? null : new Object[]{description, book.getId()};
+                }, executor).exceptionally(e -> {
+                    logger.warn("Could not enrich book {} from {}", book.getId(), book.getOpenLibraryKey(), e);
+                    return null;
+                }));
+            }
+            
+            List<Object[]> updates = new ArrayList<>();
+            int updated = 0;
+            for (CompletableFuture<Object[]> future : futures) {
+                Object[] update = future.join();
+                if (update != null) {
+                    updates.add(update);
+                }
+                if (updates.size() >= batchSize) {
+                    updated += writeBatch(updates);
+                    updates.clear();
+                }
+            }
+            updated += writeBatch(updates);
+            if (updated > 0) {
+                // The content index matches on descriptions; rebuild it once, not per batch, as an
+                // index built mid-enrichment from the short imported descriptions would be kept
+                contentSimilarityService.invalidate();
+            }
+            
+            logger.info("Enriched descriptions for {} of {} books in {} ms",
+                    updated, futures.size(), System.currentTimeMillis() - start);
+            return updated;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private String fetchDescription(String workKey) {
+        String url = baseUrl + workKey + ".json";
+        
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            try {
+                return parseDescription(openLibraryRestTemplate.getForObject(url, String.class));
+            } catch (HttpStatusCodeException e) {
+                if (e.getStatusCode().value() == HttpStatus.NOT_FOUND.value()) {
+                    return null;
+                }
+                if (!e.getStatusCode().is5xxServerError()
+                        && e.getStatusCode().value() != HttpStatus.TOO_MANY_REQUESTS.value()) {
+                    logger.warn("Giving up on {}: {}", url, e.getStatusCode());
+                    return null;
+                }
+                logger.debug("Attempt {} for {} failed: {}", attempt, url, e.getStatusCode());
+            } catch (ResourceAccessException e) {
+                if (e.getCause() instanceof OfflineCacheMissException) {
+                    logger.debug("Skipping {}: not cached and offline", url);
+                    return null;
+                }
+                logger.debug("Attempt {} for {} failed: {}", attempt, url, e.getMessage());
+            }
+            
+            if (!backOff(attempt)) {
+                return null;
+            }
+        }
+        
+        logger.warn("Could not fetch {} after {} attempts", url, maxAttempts);
+        return null;
+    }
+    
+    // Exponential backoff with full jitter
+    private boolean backOff(int attempt) {
+        long ceiling = initialBackoffMs << Math.min(attempt - 1, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+    
+    private String parseDescription(String body) {
+        if (body == null || body.isEmpty()) {
+            return null;
+        }
+        try {
+            JsonNode description = objectMapper.readTree(body).path("description");
+            // Open Library returns either a plain string or {"type": "/type/text", "value": "..."}
+            String text = description.isObject() ? description.path("value").asText(null) : description.asText(null);
+            if (text == null || text.isBlank()) {
+                return null;
+            }
+            text = text.trim();
+            if (text.length() > MAX_DESCRIPTION_LENGTH) {
+                text = text.substring(0, MAX_DESCRIPTION_LENGTH - 3) + "...";
+            }
+            return text;
+        } catch (Exception e) {
+            logger.warn("Could not parse work description", e);
+            return null;
+        }
+    }
+    
+    private int writeBatch(List<Object[]> updates) {
+        if (updates.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate("UPDATE books SET description = ? WHERE id = ?", updates);
+        bookCacheService.evictBooks(updates.stream().map(row -> (Long) row[1]).toList());
+        return updates.size();
+    }
+}
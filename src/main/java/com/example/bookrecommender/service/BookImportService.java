@@ -1,43 +1,77 @@
 package com.example.bookrecommender.service;
 
+import com.example.bookrecommender.dedup.BookDeduplicationIndex;
+import com.example.bookrecommender.dedup.NearDuplicateIndex;
 import com.example.bookrecommender.dto.openlibrary.OpenLibraryBook;
 import com.example.bookrecommender.dto.openlibrary.OpenLibrarySearchResponse;
 import com.example.bookrecommender.entity.Book;
+import com.example.bookrecommender.monitoring.jfr.ImportStageEvent;
 import com.example.bookrecommender.repository.BookRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.ApplicationArguments;
-import org.springframework.boot.ApplicationRunner;
-import org.springframework.core.annotation.Order;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 
 @Service
-@Order(2) // Run after UserSeederService
-public class BookImportService implements ApplicationRunner {
+public class BookImportService {
     
     private static final Logger logger = LoggerFactory.getLogger(BookImportService.class);
-    private static final String OPEN_LIBRARY_API_URL = "https://openlibrary.org/search.json";
     private static final int BOOKS_PER_GENRE = 15;
+    private static final int DEDUP_PRELOAD_PAGE_SIZE = 10_000;
+    private static final double BLOOM_FALSE_POSITIVE_RATE = 0.01;
+    private static final long NEW_BOOK_ID = -1L;
     
     @Autowired
     private BookRepository bookRepository;
     
-    private final RestTemplate restTemplate;
+    @Autowired
+    private NearDuplicateDetectionService nearDuplicateDetectionService;
     
-    public BookImportService() {
-        this.restTemplate = new RestTemplate();
-    }
+    @Autowired
+    private BookDescriptionEnrichmentService descriptionEnrichmentService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private BookCatalogService bookCatalogService;
     
-    @Override
-    public void run(ApplicationArguments args) {
+    @Autowired
+    private ContentSimilarityService contentSimilarityService;
+    
+    @Value("${book.import.enabled:true}")
+    private boolean importEnabled = true;
+    
+    @Value("${openlibrary.base-url:https://openlibrary.org}")
+    private String openLibraryBaseUrl = "https://openlibrary.org";
+    
+    @Value("${book.import.dedup.bloom-threshold:1000000}")
+    private long bloomFilterThreshold = 1_000_000;
+    
+    // Caches responses on disk and rate limits per host, so only cache misses wait on the network
+    @Autowired
+    private RestTemplate openLibraryRestTemplate;
+    
+    public void importBooksIfEmpty() {
+        if (!importEnabled) {
+            logger.info("Book import is disabled. Skipping import.");
+            return;
+        }
+        
         // Only import if database is empty
         if (bookRepository.count() == 0) {
             logger.info("Starting book import from Open Library API...");
@@ -48,87 +82,189 @@ public class BookImportService implements ApplicationRunner {
         }
     }
     
-    @Transactional
     public void importBooks() {
         List<String> genres = Arrays.asList(
             "fiction", "fantasy", "science fiction", "romance", 
             "mystery", "thriller", "horror", "historical fiction"
         );
         
-        int totalImported = 0;
+        NearDuplicateIndex nearDuplicates = nearDuplicateDetectionService.newIndex();
+        BookDeduplicationIndex dedupIndex = recordStage("dedup-preload", null,
+                () -> loadDeduplicationIndex(nearDuplicates), index -> 0);
+        List<Book> pendingBooks = new ArrayList<>();
+        List<Book> enrichmentCandidates = new ArrayList<>();
         
         for (String genre : genres) {
             try {
                 logger.info("Fetching books for genre: {}", genre);
-                int imported = importBooksForGenre(genre);
-                totalImported += imported;
-                logger.info("Imported {} books for genre: {}", imported, genre);
-                
-                // Rate limiting - wait between requests
-                Thread.sleep(1000);
+                List<Book> genreBooks = recordStage("fetch", genre,
+                        () -> fetchBooksForGenre(genre, dedupIndex, nearDuplicates, enrichmentCandidates), List::size);
+                pendingBooks.addAll(genreBooks);
+                logger.info("Found {} new books for genre: {}", genreBooks.size(), genre);
             } catch (Exception e) {
                 logger.error("Error importing books for genre: {}", genre, e);
             }
         }
         
+        if (dedupIndex.needsConfirmation()) {
+            int duplicates = recordStage("dedup-confirm", null,
+                    () -> dropCatalogDuplicates(dedupIndex, pendingBooks, enrichmentCandidates), Integer::intValue);
+            logger.info("Dropped {} books already in the catalog", duplicates);
+        }
+        
+        int totalImported = recordStage("save", null, () -> saveBooks(pendingBooks), Integer::intValue);
         logger.info("Total books imported: {}", totalImported);
+        if (totalImported > 0) {
+            // Cheaper to reload the catalog once than to patch it book by book
+            bookCatalogService.invalidate();
+            contentSimilarityService.invalidate();
+        }
+        
+        // Most search results have no first sentence; fetch the work description instead
+        recordStage("enrich", null,
+                () -> descriptionEnrichmentService.enrichDescriptions(enrichmentCandidates), Integer::intValue);
     }
     
-    private int importBooksForGenre(String genre) {
-        String url = UriComponentsBuilder.fromHttpUrl(OPEN_LIBRARY_API_URL)
+    // Times a stage into the book.import.stage timer and emits a matching JFR event
+    private <T> T recordStage(String stage, String genre, Supplier<T> work, ToIntFunction<T> itemCount) {
+        ImportStageEvent event = new ImportStageEvent();
+        event.begin();
+        boolean failed = true;
+        T result = null;
+        try {
+            result = stageTimer(stage).record(work);
+            failed = false;
+            return result;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                event.stage = stage;
+                event.genre = genre != null ? genre : "";
+                event.itemCount = failed ? 0 : itemCount.applyAsInt(result);
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+    
+    private Timer stageTimer(String stage) {
+        return Timer.builder("book.import.stage")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+    
+    private BookDeduplicationIndex loadDeduplicationIndex(NearDuplicateIndex nearDuplicates) {
+        long catalogSize = bookRepository.count();
+        BookDeduplicationIndex index;
+        if (catalogSize > bloomFilterThreshold) {
+            // Too many rows to hold every key exactly; positives are confirmed after the fetch
+            index = BookDeduplicationIndex.bloomBacked(catalogSize, BLOOM_FALSE_POSITIVE_RATE);
+        } else {
+            index = BookDeduplicationIndex.exact();
+        }
+        
+        if (catalogSize == 0) {
+            nearDuplicates.build();
+            return index;
+        }
+        
+        forEachDedupKey(key -> {
+            index.preload(key.getIsbn(), key.getTitle(), key.getAuthor());
+            nearDuplicates.add(key.getId(), key.getTitle(), key.getAuthor());
+        });
+        nearDuplicates.build();
+        
+        logger.info("Loaded deduplication index for {} existing books", catalogSize);
+        return index;
+    }
+    
+    // Bloom filter hits are confirmed in one more pass over the catalog, comparing the normalized
+    // keys the filter was built from; returns the number of candidates dropped as duplicates
+    private int dropCatalogDuplicates(BookDeduplicationIndex dedupIndex, List<Book> pendingBooks,
+                                      List<Book> enrichmentCandidates) {
+        forEachDedupKey(key -> dedupIndex.confirm(key.getIsbn(), key.getTitle(), key.getAuthor()));
+        int before = pendingBooks.size();
+        pendingBooks.removeIf(book -> dedupIndex.isCatalogDuplicate(book.getIsbn(), book.getTitle(), book.getAuthor()));
+        enrichmentCandidates.removeIf(book -> dedupIndex.isCatalogDuplicate(book.getIsbn(), book.getTitle(), book.getAuthor()));
+        return before - pendingBooks.size();
+    }
+    
+    private void forEachDedupKey(Consumer<BookRepository.DedupKey> action) {
+        Long lastId = 0L;
+        List<BookRepository.DedupKey> keys;
+        do {
+            keys = bookRepository.findDedupKeysAfter(lastId, PageRequest.of(0, DEDUP_PRELOAD_PAGE_SIZE));
+            for (BookRepository.DedupKey key : keys) {
+                action.accept(key);
+                lastId = key.getId();
+            }
+        } while (keys.size() == DEDUP_PRELOAD_PAGE_SIZE);
+    }
+    
+    private List<Book> fetchBooksForGenre(String genre, BookDeduplicationIndex dedupIndex,
+                                          NearDuplicateIndex nearDuplicates, List<Book> enrichmentCandidates) {
+        String url = UriComponentsBuilder.fromHttpUrl(openLibraryBaseUrl + "/search.json")
                 .queryParam("q", "subject:" + genre)
                 .queryParam("limit", BOOKS_PER_GENRE)
                 .queryParam("sort", "rating")
                 .toUriString();
         
+        List<Book> books = new ArrayList<>();
         try {
-            OpenLibrarySearchResponse response = restTemplate.getForObject(url, OpenLibrarySearchResponse.class);
+            OpenLibrarySearchResponse response = openLibraryRestTemplate.getForObject(url, OpenLibrarySearchResponse.class);
             
             if (response == null || response.getDocs() == null) {
                 logger.warn("No response or docs for genre: {}", genre);
-                return 0;
+                return books;
             }
             
-            int imported = 0;
             for (OpenLibraryBook openLibraryBook : response.getDocs()) {
-                if (importBook(openLibraryBook, genre)) {
-                    imported++;
+                Book book = toBook(openLibraryBook, genre, dedupIndex, nearDuplicates);
+                if (book != null) {
+                    books.add(book);
+                    if (openLibraryBook.getFirstSentence() == null || openLibraryBook.getFirstSentence().isEmpty()) {
+                        enrichmentCandidates.add(book);
+                    }
                 }
             }
-            
-            return imported;
         } catch (Exception e) {
             logger.error("Error fetching books for genre: {}", genre, e);
-            return 0;
         }
+        return books;
     }
     
-    private boolean importBook(OpenLibraryBook openLibraryBook, String genre) {
+    private Book toBook(OpenLibraryBook openLibraryBook, String genre, BookDeduplicationIndex dedupIndex,
+                        NearDuplicateIndex nearDuplicates) {
         try {
             // Validate required fields
             if (openLibraryBook.getTitle() == null || openLibraryBook.getTitle().trim().isEmpty()) {
-                return false;
+                return null;
             }
             
             if (openLibraryBook.getAuthorName() == null || openLibraryBook.getAuthorName().isEmpty()) {
-                return false;
+                return null;
             }
             
             String title = openLibraryBook.getTitle().trim();
             String author = openLibraryBook.getAuthorName().get(0).trim();
             
-            // Check for duplicates
             String isbn = null;
             if (openLibraryBook.getIsbn() != null && !openLibraryBook.getIsbn().isEmpty()) {
                 isbn = openLibraryBook.getIsbn().get(0);
-                if (bookRepository.existsByIsbn(isbn)) {
-                    return false;
-                }
             }
             
-            if (bookRepository.existsByTitleAndAuthor(title, author)) {
-                return false;
+            // Check for duplicates against the catalog and earlier candidates of this run
+            if (!dedupIndex.register(isbn, title, author)) {
+                return null;
+            }
+            
+            // Skip other editions of a work we already have ("Hobbit, The", "The Hobbit: or There and Back Again")
+            Long nearDuplicateId = nearDuplicates.findMatch(title, author);
+            if (nearDuplicateId != null) {
+                logger.debug("Skipping {} by {}: near duplicate of book {}", title, author, nearDuplicateId);
+                return null;
             }
+            nearDuplicates.add(NEW_BOOK_ID, title, author);
             
             // Build description from first sentence or subject
             String description = buildDescription(openLibraryBook, genre);
@@ -140,8 +276,7 @@ public class BookImportService implements ApplicationRunner {
                     openLibraryBook.getCoverId());
             }
             
-            // Create and save book
-            Book book = Book.builder()
+            return Book.builder()
                     .title(title)
                     .author(author)
                     .isbn(isbn)
@@ -149,16 +284,39 @@ public class BookImportService implements ApplicationRunner {
                     .description(description)
                     .coverImageUrl(coverImageUrl)
                     .publishYear(openLibraryBook.getFirstPublishYear())
+                    .openLibraryKey(openLibraryBook.getKey())
                     .build();
-            
-            bookRepository.save(book);
-            logger.debug("Imported book: {} by {}", title, author);
-            return true;
-            
+        
         } catch (Exception e) {
             logger.error("Error importing book: {}", openLibraryBook.getTitle(), e);
-            return false;
+            return null;
+        }
+    }
+    
+    private int saveBooks(List<Book> books) {
+        if (books.isEmpty()) {
+            return 0;
+        }
+        
+        try {
+            bookRepository.saveAll(books);
+            return books.size();
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent writer inserted one of the rows; fall back to per-row inserts and skip conflicts
+            logger.warn("Batch insert of {} books hit a constraint violation, retrying row by row", books.size());
+        }
+        
+        int saved = 0;
+        for (Book book : books) {
+            try {
+                book.setId(null);
+                bookRepository.save(book);
+                saved++;
+            } catch (DataIntegrityViolationException e) {
+                logger.debug("Skipping conflicting book: {} by {}", book.getTitle(), book.getAuthor());
+            }
         }
+        return saved;
     }
     
     private String buildDescription(OpenLibraryBook book, String genre) {
@@ -6,8 +6,10 @@ import com.example.bookrecommender.dto.ReviewDTO;
 import com.example.bookrecommender.entity.Book;
 import com.example.bookrecommender.entity.UserBook;
 import com.example.bookrecommender.exception.ResourceNotFoundException;
+import com.example.bookrecommender.monitoring.jfr.SearchEvent;
 import com.example.bookrecommender.repository.BookRepository;
 import com.example.bookrecommender.repository.UserBookRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -26,11 +28,27 @@ public class BookService {
     @Autowired
     private UserBookRepository userBookRepository;
     
+    @Autowired
+    private TasteProfileService tasteProfileService;
+    
+    @Autowired
+    private BookCatalogService bookCatalogService;
+    
+    @Autowired
+    private AlsModelService alsModelService;
+    
+    @Autowired
+    private ContentSimilarityService contentSimilarityService;
+    
+    @Transactional(readOnly = true)
+    @Timed(value = "books.read", extraTags = {"operation", "list"}, histogram = true)
     public Page<BookResponse> getAllBooks(Pageable pageable) {
         return bookRepository.findAll(pageable)
                 .map(this::convertToResponse);
     }
     
+    @Transactional(readOnly = true)
+    @Timed(value = "books.read", extraTags = {"operation", "detail"}, histogram = true)
     public BookResponse getBookById(Long id) {
         Book book = bookRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + id));
@@ -69,6 +87,9 @@ public class BookService {
                 .build();
         
         Book savedBook = bookRepository.save(book);
+        bookCatalogService.bookSaved(savedBook);
+        alsModelService.bookAdded(savedBook.getId(), savedBook.getGenre());
+        contentSimilarityService.bookSaved(savedBook);
         return convertToResponse(savedBook);
     }
     
@@ -77,6 +98,10 @@ public class BookService {
         Book book = bookRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + id));
         
+        // Ratings of this book count towards its genre and author in users' taste profiles
+        tasteProfileService.recordBookChange(id, book.getGenre(), book.getAuthor(),
+                request.getGenre(), request.getAuthor());
+        
         book.setTitle(request.getTitle());
         book.setAuthor(request.getAuthor());
         book.setIsbn(request.getIsbn());
@@ -86,6 +111,8 @@ public class BookService {
         book.setPublishYear(request.getPublishYear());
         
         Book updatedBook = bookRepository.save(book);
+        bookCatalogService.bookSaved(updatedBook);
+        contentSimilarityService.bookSaved(updatedBook);
         return convertToResponse(updatedBook);
     }
     
@@ -94,12 +121,31 @@ public class BookService {
         if (!bookRepository.existsById(id)) {
             throw new ResourceNotFoundException("Book not found with id: " + id);
         }
+        tasteProfileService.recordBookRemoval(id);
         bookRepository.deleteById(id);
+        bookCatalogService.bookRemoved(id);
+        alsModelService.bookRemoved(id);
+        contentSimilarityService.bookRemoved(id);
     }
     
+    @Transactional(readOnly = true)
+    @Timed(value = "books.read", extraTags = {"operation", "search"}, histogram = true)
     public Page<BookResponse> searchBooks(String query, Pageable pageable) {
-        return bookRepository.searchBooks(query, pageable)
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        Page<BookResponse> results = bookRepository.searchBooks(query, pageable)
                 .map(this::convertToResponse);
+        
+        event.end();
+        if (event.shouldCommit()) {
+            event.query = query != null && query.length() > SearchEvent.MAX_QUERY_LENGTH
+                    ? query.substring(0, SearchEvent.MAX_QUERY_LENGTH) : query;
+            event.page = pageable.getPageNumber();
+            event.pageSize = pageable.getPageSize();
+            event.totalMatches = results.getTotalElements();
+            event.commit();
+        }
+        return results;
     }
     
     private BookResponse convertToResponse(Book book) {
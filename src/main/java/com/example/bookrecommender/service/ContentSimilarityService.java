@@ -0,0 +1,229 @@
+package com.example.bookrecommender.service;
+
+import com.example.bookrecommender.catalog.CompressedBitmap;
+import com.example.bookrecommender.catalog.TopScores;
+import com.example.bookrecommender.content.TfIdfIndex;
+import com.example.bookrecommender.entity.Book;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+// Content-based recommendations for users who have added only a book or two, too few for the
+// taste profile or the rating model to say much: books whose title, description and genre text
+// is most like theirs (TfIdfIndex). The index is built in the background on first use, as the
+// neighbor lists of a large catalog take a while; until then getRecommendations() falls back
+// to the configured scoring. Like BookCatalogService, book changes are applied after commit,
+// and bulk writes drop the index. Off unless recommendation.content.enabled is set.
+@Service
+public class ContentSimilarityService implements DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ContentSimilarityService.class);
+    private static final int FETCH_SIZE = 10_000;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${recommendation.content.enabled:false}")
+    private boolean enabled;
+    
+    // Users with at most this many books get content-based recommendations
+    @Value("${recommendation.content.cold-start-max-books:2}")
+    private int coldStartMaxBooks = 2;
+    
+    // Similar books precomputed per book
+    @Value("${recommendation.content.neighbors:20}")
+    private int neighbors = 20;
+    
+    // Terms in more than this share of the books are too common to compare books on
+    @Value("${recommendation.content.max-document-frequency:0.1}")
+    private double maxDocumentFrequency = 0.1;
+    
+    private final Object lock = new Object();
+    private volatile TfIdfIndex index;
+    // Changes committed while a build runs, applied to it when done; null when not building
+    private List<Consumer<TfIdfIndex>> pendingChanges;
+    private boolean invalidatedDuringBuild;
+    private ExecutorService builder;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Content-based recommendations for a user with between one and cold-start-max-books books,
+     * or null if the user has more (or none), or the index isn't built yet.
+     */
+    public TopScores recommend(CompressedBitmap readBooks, int limit) {
+        if (!enabled) {
+            return null;
+        }
+        int books = readBooks.cardinality();
+        if (books == 0 || books > coldStartMaxBooks) {
+            return null;
+        }
+        TfIdfIndex current = index;
+        if (current == null) {
+            startBuild();
+            return null;
+        }
+        TopScores top = current.recommend(readBooks, limit);
+        return top.size() > 0 ? top : null;
+    }
+    
+    public void bookSaved(Book book) {
+        if (!enabled) {
+            return;
+        }
+        Long id = book.getId();
+        String title = book.getTitle();
+        String description = book.getDescription();
+        String genre = book.getGenre();
+        afterCommit(() -> apply(current -> current.put(id, title, description, genre)));
+    }
+    
+    public void bookRemoved(Long bookId) {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> apply(current -> current.remove(bookId)));
+    }
+    
+    // For writes that bypass Hibernate (seeding, imports, generated data): rebuild on next use
+    public void invalidate() {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> {
+            synchronized (lock) {
+                if (pendingChanges != null) {
+                    invalidatedDuringBuild = true;
+                }
+                index = null;
+            }
+        });
+    }
+    
+    @Override
+    public void destroy() {
+        synchronized (lock) {
+            if (builder != null) {
+                builder.shutdownNow();
+            }
+        }
+    }
+    
+    private void apply(Consumer<TfIdfIndex> change) {
+        TfIdfIndex rebuildFrom = null;
+        synchronized (lock) {
+            if (pendingChanges != null) {
+                pendingChanges.add(change);
+            }
+            // Not built yet: the build reads the change from the database
+            if (index != null) {
+                change.accept(index);
+                rebuildFrom = index.needsRebuild() ? index : null;
+            }
+        }
+        if (rebuildFrom != null) {
+            // Keep serving from the current index until the new one is ready
+            startBuild();
+        }
+    }
+    
+    private void startBuild() {
+        synchronized (lock) {
+            if (pendingChanges != null) {
+                return;
+            }
+            if (builder == null) {
+                builder = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, "content-index-build");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+            pendingChanges = new ArrayList<>();
+            invalidatedDuringBuild = false;
+            builder.execute(this::build);
+        }
+    }
+    
+    private void build() {
+        while (true) {
+            TfIdfIndex built;
+            try {
+                built = load();
+            } catch (RuntimeException e) {
+                logger.warn("Could not build the content similarity index", e);
+                synchronized (lock) {
+                    pendingChanges = null;
+                }
+                return;
+            }
+            synchronized (lock) {
+                // Bulk writes landed while building and may be missing from it: build again
+                if (invalidatedDuringBuild) {
+                    pendingChanges = new ArrayList<>();
+                    invalidatedDuringBuild = false;
+                    continue;
+                }
+                pendingChanges.forEach(change -> change.accept(built));
+                pendingChanges = null;
+                index = built;
+                return;
+            }
+        }
+    }
+    
+    private TfIdfIndex load() {
+        long start = System.nanoTime();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        // Read-only, so it may run on a replica; inside a transaction so PostgreSQL honours the fetch size
+        transaction.setReadOnly(true);
+        TfIdfIndex.Builder indexBuilder = TfIdfIndex.builder(neighbors, maxDocumentFrequency);
+        transaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT id, title, description, genre FROM books ORDER BY id");
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, resultSet -> {
+            indexBuilder.add(resultSet.getLong("id"), resultSet.getString("title"),
+                    resultSet.getString("description"), resultSet.getString("genre"));
+        }));
+        TfIdfIndex built = indexBuilder.build();
+        logger.info("Built content similarity index: {} books, {} terms in {} ms",
+                built.size(), built.termCount(), (System.nanoTime() - start) / 1_000_000);
+        return built;
+    }
+    
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
@@ -1,27 +1,25 @@
 package com.example.bookrecommender.service;
 
-import com.example.bookrecommender.entity.Book;
 import com.example.bookrecommender.entity.User;
-import com.example.bookrecommender.entity.UserBook;
 import com.example.bookrecommender.repository.BookRepository;
 import com.example.bookrecommender.repository.UserBookRepository;
 import com.example.bookrecommender.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.ApplicationArguments;
-import org.springframework.boot.ApplicationRunner;
-import org.springframework.core.annotation.Order;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
-@Order(3) // Run after BookImportService
-public class DataSeeder implements ApplicationRunner {
+public class DataSeeder {
     
     private static final Logger logger = LoggerFactory.getLogger(DataSeeder.class);
     
@@ -35,75 +33,86 @@ public class DataSeeder implements ApplicationRunner {
     private UserBookRepository userBookRepository;
     
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private JdbcTemplate jdbcTemplate;
     
-    private Random random = new Random();
+    @Autowired
+    private BookCacheService bookCacheService;
     
-    @Override
-    public void run(ApplicationArguments args) {
-        seedDemoData();
-    }
+    @Autowired
+    private TasteProfileService tasteProfileService;
+    
+    @Autowired
+    private BookCatalogService bookCatalogService;
+    
+    @Autowired
+    private ContentSimilarityService contentSimilarityService;
+    
+    @Autowired
+    private ReadSetService readSetService;
+    
+    @Autowired
+    private RatingMatrixService ratingMatrixService;
+    
+    @Value("${startup.seeding.batch-size:500}")
+    private int batchSize = 500;
+    
+    private Random random = new Random();
     
     @Transactional
     public void seedDemoData() {
-        // Define Norwegian demo users
-        String[][] demoUsers = {
-            {"Per Hansen", "per.hansen@example.com", "password123"},
-            {"Ola Nordmann", "ola.nordmann@example.com", "password123"},
-            {"Kari Larsen", "kari.larsen@example.com", "password123"},
-            {"Emma Johansen", "emma.johansen@example.com", "password123"}
-        };
+        // Define genre preferences for each Norwegian demo user (for realistic recommendations).
+        // The users themselves are created by UserSeederService; here they only get a library.
+        Map<String, List<String>> userGenrePreferences = new LinkedHashMap<>();
+        userGenrePreferences.put("per.hansen@example.com", Arrays.asList("Fiction", "Mystery", "Thriller"));
+        userGenrePreferences.put("ola.nordmann@example.com", Arrays.asList("Fantasy", "Science Fiction", "Fiction"));
+        userGenrePreferences.put("kari.larsen@example.com", Arrays.asList("Romance", "Historical Fiction", "Fiction"));
+        userGenrePreferences.put("emma.johansen@example.com", Arrays.asList("Horror", "Thriller", "Mystery"));
         
-        // Check if any demo users already exist
-        boolean anyExists = false;
-        for (String[] userData : demoUsers) {
-            if (userRepository.existsByEmail(userData[1])) {
-                anyExists = true;
-                break;
-            }
+        List<User> demoUsers = userRepository.findByEmailIn(userGenrePreferences.keySet());
+        if (demoUsers.isEmpty()) {
+            logger.warn("No demo users found. Skipping data seeding.");
+            return;
         }
         
-        if (anyExists) {
-            logger.info("Demo users already exist. Skipping data seeding.");
+        // Only users with an empty library are seeded, so restarts don't duplicate data
+        Set<Long> usersWithBooks = new HashSet<>(userBookRepository.findUserIdsWithBooks(
+                demoUsers.stream().map(User::getId).toList()));
+        List<User> usersToSeed = demoUsers.stream()
+                .filter(user -> !usersWithBooks.contains(user.getId()))
+                .toList();
+        
+        if (usersToSeed.isEmpty()) {
+            logger.info("Demo users already have libraries. Skipping data seeding.");
             return;
         }
         
-        // Get all books for assigning to users
-        List<Book> allBooks = bookRepository.findAll();
+        // Ids and genres are all we need; loading full Book entities here is wasted work
+        List<BookRepository.SeedCandidate> allBooks = bookRepository.findSeedCandidates();
         if (allBooks.isEmpty()) {
             logger.warn("No books available for seeding user data. Skipping.");
             return;
         }
         
+        Map<String, List<Long>> bookIdsByGenre = allBooks.stream()
+                .filter(book -> book.getGenre() != null)
+                .collect(Collectors.groupingBy(BookRepository.SeedCandidate::getGenre,
+                        Collectors.mapping(BookRepository.SeedCandidate::getId, Collectors.toList())));
+        List<Long> allBookIds = allBooks.stream().map(BookRepository.SeedCandidate::getId).toList();
+        
         logger.info("Starting demo data seeding...");
         
-        // Define genre preferences for each user (for realistic recommendations)
-        Map<String, List<String>> userGenrePreferences = new HashMap<>();
-        userGenrePreferences.put("per.hansen@example.com", Arrays.asList("Fiction", "Mystery", "Thriller"));
-        userGenrePreferences.put("ola.nordmann@example.com", Arrays.asList("Fantasy", "Science Fiction", "Fiction"));
-        userGenrePreferences.put("kari.larsen@example.com", Arrays.asList("Romance", "Historical Fiction", "Fiction"));
-        userGenrePreferences.put("emma.johansen@example.com", Arrays.asList("Horror", "Thriller", "Mystery"));
+        List<Object[]> rows = new ArrayList<>();
+        Set<Long> ratedBookIds = new HashSet<>();
         
-        for (String[] userData : demoUsers) {
-            String name = userData[0];
-            String email = userData[1];
-            String password = userData[2];
-            
-            // Create user
-            User user = User.builder()
-                    .name(name)
-                    .email(email)
-                    .password(passwordEncoder.encode(password))
-                    .build();
-            user = userRepository.save(user);
-            logger.info("Created demo user: {}", email);
-            
+        for (User user : usersToSeed) {
             // Get books matching user's genre preferences
-            List<String> preferredGenres = userGenrePreferences.get(email);
-            List<Book> preferredBooks = bookRepository.findByGenreIn(preferredGenres);
+            List<Long> preferredBooks = new ArrayList<>();
+            for (String genre : userGenrePreferences.get(user.getEmail())) {
+                preferredBooks.addAll(bookIdsByGenre.getOrDefault(genre, List.of()));
+            }
             
             // If not enough books in preferred genres, add some random books
-            List<Book> userBooks = new ArrayList<>();
+            List<Long> userBooks = new ArrayList<>();
             if (!preferredBooks.isEmpty()) {
                 // Pick 6-8 books from preferred genres
                 int numPreferredBooks = 6 + random.nextInt(3); // 6-8 books
@@ -112,8 +121,8 @@ public class DataSeeder implements ApplicationRunner {
             }
             
             // Add 2-4 random books from other genres for variety
-            List<Book> otherBooks = new ArrayList<>(allBooks);
-            otherBooks.removeAll(userBooks);
+            List<Long> otherBooks = new ArrayList<>(allBookIds);
+            otherBooks.removeAll(new HashSet<>(userBooks));
             if (!otherBooks.isEmpty()) {
                 Collections.shuffle(otherBooks, random);
                 int numOtherBooks = 2 + random.nextInt(3); // 2-4 books
@@ -133,8 +142,9 @@ public class DataSeeder implements ApplicationRunner {
             }
             
             // Add books to user's library with ratings
-            int bookIndex = 0;
-            for (Book book : userBooks) {
+            int ratedCount = 0;
+            for (int bookIndex = 0; bookIndex < userBooks.size(); bookIndex++) {
+                Long bookId = userBooks.get(bookIndex);
                 boolean isFavorite = favoriteIndices.contains(bookIndex);
                 
                 // Most books get rated (80% chance)
@@ -146,25 +156,47 @@ public class DataSeeder implements ApplicationRunner {
                     } else {
                         rating = 2 + random.nextInt(4); // 2-5 stars
                     }
+                    ratedBookIds.add(bookId);
+                    ratedCount++;
                 }
                 
-                UserBook userBook = UserBook.builder()
-                        .user(user)
-                        .book(book)
-                        .rating(rating)
-                        .isFavorite(isFavorite)
-                        .readAt(LocalDateTime.now().minusDays(random.nextInt(365))) // Random date in past year
-                        .build();
-                
-                userBookRepository.save(userBook);
-                bookIndex++;
+                // Random date in past year
+                LocalDateTime readAt = LocalDateTime.now().minusDays(random.nextInt(365));
+                rows.add(new Object[] {user.getId(), bookId, rating, Timestamp.valueOf(readAt), isFavorite});
             }
             
-            logger.info("Added {} books to {}'s library ({} favorites, {} rated)", 
-                    userBooks.size(), name, favoriteIndices.size(), 
-                    userBooks.stream().filter(b -> random.nextDouble() < 0.8).count());
+            logger.info("Added {} books to {}'s library ({} favorites, {} rated)",
+                    userBooks.size(), user.getName(), favoriteIndices.size(), ratedCount);
         }
         
-        logger.info("Demo data seeding completed!");
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO user_books (user_id, book_id, rating, read_at, is_favorite) VALUES (?, ?, ?, ?, ?)",
+                rows, batchSize, (ps, row) -> {
+                    ps.setLong(1, (Long) row[0]);
+                    ps.setLong(2, (Long) row[1]);
+                    ps.setObject(3, row[2], Types.INTEGER);
+                    ps.setTimestamp(4, (Timestamp) row[3]);
+                    ps.setBoolean(5, (Boolean) row[4]);
+                });
+        
+        updateAverageRatings(ratedBookIds);
+        // The ratings were inserted with JDBC, so the taste profiles are built from them in bulk
+        usersToSeed.forEach(user -> tasteProfileService.rebuild(user.getId()));
+        readSetService.invalidateAll();
+        ratingMatrixService.invalidate();
+        
+        logger.info("Demo data seeding completed! Inserted {} library entries.", rows.size());
+    }
+    
+    // Same result as UserBookService.updateBookAverageRating, in one statement per batch of books
+    private void updateAverageRatings(Set<Long> bookIds) {
+        List<Object[]> args = bookIds.stream().map(id -> new Object[] {id}).toList();
+        jdbcTemplate.batchUpdate(
+                "UPDATE books SET average_rating = COALESCE((SELECT AVG(CAST(ub.rating AS DOUBLE PRECISION)) " +
+                "FROM user_books ub WHERE ub.book_id = books.id AND ub.rating IS NOT NULL), 0) WHERE id = ?",
+                args);
+        bookCacheService.evictBooks(bookIds);
+        bookCatalogService.invalidate();
+        contentSimilarityService.invalidate();
     }
 }
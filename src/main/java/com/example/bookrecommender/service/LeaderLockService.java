@@ -0,0 +1,152 @@
+package com.example.bookrecommender.service;
+
+import com.example.bookrecommender.repository.LeaderLockRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Database-backed leases so exactly one instance of a scaled-out deployment runs a piece
+// of work. Held locks are renewed by a heartbeat; if the owner dies the lease runs out
+// and another instance can take over.
+@Service
+public class LeaderLockService {
+    
+    public static final String STARTUP_LOCK = "startup-seeding";
+    
+    private static final Logger logger = LoggerFactory.getLogger(LeaderLockService.class);
+    
+    @Autowired
+    private LeaderLockRepository leaderLockRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${startup.leader-lock.lease:30s}")
+    private Duration lease;
+    
+    private final String instanceId = createInstanceId();
+    private final Set<String> heldLocks = ConcurrentHashMap.newKeySet();
+    private ScheduledExecutorService heartbeat;
+    
+    public String getInstanceId() {
+        return instanceId;
+    }
+    
+    // True if this instance holds the lock, acquiring it if it is free or expired
+    public boolean tryAcquire(String name) {
+        if (heldLocks.contains(name)) {
+            return true;
+        }
+        
+        boolean acquired = claim(name) || insert(name);
+        if (acquired) {
+            heldLocks.add(name);
+            startHeartbeat();
+            logger.info("Instance {} acquired leader lock '{}'", instanceId, name);
+        }
+        return acquired;
+    }
+    
+    public void release(String name) {
+        if (heldLocks.remove(name)) {
+            inNewTransaction().executeWithoutResult(status -> leaderLockRepository.release(name, instanceId));
+            logger.info("Instance {} released leader lock '{}'", instanceId, name);
+        }
+    }
+    
+    @PreDestroy
+    public synchronized void shutdown() {
+        for (String name : Set.copyOf(heldLocks)) {
+            try {
+                release(name);
+            } catch (Exception e) {
+                logger.warn("Could not release leader lock '{}' on shutdown", name, e);
+            }
+        }
+        if (heartbeat != null) {
+            heartbeat.shutdownNow();
+            heartbeat = null;
+        }
+    }
+    
+    private boolean claim(String name) {
+        Integer updated = inNewTransaction().execute(status ->
+                leaderLockRepository.claim(name, instanceId, now().plus(lease), now()));
+        return updated != null && updated > 0;
+    }
+    
+    private boolean insert(String name) {
+        try {
+            inNewTransaction().executeWithoutResult(status ->
+                    leaderLockRepository.insert(name, instanceId, now().plus(lease)));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+    
+    private synchronized void startHeartbeat() {
+        if (heartbeat != null) {
+            return;
+        }
+        heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "leader-lock-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(1, lease.toMillis() / 3);
+        heartbeat.scheduleAtFixedRate(this::renewHeldLocks, interval, interval, TimeUnit.MILLISECONDS);
+    }
+    
+    private void renewHeldLocks() {
+        for (String name : heldLocks) {
+            try {
+                if (!claim(name)) {
+                    // Our lease ran out and another instance took over
+                    heldLocks.remove(name);
+                    logger.warn("Instance {} lost leader lock '{}'", instanceId, name);
+                }
+            } catch (Exception e) {
+                logger.warn("Could not renew leader lock '{}'", name, e);
+            }
+        }
+    }
+    
+    private TransactionTemplate inNewTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+    
+    private static LocalDateTime now() {
+        return LocalDateTime.now(ZoneOffset.UTC);
+    }
+    
+    private static String createInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
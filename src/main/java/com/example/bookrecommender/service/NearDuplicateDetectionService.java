@@ -0,0 +1,67 @@
+package com.example.bookrecommender.service;
+
+import com.example.bookrecommender.dedup.NearDuplicateIndex;
+import com.example.bookrecommender.repository.BookRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Service
+public class NearDuplicateDetectionService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(NearDuplicateDetectionService.class);
+    private static final int PAGE_SIZE = 10_000;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Value("${book.dedup.near.bands:8}")
+    private int bands = 8;
+    
+    @Value("${book.dedup.near.rows:4}")
+    private int rows = 4;
+    
+    @Value("${book.dedup.near.threshold:0.7}")
+    private double threshold = 0.7;
+    
+    public NearDuplicateIndex newIndex() {
+        return new NearDuplicateIndex(bands, rows, threshold);
+    }
+    
+    /**
+     * Builds an LSH index over every book in the catalog, streaming it in keyset pages.
+     */
+    public NearDuplicateIndex loadIndex() {
+        NearDuplicateIndex index = newIndex();
+        Long lastId = 0L;
+        List<BookRepository.DedupKey> keys;
+        do {
+            keys = bookRepository.findDedupKeysAfter(lastId, PageRequest.of(0, PAGE_SIZE));
+            for (BookRepository.DedupKey key : keys) {
+                index.add(key.getId(), key.getTitle(), key.getAuthor());
+                lastId = key.getId();
+            }
+        } while (keys.size() == PAGE_SIZE);
+        index.build();
+        return index;
+    }
+    
+    /**
+     * Batch scan of the books table. Returns groups of book ids that are editions of the same work.
+     */
+    public List<List<Long>> findNearDuplicateGroups() {
+        long start = System.currentTimeMillis();
+        NearDuplicateIndex index = loadIndex();
+        List<List<Long>> groups = index.findGroups();
+        
+        int duplicates = groups.stream().mapToInt(group -> group.size() - 1).sum();
+        logger.info("Near-duplicate scan over {} books found {} groups ({} redundant books) in {} ms",
+                index.size(), groups.size(), duplicates, System.currentTimeMillis() - start);
+        return groups;
+    }
+}
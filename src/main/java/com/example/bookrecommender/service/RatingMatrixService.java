@@ -0,0 +1,285 @@
+package com.example.bookrecommender.service;
+
+import com.example.bookrecommender.ratings.RatingMatrix;
+import com.example.bookrecommender.ratings.RatingMatrixSnapshot;
+import com.example.bookrecommender.ratings.RatingMatrixStore;
+import com.example.bookrecommender.ratings.RatingMatrixWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Owns the user-by-book rating matrix used for collaborative filtering. It lives off-heap in
+// memory-mapped files under ratings.matrix.dir (RatingMatrixStore): the first use after a
+// restart maps the last snapshot, and only builds one from user_books when there is none.
+// Rating changes are appended after commit and folded into a new snapshot by a periodic
+// compaction once enough have piled up. Off unless ratings.matrix.enabled is set.
+@Service
+public class RatingMatrixService implements DisposableBean {
+    
+    private static final Logger logger = LoggerFactory.getLogger(RatingMatrixService.class);
+    private static final int FETCH_SIZE = 10_000;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Value("${ratings.matrix.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${ratings.matrix.dir:${java.io.tmpdir}/bookrecommender-ratings}")
+    private String directory;
+    
+    // Compact once this many ratings changed since the snapshot
+    @Value("${ratings.matrix.compact-threshold:1000000}")
+    private int compactThreshold = 1_000_000;
+    
+    @Value("${ratings.matrix.compact-check-interval:10m}")
+    private Duration compactCheckInterval = Duration.ofMinutes(10);
+    
+    // buildLock is held for a whole build; lock only guards the fields below, so recording a
+    // rating never waits for a build
+    private final Object buildLock = new Object();
+    private final Object lock = new Object();
+    private RatingMatrixStore store;
+    private boolean open;
+    // Changes committed while a build runs, applied on top of it
+    private List<int[]> pendingChanges;
+    private boolean invalidatedDuringBuild;
+    private ScheduledExecutorService compactor;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public RatingMatrix getMatrix() {
+        if (!enabled) {
+            throw new IllegalStateException("The rating matrix is disabled (ratings.matrix.enabled)");
+        }
+        synchronized (lock) {
+            if (open || openExisting()) {
+                return store.matrix();
+            }
+        }
+        synchronized (buildLock) {
+            try {
+                while (true) {
+                    synchronized (lock) {
+                        if (open || openExisting()) {
+                            return store.matrix();
+                        }
+                        pendingChanges = new ArrayList<>();
+                        invalidatedDuringBuild = false;
+                    }
+                    RatingMatrixSnapshot snapshot = build();
+                    synchronized (lock) {
+                        // Bulk writes landed while building and may be missing from it: build again
+                        if (invalidatedDuringBuild) {
+                            continue;
+                        }
+                        store.publish(snapshot);
+                        for (int[] change : pendingChanges) {
+                            store.record(change[0], change[1], change[2]);
+                        }
+                        open = true;
+                        startCompactor();
+                        return store.matrix();
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Could not build the rating matrix", e);
+            } finally {
+                synchronized (lock) {
+                    pendingChanges = null;
+                }
+            }
+        }
+    }
+    
+    // A null rating means the user no longer rates the book
+    public void ratingChanged(Long userId, Long bookId, Integer rating) {
+        if (!enabled) {
+            return;
+        }
+        int user = Math.toIntExact(userId);
+        int book = Math.toIntExact(bookId);
+        int value = rating != null ? rating : 0;
+        afterCommit(() -> {
+            synchronized (lock) {
+                if (pendingChanges != null) {
+                    pendingChanges.add(new int[] {user, book, value});
+                    return;
+                }
+                // Nothing built yet: the first build reads the change from the database
+                if (!open && !openExisting()) {
+                    return;
+                }
+                try {
+                    store.record(user, book, value);
+                } catch (IOException e) {
+                    logger.warn("Could not record a rating change, the rating matrix will be rebuilt", e);
+                    clear();
+                }
+            }
+        });
+    }
+    
+    // For ratings written with JDBC (seeding, generated data): rebuild on next use
+    public void invalidate() {
+        if (!enabled) {
+            return;
+        }
+        afterCommit(() -> {
+            synchronized (lock) {
+                if (pendingChanges != null) {
+                    // The build in progress may have missed these writes; it starts over when done
+                    invalidatedDuringBuild = true;
+                } else {
+                    clear();
+                }
+            }
+        });
+    }
+    
+    void compactIfNeeded() {
+        RatingMatrixStore current;
+        synchronized (lock) {
+            if (!open || store.matrix().changeCount() < compactThreshold) {
+                return;
+            }
+            current = store;
+        }
+        try {
+            current.compact();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Rating matrix compaction failed; changes stay in the delta log", e);
+        }
+    }
+    
+    @Override
+    public void destroy() throws IOException {
+        synchronized (lock) {
+            if (compactor != null) {
+                compactor.shutdownNow();
+            }
+            if (store != null) {
+                store.close();
+            }
+        }
+    }
+    
+    // Called with lock held
+    private boolean openExisting() {
+        if (store == null) {
+            store = new RatingMatrixStore(Path.of(directory));
+        }
+        try {
+            open = store.open();
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not open the rating matrix snapshot, rebuilding it", e);
+            clear();
+        }
+        if (open) {
+            startCompactor();
+        }
+        return open;
+    }
+    
+    // Called with lock held
+    private void clear() {
+        open = false;
+        if (store != null) {
+            try {
+                store.clear();
+            } catch (IOException e) {
+                logger.warn("Could not delete the rating matrix snapshots", e);
+            }
+        }
+    }
+    
+    private RatingMatrixSnapshot build() throws IOException {
+        long start = System.nanoTime();
+        Path snapshotDirectory = store.newSnapshotDirectory();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        // The counts size the files, so they must agree with the rows streamed after them
+        transaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        RatingMatrixWriter writer = transaction.execute(status -> {
+            long[] dimensions = jdbcTemplate.queryForObject(
+                    "SELECT COALESCE(MAX(user_id), 0), COALESCE(MAX(book_id), 0), COUNT(*) " +
+                    "FROM user_books WHERE rating IS NOT NULL",
+                    (resultSet, row) -> new long[] {resultSet.getLong(1), resultSet.getLong(2), resultSet.getLong(3)});
+            try {
+                RatingMatrixWriter matrixWriter = new RatingMatrixWriter(snapshotDirectory,
+                        Math.toIntExact(dimensions[0] + 1), Math.toIntExact(dimensions[1] + 1), dimensions[2]);
+                // A forward-only cursor over the ratings in row order, never more than a fetch in memory
+                jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(
+                            "SELECT user_id, book_id, rating FROM user_books WHERE rating IS NOT NULL " +
+                            "ORDER BY user_id, book_id", ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(FETCH_SIZE);
+                    return statement;
+                }, resultSet -> {
+                    matrixWriter.add(resultSet.getInt(1), resultSet.getInt(2), resultSet.getInt(3));
+                });
+                return matrixWriter;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        RatingMatrixSnapshot snapshot = writer.finish();
+        logger.info("Built rating matrix from the database: {} users, {} books, {} ratings in {} ms",
+                snapshot.userCount(), snapshot.bookCount(), snapshot.ratingCount(),
+                (System.nanoTime() - start) / 1_000_000);
+        return snapshot;
+    }
+    
+    // Called with lock held
+    private void startCompactor() {
+        if (compactor != null) {
+            return;
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rating-matrix-compaction");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMs = compactCheckInterval.toMillis();
+        compactor.scheduleWithFixedDelay(this::compactIfNeeded, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
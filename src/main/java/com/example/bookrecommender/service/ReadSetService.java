@@ -0,0 +1,105 @@
+package com.example.bookrecommender.service;
+
+import com.example.bookrecommender.catalog.CompressedBitmap;
+import com.example.bookrecommender.repository.UserBookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// The ids of the books in each user's library, as CompressedBitmaps, so recommendations can
+// exclude read books without loading UserBook rows. Loaded per user on first use and patched
+// after UserBookService commits; a bitmap is never changed once handed out, patches publish a
+// changed copy. Book ids come from a sequence starting at 1, so they are used as ints directly.
+@Service
+public class ReadSetService {
+    
+    @Autowired
+    private UserBookRepository userBookRepository;
+    
+    // Bounds memory; an evicted user's set is simply loaded again on their next request
+    @Value("${recommendation.read-sets.max-users:100000}")
+    private int maxUsers = 100_000;
+    
+    private final Map<Long, CompressedBitmap> readSets = new ConcurrentHashMap<>();
+    // Bumped before every patch, so a load that raced with one is used but not kept
+    private final AtomicLong modifications = new AtomicLong();
+    
+    public CompressedBitmap getReadBooks(Long userId) {
+        CompressedBitmap readBooks = readSets.get(userId);
+        if (readBooks != null) {
+            return readBooks;
+        }
+        long seen = modifications.get();
+        CompressedBitmap loaded = new CompressedBitmap();
+        for (Long bookId : userBookRepository.findBookIdsByUserId(userId)) {
+            loaded.add(toIndex(bookId));
+        }
+        if (modifications.get() == seen) {
+            evictIfFull();
+            readBooks = readSets.putIfAbsent(userId, loaded);
+        }
+        return readBooks != null ? readBooks : loaded;
+    }
+    
+    public static int toIndex(Long bookId) {
+        return Math.toIntExact(bookId);
+    }
+    
+    public void bookAdded(Long userId, Long bookId) {
+        int index = toIndex(bookId);
+        afterCommit(() -> patch(userId, readBooks -> readBooks.add(index)));
+    }
+    
+    public void bookRemoved(Long userId, Long bookId) {
+        int index = toIndex(bookId);
+        afterCommit(() -> patch(userId, readBooks -> readBooks.remove(index)));
+    }
+    
+    // For libraries written with JDBC (seeding, generated data)
+    public void invalidateAll() {
+        afterCommit(() -> {
+            modifications.incrementAndGet();
+            readSets.clear();
+        });
+    }
+    
+    private void patch(Long userId, Consumer<CompressedBitmap> change) {
+        modifications.incrementAndGet();
+        // Not loaded: the next load reads the change from the database
+        readSets.computeIfPresent(userId, (id, current) -> {
+            CompressedBitmap changed = current.copy();
+            change.accept(changed);
+            return changed;
+        });
+    }
+    
+    private void evictIfFull() {
+        // No LRU order to go by; any entry will do, the evicted user just pays one reload
+        Iterator<Long> users = readSets.keySet().iterator();
+        while (readSets.size() >= maxUsers && users.hasNext()) {
+            users.next();
+            users.remove();
+        }
+    }
+    
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
@@ -1,34 +1,107 @@
 package com.example.bookrecommender.service;
 
+import com.example.bookrecommender.catalog.BookCatalog;
+import com.example.bookrecommender.catalog.CompressedBitmap;
+import com.example.bookrecommender.catalog.TopScores;
 import com.example.bookrecommender.dto.BookResponse;
 import com.example.bookrecommender.entity.Book;
 import com.example.bookrecommender.entity.User;
+import com.example.bookrecommender.monitoring.jfr.RecommendationEvent;
 import com.example.bookrecommender.repository.BookRepository;
-import com.example.bookrecommender.repository.UserBookRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
+import java.util.function.IntConsumer;
 import java.util.stream.Collectors;
 
 @Service
 public class RecommendationService {
     
-    @Autowired
-    private UserBookRepository userBookRepository;
+    private static final int RECOMMENDATION_LIMIT = 10;
     
     @Autowired
     private BookRepository bookRepository;
     
+    @Autowired
+    private TasteProfileService tasteProfileService;
+    
+    @Autowired
+    private BookCatalogService bookCatalogService;
+    
+    @Autowired
+    private ReadSetService readSetService;
+    
+    @Autowired
+    private AlsModelService alsModelService;
+    
+    @Autowired
+    private ContentSimilarityService contentSimilarityService;
+    
+    // jvm loads the candidate books and scores them here; sql ranks them in the database
+    // (BookRepository.findTopScoredForUser); catalog scans the in-memory BookCatalog; als ranks
+    // by the collaborative-filtering model's predicted rating (AlsModelService). The last three
+    // only load the top books.
+    @Value("${recommendation.scoring:jvm}")
+    private Scoring scoring = Scoring.JVM;
+    
+    public enum Scoring { JVM, SQL, CATALOG, ALS }
+    
+    @Transactional(readOnly = true)
+    @Timed(value = "recommendations.generate", histogram = true)
     public List<BookResponse> getRecommendations(User user) {
-        // Get user's favorite genres and authors based on highly rated books
-        List<String> favoriteGenres = userBookRepository.findFavoriteGenresByUserId(user.getId());
-        List<String> favoriteAuthors = userBookRepository.findFavoriteAuthorsByUserId(user.getId());
+        RecommendationEvent event = new RecommendationEvent();
+        event.begin();
+        
+        // Users with only a book or two get books like theirs; a profile built from so little says less
+        Ranking ranking = contentSimilarityService.isEnabled() ? rankByContent(user) : null;
+        String scoringName = ranking != null ? "content" : scoring.name().toLowerCase();
+        if (ranking == null) {
+            ranking = switch (scoring) {
+                case SQL -> rankInDatabase(user);
+                case CATALOG -> rankInCatalog(user);
+                case ALS -> rankByModel(user);
+                default -> rankInJvm(user);
+            };
+        }
+        List<Long> topBookIds = ranking.bookIds();
+        
+        // Fetch all books in a single query to avoid N+1 problem
+        List<Book> topBooks = bookRepository.findAllById(topBookIds);
+        
+        // Maintain the score-based order
+        Map<Long, Book> bookMap = topBooks.stream()
+                .collect(Collectors.toMap(Book::getId, book -> book));
+        
+        List<BookResponse> recommendations = topBookIds.stream()
+                .map(bookMap::get)
+                .filter(Objects::nonNull)
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+        
+        event.end();
+        if (event.shouldCommit()) {
+            event.userId = user.getId();
+            event.scoring = scoringName;
+            event.candidateCount = ranking.candidateCount();
+            event.scoredCount = ranking.scoredCount();
+            event.returnedCount = recommendations.size();
+            event.commit();
+        }
+        return recommendations;
+    }
+    
+    private Ranking rankInJvm(User user) {
+        // Get the genres and authors the user likes, with how much, from their taste profile
+        TasteProfileService.Profile profile = tasteProfileService.getProfile(user.getId());
+        List<String> favoriteGenres = profile.likedGenres();
+        List<String> favoriteAuthors = profile.likedAuthors();
         
         // Get books user has already read
-        Set<Long> readBookIds = userBookRepository.findByUserId(user.getId()).stream()
-                .map(ub -> ub.getBook().getId())
-                .collect(Collectors.toSet());
+        CompressedBitmap readBooks = readSetService.getReadBooks(user.getId());
         
         // Find books by favorite genres and authors that user hasn't read
         List<Book> recommendedBooks = new ArrayList<>();
@@ -48,25 +121,22 @@ public class RecommendationService {
             recommendedBooks = bookRepository.findAll();
         }
         
-        // Filter out books user has already read and score by relevance
+        // Filter out books user has already read in one pass over the candidate ids, then score by relevance
+        CompressedBitmap candidates = new CompressedBitmap();
+        recommendedBooks.forEach(book -> candidates.add(ReadSetService.toIndex(book.getId())));
+        CompressedBitmap unread = candidates.andNot(readBooks);
         Map<Long, Double> bookScores = new HashMap<>();
         
         for (Book book : recommendedBooks) {
-            if (readBookIds.contains(book.getId())) {
+            if (!unread.contains(ReadSetService.toIndex(book.getId()))) {
                 continue;
             }
             
             double score = 0.0;
             
-            // Score based on genre match
-            if (favoriteGenres.contains(book.getGenre())) {
-                score += 2.0;
-            }
-            
-            // Score based on author match
-            if (favoriteAuthors.contains(book.getAuthor())) {
-                score += 2.0;
-            }
+            // Score based on genre and author affinity, up to 2.0 each
+            score += 2.0 * profile.genreAffinity(book.getGenre());
+            score += 2.0 * profile.authorAffinity(book.getAuthor());
             
             // Add book's average rating to score
             if (book.getAverageRating() != null) {
@@ -79,22 +149,109 @@ public class RecommendationService {
         // Sort books by score and return top 10
         List<Long> topBookIds = bookScores.entrySet().stream()
                 .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
-                .limit(10)
+                .limit(RECOMMENDATION_LIMIT)
                 .map(Map.Entry::getKey)
                 .collect(Collectors.toList());
+        return new Ranking(topBookIds, recommendedBooks.size(), bookScores.size());
+    }
+    
+    private Ranking rankInDatabase(User user) {
+        List<Long> topBookIds = bookRepository.findTopScoredForUser(user.getId(), RECOMMENDATION_LIMIT).stream()
+                .map(BookRepository.ScoredBook::getId)
+                .collect(Collectors.toList());
+        // The candidates never leave the database, so there is nothing to count here
+        return new Ranking(topBookIds, -1, -1);
+    }
+    
+    // Same candidates and scores as rankInJvm, over primitive columns (ratings are floats there)
+    private Ranking rankInCatalog(User user) {
+        BookCatalog catalog = bookCatalogService.getCatalog();
+        TasteProfileService.Profile profile = tasteProfileService.getProfile(user.getId());
+        CompressedBitmap readBooks = readSetService.getReadBooks(user.getId());
         
-        // Fetch all books in a single query to avoid N+1 problem
-        List<Book> topBooks = bookRepository.findAllById(topBookIds);
+        // Affinity by dictionary id; a user likes few enough genres and authors to scan these linearly
+        int[] genreIds = profile.likedGenres().stream().mapToInt(catalog.genres()::idOf).toArray();
+        double[] genreAffinities = profile.likedGenres().stream().mapToDouble(profile::genreAffinity).toArray();
+        int[] authorIds = profile.likedAuthors().stream().mapToInt(catalog.authors()::idOf).toArray();
+        double[] authorAffinities = profile.likedAuthors().stream().mapToDouble(profile::authorAffinity).toArray();
         
-        // Maintain the score-based order
-        Map<Long, Book> bookMap = topBooks.stream()
-                .collect(Collectors.toMap(Book::getId, book -> book));
+        TopScores top = new TopScores(RECOMMENDATION_LIMIT);
+        int[] counts = new int[2];
+        IntConsumer score = row -> {
+            counts[0]++;
+            long bookId = catalog.id(row);
+            if (readBooks.contains(ReadSetService.toIndex(bookId))) {
+                return;
+            }
+            counts[1]++;
+            double genreAffinity = affinity(genreIds, genreAffinities, catalog.genreId(row));
+            double authorAffinity = affinity(authorIds, authorAffinities, catalog.authorId(row));
+            top.offer(bookId, 2.0 * genreAffinity + 2.0 * authorAffinity + catalog.rating(row));
+        };
         
-        return topBookIds.stream()
-                .map(bookMap::get)
-                .filter(Objects::nonNull)
-                .map(this::convertToResponse)
-                .collect(Collectors.toList());
+        if (profile.isEmpty()) {
+            catalog.forEachRow(score);
+        }
+        for (int genreId : genreIds) {
+            catalog.forEachRowInGenre(genreId, score);
+        }
+        for (int authorId : authorIds) {
+            // Books in a liked genre were already scored in the genre pass
+            catalog.forEachRowByAuthor(authorId, row -> {
+                if (affinity(genreIds, genreAffinities, catalog.genreId(row)) == 0.0) {
+                    score.accept(row);
+                }
+            });
+        }
+        
+        List<Long> topBookIds = new ArrayList<>(top.size());
+        for (int rank = 0; rank < top.size(); rank++) {
+            topBookIds.add(top.id(rank));
+        }
+        return new Ranking(topBookIds, counts[0], counts[1]);
+    }
+    
+    // Users the model hasn't learned yet (new, or no ratings at the last training), and every
+    // user before the first model is trained, get the taste-profile ranking instead. Content
+    // similarity has already been tried for them in getRecommendations.
+    private Ranking rankByModel(User user) {
+        TopScores top = alsModelService.recommend(user.getId(), RECOMMENDATION_LIMIT,
+                readSetService.getReadBooks(user.getId()));
+        if (top == null) {
+            return rankInJvm(user);
+        }
+        List<Long> topBookIds = new ArrayList<>(top.size());
+        for (int rank = 0; rank < top.size(); rank++) {
+            topBookIds.add(top.id(rank));
+        }
+        // Books are scored inside the model or its index, so there is nothing to count here either
+        return new Ranking(topBookIds, -1, -1);
+    }
+    
+    // Null unless the user is new enough for content-based recommendations (ContentSimilarityService)
+    private Ranking rankByContent(User user) {
+        TopScores top = contentSimilarityService.recommend(readSetService.getReadBooks(user.getId()),
+                RECOMMENDATION_LIMIT);
+        if (top == null) {
+            return null;
+        }
+        List<Long> topBookIds = new ArrayList<>(top.size());
+        for (int rank = 0; rank < top.size(); rank++) {
+            topBookIds.add(top.id(rank));
+        }
+        return new Ranking(topBookIds, -1, -1);
+    }
+    
+    private static double affinity(int[] ids, double[] affinities, int id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return affinities[i];
+            }
+        }
+        return 0.0;
+    }
+    
+    private record Ranking(List<Long> bookIds, int candidateCount, int scoredCount) {
     }
     
     private BookResponse convertToResponse(Book book) {
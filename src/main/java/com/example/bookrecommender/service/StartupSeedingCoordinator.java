@@ -0,0 +1,140 @@
+package com.example.bookrecommender.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Runs user seeding, book import and demo data seeding once per deployment. The seed phase
+// runs on a background thread so the HTTP port opens straight away; readiness stays at
+// REFUSING_TRAFFIC until it finishes, so load balancers hold off until the data is there.
+@Service
+public class StartupSeedingCoordinator implements ApplicationRunner {
+    
+    private static final Logger logger = LoggerFactory.getLogger(StartupSeedingCoordinator.class);
+    
+    @Autowired
+    private UserSeederService userSeederService;
+    
+    @Autowired
+    private BookImportService bookImportService;
+    
+    @Autowired
+    private DataSeeder dataSeeder;
+    
+    @Autowired
+    private SyntheticDatasetGenerator syntheticDatasetGenerator;
+    
+    @Autowired
+    private LeaderLockService leaderLockService;
+    
+    @Autowired
+    private ApplicationContext applicationContext;
+    
+    @Value("${startup.seeding.enabled:true}")
+    private boolean seedingEnabled = true;
+    
+    // Tests turn this off so seeding has finished when the context is handed to them
+    @Value("${startup.seeding.async:true}")
+    private boolean async = true;
+    
+    private boolean seedingComplete;
+    private boolean applicationReady;
+    private volatile Map<String, Long> stageDurations = Map.of();
+    
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!seedingEnabled) {
+            logger.info("Startup seeding is disabled.");
+            markComplete();
+            return;
+        }
+        
+        if (async) {
+            Thread thread = new Thread(this::seed, "startup-seeding");
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            seed();
+        }
+    }
+    
+    public synchronized boolean isSeedingComplete() {
+        return seedingComplete;
+    }
+    
+    // Milliseconds per stage of the last seed run, in execution order
+    public Map<String, Long> getStageDurations() {
+        return stageDurations;
+    }
+    
+    // Spring Boot reports ACCEPTING_TRAFFIC right after startup; hold it back until seeding is done
+    @EventListener
+    public synchronized void onReadinessChange(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC && !applicationReady) {
+            applicationReady = true;
+            if (!seedingComplete) {
+                logger.info("Application started; refusing traffic until startup seeding completes.");
+                AvailabilityChangeEvent.publish(applicationContext, ReadinessState.REFUSING_TRAFFIC);
+            }
+        }
+    }
+    
+    private void seed() {
+        long start = System.nanoTime();
+        Map<String, Long> durations = new LinkedHashMap<>();
+        try {
+            // With several instances starting at once, only the lock holder seeds
+            if (!leaderLockService.tryAcquire(LeaderLockService.STARTUP_LOCK)) {
+                logger.info("Another instance is seeding. Skipping startup seeding.");
+                return;
+            }
+            try {
+                // A generated dataset fills the catalog, so the Open Library import is skipped
+                if (syntheticDatasetGenerator.isEnabled()) {
+                    timeStage("synthetic", durations, syntheticDatasetGenerator::generateIfEmpty);
+                }
+                timeStage("users", durations, userSeederService::seedUsers);
+                timeStage("books", durations, bookImportService::importBooksIfEmpty);
+                timeStage("libraries", durations, dataSeeder::seedDemoData);
+            } finally {
+                // The other instances no longer need to wait on us
+                leaderLockService.release(LeaderLockService.STARTUP_LOCK);
+            }
+        } catch (Exception e) {
+            logger.error("Startup seeding failed", e);
+        } finally {
+            stageDurations = Collections.unmodifiableMap(durations);
+            logger.info("Startup seeding finished in {} ms (stages: {})",
+                    (System.nanoTime() - start) / 1_000_000, durations);
+            markComplete();
+        }
+    }
+    
+    private void timeStage(String name, Map<String, Long> durations, Runnable stage) {
+        long start = System.nanoTime();
+        try {
+            stage.run();
+        } finally {
+            durations.put(name, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+    
+    private synchronized void markComplete() {
+        seedingComplete = true;
+        if (applicationReady) {
+            AvailabilityChangeEvent.publish(applicationContext, ReadinessState.ACCEPTING_TRAFFIC);
+        }
+    }
+}
@@ -0,0 +1,376 @@
+package com.example.bookrecommender.service;
+
+import com.example.bookrecommender.entity.User;
+import com.example.bookrecommender.repository.BookRepository;
+import com.example.bookrecommender.repository.UserRepository;
+import com.example.bookrecommender.synthetic.SyntheticDatasetModel;
+import com.example.bookrecommender.synthetic.ZipfDistribution;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Fills an empty database with a large, reproducible dataset for benchmarks and load tests.
+// Book popularity is Zipfian, users lean towards two favorite genres, and every row is
+// derived from the seed, so two runs with the same settings produce identical tables.
+@Service
+public class SyntheticDatasetGenerator {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDatasetGenerator.class);
+    private static final int PARTITION_SIZE = 10_000;
+    // Fixed instead of now() so timestamps are reproducible too
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final String[] TITLE_WORDS = {
+        "Shadow", "River", "Winter", "Garden", "Silent", "Empire", "Night", "Stone",
+        "Glass", "Crown", "Ocean", "Forgotten", "Iron", "Summer", "Secret", "Last",
+        "Storm", "Golden", "House", "Journey", "Light", "Wolf", "City", "Letters"
+    };
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private BookCacheService bookCacheService;
+    
+    @Autowired
+    private TasteProfileService tasteProfileService;
+    
+    @Autowired
+    private BookCatalogService bookCatalogService;
+    
+    @Autowired
+    private ContentSimilarityService contentSimilarityService;
+    
+    @Autowired
+    private ReadSetService readSetService;
+    
+    @Autowired
+    private RatingMatrixService ratingMatrixService;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Value("${dataset.synthetic.enabled:false}")
+    private boolean enabled;
+    
+    @Value("${dataset.synthetic.seed:42}")
+    private long seed = 42;
+    
+    @Value("${dataset.synthetic.books:100000}")
+    private int books = 100_000;
+    
+    @Value("${dataset.synthetic.users:10000}")
+    private int users = 10_000;
+    
+    @Value("${dataset.synthetic.ratings:1000000}")
+    private long ratings = 1_000_000;
+    
+    @Value("${dataset.synthetic.zipf-exponent:1.1}")
+    private double zipfExponent = 1.1;
+    
+    @Value("${dataset.synthetic.genre-affinity:0.8}")
+    private double genreAffinity = 0.8;
+    
+    @Value("${dataset.synthetic.favorite-ratio:0.1}")
+    private double favoriteRatio = 0.1;
+    
+    @Value("${dataset.synthetic.rated-ratio:0.8}")
+    private double ratedRatio = 0.8;
+    
+    // Every synthetic user shares this password so load tests can log in as any of them
+    @Value("${dataset.synthetic.password:password123}")
+    private String password = "password123";
+    
+    @Value("${dataset.synthetic.threads:0}")
+    private int threads;
+    
+    @Value("${dataset.synthetic.batch-size:1000}")
+    private int batchSize = 1000;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void generateIfEmpty() {
+        if (bookRepository.count() > 0 || userRepository.count() > 0) {
+            logger.info("Database is not empty. Skipping synthetic dataset generation.");
+            return;
+        }
+        generate();
+    }
+    
+    public void generate() {
+        SyntheticDatasetModel model = new SyntheticDatasetModel(
+                seed, books, users, ratings, zipfExponent, genreAffinity, favoriteRatio, ratedRatio);
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ExecutorService executor = Executors.newFixedThreadPool(poolSize);
+        
+        logger.info("Generating synthetic dataset: {} books, {} users, ~{} ratings (seed {}, {} threads)",
+                books, users, ratings, seed, poolSize);
+        try {
+            long start = System.nanoTime();
+            long bookRows = insertBooks(model, executor);
+            long userRows = insertUsers(model, executor);
+            
+            AtomicIntegerArray ratingSums = new AtomicIntegerArray(books);
+            AtomicIntegerArray ratingCounts = new AtomicIntegerArray(books);
+            long ratingRows = insertRatings(model, executor, ratingSums, ratingCounts);
+            updateAverageRatings(model, executor, ratingSums, ratingCounts);
+            
+            resetSequence("books", "books_seq");
+            resetSequence("users", "users_seq");
+            resetSequence("user_books", "user_books_seq");
+            bookCacheService.evictAllBooks();
+            tasteProfileService.rebuildAll();
+            bookCatalogService.invalidate();
+            contentSimilarityService.invalidate();
+            readSetService.invalidateAll();
+            ratingMatrixService.invalidate();
+            
+            long elapsedMs = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            logger.info("Synthetic dataset generated in {} ms: {} books, {} users, {} ratings ({} rows/s)",
+                    elapsedMs, bookRows, userRows, ratingRows,
+                    (bookRows + userRows + ratingRows) * 1000 / elapsedMs);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private long insertBooks(SyntheticDatasetModel model, ExecutorService executor) {
+        String sql = "INSERT INTO books (id, title, author, isbn, genre, publish_year, average_rating, created_at) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+        // A few prolific authors and a long tail, like the real catalog
+        int authorCount = Math.max(1, books / 8);
+        ZipfDistribution authors = new ZipfDistribution(authorCount, 1.0);
+        
+        return runPartitions(executor, model, books, "books", sql, (partition, random, rows) -> {
+            int end = Math.min(books, (partition + 1) * PARTITION_SIZE);
+            for (int rank = partition * PARTITION_SIZE; rank < end; rank++) {
+                long id = model.bookId(rank);
+                rows.add(new Object[] {
+                        id,
+                        title(random) + " " + id,
+                        String.format("Author %06d", authors.sample(random) + 1),
+                        String.format("979%010d", id),
+                        model.genreOf(rank),
+                        1900 + random.nextInt(125),
+                        0.0,
+                        Timestamp.valueOf(BASE_TIME.minusDays(random.nextInt(3650)))
+                });
+            }
+        });
+    }
+    
+    private long insertUsers(SyntheticDatasetModel model, ExecutorService executor) {
+        String sql = "INSERT INTO users (id, email, password, name, role, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+        // One BCrypt hash for everyone; hashing millions of users individually would take hours
+        String passwordHash = passwordEncoder.encode(password);
+        
+        return runPartitions(executor, model, users, "users", sql, (partition, random, rows) -> {
+            int end = Math.min(users, (partition + 1) * PARTITION_SIZE);
+            for (int index = partition * PARTITION_SIZE; index < end; index++) {
+                long id = index + 1L;
+                rows.add(new Object[] {
+                        id,
+                        "user" + id + "@synthetic.example",
+                        passwordHash,
+                        "Synthetic User " + id,
+                        User.ROLE_USER,
+                        Timestamp.valueOf(BASE_TIME.minusDays(random.nextInt(1000)))
+                });
+            }
+        });
+    }
+    
+    private long insertRatings(SyntheticDatasetModel model, ExecutorService executor,
+                               AtomicIntegerArray ratingSums, AtomicIntegerArray ratingCounts) {
+        // Explicit ids avoid a sequence call per row. They are numbered as if the partitions ran
+        // one after another, so they don't depend on which partition finishes first.
+        String sql = "INSERT INTO user_books (id, user_id, book_id, rating, read_at, is_favorite) VALUES (?, ?, ?, ?, ?, ?)";
+        long[] firstEntryIds = firstEntryIds(model, executor);
+        
+        return runPartitions(executor, model, users, "ratings", sql, (partition, random, rows) -> {
+            long[] nextEntryId = {firstEntryIds[partition]};
+            int end = Math.min(users, (partition + 1) * PARTITION_SIZE);
+            for (int index = partition * PARTITION_SIZE; index < end; index++) {
+                model.generateLibrary(index + 1L, random, (userId, bookId, rating, favorite, daysAgo) -> {
+                    if (rating != null) {
+                        ratingSums.addAndGet((int) bookId - 1, rating);
+                        ratingCounts.incrementAndGet((int) bookId - 1);
+                    }
+                    rows.add(new Object[] {
+                            nextEntryId[0]++,
+                            userId,
+                            bookId,
+                            rating,
+                            Timestamp.valueOf(BASE_TIME.minusDays(daysAgo)),
+                            favorite
+                    });
+                });
+            }
+        });
+    }
+    
+    // Replays each ratings partition's generator to count its entries; only the counts are kept
+    private long[] firstEntryIds(SyntheticDatasetModel model, ExecutorService executor) {
+        int partitions = (users + PARTITION_SIZE - 1) / PARTITION_SIZE;
+        List<Future<Long>> counts = new ArrayList<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            int current = partition;
+            counts.add(executor.submit(() -> {
+                SplittableRandom random = model.random("ratings", current);
+                long[] count = {0};
+                int end = Math.min(users, (current + 1) * PARTITION_SIZE);
+                for (int index = current * PARTITION_SIZE; index < end; index++) {
+                    model.generateLibrary(index + 1L, random,
+                            (userId, bookId, rating, favorite, daysAgo) -> count[0]++);
+                }
+                return count[0];
+            }));
+        }
+        
+        long[] firstIds = new long[partitions];
+        long nextId = 1;
+        for (int partition = 0; partition < partitions; partition++) {
+            firstIds[partition] = nextId;
+            nextId += await(counts.get(partition));
+        }
+        return firstIds;
+    }
+    
+    private void updateAverageRatings(SyntheticDatasetModel model, ExecutorService executor,
+                                      AtomicIntegerArray ratingSums, AtomicIntegerArray ratingCounts) {
+        String sql = "UPDATE books SET average_rating = ? WHERE id = ?";
+        runPartitions(executor, model, books, "averages", sql, (partition, random, rows) -> {
+            int end = Math.min(books, (partition + 1) * PARTITION_SIZE);
+            for (int index = partition * PARTITION_SIZE; index < end; index++) {
+                int count = ratingCounts.get(index);
+                if (count > 0) {
+                    rows.add(new Object[] {(double) ratingSums.get(index) / count, index + 1L});
+                }
+            }
+        });
+    }
+    
+    // Generates each partition on the pool, streaming its rows out in batches
+    private long runPartitions(ExecutorService executor, SyntheticDatasetModel model, long items,
+                               String stream, String sql, PartitionWriter writer) {
+        int partitions = (int) ((items + PARTITION_SIZE - 1) / PARTITION_SIZE);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        AtomicLong written = new AtomicLong();
+        List<Future<?>> futures = new ArrayList<>();
+        
+        for (int partition = 0; partition < partitions; partition++) {
+            int current = partition;
+            futures.add(executor.submit(() -> {
+                BatchWriter rows = new BatchWriter(sql, transaction);
+                writer.write(current, model.random(stream, current), rows);
+                rows.flush();
+                written.addAndGet(rows.written);
+            }));
+        }
+        
+        for (Future<?> future : futures) {
+            await(future);
+        }
+        return written.get();
+    }
+    
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Synthetic dataset generation interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Synthetic dataset generation failed", e.getCause());
+        }
+    }
+    
+    // Rows were inserted with explicit ids, so move the id sequence past them for later inserts
+    private void resetSequence(String table, String sequence) {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        long next = (maxId == null ? 0 : maxId) + 1;
+        
+        if ("PostgreSQL".equals(product)) {
+            jdbcTemplate.queryForObject("SELECT setval(CAST(? AS regclass), ?, false)", Long.class, sequence, next);
+        } else if ("H2".equals(product)) {
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + next);
+        } else {
+            logger.warn("Cannot reset sequence {} on {}; later inserts may collide", sequence, product);
+        }
+    }
+    
+    private static String title(SplittableRandom random) {
+        int words = 1 + random.nextInt(3);
+        StringBuilder title = new StringBuilder(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+        for (int i = 1; i < words; i++) {
+            title.append(' ').append(TITLE_WORDS[random.nextInt(TITLE_WORDS.length)]);
+        }
+        return title.toString();
+    }
+    
+    @FunctionalInterface
+    private interface PartitionWriter {
+        void write(int partition, SplittableRandom random, BatchWriter rows);
+    }
+    
+    // Buffers at most one batch, so memory stays flat however large the dataset gets
+    private class BatchWriter {
+        
+        private final String sql;
+        private final TransactionTemplate transaction;
+        private final List<Object[]> batch = new ArrayList<>();
+        private long written;
+        
+        BatchWriter(String sql, TransactionTemplate transaction) {
+            this.sql = sql;
+            this.transaction = transaction;
+        }
+        
+        void add(Object[] row) {
+            batch.add(row);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+        
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            transaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, batch));
+            written += batch.size();
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.bookrecommender.service;
+
+import com.example.bookrecommender.entity.Book;
+import com.example.bookrecommender.entity.TasteAffinity;
+import com.example.bookrecommender.entity.UserBook;
+import com.example.bookrecommender.repository.TasteAffinityRepository;
+import com.example.bookrecommender.repository.UserBookRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+// Maintains each user's taste profile (taste_affinities) as ratings change, so recommendations
+// read one small table instead of aggregating user_books on every request. Writes that bypass
+// UserBookService (seeding, synthetic data) call rebuild instead.
+@Service
+public class TasteProfileService {
+    
+    @Autowired
+    private TasteAffinityRepository tasteAffinityRepository;
+    
+    @Autowired
+    private UserBookRepository userBookRepository;
+    
+    // A 5 counts +1, a 4 +0.5, a 3 nothing, a 2 -0.5 and a 1 -1
+    static double weightOf(Integer rating) {
+        return rating == null ? 0.0 : (rating - 3) / 2.0;
+    }
+    
+    public Profile getProfile(Long userId) {
+        Map<String, Double> genres = new HashMap<>();
+        Map<String, Double> authors = new HashMap<>();
+        for (TasteAffinity affinity : tasteAffinityRepository.findByUserId(userId)) {
+            if (affinity.getWeight() > 0) {
+                (TasteAffinity.GENRE.equals(affinity.getKind()) ? genres : authors)
+                        .put(affinity.getName(), affinity.getWeight());
+            }
+        }
+        return new Profile(genres, authors);
+    }
+    
+    // Called with the rating before and after a change; null means unrated or not in the library
+    @Transactional
+    public void recordRatingChange(Long userId, String genre, String author, Integer oldRating, Integer newRating) {
+        if (Objects.equals(oldRating, newRating)) {
+            return;
+        }
+        adjust(userId, TasteAffinity.GENRE, genre, oldRating, newRating);
+        adjust(userId, TasteAffinity.AUTHOR, author, oldRating, newRating);
+    }
+    
+    // Moves the book's ratings from its old genre and author to the new ones
+    @Transactional
+    public void recordBookChange(Long bookId, String oldGenre, String oldAuthor, String newGenre, String newAuthor) {
+        if (Objects.equals(oldGenre, newGenre) && Objects.equals(oldAuthor, newAuthor)) {
+            return;
+        }
+        for (UserBook rated : userBookRepository.findReviewsByBookId(bookId)) {
+            Long userId = rated.getUser().getId();
+            recordRatingChange(userId, oldGenre, oldAuthor, rated.getRating(), null);
+            recordRatingChange(userId, newGenre, newAuthor, null, rated.getRating());
+        }
+    }
+    
+    // Must run before the book is deleted, which also deletes its ratings
+    @Transactional
+    public void recordBookRemoval(Long bookId) {
+        for (UserBook rated : userBookRepository.findReviewsByBookId(bookId)) {
+            Book book = rated.getBook();
+            recordRatingChange(rated.getUser().getId(), book.getGenre(), book.getAuthor(), rated.getRating(), null);
+        }
+    }
+    
+    @Transactional
+    public void rebuild(Long userId) {
+        tasteAffinityRepository.deleteByUserId(userId);
+        tasteAffinityRepository.insertFromRatings(userId);
+    }
+    
+    @Transactional
+    public void rebuildAll() {
+        tasteAffinityRepository.deleteAllAffinities();
+        tasteAffinityRepository.insertFromRatings(null);
+    }
+    
+    private void adjust(Long userId, String kind, String name, Integer oldRating, Integer newRating) {
+        double weight = weightOf(newRating) - weightOf(oldRating);
+        int ratings = (newRating != null ? 1 : 0) - (oldRating != null ? 1 : 0);
+        tasteAffinityRepository.addRatings(userId, kind, name, weight, ratings, LocalDateTime.now());
+        if (ratings < 0) {
+            tasteAffinityRepository.deleteIfEmpty(userId, kind, name);
+        }
+    }
+    
+    // Positive affinities only: genres and authors the user has shown they like
+    public record Profile(Map<String, Double> genres, Map<String, Double> authors) {
+        
+        public boolean isEmpty() {
+            return genres.isEmpty() && authors.isEmpty();
+        }
+        
+        // 0 to 1; one 5-star rating, or two 4-star ratings, is already full affinity
+        public double genreAffinity(String genre) {
+            return Math.min(1.0, genres.getOrDefault(genre, 0.0));
+        }
+        
+        public double authorAffinity(String author) {
+            return Math.min(1.0, authors.getOrDefault(author, 0.0));
+        }
+        
+        public List<String> likedGenres() {
+            return genres.keySet().stream().sorted().toList();
+        }
+        
+        public List<String> likedAuthors() {
+            return authors.keySet().stream().sorted().toList();
+        }
+    }
+}
@@ -8,13 +8,17 @@ import com.example.bookrecommender.entity.User;
 import com.example.bookrecommender.entity.UserBook;
 import com.example.bookrecommender.exception.DuplicateResourceException;
 import com.example.bookrecommender.exception.ResourceNotFoundException;
+import com.example.bookrecommender.monitoring.jfr.RatingAggregateEvent;
 import com.example.bookrecommender.repository.BookRepository;
 import com.example.bookrecommender.repository.UserBookRepository;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Service
@@ -26,12 +30,32 @@ public class UserBookService {
     @Autowired
     private BookRepository bookRepository;
     
+    @Autowired
+    private TasteProfileService tasteProfileService;
+    
+    @Autowired
+    private BookCatalogService bookCatalogService;
+    
+    @Autowired
+    private ReadSetService readSetService;
+    
+    @Autowired
+    private RatingMatrixService ratingMatrixService;
+    
+    @Autowired
+    private BookCacheService bookCacheService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Transactional(readOnly = true)
     public List<UserBookResponse> getUserBooks(User user) {
         return userBookRepository.findByUserId(user.getId()).stream()
                 .map(this::convertToResponse)
                 .collect(Collectors.toList());
     }
     
+    @Timed(value = "library.mutation", extraTags = {"operation", "add"}, histogram = true)
     @Transactional
     public UserBookResponse addBookToUser(User user, Long bookId) {
         if (userBookRepository.existsByUserIdAndBookId(user.getId(), bookId)) {
@@ -41,55 +65,67 @@ public class UserBookService {
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found with id: " + bookId));
         
+        // Added unrated, so the user's taste profile doesn't change until they rate it
         UserBook userBook = UserBook.builder()
                 .user(user)
                 .book(book)
                 .build();
         
         UserBook savedUserBook = userBookRepository.save(userBook);
+        readSetService.bookAdded(user.getId(), bookId);
         return convertToResponse(savedUserBook);
     }
     
+    @Timed(value = "library.mutation", extraTags = {"operation", "rate"}, histogram = true)
     @Transactional
     public UserBookResponse rateBook(User user, Long bookId, RatingRequest request) {
         // Find existing UserBook - book must be in user's list to rate it
         UserBook userBook = userBookRepository.findByUserIdAndBookId(user.getId(), bookId)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not in user's reading list. Add it first before rating."));
         
+        Integer oldRating = userBook.getRating();
         userBook.setRating(request.getRating());
         UserBook savedUserBook = userBookRepository.save(userBook);
         
         // Update book's average rating
         updateBookAverageRating(bookId);
+        recordRatingChange(user, userBook, oldRating, request.getRating());
         
         return convertToResponse(savedUserBook);
     }
     
+    @Timed(value = "library.mutation", extraTags = {"operation", "remove"}, histogram = true)
     @Transactional
     public void removeBookFromUser(User user, Long bookId) {
         UserBook userBook = userBookRepository.findByUserIdAndBookId(user.getId(), bookId)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not in user's reading list"));
         
         userBookRepository.delete(userBook);
+        readSetService.bookRemoved(user.getId(), bookId);
         
         // Update book's average rating after removal
         updateBookAverageRating(bookId);
+        recordRatingChange(user, userBook, userBook.getRating(), null);
     }
     
+    @Timed(value = "library.mutation", extraTags = {"operation", "unrate"}, histogram = true)
     @Transactional
     public UserBookResponse removeRating(User user, Long bookId) {
         UserBook userBook = userBookRepository.findByUserIdAndBookId(user.getId(), bookId)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not in user's reading list"));
         
+        Integer oldRating = userBook.getRating();
         userBook.setRating(null);
         UserBook savedUserBook = userBookRepository.save(userBook);
         
         // Update book's average rating
         updateBookAverageRating(bookId);
+        recordRatingChange(user, userBook, oldRating, null);
         
         return convertToResponse(savedUserBook);
     }
     
+    @Timed(value = "library.mutation", extraTags = {"operation", "favorite"}, histogram = true)
     @Transactional
     public UserBookResponse toggleFavorite(User user, Long bookId) {
         UserBook userBook = userBookRepository.findByUserIdAndBookId(user.getId(), bookId)
@@ -102,26 +138,39 @@ public class UserBookService {
     }
     
     private void updateBookAverageRating(Long bookId) {
+        RatingAggregateEvent event = new RatingAggregateEvent();
+        event.begin();
+        
         Book book = bookRepository.findById(bookId)
                 .orElseThrow(() -> new ResourceNotFoundException("Book not found"));
         
-        // Query all user books for this book directly from repository to get fresh data.
-        // This is necessary because after deleting a UserBook entity, accessing book.getUserBooks()
-        // would cause a Hibernate ObjectDeletedException as it tries to merge the deleted entity.
-        // By querying the repository directly, we get the current state without deleted entities.
-        List<UserBook> userBooks = userBookRepository.findByBookId(bookId);
-        
-        if (userBooks != null && !userBooks.isEmpty()) {
-            double average = userBooks.stream()
-                    .filter(ub -> ub.getRating() != null)
-                    .mapToInt(UserBook::getRating)
-                    .average()
-                    .orElse(0.0);
-            book.setAverageRating(average);
-        } else {
-            book.setAverageRating(0.0);
+        // Aggregate in the database rather than through book.getUserBooks(): after deleting a
+        // UserBook, that collection would make Hibernate throw ObjectDeletedException. The
+        // repository query also sees the pending change, as it flushes first.
+        UserBookRepository.RatingAggregate ratings = userBookRepository.findRatingAggregate(bookId);
+        book.setAverageRating(ratings.getAverageRating() != null ? ratings.getAverageRating() : 0.0);
+        // Written around Hibernate (see Book.averageRating), so only this book's cache entry is evicted
+        jdbcTemplate.update("UPDATE books SET average_rating = ? WHERE id = ?", book.getAverageRating(), bookId);
+        bookCacheService.evictBooks(List.of(bookId));
+        bookCatalogService.ratingChanged(bookId, book.getAverageRating());
+        
+        event.end();
+        if (event.shouldCommit()) {
+            event.bookId = bookId;
+            event.entryCount = (int) ratings.getEntryCount();
+            event.ratingCount = (int) ratings.getRatingCount();
+            event.averageRating = book.getAverageRating();
+            event.commit();
+        }
+    }
+    
+    // Keeps the taste profile and the rating matrix in step with the user's ratings
+    private void recordRatingChange(User user, UserBook userBook, Integer oldRating, Integer newRating) {
+        Book book = userBook.getBook();
+        tasteProfileService.recordRatingChange(user.getId(), book.getGenre(), book.getAuthor(), oldRating, newRating);
+        if (!Objects.equals(oldRating, newRating)) {
+            ratingMatrixService.ratingChanged(user.getId(), book.getId(), newRating);
         }
-        bookRepository.save(book);
     }
     
     private UserBookResponse convertToResponse(UserBook userBook) {
@@ -5,19 +5,20 @@ import com.example.bookrecommender.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.ApplicationArguments;
-import org.springframework.boot.ApplicationRunner;
-import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
-@Order(1) // Run before BookImportService
-public class UserSeederService implements ApplicationRunner {
+public class UserSeederService {
     
     private static final Logger logger = LoggerFactory.getLogger(UserSeederService.class);
     
@@ -27,10 +28,11 @@ public class UserSeederService implements ApplicationRunner {
     @Autowired
     private PasswordEncoder passwordEncoder;
     
-    @Override
-    public void run(ApplicationArguments args) {
-        seedUsers();
-    }
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private AdminRoleService adminRoleService;
     
     @Transactional
     public void seedUsers() {
@@ -48,30 +50,41 @@ public class UserSeederService implements ApplicationRunner {
             new UserData("emma.johansen@example.com", "password123", "Emma Johansen")
         );
         
-        int createdCount = 0;
-        for (UserData userData : testUsers) {
-            if (!userRepository.existsByEmail(userData.email)) {
-                User user = User.builder()
-                        .email(userData.email)
-                        .password(passwordEncoder.encode(userData.password))
-                        .name(userData.name)
-                        .build();
-                
-                userRepository.save(user);
-                createdCount++;
-                logger.info("Created test user: {}", userData.email);
-            } else {
-                logger.info("Test user already exists: {}", userData.email);
-            }
-        }
+        Set<String> existingEmails = userRepository.findByEmailIn(
+                        testUsers.stream().map(userData -> userData.email).toList())
+                .stream()
+                .map(User::getEmail)
+                .collect(Collectors.toSet());
         
-        if (createdCount > 0) {
-            logger.info("User seeding completed. Created {} test users.", createdCount);
-        } else {
+        List<UserData> missingUsers = testUsers.stream()
+                .filter(userData -> !existingEmails.contains(userData.email))
+                .toList();
+        
+        if (missingUsers.isEmpty()) {
             logger.info("All test users already exist. Skipping seeding.");
+        } else {
+            insertUsers(missingUsers);
         }
     }
     
+    private void insertUsers(List<UserData> missingUsers) {
+        // BCrypt is deliberately slow, so hash on all cores instead of one user after another
+        List<Object[]> rows = missingUsers.parallelStream()
+                .map(userData -> new Object[] {
+                        userData.email,
+                        passwordEncoder.encode(userData.password),
+                        userData.name,
+                        adminRoleService.roleFor(userData.email),
+                        Timestamp.valueOf(LocalDateTime.now())
+                })
+                .toList();
+        
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO users (email, password, name, role, created_at) VALUES (?, ?, ?, ?, ?)", rows);
+        
+        logger.info("User seeding completed. Created {} test users.", rows.size());
+    }
+    
     private static class UserData {
         String email;
         String password;
@@ -0,0 +1,145 @@
+package com.example.bookrecommender.synthetic;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+// Deterministic description of a synthetic catalog: which book sits at each popularity
+// rank, its genre, and the library of every user. Everything is derived from the seed and
+// a partition index, so the same configuration yields the same rows whatever the thread count.
+public class SyntheticDatasetModel {
+    
+    public static final List<String> GENRES = List.of(
+            "Fiction", "Fantasy", "Science Fiction", "Romance",
+            "Mystery", "Thriller", "Horror", "Historical Fiction");
+    
+    // Share of each star value for non-favorite ratings, 1 to 5 stars
+    private static final double[] RATING_CDF = {0.05, 0.15, 0.40, 0.75, 1.0};
+    private static final int MAX_DAYS_AGO = 730;
+    
+    private final long seed;
+    private final int books;
+    private final double meanRatingsPerUser;
+    private final double genreAffinity;
+    private final double favoriteRatio;
+    private final double ratedRatio;
+    private final long permutationMultiplier;
+    private final long permutationOffset;
+    private final ZipfDistribution bookPopularity;
+    private final ZipfDistribution genrePopularity;
+    private final ZipfDistribution[] popularityWithinGenre;
+    
+    public SyntheticDatasetModel(long seed, int books, int users, long ratings, double zipfExponent,
+                                 double genreAffinity, double favoriteRatio, double ratedRatio) {
+        if (books <= 0 || users <= 0) {
+            throw new IllegalArgumentException("books and users must be positive");
+        }
+        this.seed = seed;
+        this.books = books;
+        this.meanRatingsPerUser = Math.max(1.0, (double) ratings / users);
+        this.genreAffinity = genreAffinity;
+        this.favoriteRatio = favoriteRatio;
+        this.ratedRatio = ratedRatio;
+        this.bookPopularity = new ZipfDistribution(books, zipfExponent);
+        this.genrePopularity = new ZipfDistribution(GENRES.size(), 0.8);
+        
+        int genreCount = Math.min(GENRES.size(), books);
+        this.popularityWithinGenre = new ZipfDistribution[genreCount];
+        for (int genre = 0; genre < genreCount; genre++) {
+            int genreSize = (books - genre + genreCount - 1) / genreCount;
+            popularityWithinGenre[genre] = new ZipfDistribution(genreSize, zipfExponent);
+        }
+        
+        // Popularity rank -> book id through an affine permutation, so popular books are
+        // spread over the id range instead of clustering at the low ids
+        long multiplier = Math.max(1, (long) (books * 0.6180339887));
+        while (gcd(multiplier, books) != 1) {
+            multiplier++;
+        }
+        this.permutationMultiplier = multiplier;
+        this.permutationOffset = Math.floorMod(seed, books);
+    }
+    
+    public int getBooks() {
+        return books;
+    }
+    
+    public long bookId(int rank) {
+        return (rank * permutationMultiplier + permutationOffset) % books + 1;
+    }
+    
+    public String genreOf(int rank) {
+        return GENRES.get(rank % popularityWithinGenre.length);
+    }
+    
+    // Independent, reproducible random stream for one partition of one kind of row
+    public SplittableRandom random(String stream, int partition) {
+        long streamSeed = seed * 0x9E3779B97F4A7C15L + stream.hashCode();
+        return new SplittableRandom(mix(streamSeed) ^ mix(partition + 0x632BE59BD9B4E019L));
+    }
+    
+    public void generateLibrary(long userId, SplittableRandom random, RatingSink sink) {
+        int librarySize = (int) Math.min(books,
+                Math.ceil(-meanRatingsPerUser * Math.log(1 - random.nextDouble())));
+        librarySize = Math.max(1, librarySize);
+        
+        int genreCount = popularityWithinGenre.length;
+        int firstGenre = genrePopularity.sample(random) % genreCount;
+        int secondGenre = genrePopularity.sample(random) % genreCount;
+        
+        Set<Integer> ranks = new HashSet<>();
+        int attempts = 0;
+        while (ranks.size() < librarySize && attempts++ < librarySize * 4) {
+            int rank;
+            if (random.nextDouble() < genreAffinity) {
+                int genre = random.nextBoolean() ? firstGenre : secondGenre;
+                rank = popularityWithinGenre[genre].sample(random) * genreCount + genre;
+            } else {
+                rank = bookPopularity.sample(random);
+            }
+            if (!ranks.add(rank)) {
+                continue;
+            }
+            
+            boolean favorite = random.nextDouble() < favoriteRatio;
+            Integer rating = null;
+            if (favorite) {
+                rating = 4 + random.nextInt(2);
+            } else if (random.nextDouble() < ratedRatio) {
+                rating = sampleRating(random);
+            }
+            sink.accept(userId, bookId(rank), rating, favorite, random.nextInt(MAX_DAYS_AGO));
+        }
+    }
+    
+    private static int sampleRating(SplittableRandom random) {
+        double u = random.nextDouble();
+        for (int stars = 0; stars < RATING_CDF.length; stars++) {
+            if (u < RATING_CDF[stars]) {
+                return stars + 1;
+            }
+        }
+        return RATING_CDF.length;
+    }
+    
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+    
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    @FunctionalInterface
+    public interface RatingSink {
+        void accept(long userId, long bookId, Integer rating, boolean favorite, int daysAgo);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.bookrecommender.synthetic;
+
+import java.util.SplittableRandom;
+
+// Samples ranks 0..n-1 with P(k) proportional to 1/(k+1)^s. Uses the inverse CDF of the
+// continuous approximation, so it needs no per-rank tables even for millions of items.
+public class ZipfDistribution {
+    
+    private final int size;
+    private final double exponent;
+    private final double span;
+    
+    public ZipfDistribution(int size, double exponent) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be positive");
+        }
+        if (exponent <= 0) {
+            throw new IllegalArgumentException("exponent must be positive");
+        }
+        this.size = size;
+        this.exponent = exponent;
+        this.span = isHarmonic() ? Math.log(size + 1.0) : Math.pow(size + 1.0, 1 - exponent) - 1;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public int sample(SplittableRandom random) {
+        double u = random.nextDouble();
+        double x = isHarmonic()
+                ? Math.exp(u * span)
+                : Math.pow(1 + u * span, 1 / (1 - exponent));
+        int rank = (int) x - 1;
+        return Math.min(Math.max(rank, 0), size - 1);
+    }
+    
+    private boolean isHarmonic() {
+        return Math.abs(exponent - 1) < 1e-9;
+    }
+}
@@ -0,0 +1,41 @@
+-- Schema as Hibernate generated it before migrations were introduced, with identity ids.
+-- Kept identical to the PostgreSQL baseline so both vendors run the same migrations.
+
+CREATE TABLE users (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email VARCHAR(255) NOT NULL UNIQUE,
+    password VARCHAR(255) NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    role VARCHAR(16) DEFAULT 'USER' NOT NULL,
+    created_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE books (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    title VARCHAR(255) NOT NULL,
+    author VARCHAR(255) NOT NULL,
+    isbn VARCHAR(255) UNIQUE,
+    genre VARCHAR(255) NOT NULL,
+    description VARCHAR(2000),
+    cover_image_url VARCHAR(255),
+    publish_year INTEGER,
+    average_rating DOUBLE PRECISION,
+    open_library_key VARCHAR(255),
+    created_at TIMESTAMP(6) NOT NULL
+);
+
+CREATE TABLE user_books (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users (id),
+    book_id BIGINT NOT NULL REFERENCES books (id),
+    rating INTEGER,
+    read_at TIMESTAMP(6) NOT NULL,
+    is_favorite BOOLEAN NOT NULL,
+    UNIQUE (user_id, book_id)
+);
+
+CREATE TABLE leader_locks (
+    name VARCHAR(64) PRIMARY KEY,
+    owner VARCHAR(255) NOT NULL,
+    locked_until TIMESTAMP(6) NOT NULL
+);
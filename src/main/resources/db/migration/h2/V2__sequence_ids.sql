@@ -0,0 +1,15 @@
+-- Same switch from identity columns to pooled-lo sequences as the PostgreSQL migration.
+-- H2 databases are only used for development and tests and start empty, so the sequences
+-- start at 1 instead of after the existing ids.
+
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE users ALTER COLUMN id SET DEFAULT NEXT VALUE FOR users_seq;
+
+CREATE SEQUENCE books_seq START WITH 1 INCREMENT BY 50;
+ALTER TABLE books ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE books ALTER COLUMN id SET DEFAULT NEXT VALUE FOR books_seq;
+
+CREATE SEQUENCE user_books_seq START WITH 1 INCREMENT BY 50;
+ALTER TABLE user_books ALTER COLUMN id DROP IDENTITY;
+ALTER TABLE user_books ALTER COLUMN id SET DEFAULT NEXT VALUE FOR user_books_seq;
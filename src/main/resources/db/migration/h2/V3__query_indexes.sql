@@ -0,0 +1,11 @@
+-- Same indexes as the PostgreSQL migration, under the same names. H2 has no partial indexes,
+-- so the columns PostgreSQL filters on (is_favorite, rating) are index columns instead, and
+-- one user_books_book_idx serves findByBookId, findReviewsByBookId and countFavoritesByBookId.
+
+CREATE INDEX user_books_book_idx ON user_books (book_id, is_favorite, rating);
+
+CREATE INDEX user_books_liked_idx ON user_books (user_id, rating, book_id);
+
+CREATE INDEX books_genre_rating_idx ON books (genre, average_rating);
+
+CREATE INDEX books_author_title_idx ON books (author, title);
@@ -0,0 +1,15 @@
+-- Same taste profile table as the PostgreSQL migration. H2 databases start empty, so there
+-- are no existing ratings to build profiles from.
+
+CREATE SEQUENCE taste_affinities_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE taste_affinities (
+    id BIGINT DEFAULT NEXT VALUE FOR taste_affinities_seq PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    kind VARCHAR(16) NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    weight DOUBLE PRECISION NOT NULL,
+    rating_count INTEGER NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    UNIQUE (user_id, kind, name)
+);
@@ -0,0 +1,3 @@
+-- Same as the PostgreSQL migration: the favorite genre and author queries it served are gone.
+
+DROP INDEX IF EXISTS user_books_liked_idx;
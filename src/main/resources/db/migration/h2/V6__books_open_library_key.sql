@@ -0,0 +1,4 @@
+-- Same as the PostgreSQL migration. H2 databases are created by V1 with the column, so this is
+-- a no-op that keeps the versions in step.
+
+ALTER TABLE books ADD COLUMN IF NOT EXISTS open_library_key VARCHAR(255);
@@ -0,0 +1,28 @@
+-- Identity columns make Hibernate insert one row per round trip. Switch to sequences with an
+-- increment of 50 (allocationSize in the entities, pooled-lo optimizer) so inserts are batched.
+-- Existing ids are kept; each sequence starts after the current maximum. The column defaults
+-- keep plain JDBC inserts working: each one claims a whole block, so they never collide with
+-- ids Hibernate hands out.
+
+-- Databases baselined from a Hibernate-managed schema may predate these
+ALTER TABLE users ADD COLUMN IF NOT EXISTS role VARCHAR(16) DEFAULT 'USER' NOT NULL;
+CREATE TABLE IF NOT EXISTS leader_locks (
+    name VARCHAR(64) PRIMARY KEY,
+    owner VARCHAR(255) NOT NULL,
+    locked_until TIMESTAMP(6) NOT NULL
+);
+
+CREATE SEQUENCE users_seq INCREMENT BY 50 OWNED BY users.id;
+SELECT setval('users_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM users), false);
+ALTER TABLE users ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE users ALTER COLUMN id SET DEFAULT nextval('users_seq');
+
+CREATE SEQUENCE books_seq INCREMENT BY 50 OWNED BY books.id;
+SELECT setval('books_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM books), false);
+ALTER TABLE books ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE books ALTER COLUMN id SET DEFAULT nextval('books_seq');
+
+CREATE SEQUENCE user_books_seq INCREMENT BY 50 OWNED BY user_books.id;
+SELECT setval('user_books_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM user_books), false);
+ALTER TABLE user_books ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE user_books ALTER COLUMN id SET DEFAULT nextval('user_books_seq');
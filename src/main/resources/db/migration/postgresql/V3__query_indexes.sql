@@ -0,0 +1,24 @@
+-- Indexes for the repository queries that otherwise scan books or user_books. Built
+-- concurrently so a large user_books table stays writable; Flyway runs this migration outside
+-- a transaction. If a build fails, drop the INVALID index it leaves behind before retrying.
+
+-- UserBookRepository.findByBookId
+CREATE INDEX CONCURRENTLY IF NOT EXISTS user_books_book_idx ON user_books (book_id);
+
+-- UserBookRepository.findReviewsByBookId: only rated entries are reviews
+CREATE INDEX CONCURRENTLY IF NOT EXISTS user_books_reviews_idx ON user_books (book_id, user_id)
+    WHERE rating IS NOT NULL;
+
+-- UserBookRepository.countFavoritesByBookId, answered from the index alone
+CREATE INDEX CONCURRENTLY IF NOT EXISTS user_books_favorites_idx ON user_books (book_id, id)
+    WHERE is_favorite;
+
+-- UserBookRepository.findFavoriteGenresByUserId and findFavoriteAuthorsByUserId (rating >= 4)
+CREATE INDEX CONCURRENTLY IF NOT EXISTS user_books_liked_idx ON user_books (user_id, book_id)
+    WHERE rating >= 4;
+
+-- BookRepository.findByGenreIn; average_rating lets callers rank within a genre from the index
+CREATE INDEX CONCURRENTLY IF NOT EXISTS books_genre_rating_idx ON books (genre, average_rating);
+
+-- BookRepository.findByAuthorIn and existsByTitleAndAuthor
+CREATE INDEX CONCURRENTLY IF NOT EXISTS books_author_title_idx ON books (author, title);
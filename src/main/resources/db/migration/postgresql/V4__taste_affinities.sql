@@ -0,0 +1,31 @@
+-- Per-user taste profile: one row per genre and per author the user has rated. weight sums
+-- (rating - 3) / 2 over those ratings, so a 5 adds 1, a 4 adds 0.5 and a 1 takes 1 away.
+-- UserBookService keeps it up to date; RecommendationService reads it instead of aggregating
+-- user_books on every request.
+
+CREATE SEQUENCE taste_affinities_seq INCREMENT BY 50;
+
+CREATE TABLE taste_affinities (
+    id BIGINT DEFAULT nextval('taste_affinities_seq') PRIMARY KEY,
+    user_id BIGINT NOT NULL REFERENCES users (id) ON DELETE CASCADE,
+    kind VARCHAR(16) NOT NULL,
+    name VARCHAR(255) NOT NULL,
+    weight DOUBLE PRECISION NOT NULL,
+    rating_count INTEGER NOT NULL,
+    updated_at TIMESTAMP(6) NOT NULL,
+    UNIQUE (user_id, kind, name)
+);
+
+ALTER SEQUENCE taste_affinities_seq OWNED BY taste_affinities.id;
+
+-- Profiles for the ratings that already exist
+INSERT INTO taste_affinities (user_id, kind, name, weight, rating_count, updated_at)
+SELECT ub.user_id, 'GENRE', b.genre, SUM((ub.rating - 3) / 2.0), COUNT(*), CURRENT_TIMESTAMP
+FROM user_books ub JOIN books b ON b.id = ub.book_id
+WHERE ub.rating IS NOT NULL
+GROUP BY ub.user_id, b.genre
+UNION ALL
+SELECT ub.user_id, 'AUTHOR', b.author, SUM((ub.rating - 3) / 2.0), COUNT(*), CURRENT_TIMESTAMP
+FROM user_books ub JOIN books b ON b.id = ub.book_id
+WHERE ub.rating IS NOT NULL
+GROUP BY ub.user_id, b.author;
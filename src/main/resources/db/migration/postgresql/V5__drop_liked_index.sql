@@ -0,0 +1,6 @@
+-- user_books_liked_idx served the favorite genre and author aggregations that recommendations
+-- ran before taste_affinities replaced them. Nothing queries by it any more, and every
+-- user_books write still paid to maintain it. Dropped concurrently, like V3 built it, so
+-- user_books stays writable; Flyway runs this migration outside a transaction.
+
+DROP INDEX CONCURRENTLY IF EXISTS user_books_liked_idx;
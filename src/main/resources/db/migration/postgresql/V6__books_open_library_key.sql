@@ -0,0 +1,5 @@
+-- Catch-up V2 missed: databases baselined at V1 from a schema that Hibernate created before
+-- Book.openLibraryKey existed have no open_library_key column, and ddl-auto=validate rejects
+-- them. Added here rather than in V2, which existing databases have already applied.
+
+ALTER TABLE books ADD COLUMN IF NOT EXISTS open_library_key VARCHAR(255);
@@ -0,0 +1,104 @@
+package com.example.bookrecommender.als;
+
+import com.example.bookrecommender.catalog.CompressedBitmap;
+import com.example.bookrecommender.catalog.TopScores;
+import com.example.bookrecommender.ratings.RatingMatrix;
+import com.example.bookrecommender.ratings.RatingMatrixWriter;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlsTrainerTest {
+    
+    // Users 1-20 love books 1-10 and dislike 11-20; users 21-40 the opposite. Each user skips
+    // two books of each kind, so the model has to infer those.
+    private static final int USERS = 40;
+    private static final int BOOKS = 20;
+    
+    private static ForkJoinPool pool;
+    
+    @TempDir
+    Path directory;
+    
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(2);
+    }
+    
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+    
+    @Test
+    void testModelFitsTheRatings() throws Exception {
+        AlsModel model = new AlsTrainer(4, 10, 0.05, 1.0, 42).train(matrix(), Favorites.none(), pool);
+        
+        assertTrue(model.trainingRmse() < 0.5, "training RMSE " + model.trainingRmse());
+        assertTrue(model.predict(1, 3) > 4.0);
+        assertTrue(model.predict(1, 13) < 2.0);
+        assertTrue(model.predict(21, 13) > 4.0);
+    }
+    
+    @Test
+    void testUnratedBooksRankByTheUsersGroup() throws Exception {
+        AlsModel model = new AlsTrainer(4, 10, 0.05, 1.0, 42).train(matrix(), Favorites.none(), pool);
+        CompressedBitmap read = new CompressedBitmap();
+        for (int book = 1; book <= BOOKS; book++) {
+            if (!skipped(1, book)) {
+                read.add(book);
+            }
+        }
+        
+        TopScores top = model.recommend(1, 2, read);
+        
+        assertEquals(2, top.size());
+        assertTrue(top.id(0) <= 10 && skipped(1, (int) top.id(0)), "got book " + top.id(0));
+        assertTrue(top.id(1) <= 10 && skipped(1, (int) top.id(1)), "got book " + top.id(1));
+    }
+    
+    @Test
+    void testUsersWithoutRatingsAreUnknown() throws Exception {
+        AlsModel model = new AlsTrainer(4, 5, 0.05, 1.0, 42).train(matrix(), Favorites.none(), pool);
+        
+        assertFalse(model.hasUser(0));
+        assertFalse(model.hasUser(USERS + 1));
+        assertEquals(0, model.recommend(0, 10, new CompressedBitmap()).size());
+        assertEquals(0.0, model.predict(USERS + 1, 1));
+    }
+    
+    @Test
+    void testFavoritesPullTheFitTowardsTheirRating() throws Exception {
+        RatingMatrix matrix = matrix();
+        // User 1 also rated book 11 a 5, against the rest of their group
+        matrix.set(1, 11, 5);
+        AlsModel plain = new AlsTrainer(4, 10, 0.05, 0.0, 42).train(matrix, Favorites.none(), pool);
+        AlsModel favored = new AlsTrainer(4, 10, 0.05, 4.0, 42)
+                .train(matrix, Favorites.of(new long[] {Favorites.key(1, 11)}), pool);
+        
+        assertTrue(favored.predict(1, 11) > plain.predict(1, 11));
+    }
+    
+    private RatingMatrix matrix() throws Exception {
+        RatingMatrixWriter writer = new RatingMatrixWriter(directory.resolve("snapshot"), USERS + 1, BOOKS + 1, USERS * BOOKS);
+        for (int user = 1; user <= USERS; user++) {
+            for (int book = 1; book <= BOOKS; book++) {
+                if (!skipped(user, book)) {
+                    boolean likes = (user <= USERS / 2) == (book <= BOOKS / 2);
+                    writer.add(user, book, likes ? 5 : 1);
+                }
+            }
+        }
+        return new RatingMatrix(writer.finish());
+    }
+    
+    private static boolean skipped(int user, int book) {
+        return (book + user) % 5 == 0;
+    }
+}
@@ -0,0 +1,148 @@
+package com.example.bookrecommender.ann;
+
+import com.example.bookrecommender.catalog.TopScores;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HnswIndexTest {
+    
+    private static final int DIMENSION = 16;
+    private static final int VECTORS = 5_000;
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void testSearchFindsMostOfTheExactTopTen() {
+        SplittableRandom random = new SplittableRandom(7);
+        float[][] vectors = randomVectors(random, VECTORS);
+        HnswIndex index = index(vectors);
+        
+        int found = 0;
+        for (int query = 0; query < 50; query++) {
+            float[] vector = randomVector(random);
+            Set<Long> exact = ids(exactTop(vectors, vector, 10));
+            TopScores approximate = index.search(vector, 10, 64, id -> true);
+            for (int rank = 0; rank < approximate.size(); rank++) {
+                if (exact.contains(approximate.id(rank))) {
+                    found++;
+                }
+            }
+        }
+        
+        assertTrue(found >= 0.9 * 50 * 10, "recall@10 " + found / 500.0);
+    }
+    
+    @Test
+    void testRemovedAndFilteredIdsAreNotReturned() {
+        SplittableRandom random = new SplittableRandom(7);
+        float[][] vectors = randomVectors(random, VECTORS);
+        HnswIndex index = index(vectors);
+        float[] query = vectors[42];
+        long best = index.search(query, 1, 64, id -> true).id(0);
+        
+        assertTrue(index.remove((int) best));
+        assertFalse(index.contains((int) best));
+        assertEquals(VECTORS - 1, index.size());
+        TopScores withoutBest = index.search(query, 10, 64, id -> true);
+        TopScores evenOnly = index.search(query, 10, 64, id -> id % 2 == 0);
+        
+        for (int rank = 0; rank < withoutBest.size(); rank++) {
+            assertNotEquals(best, withoutBest.id(rank));
+        }
+        assertEquals(10, evenOnly.size());
+        for (int rank = 0; rank < evenOnly.size(); rank++) {
+            assertEquals(0, evenOnly.id(rank) % 2);
+        }
+    }
+    
+    @Test
+    void testAddingARemovedIdRevivesIt() {
+        HnswIndex index = new HnswIndex(2, 4, 16, 1);
+        index.add(1, new float[] {1, 0});
+        index.add(2, new float[] {0, 1});
+        index.remove(1);
+        
+        index.add(1, new float[] {0, 2});
+        TopScores top = index.search(new float[] {0, 1}, 2, 16, id -> true);
+        
+        assertEquals(2, index.size());
+        assertEquals(1, top.id(0));
+        assertEquals(2.0, top.score(0), 1e-6);
+    }
+    
+    @Test
+    void testIndexReadBackSearchesTheSame() throws Exception {
+        SplittableRandom random = new SplittableRandom(7);
+        float[][] vectors = randomVectors(random, VECTORS);
+        HnswIndex index = index(vectors);
+        index.remove(5);
+        Path file = directory.resolve("index.bin");
+        
+        index.writeTo(file);
+        HnswIndex read = HnswIndex.readFrom(file);
+        
+        assertEquals(index.size(), read.size());
+        assertFalse(read.contains(5));
+        for (int query = 0; query < 10; query++) {
+            float[] vector = randomVector(random);
+            TopScores expected = index.search(vector, 10, 64, id -> true);
+            TopScores actual = read.search(vector, 10, 64, id -> true);
+            assertEquals(expected.size(), actual.size());
+            for (int rank = 0; rank < expected.size(); rank++) {
+                assertEquals(expected.id(rank), actual.id(rank));
+            }
+        }
+    }
+    
+    private static HnswIndex index(float[][] vectors) {
+        HnswIndex index = new HnswIndex(DIMENSION, 16, 100, 42);
+        for (int id = 0; id < vectors.length; id++) {
+            index.add(id, vectors[id]);
+        }
+        return index;
+    }
+    
+    private static TopScores exactTop(float[][] vectors, float[] query, int k) {
+        TopScores top = new TopScores(k);
+        for (int id = 0; id < vectors.length; id++) {
+            double sum = 0;
+            for (int i = 0; i < DIMENSION; i++) {
+                sum += query[i] * vectors[id][i];
+            }
+            top.offer(id, sum);
+        }
+        return top;
+    }
+    
+    private static Set<Long> ids(TopScores top) {
+        Set<Long> ids = new HashSet<>();
+        for (int rank = 0; rank < top.size(); rank++) {
+            ids.add(top.id(rank));
+        }
+        return ids;
+    }
+    
+    private static float[][] randomVectors(SplittableRandom random, int count) {
+        float[][] vectors = new float[count][];
+        for (int i = 0; i < count; i++) {
+            vectors[i] = randomVector(random);
+        }
+        return vectors;
+    }
+    
+    private static float[] randomVector(SplittableRandom random) {
+        float[] vector = new float[DIMENSION];
+        for (int i = 0; i < DIMENSION; i++) {
+            vector[i] = (float) (random.nextDouble() * 2 - 1);
+        }
+        return vector;
+    }
+}
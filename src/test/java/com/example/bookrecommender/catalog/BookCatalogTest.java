@@ -0,0 +1,112 @@
+package com.example.bookrecommender.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookCatalogTest {
+    
+    @Test
+    void testGenreScanVisitsOnlyThatGenre() {
+        BookCatalog catalog = BookCatalog.builder(4)
+                .add(1, "Fantasy", "Le Guin", 4.5, 1969)
+                .add(2, "Horror", "Jackson", 4.0, 1959)
+                .add(3, "Fantasy", "Jemisin", 4.2, null)
+                .add(7, "Fantasy", "Le Guin", null, 1974)
+                .build();
+        
+        assertEquals(List.of(1L, 3L, 7L), idsInGenre(catalog, "Fantasy"));
+        assertEquals(List.of(1L, 7L), idsByAuthor(catalog, "Le Guin"));
+        assertEquals(List.of(), idsInGenre(catalog, "Romance"));
+        
+        assertEquals(4.2f, catalog.rating(2));
+        assertNull(catalog.publishYear(2));
+        assertEquals(0f, catalog.rating(3));
+        assertEquals(1974, catalog.publishYear(3));
+    }
+    
+    @Test
+    void testRatingChangeIsPatchedInPlace() {
+        BookCatalog catalog = BookCatalog.builder(1).add(1, "Fantasy", "Le Guin", 4.5, 1969).build();
+        
+        assertSame(catalog, catalog.upsert(1, "Fantasy", "Le Guin", 3.0, 1969));
+        catalog.updateRating(1, 2.5);
+        
+        assertEquals(1, catalog.rowCount());
+        assertEquals(2.5f, catalog.rating(0));
+    }
+    
+    @Test
+    void testGenreChangeAndNewBooksAreAppended() {
+        BookCatalog original = BookCatalog.builder(2)
+                .add(1, "Fantasy", "Le Guin", 4.5, 1969)
+                .add(2, "Horror", "Jackson", 4.0, 1959)
+                .build();
+        
+        BookCatalog catalog = original.upsert(1, "Science Fiction", "Le Guin", 4.5, 1969);
+        catalog = catalog.upsert(3, "Horror", "King", 3.9, 1977);
+        catalog.remove(2);
+        
+        assertEquals(List.of(), idsInGenre(catalog, "Fantasy"));
+        assertEquals(List.of(1L), idsInGenre(catalog, "Science Fiction"));
+        assertEquals(List.of(3L), idsInGenre(catalog, "Horror"));
+        assertEquals(2, catalog.liveCount());
+        // The view a reader already had doesn't grow
+        assertEquals(2, original.rowCount());
+    }
+    
+    @Test
+    void testCompactionKeepsLiveRowsInIdOrder() {
+        BookCatalog catalog = BookCatalog.builder(3)
+                .add(2, "Fantasy", "Le Guin", 4.5, 1969)
+                .add(4, "Horror", "Jackson", 4.0, 1959)
+                .add(6, "Fantasy", "Jemisin", 4.2, 2015)
+                .build();
+        catalog = catalog.upsert(5, "Fantasy", "Pratchett", 4.1, 1983);
+        catalog = catalog.upsert(1, "Fantasy", "Tolkien", 4.7, 1954);
+        catalog = catalog.upsert(4, "Fantasy", "Jackson", 4.0, 1959);
+        catalog.remove(6);
+        
+        BookCatalog compacted = catalog.compact();
+        
+        assertEquals(4, compacted.rowCount());
+        assertEquals(List.of(1L, 2L, 4L, 5L), idsInGenre(compacted, "Fantasy"));
+        assertEquals(4.7f, compacted.rating(0));
+    }
+    
+    @Test
+    void testBooksMustBeAddedInIdOrder() {
+        BookCatalog.Builder builder = BookCatalog.builder(2).add(2, "Fantasy", "Le Guin", 4.5, 1969);
+        
+        assertThrows(IllegalArgumentException.class, () -> builder.add(1, "Horror", "Jackson", 4.0, 1959));
+    }
+    
+    @Test
+    void testTopScoresKeepsBestScoresWithLowerIdOnTies() {
+        TopScores top = new TopScores(2);
+        top.offer(3, 1.0);
+        top.offer(2, 5.0);
+        top.offer(1, 5.0);
+        top.offer(4, 4.0);
+        
+        assertEquals(2, top.size());
+        assertEquals(1L, top.id(0));
+        assertEquals(2L, top.id(1));
+        assertEquals(5.0, top.score(1));
+    }
+    
+    private static List<Long> idsInGenre(BookCatalog catalog, String genre) {
+        List<Long> ids = new ArrayList<>();
+        catalog.forEachRowInGenre(catalog.genres().idOf(genre), row -> ids.add(catalog.id(row)));
+        return ids;
+    }
+    
+    private static List<Long> idsByAuthor(BookCatalog catalog, String author) {
+        List<Long> ids = new ArrayList<>();
+        catalog.forEachRowByAuthor(catalog.authors().idOf(author), row -> ids.add(catalog.id(row)));
+        return ids;
+    }
+}
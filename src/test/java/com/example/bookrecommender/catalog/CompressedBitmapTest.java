@@ -0,0 +1,99 @@
+package com.example.bookrecommender.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CompressedBitmapTest {
+    
+    @Test
+    void testAddRemoveContains() {
+        CompressedBitmap bitmap = CompressedBitmap.of(3, 70_000, 1);
+        
+        assertTrue(bitmap.contains(1));
+        assertTrue(bitmap.contains(70_000));
+        assertFalse(bitmap.contains(2));
+        assertFalse(bitmap.add(3));
+        assertTrue(bitmap.remove(70_000));
+        assertFalse(bitmap.remove(70_000));
+        assertEquals(List.of(1, 3), values(bitmap));
+    }
+    
+    @Test
+    void testDenseChunkSwitchesToBitmapAndBack() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value = 0; value <= CompressedBitmap.ARRAY_MAX_SIZE; value++) {
+            bitmap.add(value * 2);
+        }
+        assertEquals(CompressedBitmap.ARRAY_MAX_SIZE + 1, bitmap.cardinality());
+        assertTrue(bitmap.contains(8192));
+        assertFalse(bitmap.contains(8191));
+        
+        bitmap.remove(0);
+        bitmap.remove(2);
+        
+        assertEquals(CompressedBitmap.ARRAY_MAX_SIZE - 1, bitmap.cardinality());
+        assertFalse(bitmap.contains(2));
+        assertTrue(bitmap.contains(4));
+    }
+    
+    @Test
+    void testAndNotMatchesSetDifference() {
+        Random random = new Random(7);
+        Set<Integer> expected = new TreeSet<>();
+        CompressedBitmap candidates = new CompressedBitmap();
+        CompressedBitmap read = new CompressedBitmap();
+        // Dense enough in the first chunk to use bitmap containers on both sides
+        for (int i = 0; i < 20_000; i++) {
+            int candidate = random.nextInt(200_000);
+            candidates.add(candidate);
+            expected.add(candidate);
+        }
+        for (int i = 0; i < 8_000; i++) {
+            int readBook = random.nextInt(100_000);
+            read.add(readBook);
+            expected.remove(readBook);
+        }
+        
+        CompressedBitmap unread = candidates.andNot(read);
+        
+        assertEquals(new ArrayList<>(expected), values(unread));
+        assertEquals(expected.size(), unread.cardinality());
+    }
+    
+    @Test
+    void testCopyIsIndependent() {
+        CompressedBitmap original = CompressedBitmap.of(1, 2);
+        CompressedBitmap copy = original.copy();
+        
+        copy.add(3);
+        copy.remove(1);
+        
+        assertEquals(List.of(1, 2), values(original));
+        assertEquals(List.of(2, 3), values(copy));
+    }
+    
+    @Test
+    void testHeavyReaderCostsKilobytes() {
+        Random random = new Random(42);
+        CompressedBitmap bitmap = new CompressedBitmap();
+        // 10k books scattered over a 10M-book catalog
+        while (bitmap.cardinality() < 10_000) {
+            bitmap.add(1 + random.nextInt(10_000_000));
+        }
+        
+        assertTrue(bitmap.memoryBytes() < 64 * 1024, "bytes: " + bitmap.memoryBytes());
+    }
+    
+    private static List<Integer> values(CompressedBitmap bitmap) {
+        List<Integer> values = new ArrayList<>();
+        bitmap.forEach(values::add);
+        return values;
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.bookrecommender.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingClientHttpRequestInterceptorTest {
+    
+    private static final String ETAG = "\"v1\"";
+    
+    @TempDir
+    Path cacheDirectory;
+    
+    private HttpServer stub;
+    private final AtomicInteger fullResponses = new AtomicInteger();
+    private final AtomicInteger notModifiedResponses = new AtomicInteger();
+    private String url;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.createContext("/search.json", exchange -> {
+            if (ETAG.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                notModifiedResponses.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            fullResponses.incrementAndGet();
+            byte[] body = "{\"numFound\": 1}".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.getResponseHeaders().set("ETag", ETAG);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stub.start();
+        url = "http://localhost:" + stub.getAddress().getPort() + "/search.json?q=subject:fantasy";
+    }
+    
+    @AfterEach
+    void tearDown() {
+        stub.stop(0);
+    }
+    
+    @Test
+    void testFreshEntryIsServedWithoutNetwork() {
+        RestTemplate restTemplate = restTemplate(Duration.ofDays(1), false);
+        
+        ResponseEntity<String> first = restTemplate.getForEntity(url, String.class);
+        ResponseEntity<String> second = restTemplate.getForEntity(url, String.class);
+        
+        assertEquals("MISS", first.getHeaders().getFirst(CachingClientHttpRequestInterceptor.CACHE_STATUS_HEADER));
+        assertEquals("HIT", second.getHeaders().getFirst(CachingClientHttpRequestInterceptor.CACHE_STATUS_HEADER));
+        assertEquals(first.getBody(), second.getBody());
+        assertEquals(1, fullResponses.get());
+    }
+    
+    @Test
+    void testStaleEntryIsRevalidatedWithEtag() {
+        RestTemplate restTemplate = restTemplate(Duration.ZERO, false);
+        
+        restTemplate.getForEntity(url, String.class);
+        ResponseEntity<String> revalidated = restTemplate.getForEntity(url, String.class);
+        
+        assertEquals("REVALIDATED", revalidated.getHeaders().getFirst(CachingClientHttpRequestInterceptor.CACHE_STATUS_HEADER));
+        assertEquals("{\"numFound\": 1}", revalidated.getBody());
+        assertEquals(1, fullResponses.get());
+        assertEquals(1, notModifiedResponses.get());
+    }
+    
+    @Test
+    void testOfflineModeServesStaleEntriesAndNeverCallsNetwork() {
+        restTemplate(Duration.ofDays(1), false).getForEntity(url, String.class);
+        RestTemplate offline = restTemplate(Duration.ZERO, true);
+        
+        ResponseEntity<String> cached = offline.getForEntity(url, String.class);
+        
+        assertEquals("{\"numFound\": 1}", cached.getBody());
+        assertEquals(1, fullResponses.get());
+        assertThrows(ResourceAccessException.class, () -> offline.getForEntity(url + "&page=2", String.class));
+    }
+    
+    private RestTemplate restTemplate(Duration ttl, boolean offline) {
+        RestTemplate restTemplate = new RestTemplate();
+        restTemplate.getInterceptors().add(new CachingClientHttpRequestInterceptor(
+                new DiskResponseCache(cacheDirectory), ttl, offline, new HostRateLimiter(100)));
+        return restTemplate;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.bookrecommender.content;
+
+import com.example.bookrecommender.catalog.CompressedBitmap;
+import com.example.bookrecommender.catalog.TopScores;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TfIdfIndexTest {
+    
+    @Test
+    void testSimilarBooksShareDistinctiveTerms() {
+        TfIdfIndex index = sample();
+        
+        assertEquals(List.of(2L), ids(index.similar(1, 10)));
+        assertEquals(List.of(4L), ids(index.similar(3, 10)));
+        assertEquals(List.of(), ids(index.similar(5, 10)));
+    }
+    
+    @Test
+    void testRecommendSumsNeighborsAndSkipsTheGivenBooks() {
+        TfIdfIndex index = sample();
+        
+        TopScores top = index.recommend(CompressedBitmap.of(1, 3), 10);
+        
+        assertEquals(List.of(2L, 4L), sortedIds(top));
+    }
+    
+    @Test
+    void testEditsAndRemovalsUpdateNeighbors() {
+        TfIdfIndex index = sample();
+        
+        index.put(5, "Cooking with Dragons", "A fantasy book about dragons, magic, feasts.", "Fantasy");
+        index.remove(2);
+        
+        assertEquals(4, index.size());
+        assertEquals(List.of(5L), ids(index.similar(1, 10)));
+        assertEquals(List.of(1L), ids(index.similar(5, 10)));
+        assertEquals(List.of(), ids(index.similar(2, 10)));
+    }
+    
+    @Test
+    void testTokensDropAccentsStopWordsAndNumbers() {
+        assertEquals(List.of("eleve", "memoires", "paris"),
+                TextTokenizer.tokens("The \u00c9l\u00e8ve's m\u00e9moires: a book about Paris, 1920"));
+    }
+    
+    private static TfIdfIndex sample() {
+        return TfIdfIndex.builder(5, 1.0)
+                .add(1, "Dragons of the North", "A fantasy book about dragons, magic, kingdoms.", "Fantasy")
+                .add(2, "The Dragon Queen", "A fantasy book about dragons, magic, war.", "Fantasy")
+                .add(3, "Murder at the Manor", "A mystery book about detectives, murder.", "Mystery")
+                .add(4, "The Last Case", "A mystery book about detectives, crime.", "Mystery")
+                .add(5, "Cooking for Two", "Recipes and kitchen tips.", "Cooking")
+                .build();
+    }
+    
+    private static List<Long> ids(TopScores top) {
+        List<Long> ids = new ArrayList<>();
+        for (int rank = 0; rank < top.size(); rank++) {
+            ids.add(top.id(rank));
+        }
+        return ids;
+    }
+    
+    private static List<Long> sortedIds(TopScores top) {
+        List<Long> ids = ids(top);
+        ids.sort(null);
+        return ids;
+    }
+}
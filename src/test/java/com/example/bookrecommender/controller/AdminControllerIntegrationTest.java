@@ -0,0 +1,86 @@
+package com.example.bookrecommender.controller;
+
+import com.example.bookrecommender.entity.Book;
+import com.example.bookrecommender.entity.User;
+import com.example.bookrecommender.monitoring.MaxQueries;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AdminControllerIntegrationTest extends ControllerIntegrationTestSupport {
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
+    private User user;
+    private User admin;
+    
+    @BeforeEach
+    void setUp() {
+        user = createUser("Regular User");
+        admin = createUser("Operator", User.ROLE_ADMIN);
+    }
+    
+    @Test
+    @MaxQueries(1) // user lookup in the JWT filter
+    void testGetSqlTracesAsAdmin() throws Exception {
+        mockMvc.perform(get("/api/admin/sql-traces").header("Authorization", bearer(admin)))
+                .andExpect(status().isOk());
+    }
+    
+    @Test
+    @MaxQueries(2) // user lookup in the JWT filter, once per request
+    void testDumpAndStopWithoutRecordingReturnConflict() throws Exception {
+        mockMvc.perform(post("/api/admin/jfr/dump").header("Authorization", bearer(admin)))
+                .andExpect(status().isConflict());
+        mockMvc.perform(post("/api/admin/jfr/stop").header("Authorization", bearer(admin)))
+                .andExpect(status().isConflict());
+    }
+    
+    @Test
+    void testGetNearDuplicatesGroupsEditionsInTheCatalog() throws Exception {
+        String author = "Author " + UUID.randomUUID();
+        Book hobbit = createBook("The Hobbit", author, "Fantasy");
+        Book reprint = createBook("Hobbit, The", author, "Fantasy");
+        Book anniversary = createBook("The Hobbit: or There and Back Again", author, "Fantasy");
+        Book silmarillion = createBook("The Silmarillion", author, "Fantasy");
+        
+        String json = mockMvc.perform(get("/api/admin/near-duplicates").header("Authorization", bearer(admin)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<List<Long>> groups = objectMapper.readValue(json, new TypeReference<>() {});
+        
+        assertTrue(groups.contains(List.of(hobbit.getId(), reprint.getId(), anniversary.getId())));
+        assertTrue(groups.stream().noneMatch(group -> group.contains(silmarillion.getId())));
+    }
+    
+    @Test
+    @MaxQueries(4) // user lookup in the JWT filter, once per request
+    void testAdminEndpointsRejectUserRole() throws Exception {
+        mockMvc.perform(get("/api/admin/sql-traces").header("Authorization", bearer(user)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(delete("/api/admin/sql-traces").header("Authorization", bearer(user)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/admin/jfr").header("Authorization", bearer(user)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/api/admin/near-duplicates").header("Authorization", bearer(user)))
+                .andExpect(status().isForbidden());
+    }
+    
+    @Test
+    void testAdminEndpointsRejectAnonymousRequests() throws Exception {
+        mockMvc.perform(get("/api/admin/sql-traces"))
+                .andExpect(status().isForbidden());
+    }
+}
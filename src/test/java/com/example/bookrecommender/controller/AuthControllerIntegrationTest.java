@@ -0,0 +1,40 @@
+package com.example.bookrecommender.controller;
+
+import com.example.bookrecommender.entity.User;
+import com.example.bookrecommender.monitoring.MaxQueries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AuthControllerIntegrationTest extends ControllerIntegrationTestSupport {
+    
+    private User user;
+    private String registeredEmail;
+    
+    @BeforeEach
+    void setUp() {
+        user = createUser("Returning User");
+        registeredEmail = newUserEmail();
+    }
+    
+    @Test
+    @MaxQueries(2) // authentication lookup, user for the response
+    void testLogin() throws Exception {
+        mockMvc.perform(post("/api/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"" + user.getEmail() + "\",\"password\":\"password123\"}"))
+                .andExpect(status().isOk());
+    }
+    
+    @Test
+    @MaxQueries(3) // email check, user id block from the sequence (once per 50 users), insert
+    void testRegister() throws Exception {
+        mockMvc.perform(post("/api/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"New User\",\"email\":\"" + registeredEmail + "\",\"password\":\"password123\"}"))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.bookrecommender.controller;
+
+import com.example.bookrecommender.entity.Book;
+import com.example.bookrecommender.monitoring.MaxQueries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class BookControllerIntegrationTest extends ControllerIntegrationTestSupport {
+    
+    private Book book;
+    
+    @BeforeEach
+    void setUp() {
+        book = createBook("Budget Book", "Budget Author", "Mystery");
+        for (int i = 0; i < 3; i++) {
+            createBook("Budget Filler " + i, "Budget Author", "Mystery");
+        }
+        // Reviews from several users: one query per reviewer would show up as N+1
+        for (int i = 0; i < 4; i++) {
+            addToLibrary(createUser("Reviewer " + i), book, 3 + i % 3, i % 2 == 0);
+        }
+    }
+    
+    @Test
+    @MaxQueries(2) // page + count
+    void testGetAllBooks() throws Exception {
+        mockMvc.perform(get("/api/books").param("page", "0").param("size", "2"))
+                .andExpect(status().isOk());
+    }
+    
+    @Test
+    @MaxQueries(3) // book, favorite count, reviews with their users
+    void testGetBookByIdWithReviews() throws Exception {
+        mockMvc.perform(get("/api/books/{id}", book.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reviews.length()").value(4));
+    }
+    
+    @Test
+    @MaxQueries(2) // page + count
+    void testSearchBooks() throws Exception {
+        mockMvc.perform(get("/api/books/search").param("query", "budget").param("size", "2"))
+                .andExpect(status().isOk());
+    }
+}
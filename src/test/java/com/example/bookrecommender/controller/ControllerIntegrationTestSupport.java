@@ -0,0 +1,127 @@
+package com.example.bookrecommender.controller;
+
+import com.example.bookrecommender.entity.Book;
+import com.example.bookrecommender.entity.User;
+import com.example.bookrecommender.entity.UserBook;
+import com.example.bookrecommender.repository.BookRepository;
+import com.example.bookrecommender.repository.UserBookRepository;
+import com.example.bookrecommender.repository.UserRepository;
+import com.example.bookrecommender.security.JwtUtil;
+import com.example.bookrecommender.service.TasteProfileService;
+import org.junit.jupiter.api.AfterEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+// Full-stack tests against the H2 test database. Deliberately not @Transactional: a shared
+// test transaction would serve lazy loads from the persistence context and hide N+1 queries.
+@SpringBootTest
+@AutoConfigureMockMvc
+abstract class ControllerIntegrationTestSupport {
+    
+    @Autowired
+    protected MockMvc mockMvc;
+    
+    @Autowired
+    protected UserRepository userRepository;
+    
+    @Autowired
+    protected BookRepository bookRepository;
+    
+    @Autowired
+    protected UserBookRepository userBookRepository;
+    
+    @Autowired
+    protected PasswordEncoder passwordEncoder;
+    
+    @Autowired
+    protected JwtUtil jwtUtil;
+    
+    @Autowired
+    protected TasteProfileService tasteProfileService;
+    
+    @Autowired
+    protected JdbcTemplate jdbcTemplate;
+    
+    private final List<User> createdUsers = new ArrayList<>();
+    private final List<Book> createdBooks = new ArrayList<>();
+    private final List<String> newUserEmails = new ArrayList<>();
+    
+    @AfterEach
+    void deleteTestData() {
+        for (String email : newUserEmails) {
+            userRepository.findByEmail(email).ifPresent(createdUsers::add);
+        }
+        for (Book book : createdBooks) {
+            jdbcTemplate.update("DELETE FROM user_books WHERE book_id = ?", book.getId());
+        }
+        for (User user : createdUsers) {
+            userBookRepository.deleteAll(userBookRepository.findByUserId(user.getId()));
+        }
+        bookRepository.deleteAllById(createdBooks.stream().map(Book::getId).toList());
+        userRepository.deleteAllById(createdUsers.stream().map(User::getId).toList());
+        createdBooks.clear();
+        createdUsers.clear();
+        newUserEmails.clear();
+    }
+    
+    // For accounts the test creates through the API; they are deleted after the test, outside its budget
+    protected String newUserEmail() {
+        String email = UUID.randomUUID() + "@test.example";
+        newUserEmails.add(email);
+        return email;
+    }
+    
+    protected User createUser(String name) {
+        return createUser(name, User.ROLE_USER);
+    }
+    
+    protected User createUser(String name, String role) {
+        User user = userRepository.save(User.builder()
+                .email(UUID.randomUUID() + "@test.example")
+                .password(passwordEncoder.encode("password123"))
+                .name(name)
+                .role(role)
+                .build());
+        createdUsers.add(user);
+        return user;
+    }
+    
+    protected Book createBook(String title, String author, String genre) {
+        Book book = bookRepository.save(Book.builder()
+                .title(title)
+                .author(author)
+                .genre(genre)
+                .isbn(UUID.randomUUID().toString())
+                .publishYear(2000)
+                .build());
+        createdBooks.add(book);
+        return book;
+    }
+    
+    protected UserBook addToLibrary(User user, Book book, Integer rating, boolean favorite) {
+        return userBookRepository.save(UserBook.builder()
+                .user(user)
+                .book(book)
+                .rating(rating)
+                .isFavorite(favorite)
+                .build());
+    }
+    
+    // addToLibrary writes user_books directly; call once the library is set up so the user's
+    // taste profile reflects its ratings, as it would had they been rated through the API
+    protected void rebuildTasteProfile(User user) {
+        tasteProfileService.rebuild(user.getId());
+    }
+    
+    protected String bearer(User user) {
+        return "Bearer " + jwtUtil.generateToken(user);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.bookrecommender.controller;
+
+import com.example.bookrecommender.entity.User;
+import com.example.bookrecommender.monitoring.MaxQueries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RecommendationControllerIntegrationTest extends ControllerIntegrationTestSupport {
+    
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        user = createUser("Recommendation Reader");
+        for (int i = 0; i < 5; i++) {
+            addToLibrary(user, createBook("Read Thriller " + i, "Thriller Author " + i % 2, "Thriller"), 5, i == 0);
+        }
+        for (int i = 0; i < 5; i++) {
+            createBook("Unread Thriller " + i, "Thriller Author " + i % 3, "Thriller");
+        }
+        rebuildTasteProfile(user);
+    }
+    
+    @Test
+    @MaxQueries(6) // user, taste profile, library, genre and author candidates, top books
+    void testGetRecommendations() throws Exception {
+        mockMvc.perform(get("/api/recommendations").header("Authorization", bearer(user)))
+                .andExpect(status().isOk());
+    }
+}
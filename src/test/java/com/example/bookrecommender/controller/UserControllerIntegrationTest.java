@@ -0,0 +1,66 @@
+package com.example.bookrecommender.controller;
+
+import com.example.bookrecommender.entity.Book;
+import com.example.bookrecommender.entity.User;
+import com.example.bookrecommender.monitoring.MaxQueries;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class UserControllerIntegrationTest extends ControllerIntegrationTestSupport {
+    
+    private User user;
+    private Book unreadBook;
+    private Book ratedBook;
+    
+    @BeforeEach
+    void setUp() {
+        user = createUser("Library Owner");
+        for (int i = 0; i < 5; i++) {
+            addToLibrary(user, createBook("Library Book " + i, "Library Author " + i, "Fantasy"), 4, false);
+        }
+        ratedBook = createBook("Rated Book", "Library Author", "Fantasy");
+        addToLibrary(user, ratedBook, null, false);
+        unreadBook = createBook("Unread Book", "Library Author", "Fantasy");
+        rebuildTasteProfile(user);
+    }
+    
+    @Test
+    @MaxQueries(1) // user lookup in the JWT filter
+    void testGetProfile() throws Exception {
+        mockMvc.perform(get("/api/users/profile").header("Authorization", bearer(user)))
+                .andExpect(status().isOk());
+    }
+    
+    @Test
+    @MaxQueries(2) // user lookup, library with its books
+    void testGetUserBooks() throws Exception {
+        mockMvc.perform(get("/api/users/books").header("Authorization", bearer(user)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(6));
+    }
+    
+    @Test
+    @MaxQueries(4) // user lookup, duplicate check, book, insert
+    void testAddBookToUser() throws Exception {
+        mockMvc.perform(post("/api/users/books/{bookId}", unreadBook.getId()).header("Authorization", bearer(user)))
+                .andExpect(status().isCreated());
+    }
+    
+    @Test
+    // Each taste affinity is one upsert, preceded on H2 by a lock on the user's row
+    @MaxQueries(10) // user lookup, entry, book, entry update, ratings for the average, book update,
+                    // genre affinity (2), author affinity (2)
+    void testRateBook() throws Exception {
+        mockMvc.perform(post("/api/users/books/{bookId}/rate", ratedBook.getId())
+                        .header("Authorization", bearer(user))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"rating\":5}"))
+                .andExpect(status().isOk());
+    }
+}
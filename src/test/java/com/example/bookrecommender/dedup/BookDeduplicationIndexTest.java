@@ -0,0 +1,69 @@
+package com.example.bookrecommender.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookDeduplicationIndexTest {
+    
+    @Test
+    void testRegisterRejectsPreloadedIsbnRegardlessOfFormatting() {
+        BookDeduplicationIndex index = BookDeduplicationIndex.exact();
+        index.preload("978-0-261-10221-7", "The Hobbit", "J.R.R. Tolkien");
+        
+        assertFalse(index.register("9780261102217", "Some Other Title", "Someone Else"));
+    }
+    
+    @Test
+    void testRegisterRejectsSameTitleAndAuthorWithDifferentCaseAndSpacing() {
+        BookDeduplicationIndex index = BookDeduplicationIndex.exact();
+        index.preload(null, "The Hobbit", "J.R.R. Tolkien");
+        
+        assertFalse(index.register(null, "  the   HOBBIT ", "J.R.R. Tolkien"));
+        assertTrue(index.register(null, "The Silmarillion", "J.R.R. Tolkien"));
+    }
+    
+    @Test
+    void testRegisterRejectsDuplicatesWithinTheSameRun() {
+        BookDeduplicationIndex index = BookDeduplicationIndex.exact();
+        
+        assertTrue(index.register("1234567890", "Dune", "Frank Herbert"));
+        assertFalse(index.register("1234567890", "Dune (Deluxe)", "Frank Herbert"));
+        assertFalse(index.register(null, "Dune", "Frank Herbert"));
+    }
+    
+    @Test
+    void testBloomBackedIndexConfirmsProbableDuplicatesByNormalizedKey() {
+        BookDeduplicationIndex index = BookDeduplicationIndex.bloomBacked(1000, 0.001);
+        index.preload("978-0-261-10221-7", "The Hobbit", "J.R.R. Tolkien");
+        index.preload(null, "Dune", "Frank Herbert");
+        
+        assertTrue(index.register("9780261102217", "Some Other Title", "Someone Else"));
+        assertTrue(index.register(null, "  dune ", "FRANK HERBERT"));
+        assertTrue(index.register("5555555555", "Neuromancer", "William Gibson"));
+        assertTrue(index.needsConfirmation());
+        
+        // The catalog rows as stored, formatted differently from the candidates
+        index.confirm("978-0-261-10221-7", "The Hobbit", "J.R.R. Tolkien");
+        index.confirm(null, "Dune", "Frank Herbert");
+        
+        assertTrue(index.isCatalogDuplicate("9780261102217", "Some Other Title", "Someone Else"));
+        assertTrue(index.isCatalogDuplicate(null, "  dune ", "FRANK HERBERT"));
+        assertFalse(index.isCatalogDuplicate("5555555555", "Neuromancer", "William Gibson"));
+    }
+    
+    @Test
+    void testExactIndexNeedsNoConfirmation() {
+        BookDeduplicationIndex index = BookDeduplicationIndex.exact();
+        index.preload(null, "Dune", "Frank Herbert");
+        
+        assertTrue(index.register(null, "Neuromancer", "William Gibson"));
+        assertFalse(index.needsConfirmation());
+    }
+    
+    @Test
+    void testNormalizeIsbnKeepsDigitsAndCheckCharacter() {
+        assertEquals("080442957X", BookDeduplicationIndex.normalizeIsbn("0-8044-2957-x"));
+        assertNull(BookDeduplicationIndex.normalizeIsbn("n/a"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.bookrecommender.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NearDuplicateIndexTest {
+    
+    @Test
+    void testFindGroupsClustersEditionsOfTheSameWork() {
+        NearDuplicateIndex index = new NearDuplicateIndex(8, 4, 0.7);
+        index.add(1L, "The Hobbit", "J.R.R. Tolkien");
+        index.add(2L, "Hobbit, The", "J. R. R. Tolkien");
+        index.add(3L, "The Hobbit: or There and Back Again", "J.R.R. Tolkien");
+        index.add(4L, "The Silmarillion", "J.R.R. Tolkien");
+        index.add(5L, "The Hobbit", "Someone Else");
+        index.add(6L, "Pride and Prejudice", "Jane Austen");
+        index.add(7L, "Pride & Prejudice (Penguin Classics)", "Jane Austen");
+        
+        List<List<Long>> groups = index.findGroups();
+        
+        assertEquals(2, groups.size());
+        assertTrue(groups.contains(List.of(1L, 2L, 3L)));
+        assertTrue(groups.contains(List.of(6L, 7L)));
+    }
+    
+    @Test
+    void testFindMatchUsesBuiltIndexAndLaterAdditions() {
+        NearDuplicateIndex index = new NearDuplicateIndex(8, 4, 0.7);
+        index.add(1L, "The Hobbit", "J.R.R. Tolkien");
+        index.build();
+        
+        assertEquals(1L, index.findMatch("the hobbit", "JRR Tolkien"));
+        assertNull(index.findMatch("Dune", "Frank Herbert"));
+        
+        index.add(2L, "Dune", "Frank Herbert");
+        assertEquals(2L, index.findMatch("Dune: Deluxe Edition", "Frank Herbert"));
+    }
+    
+    @Test
+    void testSeriesVolumesAreDifferentWorks() {
+        NearDuplicateIndex index = new NearDuplicateIndex(8, 4, 0.7);
+        index.add(1L, "The Lord of the Rings: The Fellowship of the Ring", "J.R.R. Tolkien");
+        index.add(2L, "The Lord of the Rings: The Two Towers", "J.R.R. Tolkien");
+        index.build();
+        
+        assertNull(index.findMatch("The Lord of the Rings: The Return of the King", "J.R.R. Tolkien"));
+        assertEquals(2L, index.findMatch("Lord of the Rings, The; The Two Towers", "J. R. R. Tolkien"));
+        
+        // The one-volume edition matches either volume, but must not merge them into one group
+        index.add(3L, "The Lord of the Rings", "J.R.R. Tolkien");
+        index.add(4L, "The Lord of the Rings: The Two Towers (Illustrated)", "J.R.R. Tolkien");
+        assertEquals(List.of(List.of(2L, 4L)), index.findGroups());
+    }
+    
+    @Test
+    void testNormalizeTitleDropsArticlesAndSubtitles() {
+        assertEquals("hobbit", MinHasher.normalizeTitle("The Hobbit: or There and Back Again"));
+        assertEquals("hobbit", MinHasher.normalizeTitle("Hobbit, The"));
+        assertEquals("two towers", MinHasher.normalizeSubtitle("The Lord of the Rings: The Two Towers (Illustrated)"));
+        assertEquals("", MinHasher.normalizeSubtitle("Pride & Prejudice (Penguin Classics)"));
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.bookrecommender.monitoring;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Fails the test if its body issues more SQL statements than the budget. Setup in
+// @BeforeEach is not counted, so a test that performs one request budgets that request.
+// On a class it applies to every test; a method annotation overrides it.
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(QueryBudgetExtension.class)
+public @interface MaxQueries {
+    
+    int value();
+}
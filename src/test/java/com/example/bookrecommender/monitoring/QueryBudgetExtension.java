@@ -0,0 +1,47 @@
+package com.example.bookrecommender.monitoring;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+import org.opentest4j.AssertionFailedError;
+
+import java.util.Optional;
+
+// Counts statements through SqlStatementCounter, which the datasource proxy calls for every
+// statement executed on the current thread, Hibernate's and JdbcTemplate's alike. MockMvc runs
+// requests on the test thread, so they are counted.
+public class QueryBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+    
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        SqlStatementCounter.reset();
+    }
+    
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        long executed = SqlStatementCounter.get();
+        if (context.getExecutionException().isPresent()) {
+            // The test already failed; don't hide its error behind a budget failure
+            return;
+        }
+        
+        budget(context).ifPresent(maxQueries -> {
+            if (executed > maxQueries.value()) {
+                throw new AssertionFailedError(String.format(
+                        "Expected at most %d SQL statements but %d were executed. " +
+                        "Look for lazy loading in a loop (N+1); set spring.jpa.show-sql=true to see them.",
+                        maxQueries.value(), executed), maxQueries.value(), executed);
+            }
+        });
+    }
+    
+    private static Optional<MaxQueries> budget(ExtensionContext context) {
+        Optional<MaxQueries> onMethod = context.getTestMethod()
+                .flatMap(method -> AnnotationSupport.findAnnotation(method, MaxQueries.class));
+        if (onMethod.isPresent()) {
+            return onMethod;
+        }
+        return context.getTestClass().flatMap(type -> AnnotationSupport.findAnnotation(type, MaxQueries.class));
+    }
+}
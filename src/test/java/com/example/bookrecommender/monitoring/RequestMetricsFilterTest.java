@@ -0,0 +1,53 @@
+package com.example.bookrecommender.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.HandlerMapping;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestMetricsFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RequestMetricsFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = new RequestMetricsFilter();
+        ReflectionTestUtils.setField(filter, "meterRegistry", meterRegistry);
+    }
+
+    @Test
+    void testRecordsStatementsPerRoute() throws Exception {
+        // Statements left over from earlier work on this thread must not be attributed to the request
+        SqlStatementCounter.increment();
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books/42");
+        filter.doFilter(request, new MockHttpServletResponse(), (req, res) -> {
+            req.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/api/books/{id}");
+            SqlStatementCounter.increment();
+            SqlStatementCounter.increment();
+        });
+
+        DistributionSummary summary = meterRegistry.get(RequestMetricsFilter.SQL_STATEMENTS_METRIC)
+                .tag("uri", "/api/books/{id}")
+                .tag("method", "GET")
+                .summary();
+        assertEquals(1, summary.count());
+        assertEquals(2.0, summary.totalAmount());
+    }
+
+    @Test
+    void testUnmatchedRequestsShareOneTag() throws Exception {
+        filter.doFilter(new MockHttpServletRequest("GET", "/does/not/exist"), new MockHttpServletResponse(),
+                (req, res) -> { });
+
+        assertNotNull(meterRegistry.find(RequestMetricsFilter.SQL_STATEMENTS_METRIC).tag("uri", "UNKNOWN").summary());
+    }
+}
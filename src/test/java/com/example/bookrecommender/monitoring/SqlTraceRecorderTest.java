@@ -0,0 +1,100 @@
+package com.example.bookrecommender.monitoring;
+
+import com.example.bookrecommender.dto.SqlStatementTrace;
+import com.example.bookrecommender.dto.SqlTrace;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlTraceRecorderTest {
+    
+    private SqlTraceRecorder recorder;
+    
+    @BeforeEach
+    void setUp() {
+        recorder = new SqlTraceRecorder();
+        // Every request counts as slow unless a test says otherwise
+        ReflectionTestUtils.setField(recorder, "slowRequestMs", 0L);
+        ReflectionTestUtils.setField(recorder, "bufferSize", 2);
+        ReflectionTestUtils.setField(recorder, "maxStatements", 2);
+    }
+    
+    @Test
+    void testRecordsStatementsOfSlowRequest() {
+        recorder.begin("req-1", "GET", "/api/books/42");
+        long start = System.nanoTime();
+        recorder.recordStatement("select * from books where id=?", 1, 0, start, 2_000_000);
+        recorder.addRowsToLastStatement(1);
+        recorder.recordStatement("update books set average_rating=? where id=?", 2, 1, start, 1_000_000);
+        recorder.end(200, "/api/books/{id}");
+
+        List<SqlTrace> traces = recorder.getSlowTraces();
+        assertEquals(1, traces.size());
+        SqlTrace trace = traces.get(0);
+        assertEquals("req-1", trace.getRequestId());
+        assertEquals("/api/books/{id}", trace.getRoute());
+        assertEquals(2, trace.getStatementCount());
+        assertEquals(3.0, trace.getSqlDurationMs(), 0.001);
+
+        SqlStatementTrace select = trace.getStatements().get(0);
+        assertEquals(1, select.getBindCount());
+        assertEquals(1, select.getRows());
+        assertEquals(1, trace.getStatements().get(1).getRows());
+        assertFalse(recorder.isTracing());
+    }
+    
+    @Test
+    void testFastRequestsAreNotKept() {
+        ReflectionTestUtils.setField(recorder, "slowRequestMs", 60_000L);
+
+        recorder.begin("req-1", "GET", "/api/books");
+        recorder.recordStatement("select * from books", 0, 0, System.nanoTime(), 1_000);
+        recorder.end(200, "/api/books");
+
+        assertTrue(recorder.getSlowTraces().isEmpty());
+    }
+    
+    @Test
+    void testStatementsPastLimitAreCountedButNotKept() {
+        recorder.begin("req-1", "GET", "/api/recommendations");
+        for (int i = 0; i < 5; i++) {
+            recorder.recordStatement("select " + i, 0, 0, System.nanoTime(), 1_000);
+            recorder.addRowsToLastStatement(1);
+        }
+        recorder.end(200, "/api/recommendations");
+
+        SqlTrace trace = recorder.getSlowTraces().get(0);
+        assertEquals(5, trace.getStatementCount());
+        assertEquals(2, trace.getStatements().size());
+        assertEquals(3, trace.getDroppedStatements());
+        // Rows of dropped statements must not leak into the last kept one
+        assertEquals(1, trace.getStatements().get(1).getRows());
+    }
+    
+    @Test
+    void testRingBufferKeepsNewestFirst() {
+        for (int i = 1; i <= 3; i++) {
+            recorder.begin("req-" + i, "GET", "/api/books");
+            recorder.end(200, "/api/books");
+        }
+
+        List<SqlTrace> traces = recorder.getSlowTraces();
+        assertEquals(List.of("req-3", "req-2"), traces.stream().map(SqlTrace::getRequestId).toList());
+
+        recorder.clear();
+        assertTrue(recorder.getSlowTraces().isEmpty());
+    }
+    
+    @Test
+    void testStatementsOutsideRequestAreIgnored() {
+        recorder.recordStatement("select 1", 0, 0, System.nanoTime(), 1_000);
+        recorder.addRowsToLastStatement(1);
+
+        assertFalse(recorder.isTracing());
+        assertTrue(recorder.getSlowTraces().isEmpty());
+    }
+}
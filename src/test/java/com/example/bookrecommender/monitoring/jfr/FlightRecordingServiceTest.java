@@ -0,0 +1,85 @@
+package com.example.bookrecommender.monitoring.jfr;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FlightRecordingServiceTest {
+    
+    @TempDir
+    Path dumpDir;
+    
+    private FlightRecordingService service;
+    
+    @BeforeEach
+    void setUp() {
+        service = new FlightRecordingService();
+        ReflectionTestUtils.setField(service, "dumpDir", dumpDir.toString());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+    
+    @Test
+    void testRecordingCapturesDomainEvents() throws Exception {
+        service.start("default");
+        assertEquals(true, service.status().get("running"));
+
+        RecommendationEvent event = new RecommendationEvent();
+        event.begin();
+        event.userId = 7;
+        event.candidateCount = 120;
+        event.scoredCount = 95;
+        event.returnedCount = 10;
+        event.commit();
+
+        Path file = service.stop();
+        assertTrue(Files.exists(file));
+        assertEquals(false, service.status().get("running"));
+
+        List<RecordedEvent> recommendations = RecordingFile.readAllEvents(file).stream()
+                .filter(recorded -> recorded.getEventType().getName().equals("bookrecommender.Recommendation"))
+                .toList();
+        assertEquals(1, recommendations.size());
+        assertEquals(120, recommendations.get(0).getInt("candidateCount"));
+    }
+    
+    @Test
+    void testDumpKeepsRecordingRunning() {
+        service.start("default");
+
+        Path file = service.dump();
+
+        assertTrue(Files.exists(file));
+        assertEquals(true, service.status().get("running"));
+    }
+    
+    @Test
+    void testRejectsSecondRecordingAndStopWithoutRecording() {
+        assertThrows(IllegalStateException.class, service::stop);
+
+        service.start("default");
+        assertThrows(IllegalStateException.class, () -> service.start("profile"));
+    }
+    
+    @Test
+    void testEventsAreNotCommittedWithoutRecording() {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        event.end();
+
+        assertFalse(event.shouldCommit());
+    }
+}
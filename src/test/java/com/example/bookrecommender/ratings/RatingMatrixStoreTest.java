@@ -0,0 +1,115 @@
+package com.example.bookrecommender.ratings;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RatingMatrixStoreTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void testRowsAndColumnsMatchTheRatings() throws Exception {
+        RatingMatrixStore store = new RatingMatrixStore(directory);
+        store.publish(write(store));
+        RatingMatrix matrix = store.matrix();
+        
+        assertEquals(List.of("2:5", "4:3"), ratingsOfUser(matrix, 1));
+        assertEquals(List.of(), ratingsOfUser(matrix, 2));
+        assertEquals(List.of("1:3", "3:4"), ratingsOfBook(matrix, 4));
+        assertEquals(4, matrix.rating(3, 4));
+        assertEquals(0, matrix.rating(3, 2));
+        store.close();
+    }
+    
+    @Test
+    void testChangesAreMergedIntoReads() throws Exception {
+        RatingMatrixStore store = new RatingMatrixStore(directory);
+        store.publish(write(store));
+        
+        store.record(1, 3, 2);
+        store.record(1, 4, 0);
+        store.record(7, 4, 1);
+        RatingMatrix matrix = store.matrix();
+        
+        assertEquals(List.of("2:5", "3:2"), ratingsOfUser(matrix, 1));
+        assertEquals(List.of("3:4", "7:1"), ratingsOfBook(matrix, 4));
+        assertEquals(8, matrix.userCount());
+        store.close();
+    }
+    
+    @Test
+    void testReopeningMapsTheSnapshotAndReplaysChanges() throws Exception {
+        RatingMatrixStore store = new RatingMatrixStore(directory);
+        assertFalse(store.open());
+        store.publish(write(store));
+        store.record(2, 2, 5);
+        store.close();
+        
+        RatingMatrixStore reopened = new RatingMatrixStore(directory);
+        
+        assertTrue(reopened.open());
+        assertEquals(5, reopened.matrix().rating(2, 2));
+        assertEquals(5, reopened.matrix().rating(1, 2));
+        reopened.close();
+    }
+    
+    @Test
+    void testCompactionFoldsChangesIntoANewSnapshot() throws Exception {
+        RatingMatrixStore store = new RatingMatrixStore(directory);
+        store.publish(write(store));
+        store.record(1, 4, 0);
+        store.record(5, 1, 4);
+        
+        store.compact();
+        store.record(5, 2, 3);
+        
+        RatingMatrix matrix = store.matrix();
+        assertEquals(1, matrix.changeCount());
+        assertEquals(3, matrix.snapshot().ratingCount());
+        assertEquals(List.of("1:4", "2:3"), ratingsOfUser(matrix, 5));
+        assertEquals(List.of("3:4"), ratingsOfBook(matrix, 4));
+        store.close();
+        
+        RatingMatrixStore reopened = new RatingMatrixStore(directory);
+        assertTrue(reopened.open());
+        assertEquals(List.of("1:4", "2:3"), ratingsOfUser(reopened.matrix(), 5));
+        reopened.close();
+    }
+    
+    @Test
+    void testWriterRejectsRatingsOutOfOrder() throws Exception {
+        RatingMatrixWriter writer = new RatingMatrixWriter(directory.resolve("snapshot"), 4, 4, 2);
+        writer.add(2, 1, 5);
+        
+        assertThrows(IllegalArgumentException.class, () -> writer.add(1, 3, 4));
+        assertThrows(IllegalArgumentException.class, () -> writer.add(2, 1, 4));
+    }
+    
+    // Users 1 and 3 rated books 2 and 4
+    private static RatingMatrixSnapshot write(RatingMatrixStore store) throws Exception {
+        RatingMatrixWriter writer = new RatingMatrixWriter(store.newSnapshotDirectory(), 4, 5, 3);
+        writer.add(1, 2, 5);
+        writer.add(1, 4, 3);
+        writer.add(3, 4, 4);
+        return writer.finish();
+    }
+    
+    private static List<String> ratingsOfUser(RatingMatrix matrix, int userId) {
+        List<String> ratings = new ArrayList<>();
+        matrix.forEachRatingOfUser(userId, (bookId, rating) -> ratings.add(bookId + ":" + rating));
+        return ratings;
+    }
+    
+    private static List<String> ratingsOfBook(RatingMatrix matrix, int bookId) {
+        List<String> ratings = new ArrayList<>();
+        matrix.forEachRatingOfBook(bookId, (userId, rating) -> ratings.add(userId + ":" + rating));
+        return ratings;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.bookrecommender.replica;
+
+import com.example.bookrecommender.BookrecommenderApplication;
+import com.example.bookrecommender.dto.BookRequest;
+import com.example.bookrecommender.dto.BookResponse;
+import com.example.bookrecommender.service.BookService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Two in-memory H2 databases stand in for the primary and a replica; each holds a marker book
+// the other lacks, so the search results show which database answered
+class ReadReplicaRoutingIntegrationTest {
+    
+    private static final String PRIMARY_URL = "jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_URL = "jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1";
+    
+    private ConfigurableApplicationContext context;
+    
+    @AfterEach
+    void stop() throws Exception {
+        if (context != null) {
+            context.close();
+        }
+        for (String url : new String[]{PRIMARY_URL, REPLICA_URL}) {
+            try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+                connection.createStatement().execute("DROP ALL OBJECTS");
+            }
+        }
+    }
+    
+    @Test
+    void testReadOnlyTransactionReadsFromReplica() throws Exception {
+        start(REPLICA_URL);
+        
+        // Fresh thread, so no earlier write on the test thread keeps it on the primary
+        assertEquals(Set.of("Replica Marker"), onNewThread(this::searchMarkers));
+    }
+    
+    @Test
+    void testReadAfterWriteStaysOnPrimary() throws Exception {
+        start(REPLICA_URL);
+        
+        Set<String> titles = onNewThread(() -> {
+            BookRequest request = new BookRequest();
+            request.setTitle("Written Marker");
+            request.setAuthor("Author");
+            request.setGenre("Fiction");
+            context.getBean(BookService.class).createBook(request);
+            return searchMarkers();
+        });
+        
+        assertEquals(Set.of("Primary Marker", "Written Marker"), titles);
+    }
+    
+    @Test
+    void testUnavailableReplicaFallsBackToPrimary() throws Exception {
+        start("jdbc:h2:mem:routing-missing;IFEXISTS=TRUE");
+        
+        assertEquals(Set.of("Primary Marker"), onNewThread(this::searchMarkers));
+    }
+    
+    private void start(String replicaUrl) throws Exception {
+        Flyway.configure()
+                .dataSource(REPLICA_URL, "sa", "")
+                .locations("classpath:db/migration/h2")
+                .load()
+                .migrate();
+        insertMarker(REPLICA_URL, "Replica Marker");
+        
+        context = new SpringApplicationBuilder(BookrecommenderApplication.class).run(
+                "--spring.datasource.url=" + PRIMARY_URL,
+                "--datasource.replica.urls=" + replicaUrl,
+                "--spring.datasource.hikari.connection-timeout=1000",
+                "--server.port=0",
+                // JCache shares one cache manager per JVM; closing this context would close it for other tests
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                "--book.import.enabled=false",
+                "--startup.seeding.enabled=false");
+        insertMarker(PRIMARY_URL, "Primary Marker");
+    }
+    
+    private Set<String> searchMarkers() {
+        return context.getBean(BookService.class).searchBooks("Marker", PageRequest.of(0, 10)).stream()
+                .map(BookResponse::getTitle)
+                .collect(Collectors.toSet());
+    }
+    
+    private static void insertMarker(String url, String title) throws Exception {
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             PreparedStatement insert = connection.prepareStatement(
+                     "INSERT INTO books (id, title, author, genre, created_at) VALUES (?, ?, 'Author', 'Fiction', CURRENT_TIMESTAMP)")) {
+            insert.setLong(1, 1_000_000);
+            insert.setString(2, title);
+            insert.executeUpdate();
+        }
+    }
+    
+    private static <T> T onNewThread(Callable<T> task) throws Exception {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return task.call();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).get();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.bookrecommender.replica;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReadYourWritesTrackerTest {
+    
+    private final ReadYourWritesTracker tracker = new ReadYourWritesTracker(Duration.ofMinutes(1));
+    
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+    
+    @Test
+    void testUserWritesFollowTheUserToOtherThreads() throws Exception {
+        writeOnNewThread(user("reader@example.com"));
+        
+        SecurityContextHolder.getContext().setAuthentication(user("reader@example.com"));
+        assertTrue(tracker.isWithinWindow());
+        SecurityContextHolder.getContext().setAuthentication(user("someone.else@example.com"));
+        assertFalse(tracker.isWithinWindow());
+    }
+    
+    @Test
+    void testAnonymousWritesDoNotPinOtherAnonymousReads() throws Exception {
+        writeOnNewThread(anonymous());
+        
+        SecurityContextHolder.getContext().setAuthentication(anonymous());
+        assertFalse(tracker.isWithinWindow());
+    }
+    
+    @Test
+    void testClearThreadForgetsTheThreadsWrites() {
+        tracker.recordWrite();
+        assertTrue(tracker.isWithinWindow());
+        
+        tracker.clearThread();
+        assertFalse(tracker.isWithinWindow());
+    }
+    
+    private void writeOnNewThread(Authentication authentication) throws Exception {
+        CompletableFuture.runAsync(() -> {
+            SecurityContextHolder.getContext().setAuthentication(authentication);
+            try {
+                tracker.recordWrite();
+            } finally {
+                SecurityContextHolder.clearContext();
+            }
+        }).get();
+    }
+    
+    private static Authentication user(String email) {
+        return new UsernamePasswordAuthenticationToken(email, null, AuthorityUtils.createAuthorityList("ROLE_USER"));
+    }
+    
+    private static Authentication anonymous() {
+        return new AnonymousAuthenticationToken("key", "anonymousUser",
+                AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+    }
+}
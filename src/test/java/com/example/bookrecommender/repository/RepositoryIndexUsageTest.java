@@ -0,0 +1,98 @@
+package com.example.bookrecommender.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Captures the SQL each repository method generates and checks H2's plan for it reads the table
+// through an index, such as those from V3__query_indexes, rather than scanning it. Query caches are off so every call reaches the database.
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+                "com.example.bookrecommender.repository.RepositoryIndexUsageTest$CapturingInspector",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+class RepositoryIndexUsageTest {
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private UserBookRepository userBookRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @BeforeEach
+    void setUp() {
+        CapturingInspector.STATEMENTS.get().clear();
+    }
+    
+    @Test
+    void testFindRatingAggregateUsesIndex() {
+        userBookRepository.findRatingAggregate(1L);
+        assertUsesIndex("USER_BOOKS");
+    }
+    
+    @Test
+    void testFindReviewsByBookIdUsesIndex() {
+        userBookRepository.findReviewsByBookId(1L);
+        assertUsesIndex("USER_BOOKS");
+    }
+    
+    @Test
+    void testCountFavoritesByBookIdUsesIndex() {
+        userBookRepository.countFavoritesByBookId(1L);
+        assertUsesIndex("USER_BOOKS");
+    }
+    
+    @Test
+    void testFindByGenreInUsesIndex() {
+        bookRepository.findByGenreIn(List.of("Fantasy", "Mystery"));
+        assertUsesIndex("BOOKS");
+    }
+    
+    @Test
+    void testFindByAuthorInUsesIndex() {
+        bookRepository.findByAuthorIn(List.of("Ursula K. Le Guin", "Agatha Christie"));
+        assertUsesIndex("BOOKS");
+    }
+    
+    @Test
+    void testExistsByTitleAndAuthorUsesIndex() {
+        bookRepository.existsByTitleAndAuthor("The Dispossessed", "Ursula K. Le Guin");
+        assertUsesIndex("BOOKS");
+    }
+    
+    // Checks the table is read through an index rather than scanned. Which index H2 picks is
+    // left to it: a foreign key's own index can serve as well as the one from V3.
+    private void assertUsesIndex(String table) {
+        List<String> statements = CapturingInspector.STATEMENTS.get();
+        assertEquals(1, statements.size(), "Expected exactly one statement: " + statements);
+        
+        // Plain EXPLAIN only plans the statement, so its parameters can stay unbound
+        String plan = String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + statements.get(0), String.class));
+        assertTrue(plan.toUpperCase().contains("\"PUBLIC\".\"" + table + "\""), "Expected " + table + " in plan:\n" + plan);
+        assertFalse(plan.toUpperCase().contains("PUBLIC." + table + ".TABLESCAN"),
+                "Expected an index on " + table + " in plan:\n" + plan);
+    }
+    
+    public static class CapturingInspector implements StatementInspector {
+        
+        static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+        
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.get().add(sql);
+            return sql;
+        }
+    }
+}
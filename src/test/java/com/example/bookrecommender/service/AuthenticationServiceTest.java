@@ -10,6 +10,7 @@ import com.example.bookrecommender.security.JwtUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -39,6 +40,9 @@ class AuthenticationServiceTest {
     @Mock
     private AuthenticationManager authenticationManager;
     
+    @Mock
+    private AdminRoleService adminRoleService;
+    
     @InjectMocks
     private AuthenticationService authenticationService;
     
@@ -89,6 +93,19 @@ class AuthenticationServiceTest {
         verify(passwordEncoder).encode("password123");
     }
     
+    @Test
+    void testRegisterGrantsAdminRoleToListedEmail() {
+        when(userRepository.existsByEmail(anyString())).thenReturn(false);
+        when(passwordEncoder.encode(anyString())).thenReturn("encodedPassword");
+        when(adminRoleService.roleFor("test@example.com")).thenReturn(User.ROLE_ADMIN);
+        
+        authenticationService.register(registerRequest);
+        
+        ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
+        verify(userRepository).save(saved.capture());
+        assertEquals(User.ROLE_ADMIN, saved.getValue().getRole());
+    }
+    
     @Test
     void testRegisterDuplicateEmail() {
         when(userRepository.existsByEmail(anyString())).thenReturn(true);
@@ -118,6 +135,7 @@ class AuthenticationServiceTest {
         
         verify(authenticationManager).authenticate(any(UsernamePasswordAuthenticationToken.class));
         verify(userRepository).findByEmail("test@example.com");
+        verify(adminRoleService).promoteIfListed(user);
     }
     
     @Test
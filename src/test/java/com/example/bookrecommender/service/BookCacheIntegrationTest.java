@@ -0,0 +1,128 @@
+package com.example.bookrecommender.service;
+
+import com.example.bookrecommender.dto.RatingRequest;
+import com.example.bookrecommender.entity.Book;
+import com.example.bookrecommender.entity.User;
+import com.example.bookrecommender.monitoring.SqlStatementCounter;
+import com.example.bookrecommender.repository.BookRepository;
+import com.example.bookrecommender.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Every repository call below runs in its own session, so anything served without SQL came
+// from the second-level or query cache rather than from a persistence context
+@SpringBootTest
+class BookCacheIntegrationTest {
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private BookCacheService bookCacheService;
+    
+    @Autowired
+    private UserBookService userBookService;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private String genre;
+    private List<Book> books;
+    private User user;
+    
+    @BeforeEach
+    void setUp() {
+        genre = "Cache " + UUID.randomUUID();
+        books = new ArrayList<>(bookRepository.saveAll(List.of(book("First"), book("Second"))));
+    }
+    
+    @AfterEach
+    void tearDown() {
+        if (user != null) {
+            jdbcTemplate.update("DELETE FROM user_books WHERE user_id = ?", user.getId());
+            userRepository.deleteById(user.getId());
+        }
+        bookRepository.deleteAllById(books.stream().map(Book::getId).toList());
+    }
+    
+    @Test
+    void testWarmBooksAreReadWithoutSql() {
+        Long id = books.get(0).getId();
+        bookRepository.findById(id);
+        
+        long before = SqlStatementCounter.get();
+        assertTrue(bookRepository.findById(id).isPresent());
+        assertEquals(2, bookRepository.findAllById(books.stream().map(Book::getId).toList()).size());
+        assertEquals(before, SqlStatementCounter.get());
+    }
+    
+    @Test
+    void testGenreLookupIsServedFromQueryCache() {
+        bookRepository.findByGenreIn(List.of(genre));
+        
+        long before = SqlStatementCounter.get();
+        assertEquals(2, bookRepository.findByGenreIn(List.of(genre)).size());
+        assertEquals(before, SqlStatementCounter.get());
+    }
+    
+    @Test
+    void testRatingKeepsGenreLookupCached() {
+        Book rated = books.get(0);
+        user = userRepository.save(User.builder()
+                .email(UUID.randomUUID() + "@test.example")
+                .password("password123")
+                .name("Cache Reader")
+                .build());
+        userBookService.addBookToUser(user, rated.getId());
+        bookRepository.findByGenreIn(List.of(genre));
+        userBookService.rateBook(user, rated.getId(), RatingRequest.builder().rating(4).build());
+        // The rating evicted the book; reading it caches it again with the new average
+        assertEquals(4.0, bookRepository.findById(rated.getId()).orElseThrow().getAverageRating());
+        
+        long before = SqlStatementCounter.get();
+        assertEquals(2, bookRepository.findByGenreIn(List.of(genre)).size());
+        assertEquals(before, SqlStatementCounter.get());
+    }
+    
+    @Test
+    void testQueryCacheSeesBooksAddedThroughHibernate() {
+        bookRepository.findByGenreIn(List.of(genre));
+        books.add(bookRepository.save(book("Third")));
+        
+        assertEquals(3, bookRepository.findByGenreIn(List.of(genre)).size());
+    }
+    
+    @Test
+    void testJdbcUpdateIsVisibleAfterEviction() {
+        Long id = books.get(0).getId();
+        bookRepository.findById(id);
+        jdbcTemplate.update("UPDATE books SET average_rating = 4.5 WHERE id = ?", id);
+        
+        // Hibernate did not see the JDBC write, so the cache still has the old row
+        assertEquals(0.0, bookRepository.findById(id).orElseThrow().getAverageRating());
+        
+        bookCacheService.evictBooks(List.of(id));
+        assertEquals(4.5, bookRepository.findById(id).orElseThrow().getAverageRating());
+    }
+    
+    private Book book(String title) {
+        return Book.builder()
+                .title(title)
+                .author("Cache Author")
+                .genre(genre)
+                .build();
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.bookrecommender.service;
+
+import com.example.bookrecommender.client.CachingClientHttpRequestInterceptor;
+import com.example.bookrecommender.client.DiskResponseCache;
+import com.example.bookrecommender.client.HostRateLimiter;
+import com.example.bookrecommender.entity.Book;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookDescriptionEnrichmentServiceTest {
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
+    @Mock
+    private BookCacheService bookCacheService;
+    
+    @Mock
+    private ContentSimilarityService contentSimilarityService;
+    
+    @InjectMocks
+    private BookDescriptionEnrichmentService enrichmentService;
+    
+    @TempDir
+    Path cacheDirectory;
+    
+    private HttpServer stub;
+    private final AtomicInteger requests = new AtomicInteger();
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.createContext("/works/", exchange -> {
+            requests.incrementAndGet();
+            String path = exchange.getRequestURI().getPath();
+            byte[] body;
+            int status;
+            if (path.equals("/works/OL1W.json")) {
+                status = 200;
+                body = "{\"description\": \"A plain string description.\"}".getBytes(StandardCharsets.UTF_8);
+            } else if (path.equals("/works/OL2W.json")) {
+                status = 200;
+                body = "{\"description\": {\"type\": \"/type/text\", \"value\": \"A typed description.\"}}"
+                        .getBytes(StandardCharsets.UTF_8);
+            } else {
+                status = 404;
+                body = "{}".getBytes(StandardCharsets.UTF_8);
+            }
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stub.start();
+        
+        ReflectionTestUtils.setField(enrichmentService, "objectMapper", new ObjectMapper());
+        ReflectionTestUtils.setField(enrichmentService, "baseUrl", "http://localhost:" + stub.getAddress().getPort());
+        RestTemplate openLibraryRestTemplate = new RestTemplate();
+        openLibraryRestTemplate.getInterceptors().add(new CachingClientHttpRequestInterceptor(
+                new DiskResponseCache(cacheDirectory), Duration.ofDays(7), false, new HostRateLimiter(100)));
+        ReflectionTestUtils.setField(enrichmentService, "openLibraryRestTemplate", openLibraryRestTemplate);
+        ReflectionTestUtils.setField(enrichmentService, "enabled", true);
+        ReflectionTestUtils.setField(enrichmentService, "concurrency", 2);
+        ReflectionTestUtils.setField(enrichmentService, "maxAttempts", 2);
+        ReflectionTestUtils.setField(enrichmentService, "initialBackoffMs", 1L);
+        ReflectionTestUtils.setField(enrichmentService, "batchSize", 50);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        stub.stop(0);
+    }
+    
+    @Test
+    void testEnrichDescriptionsUpdatesBooksInOneBatch() {
+        List<Book> books = List.of(book(1L, "/works/OL1W"), book(2L, "/works/OL2W"), book(3L, "/works/OL3W"));
+        
+        int updated = enrichmentService.enrichDescriptions(books);
+        
+        assertEquals(2, updated);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> batch = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq("UPDATE books SET description = ? WHERE id = ?"), batch.capture());
+        assertEquals(2, batch.getValue().size());
+        assertTrue(batch.getValue().stream().anyMatch(row -> "A typed description.".equals(row[0]) && row[1].equals(2L)));
+        // The JDBC update bypasses Hibernate, so the cached books have to be evicted explicitly
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Long>> evicted = ArgumentCaptor.forClass(List.class);
+        verify(bookCacheService).evictBooks(evicted.capture());
+        assertEquals(2, evicted.getValue().size());
+        verify(contentSimilarityService).invalidate();
+    }
+    
+    @Test
+    void testEnrichDescriptionsServesRerunsFromDiskCache() {
+        List<Book> books = List.of(book(1L, "/works/OL1W"), book(3L, "/works/OL3W"));
+        
+        enrichmentService.enrichDescriptions(books);
+        int requestsAfterFirstRun = requests.get();
+        enrichmentService.enrichDescriptions(books);
+        
+        assertEquals(2, requestsAfterFirstRun);
+        assertEquals(requestsAfterFirstRun, requests.get());
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+    }
+    
+    @Test
+    void testFailedLookupKeepsOtherDescriptions() {
+        RestTemplate openLibraryRestTemplate = (RestTemplate) ReflectionTestUtils.getField(
+                enrichmentService, "openLibraryRestTemplate");
+        // An exception the retry loop doesn't handle
+        openLibraryRestTemplate.getInterceptors().add(0, (request, body, execution) -> {
+            if (request.getURI().getPath().equals("/works/OL4W.json")) {
+                throw new IllegalStateException("Unexpected failure");
+            }
+            return execution.execute(request, body);
+        });
+        List<Book> books = List.of(book(1L, "/works/OL1W"), book(4L, "/works/OL4W"), book(2L, "/works/OL2W"));
+        
+        int updated = enrichmentService.enrichDescriptions(books);
+        
+        assertEquals(2, updated);
+        verify(jdbcTemplate).batchUpdate(anyString(), anyList());
+    }
+    
+    @Test
+    void testOfflineCacheMissIsNotRetried() {
+        RestTemplate offline = new RestTemplate();
+        offline.getInterceptors().add(new CachingClientHttpRequestInterceptor(
+                new DiskResponseCache(cacheDirectory), Duration.ofDays(7), true, new HostRateLimiter(100)));
+        ReflectionTestUtils.setField(enrichmentService, "openLibraryRestTemplate", offline);
+        ReflectionTestUtils.setField(enrichmentService, "maxAttempts", 4);
+        ReflectionTestUtils.setField(enrichmentService, "initialBackoffMs", 1000L);
+        
+        // Backing off between four attempts would take several seconds
+        int updated = assertTimeout(Duration.ofSeconds(1),
+                () -> enrichmentService.enrichDescriptions(List.of(book(1L, "/works/OL1W"))));
+        
+        assertEquals(0, updated);
+        assertEquals(0, requests.get());
+    }
+    
+    private Book book(Long id, String key) {
+        return Book.builder()
+                .id(id)
+                .title("Book " + id)
+                .author("Author")
+                .genre("Fiction")
+                .openLibraryKey(key)
+                .build();
+    }
+}
@@ -28,7 +28,7 @@ class BookImportServiceTest {
 
         // Import should be skipped
         // Just verify that count was called
-        bookImportService.run(null);
+        bookImportService.importBooksIfEmpty();
 
         verify(bookRepository, times(1)).count();
         // Verify no books were saved since import was skipped
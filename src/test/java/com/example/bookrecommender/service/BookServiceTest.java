@@ -36,6 +36,18 @@ class BookServiceTest {
     @Mock
     private UserBookRepository userBookRepository;
     
+    @Mock
+    private TasteProfileService tasteProfileService;
+    
+    @Mock
+    private BookCatalogService bookCatalogService;
+    
+    @Mock
+    private AlsModelService alsModelService;
+    
+    @Mock
+    private ContentSimilarityService contentSimilarityService;
+    
     @InjectMocks
     private BookService bookService;
     
@@ -124,6 +136,9 @@ class BookServiceTest {
         assertEquals("Test Author", result.getAuthor());
         
         verify(bookRepository).save(any(Book.class));
+        verify(bookCatalogService).bookSaved(book);
+        verify(alsModelService).bookAdded(book.getId(), book.getGenre());
+        verify(contentSimilarityService).bookSaved(book);
     }
     
     @Test
@@ -138,6 +153,7 @@ class BookServiceTest {
         
         verify(bookRepository).findById(1L);
         verify(bookRepository).save(any(Book.class));
+        verify(contentSimilarityService).bookSaved(book);
     }
     
     @Test
@@ -161,6 +177,9 @@ class BookServiceTest {
         
         verify(bookRepository).existsById(1L);
         verify(bookRepository).deleteById(1L);
+        verify(bookCatalogService).bookRemoved(1L);
+        verify(alsModelService).bookRemoved(1L);
+        verify(contentSimilarityService).bookRemoved(1L);
     }
     
     @Test
@@ -0,0 +1,117 @@
+package com.example.bookrecommender.service;
+
+import com.example.bookrecommender.BookrecommenderApplication;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Starts several application instances against one shared H2 file database. The instances
+// are shared by the tests, so each test works on its own lock name.
+class LeaderLockServiceIntegrationTest {
+    
+    private static final int INSTANCES = 3;
+    
+    @TempDir
+    static Path databaseDir;
+    
+    private static final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    
+    @BeforeAll
+    static void startInstances() {
+        String url = "jdbc:h2:file:" + databaseDir.resolve("shared").toAbsolutePath();
+        // Started one after another so the schema migrations don't race; the lock is exercised below
+        for (int i = 0; i < INSTANCES; i++) {
+            contexts.add(new SpringApplicationBuilder(BookrecommenderApplication.class).run(
+                    "--spring.datasource.url=" + url,
+                    "--server.port=0",
+                    // JCache shares one cache manager per JVM; closing these instances would close it for other tests
+                    "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                    "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                    "--book.import.enabled=false",
+                    // Renewed every third of the lease, so the heartbeat test only has to wait a few leases
+                    "--startup.leader-lock.lease=1s"));
+        }
+    }
+    
+    @AfterAll
+    static void stopInstances() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+    }
+    
+    @Test
+    void testExactlyOneInstanceAcquiresLock() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(INSTANCES);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (LeaderLockService service : services()) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return service.tryAcquire("concurrent-lock");
+                }));
+            }
+            start.countDown();
+            
+            int acquired = 0;
+            for (Future<Boolean> result : results) {
+                if (result.get()) {
+                    acquired++;
+                }
+            }
+            assertEquals(1, acquired);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    @Test
+    void testReleasedLockCanBeTakenOver() {
+        List<LeaderLockService> services = services();
+        LeaderLockService leader = services.get(0);
+        LeaderLockService follower = services.get(1);
+        
+        assertTrue(leader.tryAcquire("takeover-lock"));
+        assertFalse(follower.tryAcquire("takeover-lock"));
+        
+        leader.release("takeover-lock");
+        
+        assertTrue(follower.tryAcquire("takeover-lock"));
+        assertFalse(leader.tryAcquire("takeover-lock"));
+    }
+    
+    @Test
+    void testHeartbeatKeepsLeaseAlive() throws InterruptedException {
+        List<LeaderLockService> services = services();
+        
+        assertTrue(services.get(0).tryAcquire("heartbeat-lock"));
+        // Well past the 1s lease; only renewals keep the other instance out
+        Thread.sleep(2500);
+        
+        assertFalse(services.get(1).tryAcquire("heartbeat-lock"));
+    }
+    
+    @Test
+    void testStartupLockIsReleasedAfterSeeding() {
+        // The seeding coordinator hands the lock back once startup seeding is done
+        assertTrue(services().get(INSTANCES - 1).tryAcquire(LeaderLockService.STARTUP_LOCK));
+    }
+    
+    private static List<LeaderLockService> services() {
+        return contexts.stream()
+                .map(context -> context.getBean(LeaderLockService.class))
+                .toList();
+    }
+}
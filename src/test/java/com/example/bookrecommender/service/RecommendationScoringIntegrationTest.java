@@ -0,0 +1,115 @@
+package com.example.bookrecommender.service;
+
+import com.example.bookrecommender.dto.BookResponse;
+import com.example.bookrecommender.dto.RatingRequest;
+import com.example.bookrecommender.entity.Book;
+import com.example.bookrecommender.entity.User;
+import com.example.bookrecommender.repository.BookRepository;
+import com.example.bookrecommender.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// All scoring modes against the same data: the SQL statement and the catalog scan must rank
+// exactly like the JVM code
+@SpringBootTest
+class RecommendationScoringIntegrationTest {
+    
+    @Autowired
+    private RecommendationService recommendationService;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private UserBookService userBookService;
+    
+    @Autowired
+    private BookCatalogService bookCatalogService;
+    
+    private final List<Book> books = new ArrayList<>();
+    private User user;
+    private String genre;
+    private String author;
+    
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString();
+        genre = "Scoring Genre " + suffix;
+        author = "Scoring Author " + suffix;
+        String otherGenre = "Other Genre " + suffix;
+        String otherAuthor = "Other Author " + suffix;
+        
+        user = userRepository.save(User.builder()
+                .email("scoring-" + suffix + "@example.com")
+                .password("password")
+                .name("Scoring User")
+                .build());
+        Book read = book("Read", genre, author, 4.0);
+        book("Genre and author", genre, author, 3.0);
+        book("Genre only", genre, otherAuthor, 4.5);
+        book("Author only", otherGenre, author, 1.0);
+        book("Genre, unrated", genre, otherAuthor, null);
+        book("Neither", otherGenre, otherAuthor, 5.0);
+        // Through the service, so the rating reaches the user's taste profile
+        userBookService.addBookToUser(user, read.getId());
+        userBookService.rateBook(user, read.getId(), RatingRequest.builder().rating(5).build());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        setScoring(RecommendationService.Scoring.JVM);
+        userRepository.deleteById(user.getId());
+        bookRepository.deleteAllById(books.stream().map(Book::getId).toList());
+    }
+    
+    @Test
+    void testSqlAndCatalogScoringRankLikeJvmScoring() {
+        List<String> expected = List.of("Genre and author", "Genre only", "Author only", "Genre, unrated");
+        
+        setScoring(RecommendationService.Scoring.JVM);
+        assertEquals(expected, titles(recommendationService.getRecommendations(user)));
+        
+        setScoring(RecommendationService.Scoring.SQL);
+        assertEquals(expected, titles(recommendationService.getRecommendations(user)));
+        
+        // The books were saved through the repository, which a catalog loaded by another test never saw
+        bookCatalogService.invalidate();
+        setScoring(RecommendationService.Scoring.CATALOG);
+        assertEquals(expected, titles(recommendationService.getRecommendations(user)));
+    }
+    
+    private void setScoring(RecommendationService.Scoring scoring) {
+        // Typed as Object: inferred as Class, the target would pick setField's static-field overload
+        Object target = AopTestUtils.getUltimateTargetObject(recommendationService);
+        ReflectionTestUtils.setField(target, "scoring", scoring);
+    }
+    
+    private Book book(String title, String genre, String author, Double averageRating) {
+        Book book = bookRepository.save(Book.builder()
+                .title(title)
+                .author(author)
+                .genre(genre)
+                .averageRating(averageRating)
+                .build());
+        books.add(book);
+        return book;
+    }
+    
+    private static List<String> titles(List<BookResponse> recommendations) {
+        return recommendations.stream().map(BookResponse::getTitle).toList();
+    }
+}
@@ -1,11 +1,10 @@
 package com.example.bookrecommender.service;
 
+import com.example.bookrecommender.catalog.CompressedBitmap;
 import com.example.bookrecommender.dto.BookResponse;
 import com.example.bookrecommender.entity.Book;
 import com.example.bookrecommender.entity.User;
-import com.example.bookrecommender.entity.UserBook;
 import com.example.bookrecommender.repository.BookRepository;
-import com.example.bookrecommender.repository.UserBookRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -14,8 +13,8 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -25,10 +24,16 @@ import static org.mockito.Mockito.*;
 class RecommendationServiceTest {
     
     @Mock
-    private UserBookRepository userBookRepository;
+    private BookRepository bookRepository;
     
     @Mock
-    private BookRepository bookRepository;
+    private TasteProfileService tasteProfileService;
+    
+    @Mock
+    private ReadSetService readSetService;
+    
+    @Mock
+    private ContentSimilarityService contentSimilarityService;
     
     @InjectMocks
     private RecommendationService recommendationService;
@@ -37,7 +42,6 @@ class RecommendationServiceTest {
     private Book book1;
     private Book book2;
     private Book book3;
-    private UserBook userBook1;
     
     @BeforeEach
     void setUp() {
@@ -75,22 +79,12 @@ class RecommendationServiceTest {
                 .averageRating(4.2)
                 .createdAt(LocalDateTime.now())
                 .build();
-        
-        userBook1 = UserBook.builder()
-                .id(1L)
-                .user(user)
-                .book(book1)
-                .rating(5)
-                .readAt(LocalDateTime.now())
-                .isFavorite(true)
-                .build();
     }
     
     @Test
     void testGetRecommendationsWithPreferences() {
-        when(userBookRepository.findFavoriteGenresByUserId(1L)).thenReturn(List.of("Fiction"));
-        when(userBookRepository.findFavoriteAuthorsByUserId(1L)).thenReturn(List.of("Author A"));
-        when(userBookRepository.findByUserId(1L)).thenReturn(List.of(userBook1));
+        when(tasteProfileService.getProfile(1L)).thenReturn(new TasteProfileService.Profile(Map.of("Fiction", 1.0), Map.of("Author A", 1.0)));
+        when(readSetService.getReadBooks(1L)).thenReturn(CompressedBitmap.of(1));
         when(bookRepository.findByGenreIn(List.of("Fiction"))).thenReturn(List.of(book1, book2));
         when(bookRepository.findByAuthorIn(List.of("Author A"))).thenReturn(List.of(book1, book2));
         when(bookRepository.findAllById(List.of(2L))).thenReturn(List.of(book2));
@@ -102,8 +96,7 @@ class RecommendationServiceTest {
         assertEquals(1, recommendations.size());
         assertEquals(book2.getId(), recommendations.get(0).getId());
         
-        verify(userBookRepository).findFavoriteGenresByUserId(1L);
-        verify(userBookRepository).findFavoriteAuthorsByUserId(1L);
+        verify(tasteProfileService).getProfile(1L);
         verify(bookRepository).findByGenreIn(List.of("Fiction"));
         verify(bookRepository).findByAuthorIn(List.of("Author A"));
         verify(bookRepository).findAllById(List.of(2L));
@@ -111,25 +104,22 @@ class RecommendationServiceTest {
     
     @Test
     void testGetRecommendationsNoPreferences() {
-        when(userBookRepository.findFavoriteGenresByUserId(1L)).thenReturn(new ArrayList<>());
-        when(userBookRepository.findFavoriteAuthorsByUserId(1L)).thenReturn(new ArrayList<>());
-        when(userBookRepository.findByUserId(1L)).thenReturn(List.of(userBook1));
+        when(tasteProfileService.getProfile(1L)).thenReturn(new TasteProfileService.Profile(Map.of(), Map.of()));
+        when(readSetService.getReadBooks(1L)).thenReturn(CompressedBitmap.of(1));
         when(bookRepository.findAll()).thenReturn(List.of(book1, book2, book3));
         
         List<BookResponse> recommendations = recommendationService.getRecommendations(user);
         
         assertNotNull(recommendations);
         
-        verify(userBookRepository).findFavoriteGenresByUserId(1L);
-        verify(userBookRepository).findFavoriteAuthorsByUserId(1L);
+        verify(tasteProfileService).getProfile(1L);
         verify(bookRepository).findAll();
     }
     
     @Test
     void testGetRecommendationsExcludesReadBooks() {
-        when(userBookRepository.findFavoriteGenresByUserId(1L)).thenReturn(List.of("Fiction"));
-        when(userBookRepository.findFavoriteAuthorsByUserId(1L)).thenReturn(List.of("Author A"));
-        when(userBookRepository.findByUserId(1L)).thenReturn(List.of(userBook1));
+        when(tasteProfileService.getProfile(1L)).thenReturn(new TasteProfileService.Profile(Map.of("Fiction", 1.0), Map.of("Author A", 1.0)));
+        when(readSetService.getReadBooks(1L)).thenReturn(CompressedBitmap.of(1));
         when(bookRepository.findByGenreIn(List.of("Fiction"))).thenReturn(List.of(book1, book2));
         when(bookRepository.findByAuthorIn(List.of("Author A"))).thenReturn(List.of(book1, book2));
         
@@ -139,7 +129,22 @@ class RecommendationServiceTest {
         // Should not contain book1 (id=1) as it's already read
         assertTrue(recommendations.stream().noneMatch(b -> b.getId().equals(1L)));
         
-        verify(userBookRepository).findByUserId(1L);
+        verify(readSetService).getReadBooks(1L);
+    }
+    
+    @Test
+    void testStrongerAffinityOutranksHigherAverageRating() {
+        // One 4-star rating in Fiction, one 5-star in Non-Fiction
+        when(tasteProfileService.getProfile(1L)).thenReturn(new TasteProfileService.Profile(
+                Map.of("Fiction", 0.5, "Non-Fiction", 1.0), Map.of()));
+        when(readSetService.getReadBooks(1L)).thenReturn(CompressedBitmap.of(1));
+        when(bookRepository.findByGenreIn(List.of("Fiction", "Non-Fiction"))).thenReturn(List.of(book1, book2, book3));
+        when(bookRepository.findAllById(List.of(3L, 2L))).thenReturn(List.of(book2, book3));
+        
+        List<BookResponse> recommendations = recommendationService.getRecommendations(user);
+        
+        // book3: 2.0 * 1.0 + 4.2 = 6.2, book2: 2.0 * 0.5 + 4.8 = 5.8
+        assertEquals(List.of(3L, 2L), recommendations.stream().map(BookResponse::getId).toList());
     }
     
     @Test
@@ -158,9 +163,8 @@ class RecommendationServiceTest {
                 .createdAt(LocalDateTime.now())
                 .build();
         
-        when(userBookRepository.findFavoriteGenresByUserId(1L)).thenReturn(List.of("Fantasy"));
-        when(userBookRepository.findFavoriteAuthorsByUserId(1L)).thenReturn(new ArrayList<>());
-        when(userBookRepository.findByUserId(1L)).thenReturn(new ArrayList<>());
+        when(tasteProfileService.getProfile(1L)).thenReturn(new TasteProfileService.Profile(Map.of("Fantasy", 1.0), Map.of()));
+        when(readSetService.getReadBooks(1L)).thenReturn(new CompressedBitmap());
         when(bookRepository.findByGenreIn(List.of("Fantasy"))).thenReturn(List.of(bookWithAllFields));
         when(bookRepository.findAllById(List.of(4L))).thenReturn(List.of(bookWithAllFields));
         
@@ -0,0 +1,109 @@
+package com.example.bookrecommender.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StartupSeedingCoordinatorTest {
+    
+    @Mock
+    private UserSeederService userSeederService;
+    
+    @Mock
+    private BookImportService bookImportService;
+    
+    @Mock
+    private DataSeeder dataSeeder;
+    
+    @Mock
+    private SyntheticDatasetGenerator syntheticDatasetGenerator;
+    
+    @Mock
+    private LeaderLockService leaderLockService;
+    
+    @Mock
+    private ApplicationContext applicationContext;
+    
+    @InjectMocks
+    private StartupSeedingCoordinator coordinator;
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(coordinator, "async", false);
+    }
+    
+    @Test
+    void testRunsStagesInOrderAndReleasesLock() {
+        when(leaderLockService.tryAcquire(LeaderLockService.STARTUP_LOCK)).thenReturn(true);
+        
+        coordinator.run(null);
+        
+        InOrder order = inOrder(userSeederService, bookImportService, dataSeeder, leaderLockService);
+        order.verify(userSeederService).seedUsers();
+        order.verify(bookImportService).importBooksIfEmpty();
+        order.verify(dataSeeder).seedDemoData();
+        order.verify(leaderLockService).release(LeaderLockService.STARTUP_LOCK);
+        assertTrue(coordinator.isSeedingComplete());
+        assertEquals(List.of("users", "books", "libraries"), List.copyOf(coordinator.getStageDurations().keySet()));
+    }
+    
+    @Test
+    void testGeneratesSyntheticDatasetBeforeOtherStages() {
+        when(leaderLockService.tryAcquire(LeaderLockService.STARTUP_LOCK)).thenReturn(true);
+        when(syntheticDatasetGenerator.isEnabled()).thenReturn(true);
+        
+        coordinator.run(null);
+        
+        InOrder order = inOrder(syntheticDatasetGenerator, userSeederService, bookImportService);
+        order.verify(syntheticDatasetGenerator).generateIfEmpty();
+        order.verify(userSeederService).seedUsers();
+        order.verify(bookImportService).importBooksIfEmpty();
+        assertEquals(List.of("synthetic", "users", "books", "libraries"),
+                List.copyOf(coordinator.getStageDurations().keySet()));
+    }
+    
+    @Test
+    void testSkipsSeedingWhenAnotherInstanceHoldsLock() {
+        when(leaderLockService.tryAcquire(LeaderLockService.STARTUP_LOCK)).thenReturn(false);
+        
+        coordinator.run(null);
+        
+        verifyNoInteractions(syntheticDatasetGenerator, userSeederService, bookImportService, dataSeeder);
+        verify(leaderLockService, never()).release(any());
+        assertTrue(coordinator.isSeedingComplete());
+    }
+    
+    @Test
+    void testRefusesTrafficUntilSeedingCompletes() {
+        when(leaderLockService.tryAcquire(LeaderLockService.STARTUP_LOCK)).thenReturn(true);
+        
+        // Application reports ready before the background seed phase has finished
+        coordinator.onReadinessChange(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+        verify(applicationContext).publishEvent(argThat((ApplicationEvent event) -> isReadiness(event, ReadinessState.REFUSING_TRAFFIC)));
+        
+        coordinator.run(null);
+        
+        verify(applicationContext).publishEvent(argThat((ApplicationEvent event) -> isReadiness(event, ReadinessState.ACCEPTING_TRAFFIC)));
+    }
+    
+    private static boolean isReadiness(ApplicationEvent event, ReadinessState state) {
+        return event instanceof AvailabilityChangeEvent<?> change && change.getState() == state;
+    }
+}
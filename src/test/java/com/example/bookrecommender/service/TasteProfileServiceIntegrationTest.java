@@ -0,0 +1,176 @@
+package com.example.bookrecommender.service;
+
+import com.example.bookrecommender.dto.BookRequest;
+import com.example.bookrecommender.dto.RatingRequest;
+import com.example.bookrecommender.entity.Book;
+import com.example.bookrecommender.entity.User;
+import com.example.bookrecommender.repository.BookRepository;
+import com.example.bookrecommender.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// The incrementally maintained profile must always equal one rebuilt from user_books
+@SpringBootTest
+class TasteProfileServiceIntegrationTest {
+    
+    @Autowired
+    private TasteProfileService tasteProfileService;
+    
+    @Autowired
+    private UserBookService userBookService;
+    
+    @Autowired
+    private BookService bookService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private BookRepository bookRepository;
+    
+    private final List<Book> books = new ArrayList<>();
+    private User user;
+    private String suffix;
+    
+    @BeforeEach
+    void setUp() {
+        suffix = UUID.randomUUID().toString();
+        user = userRepository.save(User.builder()
+                .email("taste-" + suffix + "@example.com")
+                .password("password")
+                .name("Taste User")
+                .build());
+    }
+    
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getId());
+        bookRepository.deleteAllById(books.stream().map(Book::getId).toList());
+    }
+    
+    @Test
+    void testRatingChangesUpdateProfile() {
+        Book first = book("Fantasy", "Le Guin");
+        Book second = book("Fantasy", "Jemisin");
+        Book third = book("Horror", "Jackson");
+        rate(first, 5);
+        rate(second, 4);
+        rate(third, 2);
+        
+        TasteProfileService.Profile profile = tasteProfileService.getProfile(user.getId());
+        assertEquals(Map.of(genre("Fantasy"), 1.5), profile.genres());
+        assertEquals(Map.of(author("Le Guin"), 1.0, author("Jemisin"), 0.5), profile.authors());
+        assertEquals(1.0, profile.genreAffinity(genre("Fantasy")));
+        assertProfileMatchesRebuild();
+        
+        rate(second, 1);
+        userBookService.removeRating(user, first.getId());
+        userBookService.removeBookFromUser(user, third.getId());
+        
+        assertTrue(tasteProfileService.getProfile(user.getId()).isEmpty());
+        assertProfileMatchesRebuild();
+    }
+    
+    @Test
+    void testBookChangesMoveRatings() {
+        Book first = book("Fantasy", "Le Guin");
+        Book second = book("Fantasy", "Le Guin");
+        rate(first, 5);
+        rate(second, 5);
+        
+        BookRequest update = new BookRequest();
+        update.setTitle(first.getTitle());
+        update.setAuthor(author("Le Guin"));
+        update.setGenre(genre("Science Fiction"));
+        bookService.updateBook(first.getId(), update);
+        bookService.deleteBook(second.getId());
+        books.remove(second);
+        
+        TasteProfileService.Profile profile = tasteProfileService.getProfile(user.getId());
+        assertEquals(Map.of(genre("Science Fiction"), 1.0), profile.genres());
+        assertEquals(Map.of(author("Le Guin"), 1.0), profile.authors());
+        assertProfileMatchesRebuild();
+    }
+    
+    @Test
+    void testConcurrentRatingsAreAllCounted() throws Exception {
+        int threads = 8;
+        List<Book> rated = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Book book = book("Fantasy", "Le Guin");
+            userBookService.addBookToUser(user, book.getId());
+            rated.add(book);
+        }
+        
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        try {
+            for (Book book : rated) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return userBookService.rateBook(user, book.getId(), RatingRequest.builder().rating(5).build());
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        TasteProfileService.Profile profile = tasteProfileService.getProfile(user.getId());
+        assertEquals(Map.of(genre("Fantasy"), (double) threads), profile.genres());
+        assertEquals(Map.of(author("Le Guin"), (double) threads), profile.authors());
+        assertProfileMatchesRebuild();
+    }
+    
+    private void assertProfileMatchesRebuild() {
+        TasteProfileService.Profile incremental = tasteProfileService.getProfile(user.getId());
+        tasteProfileService.rebuild(user.getId());
+        assertEquals(tasteProfileService.getProfile(user.getId()), incremental);
+    }
+    
+    private void rate(Book book, int rating) {
+        boolean inLibrary = userBookService.getUserBooks(user).stream()
+                .anyMatch(entry -> entry.getBook().getId().equals(book.getId()));
+        if (!inLibrary) {
+            userBookService.addBookToUser(user, book.getId());
+        }
+        userBookService.rateBook(user, book.getId(), RatingRequest.builder().rating(rating).build());
+    }
+    
+    private Book book(String genre, String author) {
+        Book book = bookRepository.save(Book.builder()
+                .title("Taste " + UUID.randomUUID())
+                .author(author(author))
+                .genre(genre(genre))
+                .build());
+        books.add(book);
+        return book;
+    }
+    
+    // Names are unique per test so other tests' ratings in the shared database don't interfere
+    private String genre(String name) {
+        return name + " " + suffix;
+    }
+    
+    private String author(String name) {
+        return name + " " + suffix;
+    }
+}
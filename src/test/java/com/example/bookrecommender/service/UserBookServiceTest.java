@@ -15,6 +15,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -34,6 +35,24 @@ class UserBookServiceTest {
     @Mock
     private BookRepository bookRepository;
     
+    @Mock
+    private TasteProfileService tasteProfileService;
+    
+    @Mock
+    private BookCatalogService bookCatalogService;
+    
+    @Mock
+    private ReadSetService readSetService;
+    
+    @Mock
+    private RatingMatrixService ratingMatrixService;
+    
+    @Mock
+    private BookCacheService bookCacheService;
+    
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    
     @InjectMocks
     private UserBookService userBookService;
     
@@ -99,6 +118,7 @@ class UserBookServiceTest {
         verify(userBookRepository).existsByUserIdAndBookId(1L, 1L);
         verify(bookRepository).findById(1L);
         verify(userBookRepository).save(any(UserBook.class));
+        verify(readSetService).bookAdded(1L, 1L);
     }
     
     @Test
@@ -135,7 +155,7 @@ class UserBookServiceTest {
         when(userBookRepository.findByUserIdAndBookId(1L, 1L)).thenReturn(Optional.of(userBook));
         when(userBookRepository.save(any(UserBook.class))).thenReturn(userBook);
         when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
-        when(bookRepository.save(any(Book.class))).thenReturn(book);
+        when(userBookRepository.findRatingAggregate(1L)).thenReturn(ratingAggregate(1, 1, 5.0));
         
         UserBookResponse result = userBookService.rateBook(user, 1L, ratingRequest);
         
@@ -145,7 +165,11 @@ class UserBookServiceTest {
         verify(userBookRepository).findByUserIdAndBookId(1L, 1L);
         verify(userBookRepository).save(any(UserBook.class));
         verify(bookRepository).findById(1L);
-        verify(bookRepository).save(any(Book.class));
+        verify(jdbcTemplate).update("UPDATE books SET average_rating = ? WHERE id = ?", 5.0, 1L);
+        verify(bookCacheService).evictBooks(List.of(1L));
+        assertEquals(5.0, book.getAverageRating());
+        verify(tasteProfileService).recordRatingChange(1L, "Fiction", "Test Author", 4, 5);
+        verify(ratingMatrixService).ratingChanged(1L, 1L, 5);
     }
     
     @Test
@@ -169,12 +193,16 @@ class UserBookServiceTest {
         when(userBookRepository.findByUserIdAndBookId(1L, 1L)).thenReturn(Optional.of(userBook));
         book.setUserBooks(List.of());
         when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
+        when(userBookRepository.findRatingAggregate(1L)).thenReturn(ratingAggregate(0, 0, null));
         
         userBookService.removeBookFromUser(user, 1L);
         
         verify(userBookRepository).findByUserIdAndBookId(1L, 1L);
         verify(userBookRepository).delete(userBook);
         verify(bookRepository).findById(1L);
+        assertEquals(0.0, book.getAverageRating());
+        verify(tasteProfileService).recordRatingChange(1L, "Fiction", "Test Author", 4, null);
+        verify(readSetService).bookRemoved(1L, 1L);
     }
     
     @Test
@@ -197,7 +225,7 @@ class UserBookServiceTest {
         when(userBookRepository.findByUserIdAndBookId(1L, 1L)).thenReturn(Optional.of(userBook));
         when(userBookRepository.save(any(UserBook.class))).thenReturn(userBook);
         when(bookRepository.findById(1L)).thenReturn(Optional.of(book));
-        when(bookRepository.save(any(Book.class))).thenReturn(book);
+        when(userBookRepository.findRatingAggregate(1L)).thenReturn(ratingAggregate(1, 0, null));
         
         UserBookResponse result = userBookService.removeRating(user, 1L);
         
@@ -217,4 +245,23 @@ class UserBookServiceTest {
         verify(userBookRepository).findByUserIdAndBookId(1L, 1L);
         verify(userBookRepository, never()).save(any(UserBook.class));
     }
+    
+    private UserBookRepository.RatingAggregate ratingAggregate(long entries, long ratings, Double average) {
+        return new UserBookRepository.RatingAggregate() {
+            @Override
+            public long getEntryCount() {
+                return entries;
+            }
+            
+            @Override
+            public long getRatingCount() {
+                return ratings;
+            }
+            
+            @Override
+            public Double getAverageRating() {
+                return average;
+            }
+        };
+    }
 }
@@ -0,0 +1,93 @@
+package com.example.bookrecommender.synthetic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticDatasetModelTest {
+    
+    private final SyntheticDatasetModel model =
+            new SyntheticDatasetModel(42, 10_000, 1_000, 50_000, 1.1, 0.8, 0.1, 0.8);
+    
+    @Test
+    void testBookIdsArePermutationOfRange() {
+        Set<Long> ids = new HashSet<>();
+        for (int rank = 0; rank < model.getBooks(); rank++) {
+            long id = model.bookId(rank);
+            assertTrue(id >= 1 && id <= model.getBooks());
+            ids.add(id);
+        }
+        assertEquals(model.getBooks(), ids.size());
+    }
+    
+    @Test
+    void testSameSeedProducesSameLibraries() {
+        SyntheticDatasetModel other = new SyntheticDatasetModel(42, 10_000, 1_000, 50_000, 1.1, 0.8, 0.1, 0.8);
+        
+        assertEquals(libraries(model, 0), libraries(other, 0));
+        assertNotEquals(libraries(model, 0), libraries(model, 1));
+    }
+    
+    @Test
+    void testLibrariesHaveNoDuplicateBooks() {
+        Map<Long, Set<Long>> booksByUser = new HashMap<>();
+        SplittableRandom random = model.random("ratings", 0);
+        for (long userId = 1; userId <= 200; userId++) {
+            model.generateLibrary(userId, random, (user, book, rating, favorite, daysAgo) ->
+                    assertTrue(booksByUser.computeIfAbsent(user, key -> new HashSet<>()).add(book)));
+        }
+    }
+    
+    @Test
+    void testPopularBooksDominateRatings() {
+        Map<Long, Integer> ratingsPerBook = new HashMap<>();
+        int[] total = {0};
+        SplittableRandom random = model.random("ratings", 0);
+        for (long userId = 1; userId <= 1_000; userId++) {
+            model.generateLibrary(userId, random, (user, book, rating, favorite, daysAgo) -> {
+                ratingsPerBook.merge(book, 1, Integer::sum);
+                total[0]++;
+            });
+        }
+        
+        // Top 1% of the catalog should collect far more than 1% of all library entries
+        int topSum = ratingsPerBook.values().stream()
+                .sorted((a, b) -> b - a)
+                .limit(model.getBooks() / 100)
+                .mapToInt(Integer::intValue)
+                .sum();
+        assertTrue(topSum > total[0] * 0.2, "top 1% share was " + (double) topSum / total[0]);
+        // Mean library size follows the requested ratings per user
+        assertEquals(50.0, total[0] / 1_000.0, 10.0);
+    }
+    
+    @Test
+    void testFavoritesAreRatedHighly() {
+        SplittableRandom random = model.random("ratings", 0);
+        for (long userId = 1; userId <= 100; userId++) {
+            model.generateLibrary(userId, random, (user, book, rating, favorite, daysAgo) -> {
+                if (favorite) {
+                    assertTrue(rating != null && rating >= 4);
+                }
+            });
+        }
+    }
+    
+    private static List<String> libraries(SyntheticDatasetModel model, int partition) {
+        List<String> rows = new ArrayList<>();
+        SplittableRandom random = model.random("ratings", partition);
+        for (long userId = 1; userId <= 20; userId++) {
+            model.generateLibrary(userId, random, (user, book, rating, favorite, daysAgo) ->
+                    rows.add(user + ":" + book + ":" + rating + ":" + favorite + ":" + daysAgo));
+        }
+        return rows;
+    }
+}